@@ -27,8 +27,11 @@ import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.MetricsHelper;
 import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.core.transport.HedgedRequestPolicy;
+import com.linkedin.pinot.core.transport.ServerLoadTracker;
 import com.yammer.metrics.core.MetricsRegistry;
 import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +49,11 @@ public class BrokerServerBuilder {
   public static final String DEFAULT_REQUEST_HANDLER_TYPE = "connectionPool";
   public static final String SINGLE_CONNECTION_REQUEST_HANDLER_TYPE = "singleConnection";
 
+  // Configs for the hedged requests (only supported by the single connection request handler)
+  public static final String HEDGED_REQUEST_ENABLED_CONFIG = "pinot.broker.hedgedRequest.enabled";
+  public static final String HEDGED_REQUEST_LATENCY_PERCENTILE_CONFIG = "pinot.broker.hedgedRequest.latencyPercentile";
+  public static final String HEDGED_REQUEST_MIN_DELAY_MS_CONFIG = "pinot.broker.hedgedRequest.minDelayMs";
+
   public enum State {
     INIT,
     STARTING,
@@ -66,6 +74,9 @@ public class BrokerServerBuilder {
   private final AccessControlFactory _accessControlFactory;
   private final MetricsRegistry _metricsRegistry;
   private final BrokerMetrics _brokerMetrics;
+  // Only tracked with the single connection request handler
+  private final ServerLoadTracker _serverLoadTracker;
+  private final HedgedRequestPolicy _hedgedRequestPolicy;
   private final BrokerRequestHandler _brokerRequestHandler;
   private final BrokerAdminApiApplication _brokerAdminApplication;
 
@@ -84,6 +95,22 @@ public class BrokerServerBuilder {
     MetricsHelper.registerMetricsRegistry(_metricsRegistry);
     _brokerMetrics = new BrokerMetrics(_metricsRegistry, !_config.getBoolean(TABLE_LEVEL_METRICS_CONFIG, true));
     _brokerMetrics.initializeGlobalMeters();
+    if (_config.getString(REQUEST_HANDLER_TYPE_CONFIG, DEFAULT_REQUEST_HANDLER_TYPE)
+        .equalsIgnoreCase(SINGLE_CONNECTION_REQUEST_HANDLER_TYPE)) {
+      _serverLoadTracker = new ServerLoadTracker();
+      _serverLoadTracker.registerGauges(_brokerMetrics);
+      if (_config.getBoolean(HEDGED_REQUEST_ENABLED_CONFIG, false)) {
+        _hedgedRequestPolicy = new HedgedRequestPolicy(
+            _config.getDouble(HEDGED_REQUEST_LATENCY_PERCENTILE_CONFIG, HedgedRequestPolicy.DEFAULT_LATENCY_PERCENTILE),
+            _config.getLong(HEDGED_REQUEST_MIN_DELAY_MS_CONFIG, HedgedRequestPolicy.DEFAULT_MIN_DELAY_MS),
+            _routingTable::getSegmentToServersMap);
+      } else {
+        _hedgedRequestPolicy = null;
+      }
+    } else {
+      _serverLoadTracker = null;
+      _hedgedRequestPolicy = null;
+    }
     _brokerRequestHandler = buildRequestHandler();
     _brokerAdminApplication = new BrokerAdminApiApplication(this);
   }
@@ -93,7 +120,7 @@ public class BrokerServerBuilder {
     if (requestHandlerType.equalsIgnoreCase(SINGLE_CONNECTION_REQUEST_HANDLER_TYPE)) {
       LOGGER.info("Using SingleConnectionBrokerRequestHandler");
       return new SingleConnectionBrokerRequestHandler(_config, _routingTable, _timeBoundaryService,
-          _accessControlFactory, _tableQueryQuotaManager, _brokerMetrics);
+          _accessControlFactory, _tableQueryQuotaManager, _brokerMetrics, _serverLoadTracker, _hedgedRequestPolicy);
     } else {
       LOGGER.info("Using ConnectionPoolBrokerRequestHandler");
       return new ConnectionPoolBrokerRequestHandler(_config, _routingTable, _timeBoundaryService, _accessControlFactory,
@@ -159,6 +186,16 @@ public class BrokerServerBuilder {
     return _brokerMetrics;
   }
 
+  @Nullable
+  public ServerLoadTracker getServerLoadTracker() {
+    return _serverLoadTracker;
+  }
+
+  @Nullable
+  public HedgedRequestPolicy getHedgedRequestPolicy() {
+    return _hedgedRequestPolicy;
+  }
+
   public BrokerRequestHandler getBrokerRequestHandler() {
     return _brokerRequestHandler;
   }
@@ -201,6 +201,10 @@ public class HelixBrokerStarter {
         _helixExternalViewBasedRouting.getTimeBoundaryService(), _liveInstancesListener, _tableQueryQuotaManager);
     _accessControlFactory = brokerServerBuilder.getAccessControlFactory();
     _helixExternalViewBasedRouting.setBrokerMetrics(brokerServerBuilder.getBrokerMetrics());
+    _helixExternalViewBasedRouting.setServerLoadTracker(brokerServerBuilder.getServerLoadTracker());
+    if (brokerServerBuilder.getHedgedRequestPolicy() != null) {
+      _helixExternalViewBasedRouting.enableSegmentToServersMap();
+    }
     _tableQueryQuotaManager.setBrokerMetrics(brokerServerBuilder.getBrokerMetrics());
     brokerServerBuilder.start();
 
@@ -39,6 +39,7 @@ import com.linkedin.pinot.pql.parsers.Pql2Compiler;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -75,6 +76,7 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
   protected final long _brokerTimeoutMs;
   protected final int _queryResponseLimit;
   protected final int _queryLogLength;
+  protected final boolean _enableTypedGroupByDataTable;
 
   public BaseBrokerRequestHandler(Configuration config, RoutingTable routingTable,
       TimeBoundaryService timeBoundaryService, AccessControlFactory accessControlFactory,
@@ -90,9 +92,12 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     _brokerTimeoutMs = config.getLong(CONFIG_OF_BROKER_TIMEOUT_MS, DEFAULT_BROKER_TIMEOUT_MS);
     _queryResponseLimit = config.getInt(CONFIG_OF_BROKER_QUERY_RESPONSE_LIMIT, DEFAULT_BROKER_QUERY_RESPONSE_LIMIT);
     _queryLogLength = config.getInt(CONFIG_OF_BROKER_QUERY_LOG_LENGTH, DEFAULT_BROKER_QUERY_LOG_LENGTH);
+    _enableTypedGroupByDataTable = config.getBoolean(CONFIG_OF_BROKER_ENABLE_TYPED_GROUP_BY_DATA_TABLE,
+        DEFAULT_BROKER_ENABLE_TYPED_GROUP_BY_DATA_TABLE);
 
-    LOGGER.info("Broker Id: {}, timeout: {}ms, query response limit: {}, query log length: {}", _brokerId,
-        _brokerTimeoutMs, _queryResponseLimit, _queryLogLength);
+    LOGGER.info(
+        "Broker Id: {}, timeout: {}ms, query response limit: {}, query log length: {}, typed group-by data table: {}",
+        _brokerId, _brokerTimeoutMs, _queryResponseLimit, _queryLogLength, _enableTypedGroupByDataTable);
   }
 
   private String getDefaultBrokerId() {
@@ -202,6 +207,12 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
       LOGGER.debug("Debug options are set to: {} for request {}: {}", debugOptions, requestId, query);
       brokerRequest.setDebugOptions(debugOptions);
     }
+    if (_enableTypedGroupByDataTable && brokerRequest.isSetGroupBy()) {
+      if (brokerRequest.getQueryOptions() == null) {
+        brokerRequest.setQueryOptions(new HashMap<>());
+      }
+      brokerRequest.getQueryOptions().put(QueryOptionKey.TYPED_GROUP_BY_DATA_TABLE, "true");
+    }
 
     // Optimize the query
     // TODO: get time column name from schema or table config so that we can apply it for REALTIME only case
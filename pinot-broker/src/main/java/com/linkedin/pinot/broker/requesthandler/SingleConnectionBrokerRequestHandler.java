@@ -27,15 +27,20 @@ import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.BrokerResponse;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
-import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
+import com.linkedin.pinot.core.query.reduce.StreamingBrokerReducer;
 import com.linkedin.pinot.core.transport.AsyncQueryResponse;
+import com.linkedin.pinot.core.transport.HedgedRequestPolicy;
 import com.linkedin.pinot.core.transport.QueryRouter;
 import com.linkedin.pinot.core.transport.Server;
+import com.linkedin.pinot.core.transport.ServerLoadTracker;
 import com.linkedin.pinot.core.transport.ServerResponse;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.configuration.Configuration;
@@ -44,16 +49,30 @@ import org.apache.commons.configuration.Configuration;
 /**
  * The <code>SingleConnectionBrokerRequestHandler</code> class is a thread-safe broker request handler using a single
  * connection per server to route the queries.
+ * <p>The data tables (including the ones from the hedged requests) are merged on the reduce executor instead of the
+ * network threads, so that a slow merge does not delay reading the responses from the other servers.
  */
 @ThreadSafe
 public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandler {
+  private final ExecutorService _reduceExecutor;
   private final QueryRouter _queryRouter;
 
   public SingleConnectionBrokerRequestHandler(Configuration config, RoutingTable routingTable,
       TimeBoundaryService timeBoundaryService, AccessControlFactory accessControlFactory,
       TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics) {
+    this(config, routingTable, timeBoundaryService, accessControlFactory, tableQueryQuotaManager, brokerMetrics, null,
+        null);
+  }
+
+  public SingleConnectionBrokerRequestHandler(Configuration config, RoutingTable routingTable,
+      TimeBoundaryService timeBoundaryService, AccessControlFactory accessControlFactory,
+      TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics,
+      @Nullable ServerLoadTracker serverLoadTracker, @Nullable HedgedRequestPolicy hedgedRequestPolicy) {
     super(config, routingTable, timeBoundaryService, accessControlFactory, tableQueryQuotaManager, brokerMetrics);
-    _queryRouter = new QueryRouter(_brokerId, brokerMetrics);
+    int numReduceThreads = config.getInt(CommonConstants.Broker.CONFIG_OF_BROKER_NUM_REDUCE_THREADS,
+        CommonConstants.Broker.DEFAULT_BROKER_NUM_REDUCE_THREADS);
+    _reduceExecutor = Executors.newFixedThreadPool(numReduceThreads, new NamedThreadFactory("BrokerReduceThread"));
+    _queryRouter = new QueryRouter(_brokerId, brokerMetrics, serverLoadTracker, hedgedRequestPolicy, _reduceExecutor);
   }
 
   @Override
@@ -63,6 +82,7 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
   @Override
   public synchronized void shutDown() {
     _queryRouter.shutDown();
+    _reduceExecutor.shutdownNow();
   }
 
   @Override
@@ -74,36 +94,35 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
 
     String rawTableName = TableNameBuilder.extractRawTableName(originalBrokerRequest.getQuerySource().getTableName());
     long scatterGatherStartTimeNs = System.nanoTime();
+    // Reduce each data table as soon as it is received so that the reduce overlaps with waiting for the other servers
+    // and the data tables can be released right away
+    StreamingBrokerReducer streamingBrokerReducer =
+        _brokerReduceService.createStreamingReducer(originalBrokerRequest, _brokerMetrics);
     AsyncQueryResponse asyncQueryResponse =
         _queryRouter.submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable,
-            realtimeBrokerRequest, realtimeRoutingTable, timeoutMs);
+            realtimeBrokerRequest, realtimeRoutingTable, timeoutMs,
+            (server, dataTable) -> streamingBrokerReducer.reduceDataTable(getServerInstance(server), dataTable));
     Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
     _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.SCATTER_GATHER,
         System.nanoTime() - scatterGatherStartTimeNs);
     serverStats.setServerStats(asyncQueryResponse.getStats());
 
-    // TODO: do not convert Server to ServerInstance
+    // NOTE: a server is marked responded after its data tables are consumed, so count the servers responded before the
+    // reduce is finished (data tables received after the reduce is finished are ignored). The data tables of a server
+    // might come from multiple hedged requests, so do not count the data tables reduced.
     int numServersQueried = response.size();
+    int numServersResponded = 0;
     long totalResponseSize = 0;
-    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>(numServersQueried);
-    for (Map.Entry<Server, ServerResponse> entry : response.entrySet()) {
-      ServerResponse serverResponse = entry.getValue();
-      DataTable dataTable = serverResponse.getDataTable();
-      if (dataTable != null) {
-        Server server = entry.getKey();
-        if (server.getTableType() == TableType.OFFLINE) {
-          dataTableMap.put(new ServerInstance(server.getHostName(), server.getPort(), 0), dataTable);
-        } else {
-          dataTableMap.put(new ServerInstance(server.getHostName(), server.getPort(), 1), dataTable);
-        }
+    for (ServerResponse serverResponse : response.values()) {
+      if (serverResponse.isDataTableReceived()) {
+        numServersResponded++;
         totalResponseSize += serverResponse.getResponseSize();
       }
     }
-    int numServersResponded = dataTableMap.size();
 
+    // NOTE: the data tables are already merged, only the final results are computed in the reduce phase
     long reduceStartTimeNs = System.nanoTime();
-    BrokerResponseNative brokerResponse =
-        _brokerReduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, _brokerMetrics);
+    BrokerResponseNative brokerResponse = streamingBrokerReducer.getBrokerResponse();
     _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.REDUCE, System.nanoTime() - reduceStartTimeNs);
 
     brokerResponse.setNumServersQueried(numServersQueried);
@@ -119,4 +138,13 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
 
     return brokerResponse;
   }
+
+  // TODO: do not convert Server to ServerInstance
+  private static ServerInstance getServerInstance(Server server) {
+    if (server.getTableType() == TableType.OFFLINE) {
+      return new ServerInstance(server.getHostName(), server.getPort(), 0);
+    } else {
+      return new ServerInstance(server.getHostName(), server.getPort(), 1);
+    }
+  }
 }
@@ -17,6 +17,7 @@ package com.linkedin.pinot.broker.routing;
 
 import com.google.common.collect.Sets;
 import com.linkedin.pinot.broker.routing.builder.RoutingTableBuilder;
+import com.linkedin.pinot.broker.routing.builder.RoutingTableBuilderUtil;
 import com.linkedin.pinot.common.config.TableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.metrics.BrokerMeter;
@@ -26,6 +27,7 @@ import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.EqualityUtils;
 import com.linkedin.pinot.common.utils.NetUtil;
 import com.linkedin.pinot.common.utils.helix.HelixHelper;
+import com.linkedin.pinot.core.transport.ServerLoadTracker;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -67,6 +69,9 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   private final Map<String, Map<String, InstanceConfig>> _lastKnownInstanceConfigsForTable = new ConcurrentHashMap<>();
   private final Map<String, InstanceConfig> _lastKnownInstanceConfigs = new ConcurrentHashMap<>();
   private final Map<String, Set<String>> _tablesForInstance = new ConcurrentHashMap<>();
+  // Only tracked for OFFLINE tables when enabled (for hedged requests)
+  private final Map<String, Map<String, List<String>>> _segmentToServersMapMap = new ConcurrentHashMap<>();
+  private volatile boolean _segmentToServersMapEnabled = false;
 
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
   private final HelixManager _helixManager;
@@ -74,6 +79,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
   private BrokerMetrics _brokerMetrics;
 
+  private ServerLoadTracker _serverLoadTracker;
+
   private Configuration _configuration;
 
   private ZkHelixPropertyStore<ZNRecord> _propertyStore;
@@ -106,12 +113,29 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _brokerMetrics = brokerMetrics;
   }
 
+  public void setServerLoadTracker(ServerLoadTracker serverLoadTracker) {
+    _serverLoadTracker = serverLoadTracker;
+  }
+
+  /**
+   * Enables tracking the map from segment to the servers that can serve the segment for each OFFLINE table, should be
+   * called before any table is added.
+   */
+  public void enableSegmentToServersMap() {
+    _segmentToServersMapEnabled = true;
+  }
+
+  @Override
+  public Map<String, List<String>> getSegmentToServersMap(String tableName) {
+    return _segmentToServersMapMap.get(tableName);
+  }
+
   public void markDataResourceOnline(TableConfig tableConfig, ExternalView externalView,
       List<InstanceConfig> instanceConfigList) {
     String tableName = tableConfig.getTableName();
 
     RoutingTableBuilder routingTableBuilder =
-        _routingTableBuilderFactory.createRoutingTableBuilder(tableConfig, _brokerMetrics);
+        _routingTableBuilderFactory.createRoutingTableBuilder(tableConfig, _brokerMetrics, _serverLoadTracker);
     LOGGER.info("Initialized routingTableBuilder: {} for table {}", routingTableBuilder.getClass().getName(),
         tableName);
     _routingTableBuilderMap.put(tableName, routingTableBuilder);
@@ -237,6 +261,10 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       Map<String, InstanceConfig> relevantInstanceConfigs = new HashMap<>();
 
       routingTableBuilder.computeRoutingTableFromExternalView(tableNameWithType, externalView, instanceConfigs);
+      if (_segmentToServersMapEnabled && tableType == CommonConstants.Helix.TableType.OFFLINE) {
+        _segmentToServersMapMap.put(tableNameWithType,
+            RoutingTableBuilderUtil.computeSegmentToOnlineServersMap(externalView, instanceConfigs));
+      }
 
       // Keep track of the instance configs that are used in that routing table
       updateInstanceConfigsMapFromExternalView(relevantInstanceConfigs, instanceConfigs, externalView);
@@ -365,6 +393,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _lastKnownExternalViewVersionMap.remove(tableName);
     _lastKnownInstanceConfigsForTable.remove(tableName);
     _timeBoundaryService.remove(tableName);
+    _segmentToServersMapMap.remove(tableName);
 
     // Remove table from all instances
     synchronized (_tablesForInstance) {
@@ -17,6 +17,7 @@ package com.linkedin.pinot.broker.routing;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 
 /**
@@ -40,6 +41,16 @@ public interface RoutingTable {
    */
   boolean routingTableExists(String tableName);
 
+  /**
+   * Get the map from segment to the servers that can serve the segment, which can be used to re-issue the segments to
+   * other replicas.
+   *
+   * @param tableName Table name
+   * @return Map from segment to list of servers, or null if not available
+   */
+  @Nullable
+  Map<String, List<String>> getSegmentToServersMap(String tableName);
+
   /**
    * Dump a snapshot of all the routing tables for the given table.
    *
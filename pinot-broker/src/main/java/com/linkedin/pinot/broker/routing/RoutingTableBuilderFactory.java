@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.broker.routing;
 
+import com.linkedin.pinot.broker.routing.builder.AdaptiveReplicaSelectionRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.BalancedRandomRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.DefaultOfflineRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.DefaultRealtimeRoutingTableBuilder;
@@ -23,12 +24,16 @@ import com.linkedin.pinot.broker.routing.builder.KafkaLowLevelConsumerRoutingTab
 import com.linkedin.pinot.broker.routing.builder.PartitionAwareOfflineRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.PartitionAwareRealtimeRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.RoutingTableBuilder;
+import com.linkedin.pinot.common.config.RoutingConfig;
 import com.linkedin.pinot.common.config.SegmentsValidationAndRetentionConfig;
 import com.linkedin.pinot.common.config.TableConfig;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.core.realtime.stream.StreamConfig;
+import com.linkedin.pinot.core.transport.ServerLoadTracker;
+import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
@@ -59,6 +64,16 @@ public class RoutingTableBuilderFactory {
   }
 
   public RoutingTableBuilder createRoutingTableBuilder(TableConfig tableConfig, BrokerMetrics brokerMetrics) {
+    return createRoutingTableBuilder(tableConfig, brokerMetrics, null);
+  }
+
+  /**
+   * Creates the routing table builder for the given table.
+   * <p>If adaptive replica selection is enabled in the routing table builder options and the server load tracker is
+   * provided, the routing table builder is wrapped to pick the replica for each segment based on the server load.
+   */
+  public RoutingTableBuilder createRoutingTableBuilder(TableConfig tableConfig, BrokerMetrics brokerMetrics,
+      @Nullable ServerLoadTracker serverLoadTracker) {
     String builderName = null;
     if (tableConfig.getRoutingConfig() != null) {
       builderName = tableConfig.getRoutingConfig().getRoutingTableBuilderName();
@@ -134,7 +149,28 @@ public class RoutingTableBuilderFactory {
         }
         break;
     }
+    if (serverLoadTracker != null && isAdaptiveReplicaSelectionEnabled(tableConfig)) {
+      // Replicas cannot be mixed across consumer groups for HLC, and partition aware routing relies on the replica
+      // group assignment, so only wrap the routing table builders where each segment can be served by any replica
+      if (builder instanceof BalancedRandomRoutingTableBuilder || builder instanceof DefaultOfflineRoutingTableBuilder
+          || builder instanceof KafkaLowLevelConsumerRoutingTableBuilder) {
+        builder = new AdaptiveReplicaSelectionRoutingTableBuilder(builder, serverLoadTracker);
+      } else {
+        LOGGER.warn("Adaptive replica selection is not supported by routing table builder: {} for table: {}",
+            builder.getClass().getSimpleName(), tableConfig.getTableName());
+      }
+    }
     builder.init(_configuration, tableConfig, _propertyStore, brokerMetrics);
     return builder;
   }
+
+  private static boolean isAdaptiveReplicaSelectionEnabled(TableConfig tableConfig) {
+    RoutingConfig routingConfig = tableConfig.getRoutingConfig();
+    if (routingConfig == null) {
+      return false;
+    }
+    Map<String, String> routingTableBuilderOptions = routingConfig.getRoutingTableBuilderOptions();
+    return routingTableBuilderOptions != null && Boolean.parseBoolean(
+        routingTableBuilderOptions.get(RoutingConfig.ENABLE_ADAPTIVE_REPLICA_SELECTION_KEY));
+  }
 }
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.linkedin.pinot.broker.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.common.config.TableConfig;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.core.transport.ServerLoadTracker;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.apache.commons.configuration.Configuration;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+
+
+/**
+ * Routing table builder that picks the replica for each segment at query time based on the current load of the servers
+ * tracked by the {@link ServerLoadTracker} (in-flight requests and EWMA latency).
+ * <p>Only the segments in the routing tables pre-computed by the wrapped routing table builder are queried, so the same
+ * rules (e.g. for consuming segments) are honored. The candidate replicas of each segment are the active servers with
+ * the segment in ONLINE state, plus the servers the segment is assigned to by the wrapped routing table builder.
+ * <p>Each segment is assigned to the server with the lowest {@code (numSegmentsAssigned + 1) * loadScore}, so that the
+ * segments are balanced across the replicas when the servers are equally loaded, and a slow server gets a share of the
+ * segments inversely proportional to its load score.
+ * <p>The number of segments routed to each server is metered per table and server, so that the distribution of the
+ * replica selection can be monitored. The load of the servers is reported by the global gauges registered by
+ * {@link ServerLoadTracker#registerGauges}.
+ */
+public class AdaptiveReplicaSelectionRoutingTableBuilder implements RoutingTableBuilder {
+  private final RoutingTableBuilder _routingTableBuilder;
+  private final ServerLoadTracker _serverLoadTracker;
+  private final Random _random = new Random();
+
+  private String _tableName;
+  private BrokerMetrics _brokerMetrics;
+
+  // Set variable as volatile so all threads can get the up-to-date candidate servers
+  private volatile SegmentReplicas _segmentReplicas = new SegmentReplicas(new String[0], new String[0][]);
+
+  public AdaptiveReplicaSelectionRoutingTableBuilder(RoutingTableBuilder routingTableBuilder,
+      ServerLoadTracker serverLoadTracker) {
+    _routingTableBuilder = routingTableBuilder;
+    _serverLoadTracker = serverLoadTracker;
+  }
+
+  @Override
+  public void init(Configuration configuration, TableConfig tableConfig, ZkHelixPropertyStore<ZNRecord> propertyStore,
+      BrokerMetrics brokerMetrics) {
+    _tableName = tableConfig.getTableName();
+    _brokerMetrics = brokerMetrics;
+    _routingTableBuilder.init(configuration, tableConfig, propertyStore, brokerMetrics);
+  }
+
+  @Override
+  public void computeRoutingTableFromExternalView(String tableName, ExternalView externalView,
+      List<InstanceConfig> instanceConfigs) {
+    _routingTableBuilder.computeRoutingTableFromExternalView(tableName, externalView, instanceConfigs);
+
+    Map<String, Set<String>> segmentToServersMap = new HashMap<>();
+    for (Map<String, List<String>> routingTable : _routingTableBuilder.getRoutingTables()) {
+      for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+        String server = entry.getKey();
+        for (String segment : entry.getValue()) {
+          segmentToServersMap.computeIfAbsent(segment, k -> new LinkedHashSet<>()).add(server);
+        }
+      }
+    }
+    // The wrapped routing table builder might not use all the replicas in the pre-computed routing tables, so add all
+    // the active replicas with the segment in ONLINE state
+    Map<String, List<String>> segmentToOnlineServersMap =
+        RoutingTableBuilderUtil.computeSegmentToOnlineServersMap(externalView, instanceConfigs);
+    for (Map.Entry<String, Set<String>> entry : segmentToServersMap.entrySet()) {
+      List<String> onlineServers = segmentToOnlineServersMap.get(entry.getKey());
+      if (onlineServers != null) {
+        entry.getValue().addAll(onlineServers);
+      }
+    }
+    int numSegments = segmentToServersMap.size();
+    String[] segments = new String[numSegments];
+    String[][] servers = new String[numSegments][];
+    int index = 0;
+    for (Map.Entry<String, Set<String>> entry : segmentToServersMap.entrySet()) {
+      segments[index] = entry.getKey();
+      servers[index] = entry.getValue().toArray(new String[0]);
+      index++;
+    }
+    _segmentReplicas = new SegmentReplicas(segments, servers);
+  }
+
+  @Override
+  public Map<String, List<String>> getRoutingTable(RoutingTableLookupRequest request) {
+    SegmentReplicas segmentReplicas = _segmentReplicas;
+    String[] segments = segmentReplicas._segments;
+    String[][] servers = segmentReplicas._servers;
+    int numSegments = segments.length;
+
+    // Take a snapshot of the load scores so that all the segments are assigned based on the same scores
+    Map<String, ServerAssignment> serverAssignmentMap = new HashMap<>();
+    for (int i = 0; i < numSegments; i++) {
+      String[] candidates = servers[i];
+      int numCandidates = candidates.length;
+      // Start from a random candidate to break ties randomly
+      int offset = _random.nextInt(numCandidates);
+      ServerAssignment selected = null;
+      double minCost = Double.MAX_VALUE;
+      for (int j = 0; j < numCandidates; j++) {
+        String server = candidates[(offset + j) % numCandidates];
+        ServerAssignment serverAssignment = serverAssignmentMap.get(server);
+        if (serverAssignment == null) {
+          serverAssignment = new ServerAssignment(_serverLoadTracker.getLoadScore(server));
+          serverAssignmentMap.put(server, serverAssignment);
+        }
+        double cost = (serverAssignment._segments.size() + 1) * serverAssignment._loadScore;
+        if (cost < minCost) {
+          minCost = cost;
+          selected = serverAssignment;
+        }
+      }
+      assert selected != null;
+      selected._segments.add(segments[i]);
+    }
+
+    Map<String, List<String>> routingTable = new HashMap<>();
+    for (Map.Entry<String, ServerAssignment> entry : serverAssignmentMap.entrySet()) {
+      List<String> assignedSegments = entry.getValue()._segments;
+      if (!assignedSegments.isEmpty()) {
+        String server = entry.getKey();
+        routingTable.put(server, assignedSegments);
+        if (_brokerMetrics != null) {
+          _brokerMetrics.addMeteredTableValue(_tableName + "-" + server,
+              BrokerMeter.ADAPTIVE_REPLICA_SELECTION_SEGMENTS, assignedSegments.size());
+        }
+      }
+    }
+    return routingTable;
+  }
+
+  @Override
+  public List<Map<String, List<String>>> getRoutingTables() {
+    return _routingTableBuilder.getRoutingTables();
+  }
+
+  private static class SegmentReplicas {
+    final String[] _segments;
+    final String[][] _servers;
+
+    SegmentReplicas(String[] segments, String[][] servers) {
+      _segments = segments;
+      _servers = servers;
+    }
+  }
+
+  private static class ServerAssignment {
+    final double _loadScore;
+    final List<String> _segments = new ArrayList<>();
+
+    ServerAssignment(double loadScore) {
+      _loadScore = loadScore;
+    }
+  }
+}
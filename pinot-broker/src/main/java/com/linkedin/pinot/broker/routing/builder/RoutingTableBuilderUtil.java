@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.linkedin.pinot.common.utils.CommonConstants;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+
+
+/**
+ * Util class for routing table builders.
+ */
+public class RoutingTableBuilderUtil {
+  private RoutingTableBuilderUtil() {
+  }
+
+  /**
+   * Computes the map from segment to the active servers with the segment in ONLINE state.
+   *
+   * @param externalView helix external view
+   * @param instanceConfigs instance configs used to prune the inactive servers
+   * @return map from segment to the active servers with the segment in ONLINE state, segments without such server are
+   *         not included
+   */
+  public static Map<String, List<String>> computeSegmentToOnlineServersMap(ExternalView externalView,
+      List<InstanceConfig> instanceConfigs) {
+    RoutingTableInstancePruner instancePruner = new RoutingTableInstancePruner(instanceConfigs);
+    Map<String, List<String>> segmentToServersMap = new HashMap<>();
+    for (String segmentName : externalView.getPartitionSet()) {
+      List<String> servers = new ArrayList<>();
+      for (Map.Entry<String, String> entry : externalView.getStateMap(segmentName).entrySet()) {
+        String instanceName = entry.getKey();
+        if (entry.getValue().equals(CommonConstants.Helix.StateModel.SegmentOnlineOfflineStateModel.ONLINE)
+            && !instancePruner.isInactive(instanceName)) {
+          servers.add(instanceName);
+        }
+      }
+      if (!servers.isEmpty()) {
+        segmentToServersMap.put(segmentName, servers);
+      }
+    }
+    return segmentToServersMap;
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.linkedin.pinot.broker.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.common.config.TableConfig;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.core.transport.ServerLoadTracker;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class AdaptiveReplicaSelectionRoutingTableBuilderTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final String[] SERVERS = {"Server_1.2.3.4_1234", "Server_1.2.3.5_2345", "Server_1.2.3.6_3456"};
+  private static final int NUM_SEGMENTS = 60;
+
+  @Test
+  public void testReplicaSelection() throws Exception {
+    ExternalView externalView = new ExternalView(TABLE_NAME);
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    for (String server : SERVERS) {
+      instanceConfigs.add(new InstanceConfig(server));
+      for (int i = 0; i < NUM_SEGMENTS; i++) {
+        externalView.setState("segment_" + i, server, "ONLINE");
+      }
+    }
+
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker();
+    AdaptiveReplicaSelectionRoutingTableBuilder routingTableBuilder =
+        new AdaptiveReplicaSelectionRoutingTableBuilder(new BalancedRandomRoutingTableBuilder(), serverLoadTracker);
+    BrokerMetrics brokerMetrics = new BrokerMetrics(new MetricsRegistry());
+    TableConfig tableConfig =
+        new TableConfig.Builder(CommonConstants.Helix.TableType.OFFLINE).setTableName(TABLE_NAME).build();
+    routingTableBuilder.init(new BaseConfiguration(), tableConfig, null, brokerMetrics);
+    routingTableBuilder.computeRoutingTableFromExternalView(TABLE_NAME, externalView, instanceConfigs);
+    RoutingTableLookupRequest request = new RoutingTableLookupRequest(TABLE_NAME);
+
+    // Without any load recorded, segments should be evenly distributed
+    Map<String, List<String>> routingTable = routingTableBuilder.getRoutingTable(request);
+    checkAllSegmentsRoutedOnce(routingTable);
+    for (String server : SERVERS) {
+      Assert.assertEquals(routingTable.get(server).size(), NUM_SEGMENTS / SERVERS.length);
+      // Number of segments routed to the server should be metered per table and server
+      Assert.assertEquals(brokerMetrics.getMeteredTableValue(TABLE_NAME + "-" + server,
+          BrokerMeter.ADAPTIVE_REPLICA_SELECTION_SEGMENTS).count(), NUM_SEGMENTS / SERVERS.length);
+    }
+
+    // Slow server should get less segments
+    serverLoadTracker.recordRequestSent(SERVERS[0]);
+    serverLoadTracker.recordRequestFinished(SERVERS[0], 99L);
+    serverLoadTracker.recordRequestSent(SERVERS[1]);
+    serverLoadTracker.recordRequestFinished(SERVERS[1], 0L);
+    serverLoadTracker.recordRequestSent(SERVERS[2]);
+    serverLoadTracker.recordRequestFinished(SERVERS[2], 0L);
+    routingTable = routingTableBuilder.getRoutingTable(request);
+    checkAllSegmentsRoutedOnce(routingTable);
+    List<String> segmentsOnSlowServer = routingTable.get(SERVERS[0]);
+    Assert.assertTrue(segmentsOnSlowServer == null || segmentsOnSlowServer.size() < NUM_SEGMENTS / SERVERS.length);
+    Assert.assertTrue(routingTable.get(SERVERS[1]).size() > NUM_SEGMENTS / SERVERS.length);
+    Assert.assertTrue(routingTable.get(SERVERS[2]).size() > NUM_SEGMENTS / SERVERS.length);
+  }
+
+  private void checkAllSegmentsRoutedOnce(Map<String, List<String>> routingTable) {
+    Set<String> routedSegments = new HashSet<>();
+    for (List<String> segments : routingTable.values()) {
+      for (String segment : segments) {
+        Assert.assertTrue(routedSegments.add(segment), "Segment: " + segment + " is routed more than once");
+      }
+    }
+    Assert.assertEquals(routedSegments.size(), NUM_SEGMENTS);
+  }
+}
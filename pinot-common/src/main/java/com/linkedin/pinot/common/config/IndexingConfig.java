@@ -40,6 +40,12 @@ public class IndexingConfig {
   @ConfigKey("createInvertedIndexDuringSegmentGeneration")
   private boolean _createInvertedIndexDuringSegmentGeneration;
 
+  @ConfigKey("rangeIndexColumns")
+  private List<String> _rangeIndexColumns;
+
+  @ConfigKey("bloomFilterColumns")
+  private List<String> _bloomFilterColumns;
+
   @ConfigKey("sortedColumn")
   private List<String> _sortedColumn = new ArrayList<>();
 
@@ -102,6 +108,22 @@ public class IndexingConfig {
     _createInvertedIndexDuringSegmentGeneration = createInvertedIndexDuringSegmentGeneration;
   }
 
+  public List<String> getRangeIndexColumns() {
+    return _rangeIndexColumns;
+  }
+
+  public void setRangeIndexColumns(List<String> rangeIndexColumns) {
+    _rangeIndexColumns = rangeIndexColumns;
+  }
+
+  public List<String> getBloomFilterColumns() {
+    return _bloomFilterColumns;
+  }
+
+  public void setBloomFilterColumns(List<String> bloomFilterColumns) {
+    _bloomFilterColumns = bloomFilterColumns;
+  }
+
   public List<String> getSortedColumn() {
     return _sortedColumn;
   }
@@ -246,6 +268,8 @@ public class IndexingConfig {
     return EqualityUtils.isEqual(_autoGeneratedInvertedIndex, that._autoGeneratedInvertedIndex) &&
         EqualityUtils.isEqual(_createInvertedIndexDuringSegmentGeneration, that._createInvertedIndexDuringSegmentGeneration) &&
         EqualityUtils.isEqual(_invertedIndexColumns, that._invertedIndexColumns) &&
+        EqualityUtils.isEqual(_rangeIndexColumns, that._rangeIndexColumns) &&
+        EqualityUtils.isEqual(_bloomFilterColumns, that._bloomFilterColumns) &&
         EqualityUtils.isEqual(_sortedColumn, that._sortedColumn) &&
         EqualityUtils.isEqual(_loadMode, that._loadMode) &&
         EqualityUtils.isEqual(_streamConfigs, that._streamConfigs) &&
@@ -263,6 +287,8 @@ public class IndexingConfig {
     int result = EqualityUtils.hashCodeOf(_invertedIndexColumns);
     result = EqualityUtils.hashCodeOf(result, _autoGeneratedInvertedIndex);
     result = EqualityUtils.hashCodeOf(result, _createInvertedIndexDuringSegmentGeneration);
+    result = EqualityUtils.hashCodeOf(result, _rangeIndexColumns);
+    result = EqualityUtils.hashCodeOf(result, _bloomFilterColumns);
     result = EqualityUtils.hashCodeOf(result, _sortedColumn);
     result = EqualityUtils.hashCodeOf(result, _loadMode);
     result = EqualityUtils.hashCodeOf(result, _streamConfigs);
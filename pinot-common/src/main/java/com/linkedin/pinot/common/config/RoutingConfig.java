@@ -28,6 +28,8 @@ import org.slf4j.LoggerFactory;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class RoutingConfig {
+  // Routing table builder option to pick the replica for each segment based on the server load
+  public static final String ENABLE_ADAPTIVE_REPLICA_SELECTION_KEY = "enableAdaptiveReplicaSelection";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RoutingConfig.class);
 
@@ -36,7 +38,6 @@ public class RoutingConfig {
   @ConfigKey("routingTableBuilderName")
   private String _routingTableBuilderName;
 
-  // TODO jfim: This seems unused, maybe remove it?
   private Map<String,String> _routingTableBuilderOptions = new HashMap<>();
 
 
@@ -24,7 +24,13 @@ import com.linkedin.pinot.common.Utils;
 */
 public enum BrokerGauge implements AbstractMetrics.Gauge {
   QUERY_QUOTA_CAPACITY_UTILIZATION_RATE("tables", false),
-  NETTY_CONNECTION_CONNECT_TIME_MS("nettyConnection", true);
+  NETTY_CONNECTION_CONNECT_TIME_MS("nettyConnection", true),
+
+  // Load of the servers tracked for the adaptive replica selection, aggregated across all the servers
+  SERVER_LOAD_MEAN_EWMA_LATENCY_MS("milliseconds", true),
+  SERVER_LOAD_MAX_EWMA_LATENCY_MS("milliseconds", true),
+  SERVER_LOAD_MAX_LOAD_SCORE("loadScore", true),
+  SERVER_LOAD_IN_FLIGHT_REQUESTS("requests", true);
 
   private final String brokerGaugeName;
   private final String unit;
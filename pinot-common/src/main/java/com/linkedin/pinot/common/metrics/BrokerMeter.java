@@ -91,6 +91,15 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   // this is different from NO_SERVER_FOUND_EXCEPTIONS which tracks unavailability across all segments
   NO_SERVING_HOST_FOR_SEGMENT("badResponses", false),
 
+  // Number of segments routed to each server by the adaptive replica selection, counted on a per-table-per-server
+  // basis (<table>-<serverInstance>)
+  ADAPTIVE_REPLICA_SELECTION_SEGMENTS("segments", false),
+
+  // Number of servers hedged by sending their segments to other replicas, and the number of them where the hedged
+  // requests responded before the hedged server
+  HEDGED_SERVERS("servers", false),
+  HEDGED_SERVERS_WON("servers", false),
+
   // Netty connection metrics
   NETTY_CONNECTION_REQUESTS_SENT("nettyConnection", true),
   NETTY_CONNECTION_BYTES_SENT("nettyConnection", true),
@@ -35,7 +35,13 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   KAFKA_PARTITION_OFFSET_LAG("messages", false),
   REALTIME_OFFHEAP_MEMORY_USED("bytes", false),
   RUNNING_QUERIES("runningQueries", false),
-  REALTIME_SEGMENT_PARTITION_WIDTH("realtimeSegmentPartitionWidth", false);
+  REALTIME_SEGMENT_PARTITION_WIDTH("realtimeSegmentPartitionWidth", false),
+  // Number of message batches waiting in the queues of the pipelined realtime consumption
+  LLC_FETCHED_BATCHES_QUEUED("batches", false),
+  LLC_DECODED_BATCHES_QUEUED("batches", false),
+  CHUNK_CACHE_SIZE_BYTES("bytes", true),
+  // Number of segments being loaded or waiting for a load slot
+  SEGMENT_LOADS_IN_PROGRESS("segments", true);
 
   private final String gaugeName;
   private final String unit;
@@ -56,7 +56,17 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   NUM_ENTRIES_SCANNED_IN_FILTER("entries", false),
   NUM_ENTRIES_SCANNED_POST_FILTER("entries", false),
   NUM_SEGMENTS_SEARCHED("numSegmentsSearched", false),
-  NUM_MISSING_SEGMENTS("segments", false);
+  NUM_MISSING_SEGMENTS("segments", false),
+  NUM_SEGMENTS_PRUNED("segments", false),
+  NUM_SEGMENTS_PRUNED_BY_BLOOM_FILTER("segments", false),
+  QUERIES_EXECUTED_INLINE("queries", false),
+  QUERY_WORKER_THREADS_ALLOTTED("threads", false),
+  SEGMENT_RESULT_CACHE_HITS("segments", false),
+  SEGMENT_RESULT_CACHE_MISSES("segments", false),
+  CHUNK_CACHE_HITS("chunks", true),
+  CHUNK_CACHE_MISSES("chunks", true),
+  SEGMENTS_LOADED("segments", true),
+  SEGMENT_LOAD_FAILURES("segments", true);
 
   private final String meterName;
   private final String unit;
@@ -23,7 +23,12 @@ import com.linkedin.pinot.common.Utils;
 *
 */
 public enum ServerTimer implements AbstractMetrics.Timer {
-  CURRENT_MSG_EVENT_TIMESTAMP_LAG("currentMsgEventTimestampLag", false);
+  CURRENT_MSG_EVENT_TIMESTAMP_LAG("currentMsgEventTimestampLag", false),
+  // Time spent by each stage of the pipelined realtime consumption on a batch of messages
+  LLC_FETCH_BATCH_TIME("milliseconds", false),
+  LLC_DECODE_BATCH_TIME("milliseconds", false),
+  LLC_INDEX_BATCH_TIME("milliseconds", false),
+  SEGMENT_LOAD_TIME("milliseconds", true);
 
   private final String timerName;
   private final boolean global;
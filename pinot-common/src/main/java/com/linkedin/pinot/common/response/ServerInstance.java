@@ -133,6 +133,10 @@ public class ServerInstance implements Comparable<ServerInstance> {
     return _hostname;
   }
 
+  public int getSeq() {
+    return _seq;
+  }
+
   public int getPort() {
     return _port;
   }
@@ -121,6 +121,9 @@ public class CommonConstants {
     public static final int DEFAULT_BROKER_QUERY_LOG_LENGTH = Integer.MAX_VALUE;
     public static final String CONFIG_OF_BROKER_TIMEOUT_MS = "pinot.broker.timeoutMs";
     public static final long DEFAULT_BROKER_TIMEOUT_MS = 10_000L;
+    // Number of threads to merge the data tables from the servers (only for the single connection request handler)
+    public static final String CONFIG_OF_BROKER_NUM_REDUCE_THREADS = "pinot.broker.reduce.numThreads";
+    public static final int DEFAULT_BROKER_NUM_REDUCE_THREADS = Runtime.getRuntime().availableProcessors();
     public static final String CONFIG_OF_BROKER_ID = "pinot.broker.id";
     public static final BrokerResponseFactory.ResponseType DEFAULT_BROKER_RESPONSE_TYPE =
         BrokerResponseFactory.ResponseType.BROKER_RESPONSE_TYPE_NATIVE;
@@ -129,6 +132,12 @@ public class CommonConstants {
     public static final String CONFIG_OF_BROKER_REFRESH_TIMEBOUNDARY_INFO_SLEEP_INTERVAL =
             "pinot.broker.refresh.timeBoundaryInfo.sleepInterval";
     public static final long DEFAULT_BROKER_REFRESH_TIMEBOUNDARY_INFO_SLEEP_INTERVAL_MS = 10000L;
+    // When enabled, the broker asks the servers to send group-by results as typed rows (one row per group) instead of
+    // one serialized map per aggregation function. Only enable it after all the brokers and servers are upgraded, as
+    // brokers on older versions cannot read the typed rows.
+    public static final String CONFIG_OF_BROKER_ENABLE_TYPED_GROUP_BY_DATA_TABLE =
+        "pinot.broker.query.enableTypedGroupByDataTable";
+    public static final boolean DEFAULT_BROKER_ENABLE_TYPED_GROUP_BY_DATA_TABLE = false;
     public static class Request {
       public static final String PQL = "pql";
       public static final String TRACE = "trace";
@@ -136,6 +145,7 @@ public class CommonConstants {
 
       public static class QueryOptionKey {
         public static final String PRESERVE_TYPE = "preserveType";
+        public static final String TYPED_GROUP_BY_DATA_TABLE = "typedGroupByDataTable";
       }
     }
   }
@@ -155,6 +165,10 @@ public class CommonConstants {
     public static final String CONFIG_OF_ADMIN_API_PORT = "pinot.server.adminapi.port";
     public static final String CONFIG_OF_STARTER_ENABLE_SEGMENTS_LOADING_CHECK = "pinot.server.starter.enableSegmentsLoadingCheck";
     public static final String CONFIG_OF_STARTER_TIMEOUT_IN_SECONDS = "pinot.server.starter.timeoutInSeconds";
+    // When enabled, the server loads the OFFLINE segments assigned to it in parallel before the Helix state
+    // transitions. The OFFLINE->ONLINE transitions still read the segment ZK metadata again and become no-op when the
+    // segment CRC is unchanged, and might wait on the segment lock while the segment is being pre-loaded.
+    public static final String CONFIG_OF_STARTER_ENABLE_SEGMENTS_PRELOADING = "pinot.server.starter.enableSegmentsPreloading";
 
     public static final String CONFIG_OF_SEGMENT_FORMAT_VERSION = "pinot.server.instance.segment.format.version";
     public static final String CONFIG_OF_ENABLE_DEFAULT_COLUMNS = "pinot.server.instance.enable.default.columns";
@@ -170,6 +184,7 @@ public class CommonConstants {
     public static final int DEFAULT_ADMIN_API_PORT = 8097;
     public static final boolean DEFAULT_STARTER_ENABLE_SEGMENTS_LOADING_CHECK = false;
     public static final int DEFAULT_STARTER_TIMEOUT_IN_SECONDS = 600;
+    public static final boolean DEFAULT_STARTER_ENABLE_SEGMENTS_PRELOADING = false;
     public static final String DEFAULT_READ_MODE = "heap";
     public static final String DEFAULT_INSTANCE_BASE_DIR =
         System.getProperty("java.io.tmpdir") + File.separator + "PinotServer";
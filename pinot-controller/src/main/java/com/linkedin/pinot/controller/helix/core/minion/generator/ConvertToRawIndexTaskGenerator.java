@@ -88,6 +88,9 @@ public class ConvertToRawIndexTaskGenerator implements PinotTaskGenerator {
       // Get the config for columns to convert
       String columnsToConvertConfig = taskConfigs.get(MinionConstants.ConvertToRawIndexTask.COLUMNS_TO_CONVERT_KEY);
 
+      // Get the config for compression type
+      String compressionTypeConfig = taskConfigs.get(MinionConstants.ConvertToRawIndexTask.COMPRESSION_TYPE_KEY);
+
       // Generate tasks
       int tableNumTasks = 0;
       for (OfflineSegmentZKMetadata offlineSegmentZKMetadata : _clusterInfoProvider.getOfflineSegmentsMetadata(
@@ -116,6 +119,9 @@ public class ConvertToRawIndexTaskGenerator implements PinotTaskGenerator {
           if (columnsToConvertConfig != null) {
             configs.put(MinionConstants.ConvertToRawIndexTask.COLUMNS_TO_CONVERT_KEY, columnsToConvertConfig);
           }
+          if (compressionTypeConfig != null) {
+            configs.put(MinionConstants.ConvertToRawIndexTask.COMPRESSION_TYPE_KEY, compressionTypeConfig);
+          }
           pinotTaskConfigs.add(new PinotTaskConfig(MinionConstants.ConvertToRawIndexTask.TASK_TYPE, configs));
           tableNumTasks++;
         }
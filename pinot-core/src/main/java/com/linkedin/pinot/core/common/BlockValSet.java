@@ -28,6 +28,17 @@ public interface BlockValSet {
    * DOCUMENT ID BASED APIs
    */
 
+  /**
+   * Returns a value set whose document id based reads share one reader context, so that a scan reading the values in
+   * batches does not re-create the reader state (e.g. the decompressed chunk for raw columns) for every batch.
+   * <p>The returned value set should only be used by a single thread.
+   *
+   * @return Value set sharing one reader context across the document id based reads
+   */
+  default BlockValSet withSharedReaderContext() {
+    return this;
+  }
+
   /**
    * Get dictionary Ids for the given docIds.
    *
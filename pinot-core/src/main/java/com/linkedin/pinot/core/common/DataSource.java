@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 
@@ -25,5 +26,12 @@ public abstract class DataSource extends BaseOperator {
 
   public abstract InvertedIndexReader getInvertedIndex();
 
+  /**
+   * Returns the range index, or <code>null</code> if it does not exist.
+   */
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
   public abstract Dictionary getDictionary();
 }
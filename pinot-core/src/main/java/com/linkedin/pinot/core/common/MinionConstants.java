@@ -46,6 +46,8 @@ public class MinionConstants {
   public static class ConvertToRawIndexTask {
     public static final String TASK_TYPE = "ConvertToRawIndexTask";
     public static final String COLUMNS_TO_CONVERT_KEY = "columnsToConvert";
+    // Compression type of the raw indexes, one of ChunkCompressorFactory.CompressionType (SNAPPY by default)
+    public static final String COMPRESSION_TYPE_KEY = "compressionType";
   }
 
   // Purges rows inside segment that match chosen criteria
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.common.datatable;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.Selection;
+import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.ObjectSerDeUtils;
@@ -301,19 +302,45 @@ public class DataTableBuilder {
     if (brokerRequest.isSetGroupBy()) {
       // Aggregation group-by query.
 
-      String[] columnNames = new String[]{"functionName", "GroupByResultMap"};
-      DataSchema.ColumnDataType[] columnDataTypes =
-          new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT};
+      Map<String, String> queryOptions = brokerRequest.getQueryOptions();
+      if (queryOptions == null || !Boolean.parseBoolean(
+          queryOptions.get(CommonConstants.Broker.Request.QueryOptionKey.TYPED_GROUP_BY_DATA_TABLE))) {
+        // Legacy format: one row of function name and empty group-by result map per aggregation.
+        String[] columnNames = new String[]{"functionName", "GroupByResultMap"};
+        DataSchema.ColumnDataType[] columnDataTypes =
+            new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT};
+
+        // Build the data table.
+        DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
+        for (int i = 0; i < numAggregations; i++) {
+          dataTableBuilder.startRow();
+          dataTableBuilder.setColumn(0, aggregationFunctionContexts[i].getAggregationColumnName());
+          dataTableBuilder.setColumn(1, new HashMap<String, Object>());
+          dataTableBuilder.finishRow();
+        }
+        return dataTableBuilder.build();
+      }
 
-      // Build the data table.
-      DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
+      // Typed format (requested by the broker): one column per group-by expression and aggregation, no rows.
+      // Use STRING column data type as default for group-by expressions.
+      List<String> groupByExpressions = brokerRequest.getGroupBy().getExpressions();
+      int numGroupByExpressions = groupByExpressions.size();
+      int numColumns = numGroupByExpressions + numAggregations;
+      String[] columnNames = new String[numColumns];
+      DataSchema.ColumnDataType[] columnDataTypes = new DataSchema.ColumnDataType[numColumns];
+      for (int i = 0; i < numGroupByExpressions; i++) {
+        columnNames[i] = groupByExpressions.get(i);
+        columnDataTypes[i] = DataSchema.ColumnDataType.STRING;
+      }
       for (int i = 0; i < numAggregations; i++) {
-        dataTableBuilder.startRow();
-        dataTableBuilder.setColumn(0, aggregationFunctionContexts[i].getAggregationColumnName());
-        dataTableBuilder.setColumn(1, new HashMap<String, Object>());
-        dataTableBuilder.finishRow();
+        AggregationFunctionContext aggregationFunctionContext = aggregationFunctionContexts[i];
+        columnNames[numGroupByExpressions + i] = aggregationFunctionContext.getAggregationColumnName();
+        columnDataTypes[numGroupByExpressions + i] =
+            aggregationFunctionContext.getAggregationFunction().getIntermediateResultColumnType();
       }
-      return dataTableBuilder.build();
+
+      // Build the data table.
+      return new DataTableBuilder(new DataSchema(columnNames, columnDataTypes)).build();
     } else {
       // Aggregation only query.
 
@@ -122,4 +122,9 @@ public interface InstanceDataManager {
    * Returns the maximum number of segments allowed to refresh in parallel.
    */
   int getMaxParallelRefreshThreads();
+
+  /**
+   * Returns the maximum number of segments allowed to load in parallel, or non-positive value for unlimited.
+   */
+  int getMaxParallelSegmentLoads();
 }
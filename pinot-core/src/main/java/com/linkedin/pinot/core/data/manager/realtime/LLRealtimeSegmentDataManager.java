@@ -30,6 +30,7 @@ import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
 import com.linkedin.pinot.common.metrics.ServerGauge;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
 import com.linkedin.pinot.common.protocols.SegmentCompletionProtocol;
 import com.linkedin.pinot.common.utils.LLCSegmentName;
 import com.linkedin.pinot.common.utils.NetUtil;
@@ -323,52 +324,41 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     _fieldExtractor.resetCounters();
     final long idlePipeSleepTimeMillis = 100;
     final long maxIdleCountBeforeStatUpdate = (3 * 60 * 1000)/(idlePipeSleepTimeMillis + _partitionLevelStreamConfig.getFetchTimeoutMillis());  // 3 minute count
-    long lastUpdatedOffset = _currentOffset;  // so that we always update the metric when we enter this method.
-    long idleCount = 0;
     // At this point, we know that we can potentially move the offset, so the old saved segment file is not valid
     // anymore. Remove the file if it exists.
     removeSegmentFile();
 
-    final long _endOffset = Long.MAX_VALUE; // No upper limit on stream offset
     segmentLogger.info("Starting consumption loop start offset {}, finalOffset {}", _currentOffset, _finalOffset);
-    while(!_shouldStop && !endCriteriaReached()) {
-      // Consume for the next _kafkaReadTime ms, or we get to final offset, whichever happens earlier,
-      // Update _currentOffset upon return from this method
-      MessageBatch messageBatch;
-      try {
-        messageBatch = _partitionLevelConsumer.fetchMessages(_currentOffset, _endOffset,
-            _partitionLevelStreamConfig.getFetchTimeoutMillis());
-        consecutiveErrorCount = 0;
-      } catch (TimeoutException e) {
-        handleTransientStreamErrors(e);
-        continue;
-      } catch (TransientConsumerException e) {
-        handleTransientStreamErrors(e);
-        continue;
-      } catch (PermanentConsumerException e) {
-        segmentLogger.warn("Permanent exception from stream when fetching messages, stopping consumption", e);
-        throw e;
-      } catch (Exception e) {
-        // Unknown exception from stream. Treat as a transient exception.
-        // One such exception seen so far is java.net.SocketTimeoutException
-        handleTransientStreamErrors(e);
-        continue;
-      }
+    int pipelineQueueSize = _partitionLevelStreamConfig.getConsumptionPipelineQueueSize();
+    if (pipelineQueueSize > 0) {
+      consumeWithPipeline(pipelineQueueSize, idlePipeSleepTimeMillis, maxIdleCountBeforeStatUpdate);
+    } else {
+      long lastUpdatedOffset = _currentOffset;  // so that we always update the metric when we enter this method.
+      long idleCount = 0;
+      while (!_shouldStop && !endCriteriaReached()) {
+        // Consume for the next _kafkaReadTime ms, or we get to final offset, whichever happens earlier,
+        // Update _currentOffset upon return from this method
+        MessageBatch messageBatch = fetchMessages(_currentOffset);
+        if (messageBatch == null) {
+          continue;
+        }
 
-      processStreamEvents(messageBatch, idlePipeSleepTimeMillis);
+        processStreamEvents(messageBatch, idlePipeSleepTimeMillis);
 
-      if (_currentOffset != lastUpdatedOffset) {
-        // We consumed something. Update the highest stream offset as well as partition-consuming metric.
-        _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.HIGHEST_KAFKA_OFFSET_CONSUMED, _currentOffset);
-        _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_PARTITION_CONSUMING, 1);
-        lastUpdatedOffset = _currentOffset;
-      } else {
-        // We did not consume any rows. Update the partition-consuming metric only if we have been idling for a long time.
-        // Create a new stream consumer wrapper, in case we are stuck on something.
-        if (++idleCount > maxIdleCountBeforeStatUpdate) {
+        if (_currentOffset != lastUpdatedOffset) {
+          // We consumed something. Update the highest stream offset as well as partition-consuming metric.
+          _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.HIGHEST_KAFKA_OFFSET_CONSUMED,
+              _currentOffset);
           _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_PARTITION_CONSUMING, 1);
-          idleCount = 0;
-          makeStreamConsumer("Idle for too long");
+          lastUpdatedOffset = _currentOffset;
+        } else {
+          // We did not consume any rows. Update the partition-consuming metric only if we have been idling for a long
+          // time. Create a new stream consumer wrapper, in case we are stuck on something.
+          if (++idleCount > maxIdleCountBeforeStatUpdate) {
+            _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_PARTITION_CONSUMING, 1);
+            idleCount = 0;
+            makeStreamConsumer("Idle for too long");
+          }
         }
       }
     }
@@ -384,6 +374,150 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     return true;
   }
 
+  /**
+   * Fetches the messages from the stream starting from the given offset, returns <code>null</code> if the fetch failed
+   * with a transient error and should be retried.
+   */
+  private MessageBatch fetchMessages(long startOffset) throws Exception {
+    final long _endOffset = Long.MAX_VALUE; // No upper limit on stream offset
+    try {
+      MessageBatch messageBatch = _partitionLevelConsumer.fetchMessages(startOffset, _endOffset,
+          _partitionLevelStreamConfig.getFetchTimeoutMillis());
+      consecutiveErrorCount = 0;
+      return messageBatch;
+    } catch (TimeoutException e) {
+      handleTransientStreamErrors(e);
+      return null;
+    } catch (TransientConsumerException e) {
+      handleTransientStreamErrors(e);
+      return null;
+    } catch (PermanentConsumerException e) {
+      segmentLogger.warn("Permanent exception from stream when fetching messages, stopping consumption", e);
+      throw e;
+    } catch (Exception e) {
+      // Unknown exception from stream. Treat as a transient exception.
+      // One such exception seen so far is java.net.SocketTimeoutException
+      handleTransientStreamErrors(e);
+      return null;
+    }
+  }
+
+  /**
+   * Consumes with the messages fetched and decoded ahead of indexing by a {@link StreamConsumptionPipeline}. Only the
+   * index stage runs on the consumer thread, so the end criteria are checked and the current offset is updated for
+   * each indexed message, same as {@link #processStreamEvents(MessageBatch, long)}.
+   * <p>The pipeline is closed when the end criteria is reached, and the messages fetched beyond the current offset are
+   * discarded. The fetch and transient error handling are performed by the fetch stage thread while the pipeline is
+   * running, and the field extractor is used by the decode stage thread.
+   */
+  private void consumeWithPipeline(int queueSize, long idlePipeSleepTimeMillis, long maxIdleCountBeforeStatUpdate)
+      throws Exception {
+    long lastUpdatedOffset = _currentOffset;  // so that we always update the metric when we enter this method.
+    StreamConsumptionPipeline pipeline =
+        new StreamConsumptionPipeline(_segmentNameStr, new StreamConsumptionPipeline.MessageFetcher() {
+          @Override
+          public MessageBatch fetchMessages(long startOffset) throws Exception {
+            return LLRealtimeSegmentDataManager.this.fetchMessages(startOffset);
+          }
+
+          @Override
+          public void onIdle() {
+            // Update the partition-consuming metric, and create a new stream consumer wrapper in case we are stuck
+            _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_PARTITION_CONSUMING, 1);
+            makeStreamConsumer("Idle for too long");
+          }
+        }, _messageDecoder, _fieldExtractor, _currentOffset, queueSize, idlePipeSleepTimeMillis,
+            maxIdleCountBeforeStatUpdate, _serverMetrics, _metricKeyName);
+    pipeline.start();
+    try {
+      while (!_shouldStop && !endCriteriaReached()) {
+        // Poll with a timeout so that the end criteria (e.g. time limit) are checked even if there is no message
+        StreamConsumptionPipeline.DecodedBatch decodedBatch = pipeline.poll(idlePipeSleepTimeMillis);
+        if (decodedBatch == null) {
+          continue;
+        }
+
+        long startTime = System.currentTimeMillis();
+        indexDecodedBatch(decodedBatch);
+        _serverMetrics.addTimedTableValue(_metricKeyName, ServerTimer.LLC_INDEX_BATCH_TIME,
+            System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS);
+
+        if (_currentOffset != lastUpdatedOffset) {
+          // We consumed something. Update the highest stream offset as well as partition-consuming metric.
+          _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.HIGHEST_KAFKA_OFFSET_CONSUMED,
+              _currentOffset);
+          _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_PARTITION_CONSUMING, 1);
+          lastUpdatedOffset = _currentOffset;
+        }
+      }
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  /**
+   * Indexes the decoded messages until the end criteria is reached. See
+   * {@link #processStreamEvents(MessageBatch, long)} for the handling of the full segment.
+   * <p>The rows are buffered and indexed into the segment in batches. The buffered rows are flushed before they could
+   * make the end criteria or the segment capacity check differ from indexing the rows one by one (i.e. before reaching
+   * the row limit, and before checking the time limit which extends the consume time for an empty segment), and at the
+   * end of the decoded batch, so the rows indexed and the offset consumed are the same.
+   */
+  private void indexDecodedBatch(StreamConsumptionPipeline.DecodedBatch decodedBatch) {
+    Meter realtimeRowsConsumedMeter = null;
+    Meter realtimeRowsDroppedMeter = null;
+
+    boolean canTakeMore = true;
+    int numMessages = decodedBatch.getNumMessages();
+    List<GenericRow> pendingRows = new ArrayList<>(numMessages);
+    for (int index = 0; index < numMessages; index++) {
+      if (!pendingRows.isEmpty()
+          && _realtimeSegment.getNumDocsIndexed() + pendingRows.size() >= _segmentMaxRowCount) {
+        canTakeMore = flushPendingRows(pendingRows);
+      }
+      if (!pendingRows.isEmpty() && now() >= _consumeEndTime) {
+        canTakeMore = flushPendingRows(pendingRows);
+      }
+      if (_shouldStop || endCriteriaReached()) {
+        break;
+      }
+      if (!canTakeMore) {
+        segmentLogger.error("Buffer full with {} rows consumed (row limit {}, indexed {})", _numRowsConsumed,
+            _numRowsIndexed, _segmentMaxRowCount);
+        throw new RuntimeException("Realtime segment full");
+      }
+
+      GenericRow transformedRow = decodedBatch.getRow(index);
+      if (transformedRow != null) {
+        realtimeRowsConsumedMeter = _serverMetrics
+            .addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1, realtimeRowsConsumedMeter);
+        pendingRows.add(transformedRow);
+      } else {
+        realtimeRowsDroppedMeter = _serverMetrics
+            .addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
+                realtimeRowsDroppedMeter);
+      }
+
+      _currentOffset = decodedBatch.getNextOffset(index);
+      _numRowsConsumed++;
+    }
+    if (!pendingRows.isEmpty()) {
+      flushPendingRows(pendingRows);
+    }
+    updateCurrentDocumentCountMetrics();
+  }
+
+  /**
+   * Helper method to index the pending rows into the segment and clear them, returns whether the segment can take more
+   * rows.
+   */
+  private boolean flushPendingRows(List<GenericRow> pendingRows) {
+    boolean canTakeMore = _realtimeSegment.indexBatch(pendingRows);
+    pendingRows.clear();
+    _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
+    return canTakeMore;
+  }
+
   private void processStreamEvents(MessageBatch messagesAndOffsets, long idlePipeSleepTimeMillis) {
     Meter realtimeRowsConsumedMeter = null;
     Meter realtimeRowsDroppedMeter = null;
@@ -0,0 +1,284 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.stream.MessageBatch;
+import com.linkedin.pinot.core.realtime.stream.StreamMessageDecoder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>StreamConsumptionPipeline</code> class fetches and decodes the messages of a stream partition ahead of
+ * indexing, so that fetching, decoding and indexing can run concurrently.
+ * <p>The pipeline has a fetch stage and a decode stage, each running on its own thread, connected to each other and to
+ * the index stage (the consumer thread calling {@link #poll(long)}) by bounded queues. Each decoded batch keeps the
+ * next stream offset of every message, so that the index stage can track the offset of the last indexed message
+ * exactly, and stop at any message. Messages fetched and decoded ahead of the last indexed message are discarded when
+ * the pipeline is closed, and the next pipeline should start from the offset of the last indexed message.
+ * <p>Metrics are emitted for each stage: the time spent on each batch, and the number of batches waiting in each queue.
+ * A full decoded batches queue indicates that indexing is the bottleneck, a full fetched batches queue indicates that
+ * decoding is the bottleneck, and both queues empty indicate that fetching is the bottleneck.
+ */
+public class StreamConsumptionPipeline {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamConsumptionPipeline.class);
+  private static final long QUEUE_TIMEOUT_MS = 100L;
+
+  /**
+   * Fetcher of the messages from the stream, called only by the fetch stage thread.
+   */
+  public interface MessageFetcher {
+
+    /**
+     * Fetches the messages starting from the given offset, returns <code>null</code> if the fetch failed with a
+     * transient error and should be retried.
+     */
+    @Nullable
+    MessageBatch fetchMessages(long startOffset) throws Exception;
+
+    /**
+     * Invoked when no message is fetched for the configured number of consecutive fetches.
+     */
+    void onIdle();
+  }
+
+  /**
+   * Batch of decoded messages, where the row is <code>null</code> for the messages that cannot be decoded.
+   */
+  public static class DecodedBatch {
+    private final GenericRow[] _rows;
+    private final long[] _nextOffsets;
+
+    DecodedBatch(GenericRow[] rows, long[] nextOffsets) {
+      _rows = rows;
+      _nextOffsets = nextOffsets;
+    }
+
+    public int getNumMessages() {
+      return _rows.length;
+    }
+
+    @Nullable
+    public GenericRow getRow(int index) {
+      return _rows[index];
+    }
+
+    public long getNextOffset(int index) {
+      return _nextOffsets[index];
+    }
+  }
+
+  private final String _name;
+  private final MessageFetcher _messageFetcher;
+  private final StreamMessageDecoder _messageDecoder;
+  private final PlainFieldExtractor _fieldExtractor;
+  private final long _idleSleepTimeMs;
+  private final long _maxIdleCount;
+  private final ServerMetrics _serverMetrics;
+  private final String _metricKeyName;
+  private final BlockingQueue<MessageBatch> _fetchedBatches;
+  private final BlockingQueue<DecodedBatch> _decodedBatches;
+  private final Thread _fetchThread;
+  private final Thread _decodeThread;
+
+  private volatile boolean _closed = false;
+  private volatile boolean _fetchDone = false;
+  private volatile boolean _decodeDone = false;
+  private volatile Exception _exception = null;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param name Name of the pipeline, used as the prefix of the thread names
+   * @param messageFetcher Fetcher of the messages from the stream
+   * @param messageDecoder Decoder of the messages, used only by the decode stage thread
+   * @param fieldExtractor Field extractor to transform the decoded rows, used only by the decode stage thread
+   * @param startOffset Offset of the first message to fetch
+   * @param queueSize Capacity of the queues between the stages
+   * @param idleSleepTimeMs Time to sleep after fetching no message
+   * @param maxIdleCount Number of consecutive fetches without message before invoking {@link MessageFetcher#onIdle()}
+   * @param serverMetrics Server metrics
+   * @param metricKeyName Key name of the metrics
+   */
+  public StreamConsumptionPipeline(String name, MessageFetcher messageFetcher, StreamMessageDecoder messageDecoder,
+      PlainFieldExtractor fieldExtractor, long startOffset, int queueSize, long idleSleepTimeMs, long maxIdleCount,
+      ServerMetrics serverMetrics, String metricKeyName) {
+    _name = name;
+    _messageFetcher = messageFetcher;
+    _messageDecoder = messageDecoder;
+    _fieldExtractor = fieldExtractor;
+    _idleSleepTimeMs = idleSleepTimeMs;
+    _maxIdleCount = maxIdleCount;
+    _serverMetrics = serverMetrics;
+    _metricKeyName = metricKeyName;
+    _fetchedBatches = new ArrayBlockingQueue<>(queueSize);
+    _decodedBatches = new ArrayBlockingQueue<>(queueSize);
+    _fetchThread = new Thread(() -> fetch(startOffset), name + "-fetch");
+    _decodeThread = new Thread(this::decode, name + "-decode");
+  }
+
+  /**
+   * Starts the fetch and decode stages.
+   */
+  public void start() {
+    _fetchThread.start();
+    _decodeThread.start();
+  }
+
+  private void fetch(long startOffset) {
+    long offset = startOffset;
+    long idleCount = 0;
+    try {
+      while (!_closed) {
+        long startTime = System.currentTimeMillis();
+        MessageBatch messageBatch = _messageFetcher.fetchMessages(offset);
+        _serverMetrics.addTimedTableValue(_metricKeyName, ServerTimer.LLC_FETCH_BATCH_TIME,
+            System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS);
+        if (messageBatch == null) {
+          continue;
+        }
+        int numMessages = messageBatch.getMessageCount();
+        if (numMessages == 0) {
+          if (++idleCount > _maxIdleCount) {
+            _messageFetcher.onIdle();
+            idleCount = 0;
+          }
+          // Wait for a little bit as to avoid hammering the stream
+          Uninterruptibles.sleepUninterruptibly(_idleSleepTimeMs, TimeUnit.MILLISECONDS);
+          continue;
+        }
+        idleCount = 0;
+        offset = messageBatch.getNextStreamMessageOffsetAtIndex(numMessages - 1);
+        if (!put(_fetchedBatches, messageBatch)) {
+          return;
+        }
+        _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_FETCHED_BATCHES_QUEUED,
+            _fetchedBatches.size());
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception in fetch stage of pipeline: {}", _name, e);
+      _exception = e;
+    } finally {
+      _fetchDone = true;
+    }
+  }
+
+  private void decode() {
+    try {
+      while (!_closed) {
+        MessageBatch messageBatch = _fetchedBatches.poll(QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (messageBatch == null) {
+          // Stop after decoding all the fetched batches if the fetch stage failed
+          if (_fetchDone && _fetchedBatches.isEmpty()) {
+            return;
+          }
+          continue;
+        }
+        long startTime = System.currentTimeMillis();
+        int numMessages = messageBatch.getMessageCount();
+        GenericRow[] rows = new GenericRow[numMessages];
+        long[] nextOffsets = new long[numMessages];
+        for (int i = 0; i < numMessages; i++) {
+          GenericRow decodedRow = _messageDecoder.decode(messageBatch.getMessageAtIndex(i),
+              messageBatch.getMessageOffsetAtIndex(i), messageBatch.getMessageLengthAtIndex(i), new GenericRow());
+          if (decodedRow != null) {
+            rows[i] = _fieldExtractor.transform(decodedRow, new GenericRow());
+          }
+          nextOffsets[i] = messageBatch.getNextStreamMessageOffsetAtIndex(i);
+        }
+        _serverMetrics.addTimedTableValue(_metricKeyName, ServerTimer.LLC_DECODE_BATCH_TIME,
+            System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS);
+        if (!put(_decodedBatches, new DecodedBatch(rows, nextOffsets))) {
+          return;
+        }
+        _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_DECODED_BATCHES_QUEUED,
+            _decodedBatches.size());
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception in decode stage of pipeline: {}", _name, e);
+      _exception = e;
+    } finally {
+      _decodeDone = true;
+    }
+  }
+
+  /**
+   * Helper method to put an element into the queue, returns <code>false</code> if the pipeline is closed before the
+   * element can be put.
+   */
+  private <T> boolean put(BlockingQueue<T> queue, T element) throws InterruptedException {
+    while (!_closed) {
+      if (queue.offer(element, QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the next decoded batch, or <code>null</code> if no batch is available within the given timeout.
+   * <p>If the fetch or decode stage failed, the exception is thrown after all the batches decoded before the failure
+   * are returned.
+   */
+  @Nullable
+  public DecodedBatch poll(long timeoutMs) throws Exception {
+    long endTimeMs = System.currentTimeMillis() + timeoutMs;
+    while (true) {
+      long remainingTimeMs = endTimeMs - System.currentTimeMillis();
+      DecodedBatch decodedBatch =
+          _decodedBatches.poll(Math.max(Math.min(remainingTimeMs, QUEUE_TIMEOUT_MS), 0L), TimeUnit.MILLISECONDS);
+      if (decodedBatch != null) {
+        _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_DECODED_BATCHES_QUEUED,
+            _decodedBatches.size());
+        return decodedBatch;
+      }
+      if (_decodeDone && _decodedBatches.isEmpty()) {
+        if (_exception != null) {
+          throw _exception;
+        }
+        return null;
+      }
+      if (remainingTimeMs <= QUEUE_TIMEOUT_MS) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Stops the fetch and decode stages, and discards the messages not returned by {@link #poll(long)}.
+   * <p>This method blocks until both stages are stopped, so that the message fetcher and decoder can be safely used by
+   * the caller after this call.
+   */
+  public void close() {
+    _closed = true;
+    Uninterruptibles.joinUninterruptibly(_fetchThread);
+    Uninterruptibles.joinUninterruptibly(_decodeThread);
+    _fetchedBatches.clear();
+    _decodedBatches.clear();
+    _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_FETCHED_BATCHES_QUEUED, 0);
+    _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_DECODED_BATCHES_QUEUED, 0);
+  }
+}
@@ -22,6 +22,8 @@ import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.ColumnDataSource;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
@@ -69,6 +71,11 @@ public class ImmutableSegmentImpl implements ImmutableSegment {
     return _indexContainerMap.get(column).getInvertedIndex();
   }
 
+  @Override
+  public BloomFilterReader getBloomFilter(String column) {
+    return _indexContainerMap.get(column).getBloomFilter();
+  }
+
   @Override
   public long getSegmentSizeBytes() {
     return _segmentDirectory.getDiskSizeBytes();
@@ -134,6 +141,14 @@ public class ImmutableSegmentImpl implements ImmutableSegment {
       } catch (Exception e) {
         LOGGER.error("Error when close inverted index for column : " + column, e);
       }
+      try {
+        BitmapRangeIndexReader rangeIndex = columnIndexContainer.getRangeIndex();
+        if (rangeIndex != null) {
+          rangeIndex.close();
+        }
+      } catch (Exception e) {
+        LOGGER.error("Error when close range index for column : " + column, e);
+      }
     }
     try {
       _segmentDirectory.close();
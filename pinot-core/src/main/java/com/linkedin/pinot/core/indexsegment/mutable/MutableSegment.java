@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.indexsegment.mutable;
 
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import java.util.List;
 
 
 public interface MutableSegment extends IndexSegment {
@@ -29,6 +30,14 @@ public interface MutableSegment extends IndexSegment {
    */
   boolean index(GenericRow row);
 
+  /**
+   * Indexes a batch of records into the segment. The records become queryable all together after the batch is indexed.
+   *
+   * @param rows Records represented as {@link GenericRow}s
+   * @return Whether the segment can accept more records after the batch is indexed
+   */
+  boolean indexBatch(List<GenericRow> rows);
+
   /**
    * Returns the number of records already indexed into the segment.
    *
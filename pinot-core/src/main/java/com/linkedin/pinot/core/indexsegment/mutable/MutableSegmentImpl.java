@@ -215,6 +215,150 @@ public class MutableSegmentImpl implements MutableSegment {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>The records are indexed column by column: the per-column structures are resolved once for the whole batch, the
+   * dictionary ids are generated in bulk and the forward index is written for consecutive documents. The number of
+   * documents indexed is updated once after all the indexes are updated, so that all the records in the batch become
+   * queryable at the same time.
+   * <p>If metrics aggregation is enabled, the records are indexed one by one because they might be aggregated into the
+   * existing documents.
+   */
+  @Override
+  public boolean indexBatch(List<GenericRow> rows) {
+    if (_aggregateMetrics) {
+      boolean canTakeMore = true;
+      for (GenericRow row : rows) {
+        canTakeMore = index(row);
+      }
+      return canTakeMore;
+    }
+
+    int numRows = rows.size();
+    if (numRows == 0) {
+      return _numDocsIndexed < _capacity;
+    }
+    int numDocs = _numDocsIndexed;
+    Object[] values = new Object[numRows];
+    Map<String, Object> dictIdsMap = new HashMap<>();
+
+    // Update dictionary and forward index column by column
+    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+      String column = fieldSpec.getName();
+      for (int i = 0; i < numRows; i++) {
+        values[i] = rows.get(i).getValue(column);
+      }
+      MutableDictionary dictionary = _dictionaryMap.get(column);
+      DataFileReader indexReaderWriter = _indexReaderWriterMap.get(column);
+      if (fieldSpec.isSingleValueField()) {
+        FixedByteSingleColumnSingleValueReaderWriter svIndexReaderWriter =
+            (FixedByteSingleColumnSingleValueReaderWriter) indexReaderWriter;
+        if (dictionary != null) {
+          // Column with dictionary
+          int[] dictIds = new int[numRows];
+          dictionary.index(values, numRows, dictIds);
+          svIndexReaderWriter.setIntValues(numDocs, dictIds, numRows);
+          dictIdsMap.put(column, dictIds);
+        } else {
+          // No-dictionary column
+          addRawForwardIndex(fieldSpec, svIndexReaderWriter, numDocs, values, numRows);
+        }
+        // Update min/max value for time column
+        if (fieldSpec.getFieldType() == FieldSpec.FieldType.TIME) {
+          updateMinMaxTime(values, numRows);
+        }
+      } else {
+        // No-dictionary not supported for multi-valued columns.
+        FixedByteSingleColumnMultiValueReaderWriter mvIndexReaderWriter =
+            (FixedByteSingleColumnMultiValueReaderWriter) indexReaderWriter;
+        int[][] dictIdsArray = new int[numRows][];
+        int maxNumValues = _maxNumValuesMap.get(column);
+        for (int i = 0; i < numRows; i++) {
+          Object[] multiValues = (Object[]) values[i];
+          int numValues = multiValues.length;
+          int[] dictIds = new int[numValues];
+          dictionary.index(multiValues, numValues, dictIds);
+          mvIndexReaderWriter.setIntArray(numDocs + i, dictIds);
+          dictIdsArray[i] = dictIds;
+          maxNumValues = Math.max(maxNumValues, numValues);
+        }
+        _maxNumValuesMap.put(column, maxNumValues);
+        dictIdsMap.put(column, dictIdsArray);
+      }
+    }
+
+    // Update inverted index at last
+    for (Map.Entry<String, RealtimeInvertedIndexReader> entry : _invertedIndexMap.entrySet()) {
+      RealtimeInvertedIndexReader invertedIndex = entry.getValue();
+      Object dictIds = dictIdsMap.get(entry.getKey());
+      if (dictIds instanceof int[]) {
+        int[] svDictIds = (int[]) dictIds;
+        for (int i = 0; i < numRows; i++) {
+          invertedIndex.add(svDictIds[i], numDocs + i);
+        }
+      } else {
+        int[][] mvDictIds = (int[][]) dictIds;
+        for (int i = 0; i < numRows; i++) {
+          for (int dictId : mvDictIds[i]) {
+            invertedIndex.add(dictId, numDocs + i);
+          }
+        }
+      }
+    }
+
+    // Update number of document indexed at last to make the latest records queryable
+    _numDocsIndexed = numDocs + numRows;
+    return numDocs + numRows <= _capacity;
+  }
+
+  private static void addRawForwardIndex(FieldSpec fieldSpec,
+      FixedByteSingleColumnSingleValueReaderWriter indexReaderWriter, int startDocId, Object[] values, int numValues) {
+    FieldSpec.DataType dataType = fieldSpec.getDataType();
+    switch (dataType) {
+      case INT:
+        for (int i = 0; i < numValues; i++) {
+          indexReaderWriter.setInt(startDocId + i, (Integer) values[i]);
+        }
+        break;
+      case LONG:
+        for (int i = 0; i < numValues; i++) {
+          indexReaderWriter.setLong(startDocId + i, (Long) values[i]);
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < numValues; i++) {
+          indexReaderWriter.setFloat(startDocId + i, (Float) values[i]);
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < numValues; i++) {
+          indexReaderWriter.setDouble(startDocId + i, (Double) values[i]);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException(
+            "Unsupported data type: " + dataType + " for no-dictionary column: " + fieldSpec.getName());
+    }
+  }
+
+  private void updateMinMaxTime(Object[] values, int numValues) {
+    long minTime = _minTime;
+    long maxTime = _maxTime;
+    for (int i = 0; i < numValues; i++) {
+      Object value = values[i];
+      long timeValue;
+      if (value instanceof Number) {
+        timeValue = ((Number) value).longValue();
+      } else {
+        timeValue = Long.valueOf(value.toString());
+      }
+      minTime = Math.min(minTime, timeValue);
+      maxTime = Math.max(maxTime, timeValue);
+    }
+    _minTime = minTime;
+    _maxTime = maxTime;
+  }
+
   private Map<String, Object> updateDictionary(GenericRow row) {
     Map<String, Object> dictIdMap = new HashMap<>();
     for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
@@ -35,4 +35,13 @@ public interface ChunkCompressor {
    */
   int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed)
       throws IOException;
+
+  /**
+   * Returns the maximum size of the compressed output for the given size of input data, which is used to size the output
+   * buffer passed into {@link #compress(ByteBuffer, ByteBuffer)}.
+   *
+   * @param uncompressedSize Size of the input data.
+   * @return Maximum size of the compressed output data.
+   */
+  int maxCompressedSize(int uncompressedSize);
 }
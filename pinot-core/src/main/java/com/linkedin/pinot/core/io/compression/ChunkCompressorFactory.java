@@ -27,7 +27,9 @@ public class ChunkCompressorFactory {
 
   public enum CompressionType {
     PASS_THROUGH(0),
-    SNAPPY(1);
+    SNAPPY(1),
+    LZ4(2),
+    ZSTANDARD(3);
 
     private final int _value;
 
@@ -55,6 +57,12 @@ public class ChunkCompressorFactory {
       case SNAPPY:
         return new SnappyCompressor();
 
+      case LZ4:
+        return new LZ4Compressor();
+
+      case ZSTANDARD:
+        return new ZstandardCompressor();
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -74,6 +82,12 @@ public class ChunkCompressorFactory {
       case SNAPPY:
         return new SnappyDecompressor();
 
+      case LZ4:
+        return new LZ4Decompressor();
+
+      case ZSTANDARD:
+        return new ZstandardDecompressor();
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -30,4 +30,9 @@ public class SnappyCompressor implements ChunkCompressor {
       throws IOException {
     return Snappy.compress(inDecompressed, outCompressed);
   }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    return Snappy.maxCompressedLength(uncompressedSize);
+  }
 }
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.compression;
+
+import com.github.luben.zstd.Zstd;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Implementation of {@link ChunkCompressor} using Zstandard, which has better compression ratio than Snappy and LZ4
+ * at the cost of slower compression. Suitable for cold data where the disk and page cache footprint matters more than
+ * the query latency.
+ * <p>NOTE: both input and output ByteBuffers should be direct.
+ */
+public class ZstandardCompressor implements ChunkCompressor {
+  // Default compression level of Zstandard
+  private static final int COMPRESSION_LEVEL = 3;
+
+  @Override
+  public int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed)
+      throws IOException {
+    Zstd.compress(outCompressed, inUncompressed, COMPRESSION_LEVEL);
+
+    // Make the output ByteBuffer ready for read.
+    outCompressed.flip();
+    return outCompressed.limit();
+  }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    return (int) Zstd.compressBound(uncompressedSize);
+  }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.yammer.metrics.core.Meter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+
+/**
+ * The <code>ChunkCache</code> class is a server-wide cache of the decompressed chunks of the raw (no-dictionary)
+ * forward indexes, so that the same chunk does not need to be decompressed again by every query that reads it.
+ * <p>Each forward index reader registers itself with {@link #newReaderId()} when the segment is loaded, and the cache
+ * key consists of the reader id and the chunk id. The reader id identifies the (segment, column) pair of a specific
+ * instance of the segment, so that the chunks of a reloaded or replaced segment never collide with the old ones. The
+ * chunks of a reader are evicted when the reader is closed (segment unloaded), using the chunks cached for each reader
+ * so that the other entries do not need to be scanned. Chunks put for a reader that is already closed are not cached.
+ * <p>The decompressed chunks are cached off-heap. The cache is bounded by the total size of the cached chunks and
+ * evicts the least recently used chunks, and the off-heap memory of a chunk is released as soon as it is evicted and no
+ * longer being copied. Since the cached chunks can be released at any time, they are copied into the caller's buffer
+ * instead of being shared with the caller. The chunks are allocated on every cache miss, so they are not registered
+ * with {@link PinotDataBuffer} (which tracks the buffers under a global lock); the off-heap memory used by the cache is
+ * tracked by the {@link ServerGauge#CHUNK_CACHE_SIZE_BYTES} gauge instead.
+ */
+@ThreadSafe
+public class ChunkCache {
+  public static final String MAX_SIZE_IN_BYTES_KEY = "chunk.cache.max.size.bytes";
+  public static final long DEFAULT_MAX_SIZE_IN_BYTES = 0L;
+  private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  private final Cache<Key, CachedChunk> _cache;
+  // Map from reader id to the cached chunks of the reader (chunk id to chunk)
+  private final ConcurrentHashMap<Long, ConcurrentHashMap<Integer, CachedChunk>> _readerChunksMap =
+      new ConcurrentHashMap<>();
+  private final AtomicLong _readerIdGenerator = new AtomicLong();
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+  private final ServerMetrics _serverMetrics;
+  private final Meter _hitsMeter;
+  private final Meter _missesMeter;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param maxSizeInBytes Maximum total size of the cached chunks in bytes
+   * @param serverMetrics Server metrics to record the cache hits, misses and size
+   */
+  public ChunkCache(long maxSizeInBytes, @Nonnull ServerMetrics serverMetrics) {
+    this(maxSizeInBytes, serverMetrics, DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Constructor for the class.
+   * <p>The cache is split into <code>concurrencyLevel</code> segments, each bounded by a share of the max size, so
+   * eviction might happen before the total size reaches the max size.
+   *
+   * @param maxSizeInBytes Maximum total size of the cached chunks in bytes
+   * @param serverMetrics Server metrics to record the cache hits, misses and size
+   * @param concurrencyLevel Number of concurrent updates allowed
+   */
+  @VisibleForTesting
+  ChunkCache(long maxSizeInBytes, @Nonnull ServerMetrics serverMetrics, int concurrencyLevel) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid max size in bytes: %s", maxSizeInBytes);
+    _serverMetrics = serverMetrics;
+    _hitsMeter = serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_HITS, 0L, null);
+    _missesMeter = serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_MISSES, 0L, null);
+    _cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(concurrencyLevel)
+        .maximumWeight(maxSizeInBytes)
+        .weigher((Key key, CachedChunk value) -> value._size)
+        .removalListener((RemovalListener<Key, CachedChunk>) notification -> {
+          CachedChunk chunk = notification.getValue();
+          updateSize(-chunk._size);
+          chunk.release();
+          // Only untrack the evicted chunk, the same key might have been cached again with a new chunk
+          Key key = notification.getKey();
+          ConcurrentHashMap<Integer, CachedChunk> chunks = _readerChunksMap.get(key._readerId);
+          if (chunks != null) {
+            chunks.remove(key._chunkId, chunk);
+          }
+        })
+        .build();
+  }
+
+  private void updateSize(long delta) {
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.CHUNK_CACHE_SIZE_BYTES, _sizeInBytes.addAndGet(delta));
+  }
+
+  /**
+   * Returns a new unique id for a forward index reader, and registers the reader until {@link #invalidate(long)} is
+   * called.
+   */
+  public long newReaderId() {
+    long readerId = _readerIdGenerator.getAndIncrement();
+    _readerChunksMap.put(readerId, new ConcurrentHashMap<>());
+    return readerId;
+  }
+
+  /**
+   * Copies the cached chunk for the given reader and chunk id into the given buffer, and flips the buffer so that it is
+   * ready for read.
+   *
+   * @param readerId Reader id
+   * @param chunkId Chunk id
+   * @param destination Buffer to copy the chunk into, must be large enough to hold the chunk
+   * @return Whether the chunk is cached and copied into the given buffer
+   */
+  public boolean get(long readerId, int chunkId, @Nonnull ByteBuffer destination) {
+    CachedChunk chunk = _cache.getIfPresent(new Key(readerId, chunkId));
+    // The chunk might have been evicted and released after the lookup
+    if (chunk != null && chunk.retain()) {
+      try {
+        destination.clear();
+        destination.put(chunk._buffer.duplicate());
+        destination.flip();
+      } finally {
+        chunk.release();
+      }
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_HITS, 1L, _hitsMeter);
+      return true;
+    } else {
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_MISSES, 1L, _missesMeter);
+      return false;
+    }
+  }
+
+  /**
+   * Caches a copy of the given decompressed chunk (from position to limit).
+   * <p>The given ByteBuffer is not modified and can be reused after this call. If the chunk is already cached (put
+   * concurrently by another query), the cached chunk is kept.
+   */
+  public void put(long readerId, int chunkId, @Nonnull ByteBuffer decompressedChunk) {
+    int size = decompressedChunk.remaining();
+    // Nothing to cache for an empty chunk
+    if (size == 0) {
+      return;
+    }
+    ConcurrentHashMap<Integer, CachedChunk> chunks = _readerChunksMap.get(readerId);
+    if (chunks == null) {
+      // Reader already closed
+      return;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+    buffer.put(decompressedChunk.duplicate());
+    buffer.flip();
+    CachedChunk chunk = new CachedChunk(buffer, size);
+    Key key = new Key(readerId, chunkId);
+    updateSize(size);
+    // Never replace a cached chunk so that each key maps to at most one live chunk
+    if (_cache.asMap().putIfAbsent(key, chunk) != null) {
+      updateSize(-size);
+      chunk.release();
+      return;
+    }
+    // NOTE: The removal listener only untracks the chunk it evicted, so a chunk evicted before being tracked leaves a
+    // stale entry, which is overwritten by the next chunk cached for the key or dropped with the reader
+    chunks.put(chunkId, chunk);
+
+    // The reader might have been closed concurrently, in which case invalidate() might have missed the chunk
+    if (!_readerChunksMap.containsKey(readerId)) {
+      _cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Evicts all the cached chunks for the given reader, and unregisters the reader so that no more chunks are cached for
+   * it.
+   */
+  public void invalidate(long readerId) {
+    ConcurrentHashMap<Integer, CachedChunk> chunks = _readerChunksMap.remove(readerId);
+    if (chunks != null) {
+      List<Key> keys = new ArrayList<>(chunks.size());
+      for (int chunkId : chunks.keySet()) {
+        keys.add(new Key(readerId, chunkId));
+      }
+      _cache.invalidateAll(keys);
+    }
+  }
+
+  @VisibleForTesting
+  public long size() {
+    return _cache.size();
+  }
+
+  @VisibleForTesting
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  /**
+   * Off-heap chunk with a reference count, which is released once it is evicted from the cache and no longer being
+   * copied.
+   */
+  private static final class CachedChunk {
+    private final ByteBuffer _buffer;
+    private final int _size;
+    // One reference is held by the cache
+    private final AtomicInteger _refCount = new AtomicInteger(1);
+
+    private CachedChunk(ByteBuffer buffer, int size) {
+      _buffer = buffer;
+      _size = size;
+    }
+
+    /**
+     * Acquires a reference to the chunk, returns <code>false</code> if the chunk is already released.
+     */
+    private boolean retain() {
+      while (true) {
+        int refCount = _refCount.get();
+        if (refCount == 0) {
+          return false;
+        }
+        if (_refCount.compareAndSet(refCount, refCount + 1)) {
+          return true;
+        }
+      }
+    }
+
+    private void release() {
+      if (_refCount.decrementAndGet() == 0) {
+        Cleaner cleaner = ((DirectBuffer) _buffer).cleaner();
+        if (cleaner != null) {
+          cleaner.clean();
+        }
+      }
+    }
+  }
+
+  /**
+   * Key of the chunk cache.
+   */
+  private static final class Key {
+    private final long _readerId;
+    private final int _chunkId;
+
+    private Key(long readerId, int chunkId) {
+      _readerId = readerId;
+      _chunkId = chunkId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) obj;
+      return _readerId == that._readerId && _chunkId == that._chunkId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(_readerId) + _chunkId;
+    }
+  }
+}
@@ -26,13 +26,18 @@ import java.nio.ByteBuffer;
  *        as it avoids chunk decompression. </li>
  *   <li> Id for the chunk </li>
  * </ul>
+ * The chunk buffer is the context's own decompression buffer, which holds either the decompressed chunk or a copy of
+ * the chunk cached in the {@link ChunkCache}. The decompression buffer is allocated on the first read, so that the
+ * contexts that are never read from do not allocate any direct memory.
  */
 public class ChunkReaderContext extends UnSortedValueReaderContext {
+  private final int _maxChunkSize;
   int _chunkId;
   ByteBuffer _chunkBuffer;
+  ByteBuffer _decompressionBuffer;
 
   public ChunkReaderContext(int maxChunkSize) {
-    _chunkBuffer = ByteBuffer.allocateDirect(maxChunkSize);
+    _maxChunkSize = maxChunkSize;
     _chunkId = -1;
   }
 
@@ -40,6 +45,16 @@ public class ChunkReaderContext extends UnSortedValueReaderContext {
     return _chunkBuffer;
   }
 
+  /**
+   * Returns the context's own buffer to decompress chunks into, allocates it on the first call.
+   */
+  public ByteBuffer getDecompressionBuffer() {
+    if (_decompressionBuffer == null) {
+      _decompressionBuffer = ByteBuffer.allocateDirect(_maxChunkSize);
+    }
+    return _decompressionBuffer;
+  }
+
   public int getChunkId() {
     return _chunkId;
   }
@@ -47,4 +62,12 @@ public class ChunkReaderContext extends UnSortedValueReaderContext {
   public void setChunkId(int chunkId) {
     _chunkId = chunkId;
   }
+
+  /**
+   * Sets the current chunk and its id.
+   */
+  public void setChunk(int chunkId, ByteBuffer chunkBuffer) {
+    _chunkId = chunkId;
+    _chunkBuffer = chunkBuffer;
+  }
 }
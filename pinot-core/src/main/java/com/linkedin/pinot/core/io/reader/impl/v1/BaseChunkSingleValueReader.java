@@ -18,10 +18,12 @@ package com.linkedin.pinot.core.io.reader.impl.v1;
 import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
 import com.linkedin.pinot.core.io.compression.ChunkDecompressor;
 import com.linkedin.pinot.core.io.reader.BaseSingleColumnSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.ChunkCache;
 import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,12 +47,26 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
   protected final int _numChunks;
   protected final int _lengthOfLongestEntry;
 
+  // Cache of decompressed chunks shared across queries, null if not enabled or data is not compressed
+  private final ChunkCache _chunkCache;
+  private final long _chunkCacheReaderId;
+
   /**
    * Constructor for the class.
    *
    * @param pinotDataBuffer Data buffer
    */
   public BaseChunkSingleValueReader(PinotDataBuffer pinotDataBuffer) {
+    this(pinotDataBuffer, null);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param pinotDataBuffer Data buffer
+   * @param chunkCache Cache of decompressed chunks shared across queries, or null to decompress chunks per context
+   */
+  public BaseChunkSingleValueReader(PinotDataBuffer pinotDataBuffer, @Nullable ChunkCache chunkCache) {
     _dataBuffer = pinotDataBuffer;
 
     int headerOffset = 0;
@@ -92,10 +108,22 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
 
     // Useful for uncompressed data.
     _rawData = _dataBuffer.view(rawDataStart, _dataBuffer.size());
+
+    // No need to cache uncompressed chunks
+    if (chunkCache != null && _isCompressed) {
+      _chunkCache = chunkCache;
+      _chunkCacheReaderId = chunkCache.newReaderId();
+    } else {
+      _chunkCache = null;
+      _chunkCacheReaderId = -1;
+    }
   }
 
   @Override
   public void close() throws IOException {
+    if (_chunkCache != null) {
+      _chunkCache.invalidate(_chunkCacheReaderId);
+    }
     _dataBuffer.close();
   }
 
@@ -103,7 +131,8 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
    * Helper method to get the chunk for a given row.
    * <ul>
    *   <li> If the chunk already exists in the reader context, returns the same. </li>
-   *   <li> Otherwise, loads the chunk for the row, and sets it in the reader context. </li>
+   *   <li> Otherwise, if the chunk is in the chunk cache, copies the cached chunk into the reader context. </li>
+   *   <li> Otherwise, loads the chunk for the row, and sets it in the reader context (and the chunk cache). </li>
    * </ul>
    * @param row Row for which to get the chunk
    * @param context Reader context
@@ -115,6 +144,12 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
       return context.getChunkBuffer();
     }
 
+    ByteBuffer decompressedBuffer = context.getDecompressionBuffer();
+    if (_chunkCache != null && _chunkCache.get(_chunkCacheReaderId, chunkId, decompressedBuffer)) {
+      context.setChunk(chunkId, decompressedBuffer);
+      return decompressedBuffer;
+    }
+
     int chunkSize;
     int chunkPosition = getChunkPosition(chunkId);
 
@@ -126,7 +161,6 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
       chunkSize = nextChunkOffset - chunkPosition;
     }
 
-    ByteBuffer decompressedBuffer = context.getChunkBuffer();
     decompressedBuffer.clear();
 
     try {
@@ -135,7 +169,10 @@ public abstract class BaseChunkSingleValueReader extends BaseSingleColumnSingleV
       LOGGER.error("Exception caught while decompressing data chunk", e);
       throw new RuntimeException(e);
     }
-    context.setChunkId(chunkId);
+    if (_chunkCache != null) {
+      _chunkCache.put(_chunkCacheReaderId, chunkId, decompressedBuffer);
+    }
+    context.setChunk(chunkId, decompressedBuffer);
     return decompressedBuffer;
   }
 
@@ -41,7 +41,19 @@ public final class FixedBitSingleValueReader extends BaseSingleColumnSingleValue
 
   @Override
   public void readValues(int[] rows, int rowsStartIndex, int rowSize, int[] values, int valuesStartIndex) {
+    if (rowSize == 0) {
+      return;
+    }
     int rowsEndIndex = rowsStartIndex + rowSize;
+
+    // Rows are unique and sorted in ascending order, so they are consecutive if the first and last rows are rowSize - 1
+    // apart (e.g. blocks of documents from a full scan), in which case read them in bulk
+    int startRow = rows[rowsStartIndex];
+    if (valuesStartIndex == 0 && rows[rowsEndIndex - 1] - startRow == rowSize - 1) {
+      _reader.readInt(startRow, rowSize, values);
+      return;
+    }
+
     for (int i = rowsStartIndex; i < rowsEndIndex; i++) {
       values[valuesStartIndex++] = getInt(rows[i]);
     }
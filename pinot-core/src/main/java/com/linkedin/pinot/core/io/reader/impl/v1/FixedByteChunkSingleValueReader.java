@@ -15,11 +15,13 @@
  */
 package com.linkedin.pinot.core.io.reader.impl.v1;
 
+import com.linkedin.pinot.core.io.reader.impl.ChunkCache;
 import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
 import com.linkedin.pinot.core.io.writer.impl.v1.FixedByteChunkSingleValueWriter;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 
 /**
@@ -42,6 +44,16 @@ public class FixedByteChunkSingleValueReader extends BaseChunkSingleValueReader
     super(pinotDataBuffer);
   }
 
+  /**
+   * Constructor for the class.
+   *
+   * @param pinotDataBuffer Data buffer to read from
+   * @param chunkCache Cache of decompressed chunks shared across queries, or null to decompress chunks per context
+   */
+  public FixedByteChunkSingleValueReader(PinotDataBuffer pinotDataBuffer, @Nullable ChunkCache chunkCache) {
+    super(pinotDataBuffer, chunkCache);
+  }
+
   @Override
   public int getInt(int row) {
     if (!isCompressed()) {
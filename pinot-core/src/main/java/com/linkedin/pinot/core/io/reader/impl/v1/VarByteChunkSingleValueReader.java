@@ -16,10 +16,12 @@
 package com.linkedin.pinot.core.io.reader.impl.v1;
 
 import com.linkedin.pinot.common.utils.StringUtil;
+import com.linkedin.pinot.core.io.reader.impl.ChunkCache;
 import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
 import com.linkedin.pinot.core.io.writer.impl.v1.VarByteChunkSingleValueWriter;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 
 /**
@@ -38,7 +40,17 @@ public class VarByteChunkSingleValueReader extends BaseChunkSingleValueReader {
    * @param pinotDataBuffer Data buffer to read from
    */
   public VarByteChunkSingleValueReader(PinotDataBuffer pinotDataBuffer) {
-    super(pinotDataBuffer);
+    this(pinotDataBuffer, null);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param pinotDataBuffer Data buffer
+   * @param chunkCache Cache of decompressed chunks shared across queries, or null to decompress chunks per context
+   */
+  public VarByteChunkSingleValueReader(PinotDataBuffer pinotDataBuffer, @Nullable ChunkCache chunkCache) {
+    super(pinotDataBuffer, chunkCache);
 
     int chunkHeaderSize = _numDocsPerChunk * Integer.BYTES;
     _maxChunkSize = chunkHeaderSize + (_lengthOfLongestEntry * _numDocsPerChunk);
@@ -106,6 +106,28 @@ public class FixedByteSingleColumnSingleValueReaderWriter extends BaseSingleColu
     getWriterForRow(row).setDouble(row, d);
   }
 
+  /**
+   * Sets the int values for the consecutive rows starting from the given row.
+   * <p>The writer for each chunk is resolved only once for all the rows within the chunk.
+   *
+   * @param startRow First row to set
+   * @param values Values to set
+   * @param length Number of values to set
+   */
+  public void setIntValues(int startRow, int[] values, int length) {
+    int endRow = startRow + length;
+    addBufferIfNeeded(endRow - 1);
+    int row = startRow;
+    int valueIndex = 0;
+    while (row < endRow) {
+      WriterWithOffset writer = getWriterForRow(row);
+      int chunkEndRow = Math.min(endRow, (getBufferId(row) + 1) * _numRowsPerChunk);
+      while (row < chunkEndRow) {
+        writer.setInt(row++, values[valueIndex++]);
+      }
+    }
+  }
+
   private WriterWithOffset getWriterForRow(int row) {
     return _writers.get(getBufferId(row));
   }
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.io.util;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteOrder;
 
 
 public final class PinotDataBitSet implements Closeable {
@@ -25,6 +26,9 @@ public final class PinotDataBitSet implements Closeable {
   private static final int[][] NTH_BIT_SET = new int[Byte.SIZE][1 << Byte.SIZE];
   private static final int[] FIRST_BIT_SET = NTH_BIT_SET[0];
   private static final int BYTE_MASK = 0xFF;
+  // Number of values unpacked at a time by the bulk read. The first value of each block always starts at a byte boundary
+  // because a block of 32 values takes exactly (4 * numBitsPerValue) bytes.
+  private static final int BULK_READ_BLOCK_SIZE = 32;
 
   static {
     for (int i = 0; i < (1 << Byte.SIZE); i++) {
@@ -68,9 +72,13 @@ public final class PinotDataBitSet implements Closeable {
   }
 
   private final PinotDataBuffer _dataBuffer;
+  private final long _size;
+  private final boolean _bigEndian;
 
   public PinotDataBitSet(PinotDataBuffer dataBuffer) {
     _dataBuffer = dataBuffer;
+    _size = dataBuffer.size();
+    _bigEndian = dataBuffer.order() == ByteOrder.BIG_ENDIAN;
   }
 
   public int readInt(int index, int numBitsPerValue) {
@@ -96,7 +104,52 @@ public final class PinotDataBitSet implements Closeable {
     }
   }
 
+  /**
+   * Reads <code>length</code> consecutive values starting from <code>startIndex</code> into the buffer.
+   * <p>Values are unpacked in blocks of 32 aligned on multiples of 32 (so that the blocks line up with the document
+   * blocks of the projection), where each value is extracted from an unaligned 8-byte word with a single shift and mask.
+   * The loop for each block is branch free and has no data dependency between values, so the JIT can unroll it. Values
+   * before the first block boundary and after the last full block are read one by one.
+   */
   public void readInt(int startIndex, int numBitsPerValue, int length, int[] buffer) {
+    if (length < 2 * BULK_READ_BLOCK_SIZE) {
+      readIntSequentially(startIndex, numBitsPerValue, length, buffer, 0);
+      return;
+    }
+
+    // Read values before the first block boundary
+    int bufferIndex = (BULK_READ_BLOCK_SIZE - startIndex % BULK_READ_BLOCK_SIZE) % BULK_READ_BLOCK_SIZE;
+    if (bufferIndex > 0) {
+      readIntSequentially(startIndex, numBitsPerValue, bufferIndex, buffer, 0);
+    }
+
+    // Unpack full blocks, making sure the last 8-byte word of the block is inside the buffer
+    int blockSizeInBytes = BULK_READ_BLOCK_SIZE * numBitsPerValue / Byte.SIZE;
+    long byteOffset = (long) (startIndex + bufferIndex) * numBitsPerValue / Byte.SIZE;
+    long mask = (1L << numBitsPerValue) - 1;
+    int valueShift = Long.SIZE - numBitsPerValue;
+    while (length - bufferIndex >= BULK_READ_BLOCK_SIZE && byteOffset + blockSizeInBytes + Long.BYTES <= _size) {
+      int bitOffset = 0;
+      for (int i = 0; i < BULK_READ_BLOCK_SIZE; i++) {
+        long word = _dataBuffer.getLong(byteOffset + (bitOffset >>> 3));
+        if (!_bigEndian) {
+          word = Long.reverseBytes(word);
+        }
+        buffer[bufferIndex + i] = (int) ((word >>> (valueShift - (bitOffset & 7))) & mask);
+        bitOffset += numBitsPerValue;
+      }
+      bufferIndex += BULK_READ_BLOCK_SIZE;
+      byteOffset += blockSizeInBytes;
+    }
+
+    // Read the remaining values
+    if (bufferIndex < length) {
+      readIntSequentially(startIndex + bufferIndex, numBitsPerValue, length - bufferIndex, buffer, bufferIndex);
+    }
+  }
+
+  private void readIntSequentially(int startIndex, int numBitsPerValue, int length, int[] buffer,
+      int bufferStartIndex) {
     long startBitOffset = (long) startIndex * numBitsPerValue;
     int byteOffset = (int) (startBitOffset / Byte.SIZE);
     int bitOffsetInFirstByte = (int) (startBitOffset % Byte.SIZE);
@@ -104,7 +157,8 @@ public final class PinotDataBitSet implements Closeable {
     // Initiated with the value in first byte
     int currentValue = _dataBuffer.getByte(byteOffset) & (BYTE_MASK >>> bitOffsetInFirstByte);
 
-    for (int i = 0; i < length; i++) {
+    int bufferEndIndex = bufferStartIndex + length;
+    for (int i = bufferStartIndex; i < bufferEndIndex; i++) {
       if (bitOffsetInFirstByte == Byte.SIZE) {
         bitOffsetInFirstByte = 0;
         currentValue = _dataBuffer.getByte(++byteOffset) & BYTE_MASK;
@@ -75,6 +75,7 @@ public class RawIndexConverter {
   private final File _convertedIndexDir;
   private final PropertiesConfiguration _convertedProperties;
   private final String _columnsToConvert;
+  private final ChunkCompressorFactory.CompressionType _compressionType;
 
   /**
    * NOTE: original segment should be in V1 format.
@@ -82,6 +83,18 @@ public class RawIndexConverter {
    */
   public RawIndexConverter(@Nonnull File originalIndexDir, @Nonnull File convertedIndexDir,
       @Nullable String columnsToConvert) throws Exception {
+    this(originalIndexDir, convertedIndexDir, columnsToConvert, null);
+  }
+
+  /**
+   * NOTE: original segment should be in V1 format.
+   * TODO: support V3 format
+   *
+   * @param compressionType Compression type of the raw indexes (one of {@link ChunkCompressorFactory.CompressionType}),
+   *                        or <code>null</code> to use SNAPPY
+   */
+  public RawIndexConverter(@Nonnull File originalIndexDir, @Nonnull File convertedIndexDir,
+      @Nullable String columnsToConvert, @Nullable String compressionType) throws Exception {
     FileUtils.copyDirectory(originalIndexDir, convertedIndexDir);
     IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
     indexLoadingConfig.setSegmentVersion(SegmentVersion.v1);
@@ -92,6 +105,8 @@ public class RawIndexConverter {
     _convertedProperties =
         new PropertiesConfiguration(new File(_convertedIndexDir, V1Constants.MetadataKeys.METADATA_FILE_NAME));
     _columnsToConvert = columnsToConvert;
+    _compressionType = compressionType != null ? ChunkCompressorFactory.CompressionType.valueOf(compressionType)
+        : ChunkCompressorFactory.CompressionType.SNAPPY;
   }
 
   public boolean convert() throws Exception {
@@ -192,7 +207,7 @@ public class RawIndexConverter {
     FieldSpec.DataType dataType = fieldSpec.getDataType();
     int lengthOfLongestEntry = _originalSegmentMetadata.getColumnMetadataFor(columnName).getColumnMaxLength();
     try (SingleValueRawIndexCreator rawIndexCreator = SegmentColumnarIndexCreator.getRawIndexCreatorForColumn(
-        _convertedIndexDir, ChunkCompressorFactory.CompressionType.SNAPPY, columnName, dataType,
+        _convertedIndexDir, _compressionType, columnName, dataType,
         _originalSegmentMetadata.getTotalDocs(), lengthOfLongestEntry)) {
       BlockSingleValIterator iterator = (BlockSingleValIterator) dataSource.nextBlock().getBlockValueSet().iterator();
       int docId = 0;
@@ -16,9 +16,11 @@
 package com.linkedin.pinot.core.operator;
 
 import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
@@ -27,8 +29,13 @@ import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUti
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
+import com.linkedin.pinot.core.util.trace.TraceCallable;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -39,7 +46,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,7 +84,20 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
    * result block.
    * <ul>
    *   <li>
-   *     Concurrently merge group-by results form multiple result blocks into a map from group key to group results
+   *     Concurrently merge group-by results from multiple result blocks into per-thread maps from typed group key to
+   *     group results. Each per-thread map is split into partitions based on the hash of the typed group key
+   *     <p>A group key new to a per-thread map is admitted by putting its group results into the shared results map
+   *     if absent, and the number of groups is limited by the size of the shared results map, so that a group dropped
+   *     by one thread is also dropped by the others. The group results put into the shared results map are still only
+   *     updated by the thread owning them
+   *   </li>
+   *   <li>
+   *     Concurrently merge the same partition of all the per-thread maps into the shared results map
+   *   </li>
+   *   <li>
+   *     If the group keys from different segments have different stored types (e.g. after the column data type is
+   *     changed), convert the group keys to the widened stored types and merge the groups with the same converted key
+   *     (e.g. <code>FLOAT</code> value <code>1.1f</code> and <code>DOUBLE</code> value <code>1.1</code>)
    *   </li>
    *   <li>
    *     Sort and trim the results map based on {@code TOP N} in the request
@@ -87,12 +109,26 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
    *   </li>
    * </ul>
    */
+  @SuppressWarnings("unchecked")
   @Override
   protected IntermediateResultsBlock getNextBlock() {
     int numOperators = _operators.size();
-    CountDownLatch operatorLatch = new CountDownLatch(numOperators);
-    ConcurrentHashMap<String, Object[]> resultsMap = new ConcurrentHashMap<>();
+    int numThreads = CombineOperatorUtils.getNumThreadsForQuery(numOperators, _executorService);
+    // Use the number of threads as the number of partitions so that partitions can be merged concurrently
+    int numPartitions = numThreads;
+    long queryEndTime = System.currentTimeMillis() + _timeOutMs;
+
+    CountDownLatch operatorLatch = new CountDownLatch(numThreads);
+    AtomicInteger nextOperatorIndex = new AtomicInteger();
+    AtomicInteger numOperatorsProcessed = new AtomicInteger();
+    Map<TypedGroupKey, Object[]>[][] threadResultsMaps = new Map[numThreads][];
+    // Results map with all the admitted group keys, where the group results are the ones from the per-thread map of the
+    // thread admitting the group key
+    ConcurrentHashMap<TypedGroupKey, Object[]> resultsMap = new ConcurrentHashMap<>();
     AtomicInteger numGroups = new AtomicInteger();
+    // Widened stored types of the group keys from all the segments, and whether the stored types are different
+    AtomicReference<FieldSpec.DataType[]> combinedStoredTypes = new AtomicReference<>();
+    AtomicBoolean hasMixedStoredTypes = new AtomicBoolean();
     ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions = new ConcurrentLinkedQueue<>();
 
     AggregationFunctionContext[] aggregationFunctionContexts =
@@ -103,40 +139,71 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
       aggregationFunctions[i] = aggregationFunctionContexts[i].getAggregationFunction();
     }
 
-    Future[] futures = new Future[numOperators];
-    for (int i = 0; i < numOperators; i++) {
-      int index = i;
+    Future[] futures = new Future[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      int threadIndex = i;
       futures[i] = _executorService.submit(new TraceRunnable() {
         @SuppressWarnings("unchecked")
         @Override
         public void runJob() {
-          AggregationGroupByResult aggregationGroupByResult;
+          Map<TypedGroupKey, Object[]>[] resultsMaps = new Map[numPartitions];
+          for (int i = 0; i < numPartitions; i++) {
+            resultsMaps[i] = new Object2ObjectOpenHashMap<>();
+          }
+          try {
+            // Keep pulling the next operator until all operators are processed, or the query is cancelled or timed out
+            int index;
+            while (!Thread.currentThread().isInterrupted() && System.currentTimeMillis() < queryEndTime
+                && (index = nextOperatorIndex.getAndIncrement()) < numOperators) {
+              mergeOperator(index, resultsMaps);
+              numOperatorsProcessed.getAndIncrement();
+            }
+          } finally {
+            threadResultsMaps[threadIndex] = resultsMaps;
+            operatorLatch.countDown();
+          }
+        }
 
+        private void mergeOperator(int index, Map<TypedGroupKey, Object[]>[] resultsMaps) {
           try {
             IntermediateResultsBlock intermediateResultsBlock =
                 (IntermediateResultsBlock) _operators.get(index).nextBlock();
 
             // Merge processing exceptions.
-            List<ProcessingException> processingExceptionsToMerge = intermediateResultsBlock.getProcessingExceptions();
+            List<ProcessingException> processingExceptionsToMerge =
+                intermediateResultsBlock.getProcessingExceptions();
             if (processingExceptionsToMerge != null) {
               mergedProcessingExceptions.addAll(processingExceptionsToMerge);
             }
 
             // Merge aggregation group-by result.
-            aggregationGroupByResult = intermediateResultsBlock.getAggregationGroupByResult();
+            AggregationGroupByResult aggregationGroupByResult =
+                intermediateResultsBlock.getAggregationGroupByResult();
             if (aggregationGroupByResult != null) {
-              // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
-              Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
-              while (groupKeyIterator.hasNext()) {
-                GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                resultsMap.compute(groupKey._stringKey, (key, value) -> {
+              try {
+                // Iterate over the typed group-by keys, for each key, update the group-by result in the results map
+                // of the partition.
+                Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator =
+                    aggregationGroupByResult.getTypedGroupKeyIterator();
+                FieldSpec.DataType[] storedTypes = null;
+                while (groupKeyIterator.hasNext()) {
+                  GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+                  TypedGroupKey typedGroupKey = groupKey._typedGroupKey;
+                  // Stored types are shared by all the group keys from the same segment
+                  if (typedGroupKey.getStoredTypes() != storedTypes) {
+                    storedTypes = typedGroupKey.getStoredTypes();
+                    combineStoredTypes(storedTypes);
+                  }
+                  Map<TypedGroupKey, Object[]> threadResultsMap =
+                      resultsMaps[getPartitionId(typedGroupKey, numPartitions)];
+                  Object[] value = threadResultsMap.get(typedGroupKey);
                   if (value == null) {
-                    if (numGroups.get() < _numGroupsLimit) {
-                      numGroups.getAndIncrement();
-                      value = new Object[numAggregationFunctions];
-                      for (int i = 0; i < numAggregationFunctions; i++) {
-                        value[i] = aggregationGroupByResult.getResultForKey(groupKey, i);
-                      }
+                    value = new Object[numAggregationFunctions];
+                    for (int i = 0; i < numAggregationFunctions; i++) {
+                      value[i] = aggregationGroupByResult.getResultForKey(groupKey, i);
+                    }
+                    if (admitGroupKey(typedGroupKey, value)) {
+                      threadResultsMap.put(typedGroupKey, value);
                     }
                   } else {
                     for (int i = 0; i < numAggregationFunctions; i++) {
@@ -144,8 +211,10 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
                           aggregationGroupByResult.getResultForKey(groupKey, i));
                     }
                   }
-                  return value;
-                });
+                }
+              } finally {
+                // Release the resources held by the segment result after merging it
+                aggregationGroupByResult.close();
               }
             }
           } catch (Exception e) {
@@ -153,28 +222,94 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
                 _operators.get(index).getClass().getName(), e);
             mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
           }
+        }
 
-          operatorLatch.countDown();
+        /**
+         * Returns whether the group key (new to the per-thread map) can be added into the per-thread map. A group key
+         * already in the results map is always admitted, a new group key is admitted and put into the results map with
+         * the given group results only if the number of groups has not reached the limit.
+         * <p>The number of groups is only incremented within the atomic put of a new group key, so it never goes over
+         * the limit.
+         */
+        private boolean admitGroupKey(TypedGroupKey typedGroupKey, Object[] value) {
+          Object[] resultsMapValue = resultsMap.get(typedGroupKey);
+          if (resultsMapValue == null) {
+            resultsMapValue = resultsMap.computeIfAbsent(typedGroupKey, k -> {
+              if (numGroups.getAndIncrement() < _numGroupsLimit) {
+                return value;
+              } else {
+                numGroups.getAndDecrement();
+                return null;
+              }
+            });
+          }
+          return resultsMapValue != null;
+        }
+
+        /**
+         * Widens the combined stored types with the given stored types of a segment.
+         */
+        private void combineStoredTypes(FieldSpec.DataType[] storedTypes) {
+          FieldSpec.DataType[] previousStoredTypes = combinedStoredTypes.getAndAccumulate(storedTypes,
+              (current, update) -> current != null ? TypedGroupKey.getWidenedStoredTypes(current, update) : update);
+          if (previousStoredTypes != null && !Arrays.equals(previousStoredTypes, storedTypes)) {
+            hasMixedStoredTypes.set(true);
+          }
         }
       });
     }
 
+    List<Future<Void>> partitionFutures = new ArrayList<>(numPartitions);
     try {
       boolean opCompleted = operatorLatch.await(_timeOutMs, TimeUnit.MILLISECONDS);
-      if (!opCompleted) {
+      // Workers stop pulling operators after the query end time, so check whether all operators are processed
+      if (!opCompleted || numOperatorsProcessed.get() < numOperators) {
         // If this happens, the broker side should already timed out, just log the error and return
         String errorMessage = "Timed out while combining group-by results after " + _timeOutMs + "ms";
         LOGGER.error(errorMessage);
         return new IntermediateResultsBlock(new TimeoutException(errorMessage));
       }
 
+      // Merge the same partition of all the per-thread results maps into the results map. All the group keys in the
+      // per-thread results maps are already admitted into the results map, so no need to limit the number of groups
+      // again here. Different partitions have different group keys, so they can be merged concurrently.
+      for (int i = 0; i < numPartitions; i++) {
+        int partitionId = i;
+        partitionFutures.add(_executorService.submit(new TraceCallable<Void>() {
+          @Override
+          public Void callJob() {
+            for (int i = 0; i < numThreads; i++) {
+              for (Map.Entry<TypedGroupKey, Object[]> entry : threadResultsMaps[i][partitionId].entrySet()) {
+                Object[] valueToMerge = entry.getValue();
+                Object[] value = resultsMap.get(entry.getKey());
+                // Skip the group results put into the results map by the same thread
+                if (value != valueToMerge) {
+                  for (int j = 0; j < numAggregationFunctions; j++) {
+                    value[j] = aggregationFunctions[j].merge(value[j], valueToMerge[j]);
+                  }
+                }
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> partitionFuture : partitionFutures) {
+        partitionFuture.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      }
+      Map<TypedGroupKey, Object[]> combinedResultsMap = resultsMap;
+      if (hasMixedStoredTypes.get()) {
+        combinedResultsMap = convertGroupKeys(resultsMap, combinedStoredTypes.get(), aggregationFunctions);
+      }
+
       // Trim the results map.
       AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
           new AggregationGroupByTrimmingService(aggregationFunctions, (int) _brokerRequest.getGroupBy().getTopN());
-      List<Map<String, Object>> trimmedResults =
-          aggregationGroupByTrimmingService.trimIntermediateResultsMap(resultsMap);
+      Map<TypedGroupKey, Object[]> trimmedResults =
+          aggregationGroupByTrimmingService.trimIntermediateResults(combinedResultsMap);
       IntermediateResultsBlock mergedBlock =
-          new IntermediateResultsBlock(aggregationFunctionContexts, trimmedResults, true);
+          new IntermediateResultsBlock(aggregationFunctionContexts, _brokerRequest.getGroupBy().getExpressions(),
+              trimmedResults);
 
       // Set the processing exceptions.
       if (!mergedProcessingExceptions.isEmpty()) {
@@ -193,11 +328,18 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
       mergedBlock.setNumEntriesScannedInFilter(executionStatistics.getNumEntriesScannedInFilter());
       mergedBlock.setNumEntriesScannedPostFilter(executionStatistics.getNumEntriesScannedPostFilter());
       mergedBlock.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
-      // NOTE: numGroups might go slightly over numGroupsLimit because the comparison is not atomic
       if (numGroups.get() >= _numGroupsLimit) {
         mergedBlock.setNumGroupsLimitReached(true);
       }
 
+      // Only send the typed rows when the broker asks for them, brokers on older versions can only read the legacy
+      // format.
+      Map<String, String> queryOptions = _brokerRequest.getQueryOptions();
+      if (queryOptions != null && Boolean.parseBoolean(
+          queryOptions.get(CommonConstants.Broker.Request.QueryOptionKey.TYPED_GROUP_BY_DATA_TABLE))) {
+        mergedBlock.setTypedGroupByDataTable(true);
+      }
+
       return mergedBlock;
     } catch (Exception e) {
       return new IntermediateResultsBlock(e);
@@ -208,9 +350,42 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
           future.cancel(true);
         }
       }
+      for (Future future : partitionFutures) {
+        if (!future.isDone()) {
+          future.cancel(true);
+        }
+      }
     }
   }
 
+  /**
+   * Helper method to convert the group keys in the results map to the given stored types, and merge the group results
+   * for the group keys converted to the same key.
+   */
+  private static Map<TypedGroupKey, Object[]> convertGroupKeys(Map<TypedGroupKey, Object[]> resultsMap,
+      FieldSpec.DataType[] storedTypes, AggregationFunction[] aggregationFunctions) {
+    int numAggregationFunctions = aggregationFunctions.length;
+    Map<TypedGroupKey, Object[]> convertedResultsMap = new HashMap<>(resultsMap.size());
+    for (Map.Entry<TypedGroupKey, Object[]> entry : resultsMap.entrySet()) {
+      TypedGroupKey convertedGroupKey = entry.getKey().convertTo(storedTypes);
+      Object[] valueToMerge = entry.getValue();
+      Object[] value = convertedResultsMap.putIfAbsent(convertedGroupKey, valueToMerge);
+      if (value != null) {
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          value[i] = aggregationFunctions[i].merge(value[i], valueToMerge[i]);
+        }
+      }
+    }
+    return convertedResultsMap;
+  }
+
+  /**
+   * Helper method to get the partition id for the given typed group key.
+   */
+  private static int getPartitionId(TypedGroupKey typedGroupKey, int numPartitions) {
+    return (typedGroupKey.hashCode() & Integer.MAX_VALUE) % numPartitions;
+  }
+
   @Override
   public String getOperatorName() {
     return OPERATOR_NAME;
@@ -23,7 +23,6 @@ import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.query.reduce.CombineService;
 import com.linkedin.pinot.core.util.trace.TraceCallable;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -32,6 +31,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,18 +48,6 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private final long _timeOutMs;
-  //Make this configurable
-  //These two control the parallelism on a per query basis, depending on the number of segments to process
-  private static final int MIN_THREADS_PER_QUERY;
-  private static final int MAX_THREADS_PER_QUERY;
-  private static final int MIN_SEGMENTS_PER_THREAD = 10;
-
-  static {
-    int numCores = Runtime.getRuntime().availableProcessors();
-    MIN_THREADS_PER_QUERY = Math.max(1, (int) (numCores * .5));
-    //Dont have more than 10 threads per query
-    MAX_THREADS_PER_QUERY = Math.min(10, (int) (numCores * .5));
-  }
 
   public CombineOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
       BrokerRequest brokerRequest) {
@@ -72,29 +61,42 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
   protected IntermediateResultsBlock getNextBlock() {
     final long startTime = System.currentTimeMillis();
     final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
-    final int numOperators = _operators.size();
-    // Ensure that the number of groups is not more than the number of segments
-    final int numGroups = Math.min(numOperators, Math.max(MIN_THREADS_PER_QUERY,
-        Math.min(MAX_THREADS_PER_QUERY, (numOperators + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD)));
+    // For selection queries, the operators might be re-ordered and skipped without changing the results
+    final SelectionEarlyTermination selectionEarlyTermination =
+        SelectionEarlyTermination.create(_brokerRequest, _operators);
+    final List<Operator> operators =
+        selectionEarlyTermination != null ? selectionEarlyTermination.getOperators() : _operators;
+    final int numOperators = operators.size();
+    // Ensure that the number of threads is not more than the number of segments and the thread budget of the query
+    final int numThreads = CombineOperatorUtils.getNumThreadsForQuery(numOperators, _executorService);
 
-    final List<List<Operator>> operatorGroups = new ArrayList<>(numGroups);
-    for (int i = 0; i < numGroups; i++) {
-      operatorGroups.add(new ArrayList<Operator>());
-    }
-    for (int i = 0; i < numOperators; i++) {
-      operatorGroups.get(i % numGroups).add(_operators.get(i));
-    }
-
-    final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<>(numGroups);
+    // Each thread starts with its own operator, then keeps pulling the next operator until all operators are processed,
+    // so that a slow segment does not block the other segments statically assigned to the same thread. Starting with
+    // its own operator ensures that each thread has a results block even if the other threads process (or skip) all the
+    // remaining operators. Threads stop pulling operators after the query end time, which also bounds the execution
+    // time when the jobs are run inline on the calling thread, where the timed wait for the merged block does not apply
+    final AtomicInteger nextOperatorIndex = new AtomicInteger(numThreads);
+    final AtomicBoolean timedOut = new AtomicBoolean();
+    final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<>(numThreads);
     // Submit operators.
-    for (final List<Operator> operatorGroup : operatorGroups) {
+    for (int i = 0; i < numThreads; i++) {
+      final int firstOperatorIndex = i;
       _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
           IntermediateResultsBlock mergedBlock = null;
           try {
-            for (Operator operator : operatorGroup) {
-              IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
+            int index = firstOperatorIndex;
+            do {
+              if (System.currentTimeMillis() >= queryEndTime) {
+                timedOut.set(true);
+                break;
+              }
+              if (selectionEarlyTermination != null && mergedBlock != null && selectionEarlyTermination.canSkip(
+                  index)) {
+                continue;
+              }
+              IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operators.get(index).nextBlock();
               if (mergedBlock == null) {
                 mergedBlock = blockToMerge;
               } else {
@@ -106,12 +108,18 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
                       QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
                 }
               }
-            }
+              if (selectionEarlyTermination != null) {
+                selectionEarlyTermination.update(blockToMerge, mergedBlock);
+              }
+            } while ((index = nextOperatorIndex.getAndIncrement()) < numOperators);
           } catch (Exception e) {
             LOGGER.error("Caught exception while executing query.", e);
             mergedBlock = new IntermediateResultsBlock(e);
           }
-          assert mergedBlock != null;
+          if (mergedBlock == null) {
+            // Timed out before processing any operator
+            mergedBlock = getTimeoutBlock(new TimeoutException("Timed out before processing any operator"));
+          }
           blockingQueue.offer(mergedBlock);
         }
       });
@@ -126,7 +134,7 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
               throws Exception {
             int mergedBlocksNumber = 0;
             IntermediateResultsBlock mergedBlock = null;
-            while (mergedBlocksNumber < numGroups) {
+            while (mergedBlocksNumber < numThreads) {
               if (mergedBlock == null) {
                 mergedBlock = (IntermediateResultsBlock) blockingQueue.poll(queryEndTime - System.currentTimeMillis(),
                     TimeUnit.MILLISECONDS);
@@ -171,8 +179,13 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
     } catch (TimeoutException e) {
       LOGGER.error("Caught TimeoutException", e);
       mergedBlockFuture.cancel(true);
-      mergedBlock =
-          new IntermediateResultsBlock(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
+      mergedBlock = getTimeoutBlock(e);
+    }
+    if (timedOut.get()) {
+      // Some operators are not processed
+      String errorMessage = "Timed out while combining results after " + _timeOutMs + "ms";
+      LOGGER.error(errorMessage);
+      mergedBlock = getTimeoutBlock(new TimeoutException(errorMessage));
     }
 
     // Update execution statistics.
@@ -191,6 +204,10 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
     return mergedBlock;
   }
 
+  private static IntermediateResultsBlock getTimeoutBlock(TimeoutException e) {
+    return new IntermediateResultsBlock(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
+  }
+
   @Override
   public String getOperatorName() {
     return OPERATOR_NAME;
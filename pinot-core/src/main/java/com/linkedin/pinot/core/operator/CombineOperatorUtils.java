@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.core.query.scheduler.resources.QueryExecutorService;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * The <code>CombineOperatorUtils</code> class provides the utility methods shared by the combine operators.
+ * <p>Combine operators run a fixed number of worker threads per query, and each worker thread keeps pulling the next
+ * operator from a shared work queue (the operator list, ordered by the plan maker with the largest segments first) until
+ * all operators are processed, so that one slow segment does not leave the other threads idle.
+ */
+public class CombineOperatorUtils {
+  private CombineOperatorUtils() {
+  }
+
+  // Do not use more than 10 threads or half of the cores per query
+  public static final int MAX_NUM_THREADS_PER_QUERY =
+      Math.max(1, Math.min(10, Runtime.getRuntime().availableProcessors() / 2));
+
+  /**
+   * Returns the number of worker threads to run the given number of operators, bounded by the number of operators, the
+   * {@link #MAX_NUM_THREADS_PER_QUERY} and the thread budget of the query if the executor service is a
+   * {@link QueryExecutorService}.
+   */
+  public static int getNumThreadsForQuery(int numOperators, ExecutorService executorService) {
+    int maxNumThreads = MAX_NUM_THREADS_PER_QUERY;
+    if (executorService instanceof QueryExecutorService) {
+      maxNumThreads = Math.min(maxNumThreads, ((QueryExecutorService) executorService).getMaxNumConcurrentJobs());
+    }
+    return Math.max(1, Math.min(numOperators, maxNumThreads));
+  }
+}
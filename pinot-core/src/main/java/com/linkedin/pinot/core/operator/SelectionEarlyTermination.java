@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.Selection;
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.SelectionOrderByOperator;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The <code>SelectionEarlyTermination</code> class decides which segments can be skipped by the {@link CombineOperator}
+ * for selection queries, without changing the selection results.
+ * <ul>
+ *   <li>
+ *     Selection only: once enough rows are collected from the processed segments, the remaining segments are skipped.
+ *   </li>
+ *   <li>
+ *     Selection order-by: when the first order-by column has min/max value in the segment metadata, the segments are
+ *     processed in the order of the min value (ascending order) or the max value (descending order), and a segment is
+ *     skipped if all its values of the first order-by column are strictly worse than the current top rows. The segments
+ *     without min/max value (e.g. consuming segments) are always processed first.
+ *   </li>
+ * </ul>
+ * <p>The methods can be called concurrently by all the worker threads of the combine operator.
+ */
+@ThreadSafe
+public abstract class SelectionEarlyTermination {
+
+  /**
+   * Returns the early termination for the given query, or <code>null</code> if the query is not a selection query or
+   * cannot be early terminated.
+   */
+  @Nullable
+  public static SelectionEarlyTermination create(@Nonnull BrokerRequest brokerRequest,
+      @Nonnull List<Operator> operators) {
+    Selection selection = brokerRequest.getSelections();
+    if (selection == null || brokerRequest.isSetAggregationsInfo() || selection.getSize() <= 0) {
+      return null;
+    }
+    if (!selection.isSetSelectionSortSequence()) {
+      return new SelectionOnlyEarlyTermination(operators, selection.getSize());
+    }
+
+    SelectionSort firstSelectionSort = selection.getSelectionSortSequence().get(0);
+    String column = firstSelectionSort.getColumn();
+    boolean isAsc = firstSelectionSort.isIsAsc();
+    int numOperators = operators.size();
+    List<OperatorWithBoundary> operatorsWithBoundary = new ArrayList<>(numOperators);
+    boolean hasBoundary = false;
+    for (Operator operator : operators) {
+      Comparable boundary = null;
+      if (operator instanceof SelectionOrderByOperator) {
+        boundary = getBoundary(((SelectionOrderByOperator) operator).getIndexSegment().getSegmentMetadata(), column,
+            isAsc);
+      }
+      hasBoundary |= boundary != null;
+      operatorsWithBoundary.add(new OperatorWithBoundary(operator, boundary));
+    }
+    if (!hasBoundary) {
+      return null;
+    }
+    return new SelectionOrderByEarlyTermination(operatorsWithBoundary, isAsc,
+        selection.getOffset() + selection.getSize());
+  }
+
+  /**
+   * Helper method to get the best possible value of the column in the segment for the given order, i.e. min value for
+   * ascending order and max value for descending order, or <code>null</code> if not available.
+   */
+  @Nullable
+  private static Comparable getBoundary(SegmentMetadata segmentMetadata, String column, boolean isAsc) {
+    if (!(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return null;
+    }
+    ColumnMetadata columnMetadata = ((SegmentMetadataImpl) segmentMetadata).getColumnMetadataFor(column);
+    if (columnMetadata == null || !columnMetadata.isSingleValue()) {
+      return null;
+    }
+    return isAsc ? columnMetadata.getMinValue() : columnMetadata.getMaxValue();
+  }
+
+  /**
+   * Returns the operators in the order to be processed.
+   */
+  @Nonnull
+  public abstract List<Operator> getOperators();
+
+  /**
+   * Returns whether the operator at the given index (in the order of {@link #getOperators()}) can be skipped.
+   */
+  public abstract boolean canSkip(int operatorIndex);
+
+  /**
+   * Updates the state with the results block of an operator, and the merged results block of the worker thread after
+   * merging the results block of the operator.
+   */
+  public abstract void update(@Nonnull IntermediateResultsBlock resultsBlock,
+      @Nonnull IntermediateResultsBlock mergedBlock);
+
+  private static class SelectionOnlyEarlyTermination extends SelectionEarlyTermination {
+    private final List<Operator> _operators;
+    private final int _numRowsToCollect;
+    private final AtomicLong _numRowsCollected = new AtomicLong();
+
+    SelectionOnlyEarlyTermination(List<Operator> operators, int numRowsToCollect) {
+      _operators = operators;
+      _numRowsToCollect = numRowsToCollect;
+    }
+
+    @Nonnull
+    @Override
+    public List<Operator> getOperators() {
+      return _operators;
+    }
+
+    @Override
+    public boolean canSkip(int operatorIndex) {
+      return _numRowsCollected.get() >= _numRowsToCollect;
+    }
+
+    @Override
+    public void update(@Nonnull IntermediateResultsBlock resultsBlock, @Nonnull IntermediateResultsBlock mergedBlock) {
+      Collection<Serializable[]> selectionResult = resultsBlock.getSelectionResult();
+      if (selectionResult != null) {
+        _numRowsCollected.addAndGet(selectionResult.size());
+      }
+    }
+  }
+
+  private static class OperatorWithBoundary {
+    final Operator _operator;
+    final Comparable _boundary;
+
+    OperatorWithBoundary(Operator operator, Comparable boundary) {
+      _operator = operator;
+      _boundary = boundary;
+    }
+  }
+
+  private static class SelectionOrderByEarlyTermination extends SelectionEarlyTermination {
+    private final List<Operator> _operators;
+    private final Comparable[] _boundaries;
+    private final boolean _isAsc;
+    private final int _numRowsToCollect;
+    // Value of the first order-by column of the last row in the best top rows collected by any worker thread
+    private volatile Comparable _threshold;
+
+    @SuppressWarnings("unchecked")
+    SelectionOrderByEarlyTermination(List<OperatorWithBoundary> operatorsWithBoundary, boolean isAsc,
+        int numRowsToCollect) {
+      _isAsc = isAsc;
+      _numRowsToCollect = numRowsToCollect;
+
+      // Process the operators without boundary first, then the operators with better boundary first (stable sort to
+      // keep the original order for the same boundary)
+      operatorsWithBoundary.sort(new Comparator<OperatorWithBoundary>() {
+        @Override
+        public int compare(OperatorWithBoundary o1, OperatorWithBoundary o2) {
+          if (o1._boundary == null) {
+            return o2._boundary == null ? 0 : -1;
+          }
+          if (o2._boundary == null) {
+            return 1;
+          }
+          if (o1._boundary.getClass() != o2._boundary.getClass()) {
+            return o1._boundary.getClass().getName().compareTo(o2._boundary.getClass().getName());
+          }
+          return compareValues(o1._boundary, o2._boundary);
+        }
+      });
+      int numOperators = operatorsWithBoundary.size();
+      _operators = new ArrayList<>(numOperators);
+      _boundaries = new Comparable[numOperators];
+      for (int i = 0; i < numOperators; i++) {
+        OperatorWithBoundary operatorWithBoundary = operatorsWithBoundary.get(i);
+        _operators.add(operatorWithBoundary._operator);
+        _boundaries[i] = operatorWithBoundary._boundary;
+      }
+    }
+
+    /**
+     * Returns negative value if the first value should be ordered before the second value.
+     */
+    @SuppressWarnings("unchecked")
+    private int compareValues(Comparable value1, Comparable value2) {
+      int result = value1.compareTo(value2);
+      return _isAsc ? result : -result;
+    }
+
+    @Nonnull
+    @Override
+    public List<Operator> getOperators() {
+      return _operators;
+    }
+
+    @Override
+    public boolean canSkip(int operatorIndex) {
+      Comparable boundary = _boundaries[operatorIndex];
+      Comparable threshold = _threshold;
+      if (boundary == null || threshold == null || boundary.getClass() != threshold.getClass()) {
+        return false;
+      }
+      // All values of the first order-by column in the segment are strictly worse than the threshold
+      return compareValues(boundary, threshold) > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void update(@Nonnull IntermediateResultsBlock resultsBlock, @Nonnull IntermediateResultsBlock mergedBlock) {
+      Collection<Serializable[]> selectionResult = mergedBlock.getSelectionResult();
+      if (!(selectionResult instanceof PriorityQueue) || selectionResult.size() < _numRowsToCollect) {
+        return;
+      }
+      // The head of the priority queue is the last row in the top rows
+      Serializable[] lastRow = ((PriorityQueue<Serializable[]>) selectionResult).peek();
+      if (!(lastRow[0] instanceof Comparable)) {
+        return;
+      }
+      Comparable value = (Comparable) lastRow[0];
+      synchronized (this) {
+        Comparable threshold = _threshold;
+        if (threshold == null || (threshold.getClass() == value.getClass() && compareValues(value, threshold) < 0)) {
+          _threshold = value;
+        }
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.operator.blocks;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataSchema;
@@ -28,10 +29,12 @@ import com.linkedin.pinot.core.common.datatable.DataTableBuilder;
 import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -47,13 +50,15 @@ public class IntermediateResultsBlock implements Block {
   private AggregationFunctionContext[] _aggregationFunctionContexts;
   private List<Object> _aggregationResult;
   private AggregationGroupByResult _aggregationGroupByResult;
-  private List<Map<String, Object>> _combinedAggregationGroupByResult;
+  private List<String> _groupByExpressions;
+  private Map<TypedGroupKey, Object[]> _combinedAggregationGroupByResult;
   private List<ProcessingException> _processingExceptions;
   private long _numDocsScanned;
   private long _numEntriesScannedInFilter;
   private long _numEntriesScannedPostFilter;
   private long _numTotalRawDocs;
   private boolean _numGroupsLimitReached;
+  private boolean _typedGroupByDataTable;
 
   /**
    * Constructor for selection result.
@@ -67,17 +72,22 @@ public class IntermediateResultsBlock implements Block {
   /**
    * Constructor for aggregation result.
    * <p>For aggregation only, the result is a list of values.
-   * <p>For aggregation group-by, the result is a list of maps from group keys to aggregation values.
    */
-  @SuppressWarnings("unchecked")
   public IntermediateResultsBlock(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
-      @Nonnull List aggregationResult, boolean isGroupBy) {
+      @Nonnull List<Object> aggregationResult) {
     _aggregationFunctionContexts = aggregationFunctionContexts;
-    if (isGroupBy) {
-      _combinedAggregationGroupByResult = aggregationResult;
-    } else {
-      _aggregationResult = aggregationResult;
-    }
+    _aggregationResult = aggregationResult;
+  }
+
+  /**
+   * Constructor for combined aggregation group-by result.
+   * <p>The result is a map from typed group keys to the intermediate results for all aggregation functions.
+   */
+  public IntermediateResultsBlock(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
+      @Nonnull List<String> groupByExpressions, @Nonnull Map<TypedGroupKey, Object[]> combinedAggregationGroupByResult) {
+    _aggregationFunctionContexts = aggregationFunctionContexts;
+    _groupByExpressions = groupByExpressions;
+    _combinedAggregationGroupByResult = combinedAggregationGroupByResult;
   }
 
   /**
@@ -181,6 +191,15 @@ public class IntermediateResultsBlock implements Block {
     _numGroupsLimitReached = numGroupsLimitReached;
   }
 
+  /**
+   * Sets whether to send the combined aggregation group-by result as typed rows (one row per group), or in the legacy
+   * format (one map from string key to intermediate result per aggregation function) which brokers on older versions
+   * can read.
+   */
+  public void setTypedGroupByDataTable(boolean typedGroupByDataTable) {
+    _typedGroupByDataTable = typedGroupByDataTable;
+  }
+
   @Nonnull
   public DataTable getDataTable()
       throws Exception {
@@ -193,7 +212,11 @@ public class IntermediateResultsBlock implements Block {
     }
 
     if (_combinedAggregationGroupByResult != null) {
-      return getAggregationGroupByResultDataTable();
+      if (_typedGroupByDataTable) {
+        return getTypedAggregationGroupByResultDataTable();
+      } else {
+        return getAggregationGroupByResultDataTable();
+      }
     }
 
     if (_processingExceptions != null && _processingExceptions.size() > 0) {
@@ -248,20 +271,124 @@ public class IntermediateResultsBlock implements Block {
     return attachMetadataToDataTable(dataTable);
   }
 
+  /**
+   * Builds the data table for the combined aggregation group-by result in the legacy format, with one row per
+   * aggregation function containing the function name and the map from string group key (group values joined with
+   * {@link com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER})
+   * to the intermediate result.
+   */
   @Nonnull
-  private DataTable getAggregationGroupByResultDataTable() throws Exception {
+  private DataTable getAggregationGroupByResultDataTable()
+      throws Exception {
     String[] columnNames = new String[]{"functionName", "GroupByResultMap"};
     DataSchema.ColumnDataType[] columnDataTypes =
         new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT};
 
+    // Convert the typed group keys into string keys.
+    int numAggregationFunctions = _aggregationFunctionContexts.length;
+    List<Map<String, Object>> resultMaps = new ArrayList<>(numAggregationFunctions);
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      resultMaps.add(new HashMap<>());
+    }
+    FieldSpec.DataType[] storedTypes = getCombinedGroupKeyStoredTypes();
+    for (Map.Entry<TypedGroupKey, Object[]> entry : _combinedAggregationGroupByResult.entrySet()) {
+      TypedGroupKey groupKey = entry.getKey();
+      if (groupKey.getStoredTypes() != storedTypes) {
+        groupKey = groupKey.convertTo(storedTypes);
+      }
+      String stringKey = groupKey.getStringKey();
+      Object[] intermediateResults = entry.getValue();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        resultMaps.get(i).put(stringKey, intermediateResults[i]);
+      }
+    }
+
     // Build the data table.
     DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
-    int numAggregationFunctions = _aggregationFunctionContexts.length;
     for (int i = 0; i < numAggregationFunctions; i++) {
       dataTableBuilder.startRow();
+      dataTableBuilder.setColumn(0, _aggregationFunctionContexts[i].getAggregationColumnName());
+      dataTableBuilder.setColumn(1, resultMaps.get(i));
+      dataTableBuilder.finishRow();
+    }
+    DataTable dataTable = dataTableBuilder.build();
+
+    return attachMetadataToDataTable(dataTable);
+  }
+
+  /**
+   * Builds the data table for the combined aggregation group-by result, with one row per group.
+   * <p>The columns are the group-by expressions (typed by the stored type of the group key values, dictionary encoded
+   * for STRING) followed by the intermediate results for each aggregation function.
+   */
+  @Nonnull
+  private DataTable getTypedAggregationGroupByResultDataTable()
+      throws Exception {
+    int numGroupByExpressions = _groupByExpressions.size();
+    int numAggregationFunctions = _aggregationFunctionContexts.length;
+    int numColumns = numGroupByExpressions + numAggregationFunctions;
+    String[] columnNames = new String[numColumns];
+    DataSchema.ColumnDataType[] columnDataTypes = new DataSchema.ColumnDataType[numColumns];
+    FieldSpec.DataType[] storedTypes = getCombinedGroupKeyStoredTypes();
+    for (int i = 0; i < numGroupByExpressions; i++) {
+      columnNames[i] = _groupByExpressions.get(i);
+      columnDataTypes[i] =
+          storedTypes != null ? getGroupKeyColumnDataType(storedTypes[i]) : DataSchema.ColumnDataType.STRING;
+    }
+    for (int i = 0; i < numAggregationFunctions; i++) {
       AggregationFunctionContext aggregationFunctionContext = _aggregationFunctionContexts[i];
-      dataTableBuilder.setColumn(0, aggregationFunctionContext.getAggregationColumnName());
-      dataTableBuilder.setColumn(1, _combinedAggregationGroupByResult.get(i));
+      columnNames[numGroupByExpressions + i] = aggregationFunctionContext.getAggregationColumnName();
+      columnDataTypes[numGroupByExpressions + i] =
+          aggregationFunctionContext.getAggregationFunction().getIntermediateResultColumnType();
+    }
+
+    // Build the data table.
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
+    for (Map.Entry<TypedGroupKey, Object[]> entry : _combinedAggregationGroupByResult.entrySet()) {
+      dataTableBuilder.startRow();
+      TypedGroupKey groupKey = entry.getKey();
+      if (groupKey.getStoredTypes() != storedTypes) {
+        assert storedTypes != null;
+        groupKey = groupKey.convertTo(storedTypes);
+      }
+      for (int i = 0; i < numGroupByExpressions; i++) {
+        switch (columnDataTypes[i]) {
+          case INT:
+            dataTableBuilder.setColumn(i, groupKey.getIntValue(i));
+            break;
+          case LONG:
+            dataTableBuilder.setColumn(i, groupKey.getLongValue(i));
+            break;
+          case FLOAT:
+            dataTableBuilder.setColumn(i, groupKey.getFloatValue(i));
+            break;
+          case DOUBLE:
+            dataTableBuilder.setColumn(i, groupKey.getDoubleValue(i));
+            break;
+          default:
+            dataTableBuilder.setColumn(i, groupKey.getStringValue(i));
+            break;
+        }
+      }
+      Object[] intermediateResults = entry.getValue();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        int colId = numGroupByExpressions + i;
+        switch (columnDataTypes[colId]) {
+          case LONG:
+            dataTableBuilder.setColumn(colId, ((Number) intermediateResults[i]).longValue());
+            break;
+          case DOUBLE:
+            dataTableBuilder.setColumn(colId, ((Double) intermediateResults[i]).doubleValue());
+            break;
+          case OBJECT:
+            dataTableBuilder.setColumn(colId, intermediateResults[i]);
+            break;
+          default:
+            throw new UnsupportedOperationException(
+                "Unsupported aggregation column data type: " + columnDataTypes[colId] + " for column: "
+                    + columnNames[colId]);
+        }
+      }
       dataTableBuilder.finishRow();
     }
     DataTable dataTable = dataTableBuilder.build();
@@ -269,6 +396,42 @@ public class IntermediateResultsBlock implements Block {
     return attachMetadataToDataTable(dataTable);
   }
 
+  /**
+   * Helper method to get the common stored types of the combined group keys, or <code>null</code> if there is no group.
+   * <p>Group keys from different segments can have different stored types, widen them to the common stored types.
+   */
+  @Nullable
+  private FieldSpec.DataType[] getCombinedGroupKeyStoredTypes() {
+    FieldSpec.DataType[] storedTypes = null;
+    for (TypedGroupKey groupKey : _combinedAggregationGroupByResult.keySet()) {
+      FieldSpec.DataType[] groupKeyStoredTypes = groupKey.getStoredTypes();
+      if (storedTypes == null) {
+        storedTypes = groupKeyStoredTypes;
+      } else if (groupKeyStoredTypes != storedTypes) {
+        storedTypes = TypedGroupKey.getWidenedStoredTypes(storedTypes, groupKeyStoredTypes);
+      }
+    }
+    return storedTypes;
+  }
+
+  /**
+   * Helper method to get the data table column data type for the given stored type of the group key values.
+   */
+  private static DataSchema.ColumnDataType getGroupKeyColumnDataType(FieldSpec.DataType storedType) {
+    switch (storedType) {
+      case INT:
+        return DataSchema.ColumnDataType.INT;
+      case LONG:
+        return DataSchema.ColumnDataType.LONG;
+      case FLOAT:
+        return DataSchema.ColumnDataType.FLOAT;
+      case DOUBLE:
+        return DataSchema.ColumnDataType.DOUBLE;
+      default:
+        return DataSchema.ColumnDataType.STRING;
+    }
+  }
+
   private DataTable getProcessingExceptionsDataTable() {
     return attachMetadataToDataTable(new DataTableImplV2());
   }
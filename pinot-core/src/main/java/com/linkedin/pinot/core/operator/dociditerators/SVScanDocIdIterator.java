@@ -24,7 +24,16 @@ import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
+/**
+ * Scan based doc id iterator for single-value columns.
+ * <p>Documents are scanned block at a time: the values of a batch of documents are read from the forward index into a
+ * buffer, and the predicate evaluator evaluates the whole buffer at once. {@link #applyAnd(MutableRoaringBitmap)} also
+ * evaluates the documents in the answer in batches, only {@link #isMatch(int)} evaluates one document at a time.
+ */
 public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
+  // Number of documents to scan per batch
+  static final int BATCH_SIZE = 256;
+
   private int _currentDocId = -1;
   private final BlockSingleValIterator _valueIterator;
   private int _startDocId;
@@ -34,11 +43,23 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private int _numEntriesScanned = 0;
   private final ValueMatcher _valueMatcher;
 
+  // Max doc id (inclusive) of the block
+  private final int _maxDocId;
+  // Buffers for the block-at-a-time scan
+  private final int[] _docIdBuffer = new int[BATCH_SIZE];
+  private final int[] _matchingIndexes = new int[BATCH_SIZE];
+  // Range of the current batch, start inclusive, end exclusive
+  private int _batchStartDocId;
+  private int _batchEndDocId;
+  private int _numMatchesInBatch;
+  private int _nextMatchIndex;
+
   public SVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
     _datasourceName = datasourceName;
     _evaluator = evaluator;
     _valueIterator = (BlockSingleValIterator) blockValSet.iterator();
+    _maxDocId = blockMetadata.getEndDocId();
 
     if (evaluator.isAlwaysFalse()) {
       _currentDocId = Constants.EOF;
@@ -50,11 +71,12 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
 
     if (evaluator.isDictionaryBased()) {
-      _valueMatcher = new IntMatcher(); // Match using dictionary id's that are integers.
+      _valueMatcher = new IntMatcher(true); // Match using dictionary id's that are integers.
     } else {
       _valueMatcher = getValueMatcherForType(blockMetadata.getDataType());
     }
     _valueMatcher.setEvaluator(evaluator);
+    _valueMatcher.setBlockValSet(blockValSet);
   }
 
   /**
@@ -66,6 +88,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _currentDocId = startDocId - 1;
     _valueIterator.skipTo(startDocId);
     _startDocId = startDocId;
+    resetBatch(startDocId);
   }
 
   /**
@@ -102,7 +125,25 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       return _currentDocId;
     } else {
       _currentDocId = targetDocId - 1;
-      _valueIterator.skipTo(targetDocId);
+      if (targetDocId >= _batchStartDocId && targetDocId < _batchEndDocId) {
+        // Target is inside the current batch, skip the matches before the target
+        while (_nextMatchIndex < _numMatchesInBatch
+            && _batchStartDocId + _matchingIndexes[_nextMatchIndex] < targetDocId) {
+          _nextMatchIndex++;
+        }
+      } else {
+        // Target is outside of the current batch, check the target first so that sparse advances (e.g. from
+        // AndDocIdIterator) do not scan a whole batch for each call
+        resetBatch(targetDocId + 1);
+        if (targetDocId <= getLastDocId()) {
+          _valueIterator.skipTo(targetDocId);
+          _numEntriesScanned++;
+          _currentDocId = targetDocId;
+          if (_valueMatcher.doesCurrentEntryMatch(_valueIterator)) {
+            return _currentDocId;
+          }
+        }
+      }
       return next();
     }
   }
@@ -112,17 +153,88 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     if (_currentDocId == Constants.EOF) {
       return Constants.EOF;
     }
-    while (_valueIterator.hasNext() && _currentDocId < _endDocId) {
-      _currentDocId = _currentDocId + 1;
-      _numEntriesScanned++;
-      if (_valueMatcher.doesCurrentEntryMatch(_valueIterator)) {
-        return _currentDocId;
+    int lastDocId = getLastDocId();
+    while (true) {
+      if (_nextMatchIndex < _numMatchesInBatch) {
+        int docId = _batchStartDocId + _matchingIndexes[_nextMatchIndex++];
+        if (docId > lastDocId) {
+          break;
+        }
+        // Only count the entries up to the returned document
+        _numEntriesScanned += docId - _currentDocId;
+        _currentDocId = docId;
+        return docId;
+      }
+      if (_batchEndDocId > lastDocId) {
+        break;
       }
+      scanBatch(_batchEndDocId, Math.min(BATCH_SIZE, lastDocId - _batchEndDocId + 1));
+    }
+    if (lastDocId > _currentDocId) {
+      _numEntriesScanned += lastDocId - _currentDocId;
     }
     _currentDocId = Constants.EOF;
     return Constants.EOF;
   }
 
+  /**
+   * Scans all the remaining documents block at a time, and returns the matching document ids as a bitmap.
+   * <p>After calling this method, the iterator is exhausted.
+   *
+   * @return Bitmap of matching document ids
+   */
+  public MutableRoaringBitmap toBitmap() {
+    MutableRoaringBitmap result = new MutableRoaringBitmap();
+    if (_currentDocId == Constants.EOF) {
+      return result;
+    }
+    int lastDocId = getLastDocId();
+    int batchStartDocId = _currentDocId + 1;
+    while (batchStartDocId <= lastDocId) {
+      int length = Math.min(BATCH_SIZE, lastDocId - batchStartDocId + 1);
+      scanBatch(batchStartDocId, length);
+      for (int i = 0; i < _numMatchesInBatch; i++) {
+        result.add(batchStartDocId + _matchingIndexes[i]);
+      }
+      batchStartDocId += length;
+    }
+    if (lastDocId > _currentDocId) {
+      _numEntriesScanned += lastDocId - _currentDocId;
+    }
+    _currentDocId = Constants.EOF;
+    return result;
+  }
+
+  /**
+   * Helper method to evaluate the predicate on a batch of contiguous documents.
+   */
+  private void scanBatch(int batchStartDocId, int length) {
+    for (int i = 0; i < length; i++) {
+      _docIdBuffer[i] = batchStartDocId + i;
+    }
+    _numMatchesInBatch = _valueMatcher.matchBatch(_docIdBuffer, length, _matchingIndexes);
+    _nextMatchIndex = 0;
+    _batchStartDocId = batchStartDocId;
+    _batchEndDocId = batchStartDocId + length;
+  }
+
+  /**
+   * Helper method to drop the current batch so that the next batch starts from the given document id.
+   */
+  private void resetBatch(int nextBatchStartDocId) {
+    _numMatchesInBatch = 0;
+    _nextMatchIndex = 0;
+    _batchStartDocId = nextBatchStartDocId;
+    _batchEndDocId = nextBatchStartDocId;
+  }
+
+  /**
+   * Helper method to get the last document id (inclusive) to scan.
+   */
+  private int getLastDocId() {
+    return Math.min(_endDocId, _maxDocId);
+  }
+
   @Override
   public int currentDocId() {
     return _currentDocId;
@@ -139,21 +251,39 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     if (_evaluator.isAlwaysFalse()) {
       return result;
     }
+    // Evaluate the documents in the answer in batches
     IntIterator intIterator = answer.getIntIterator();
-    int docId = -1;
-    while (intIterator.hasNext() && docId < _endDocId) {
-      docId = intIterator.next();
+    int length = 0;
+    while (intIterator.hasNext()) {
+      int docId = intIterator.next();
+      if (docId > _endDocId) {
+        break;
+      }
       if (docId >= _startDocId) {
-        _valueIterator.skipTo(docId);
-        _numEntriesScanned++;
-        if (_valueMatcher.doesCurrentEntryMatch(_valueIterator)) {
-          result.add(docId);
+        _docIdBuffer[length++] = docId;
+        if (length == BATCH_SIZE) {
+          addMatchingDocIds(length, result);
+          length = 0;
         }
       }
     }
+    if (length > 0) {
+      addMatchingDocIds(length, result);
+    }
     return result;
   }
 
+  /**
+   * Helper method to evaluate the documents in the doc id buffer and add the matching ones into the result.
+   */
+  private void addMatchingDocIds(int length, MutableRoaringBitmap result) {
+    _numEntriesScanned += length;
+    int numMatches = _valueMatcher.matchBatch(_docIdBuffer, length, _matchingIndexes);
+    for (int i = 0; i < numMatches; i++) {
+      result.add(_docIdBuffer[_matchingIndexes[i]]);
+    }
+  }
+
   @Override
   public int getNumEntriesScanned() {
     return _numEntriesScanned;
@@ -168,7 +298,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
 
     switch (dataType) {
       case INT:
-        return new IntMatcher();
+        return new IntMatcher(false);
 
       case LONG:
         return new LongMatcher();
@@ -189,51 +319,110 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
 
   private static abstract class ValueMatcher {
     protected PredicateEvaluator _evaluator;
+    protected BlockValSet _blockValSet;
 
     public void setEvaluator(PredicateEvaluator evaluator) {
       _evaluator = evaluator;
     }
 
+    public void setBlockValSet(BlockValSet blockValSet) {
+      // Share one reader context across all the batches, so that the reader state is not re-created per batch
+      _blockValSet = blockValSet.withSharedReaderContext();
+    }
+
     abstract boolean doesCurrentEntryMatch(BlockSingleValIterator valueIterator);
+
+    /**
+     * Reads the values for the given documents into the buffer, and evaluates the whole buffer.
+     *
+     * @param docIds Document ids
+     * @param length Number of documents
+     * @param outMatchingIndexes Buffer for the indexes (in the document ids array) of the matching documents
+     * @return Number of matching documents
+     */
+    abstract int matchBatch(int[] docIds, int length, int[] outMatchingIndexes);
   }
 
   private static class IntMatcher extends ValueMatcher {
+    private final boolean _readDictionaryIds;
+    private final int[] _buffer = new int[BATCH_SIZE];
+
+    IntMatcher(boolean readDictionaryIds) {
+      _readDictionaryIds = readDictionaryIds;
+    }
 
     @Override
     public boolean doesCurrentEntryMatch(BlockSingleValIterator valueIterator) {
       return _evaluator.applySV(valueIterator.nextIntVal());
     }
-  }
 
+    @Override
+    int matchBatch(int[] docIds, int length, int[] outMatchingIndexes) {
+      if (_readDictionaryIds) {
+        _blockValSet.getDictionaryIds(docIds, 0, length, _buffer, 0);
+      } else {
+        _blockValSet.getIntValues(docIds, 0, length, _buffer, 0);
+      }
+      return _evaluator.applySVBatch(_buffer, length, outMatchingIndexes);
+    }
+  }
   private static class LongMatcher extends ValueMatcher {
+    private final long[] _buffer = new long[BATCH_SIZE];
 
     @Override
     public boolean doesCurrentEntryMatch(BlockSingleValIterator valueIterator) {
       return _evaluator.applySV(valueIterator.nextLongVal());
     }
+
+    @Override
+    int matchBatch(int[] docIds, int length, int[] outMatchingIndexes) {
+      _blockValSet.getLongValues(docIds, 0, length, _buffer, 0);
+      return _evaluator.applySVBatch(_buffer, length, outMatchingIndexes);
+    }
   }
 
   private static class FloatMatcher extends ValueMatcher {
+    private final float[] _buffer = new float[BATCH_SIZE];
 
     @Override
     public boolean doesCurrentEntryMatch(BlockSingleValIterator valueIterator) {
       return _evaluator.applySV(valueIterator.nextFloatVal());
     }
+
+    @Override
+    int matchBatch(int[] docIds, int length, int[] outMatchingIndexes) {
+      _blockValSet.getFloatValues(docIds, 0, length, _buffer, 0);
+      return _evaluator.applySVBatch(_buffer, length, outMatchingIndexes);
+    }
   }
 
   private static class DoubleMatcher extends ValueMatcher {
+    private final double[] _buffer = new double[BATCH_SIZE];
 
     @Override
     public boolean doesCurrentEntryMatch(BlockSingleValIterator valueIterator) {
       return _evaluator.applySV(valueIterator.nextDoubleVal());
     }
+
+    @Override
+    int matchBatch(int[] docIds, int length, int[] outMatchingIndexes) {
+      _blockValSet.getDoubleValues(docIds, 0, length, _buffer, 0);
+      return _evaluator.applySVBatch(_buffer, length, outMatchingIndexes);
+    }
   }
 
   private static class StringMatcher extends ValueMatcher {
+    private final String[] _buffer = new String[BATCH_SIZE];
 
     @Override
     public boolean doesCurrentEntryMatch(BlockSingleValIterator valueIterator) {
       return _evaluator.applySV(valueIterator.nextStringVal());
     }
+
+    @Override
+    int matchBatch(int[] docIds, int length, int[] outMatchingIndexes) {
+      _blockValSet.getStringValues(docIds, 0, length, _buffer, 0);
+      return _evaluator.applySVBatch(_buffer, length, outMatchingIndexes);
+    }
   }
 }
@@ -23,6 +23,7 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 public class BitmapDocIdSet implements FilterBlockDocIdSet {
   private final ImmutableRoaringBitmap _bitmap;
+  private final long _numEntriesScannedInFilter;
   private int _startDocId;
   // Inclusive
   private int _endDocId;
@@ -55,6 +56,18 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
     _startDocId = startDocId;
     _endDocId = endDocId;
+    _numEntriesScannedInFilter = 0L;
+  }
+
+  /**
+   * Constructor for the bitmap computed by the filter operator, where some entries might have been scanned to compute
+   * the bitmap.
+   */
+  public BitmapDocIdSet(ImmutableRoaringBitmap bitmap, int startDocId, int endDocId, long numEntriesScannedInFilter) {
+    _bitmap = bitmap;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+    _numEntriesScannedInFilter = numEntriesScannedInFilter;
   }
 
   @Override
@@ -79,7 +92,7 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
   @Override
   public long getNumEntriesScannedInFilter() {
-    return 0L;
+    return _numEntriesScannedInFilter;
   }
 
   @Override
@@ -21,8 +21,8 @@ import com.linkedin.pinot.core.common.BlockDocIdSet;
 import com.linkedin.pinot.core.operator.dociditerators.BitmapDocIdIterator;
 import com.linkedin.pinot.core.operator.dociditerators.OrDocIdIterator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
@@ -82,29 +82,33 @@ public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
     }
     if (useBitmapOr) {
       List<BlockDocIdIterator> iterators = new ArrayList<>();
-      MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
-      for (BlockDocIdSet docIdSet : _docIdSets) {
-        if (docIdSet instanceof SortedDocIdSet) {
-          List<Pairs.IntPair> pairs = docIdSet.getRaw();
-          for (Pairs.IntPair pair : pairs) {
-            // Add takes [start, end) i.e inclusive start, exclusive end
-            bitmap.add(pair.getLeft(), pair.getRight() + 1);
-          }
-        } else if (docIdSet instanceof BitmapDocIdSet) {
-          bitmap.or((ImmutableRoaringBitmap) docIdSet.getRaw());
+      List<FilterBlockDocIdSet> bitmapDocIdSets = new ArrayList<>();
+      List<ScanBasedSingleValueDocIdSet> scanBasedDocIdSets = new ArrayList<>();
+      for (FilterBlockDocIdSet docIdSet : _docIdSets) {
+        if (docIdSet instanceof SortedDocIdSet || docIdSet instanceof BitmapDocIdSet) {
+          bitmapDocIdSets.add(docIdSet);
+        } else if (docIdSet instanceof ScanBasedSingleValueDocIdSet) {
+          scanBasedDocIdSets.add((ScanBasedSingleValueDocIdSet) docIdSet);
         } else {
           iterators.add(docIdSet.iterator());
         }
       }
-      IntIterator intIterator = bitmap.getIntIterator();
-      BitmapDocIdIterator bitmapDocIdIterator = new BitmapDocIdIterator(intIterator);
-      bitmapDocIdIterator.setStartDocId(_minDocId);
-      bitmapDocIdIterator.setEndDocId(_maxDocId);
+      if (!scanBasedDocIdSets.isEmpty() && iterators.isEmpty()) {
+        // Every document of the scan-based operands needs to be scanned to build the bitmap, so only build it (scanning
+        // block at a time) when the documents are actually read
+        return new LazyBitmapDocIdIterator(bitmapDocIdSets, scanBasedDocIdSets);
+      }
+      // The other operands are merged document by document anyway, so keep the scan-based operands as iterators to only
+      // scan as far as the documents are read
+      for (ScanBasedSingleValueDocIdSet scanBasedDocIdSet : scanBasedDocIdSets) {
+        iterators.add(scanBasedDocIdSet.iterator());
+      }
+      BitmapDocIdIterator bitmapDocIdIterator =
+          getBitmapDocIdIterator(bitmapDocIdSets, Collections.<ScanBasedSingleValueDocIdSet>emptyList());
       if (iterators.isEmpty()) {
         return bitmapDocIdIterator;
-      } else {
-        iterators.add(bitmapDocIdIterator);
       }
+      iterators.add(bitmapDocIdIterator);
       return new OrDocIdIterator(iterators.toArray(new BlockDocIdIterator[iterators.size()]), _minDocId, _maxDocId);
     } else {
       int numDocIdSets = _docIdSets.size();
@@ -120,4 +124,68 @@ public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
   public <T> T getRaw() {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Helper method to OR the given sorted, bitmap and scan-based operands into one bitmap, and iterate over it.
+   */
+  private BitmapDocIdIterator getBitmapDocIdIterator(List<FilterBlockDocIdSet> bitmapDocIdSets,
+      List<ScanBasedSingleValueDocIdSet> scanBasedDocIdSets) {
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    for (FilterBlockDocIdSet docIdSet : bitmapDocIdSets) {
+      if (docIdSet instanceof SortedDocIdSet) {
+        List<Pairs.IntPair> pairs = docIdSet.getRaw();
+        for (Pairs.IntPair pair : pairs) {
+          // Add takes [start, end) i.e inclusive start, exclusive end
+          bitmap.add(pair.getLeft(), pair.getRight() + 1);
+        }
+      } else {
+        bitmap.or((ImmutableRoaringBitmap) docIdSet.getRaw());
+      }
+    }
+    for (ScanBasedSingleValueDocIdSet scanBasedDocIdSet : scanBasedDocIdSets) {
+      bitmap.or(scanBasedDocIdSet.iterator().toBitmap());
+    }
+    BitmapDocIdIterator bitmapDocIdIterator = new BitmapDocIdIterator(bitmap.getIntIterator());
+    bitmapDocIdIterator.setStartDocId(_minDocId);
+    bitmapDocIdIterator.setEndDocId(_maxDocId);
+    return bitmapDocIdIterator;
+  }
+
+  /**
+   * Iterator over the OR of the sorted, bitmap and scan-based operands, which builds the bitmap on the first read.
+   */
+  private final class LazyBitmapDocIdIterator implements BlockDocIdIterator {
+    private final List<FilterBlockDocIdSet> _bitmapDocIdSets;
+    private final List<ScanBasedSingleValueDocIdSet> _scanBasedDocIdSets;
+
+    private BitmapDocIdIterator _bitmapDocIdIterator;
+
+    LazyBitmapDocIdIterator(List<FilterBlockDocIdSet> bitmapDocIdSets,
+        List<ScanBasedSingleValueDocIdSet> scanBasedDocIdSets) {
+      _bitmapDocIdSets = bitmapDocIdSets;
+      _scanBasedDocIdSets = scanBasedDocIdSets;
+    }
+
+    private BitmapDocIdIterator getBitmapDocIdIterator() {
+      if (_bitmapDocIdIterator == null) {
+        _bitmapDocIdIterator = OrBlockDocIdSet.this.getBitmapDocIdIterator(_bitmapDocIdSets, _scanBasedDocIdSets);
+      }
+      return _bitmapDocIdIterator;
+    }
+
+    @Override
+    public int next() {
+      return getBitmapDocIdIterator().next();
+    }
+
+    @Override
+    public int advance(int targetDocId) {
+      return getBitmapDocIdIterator().advance(targetDocId);
+    }
+
+    @Override
+    public int currentDocId() {
+      return _bitmapDocIdIterator != null ? _bitmapDocIdIterator.currentDocId() : -1;
+    }
+  }
 }
@@ -18,7 +18,6 @@ package com.linkedin.pinot.core.operator.docidsets;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.operator.dociditerators.SVScanDocIdIterator;
-import com.linkedin.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 
 
@@ -73,7 +72,7 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
   }
 
   @Override
-  public ScanBasedDocIdIterator iterator() {
+  public SVScanDocIdIterator iterator() {
     return blockValSetBlockDocIdIterator;
   }
 
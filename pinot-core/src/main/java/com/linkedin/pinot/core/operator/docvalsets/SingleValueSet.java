@@ -29,10 +29,19 @@ public final class SingleValueSet extends BaseBlockValSet {
   private final int _numDocs;
   private final DataType _dataType;
 
+  // Reader context shared by the document id based reads, null if a new context should be created for each read
+  private final ReaderContext _sharedReaderContext;
+
   public SingleValueSet(SingleColumnSingleValueReader reader, int numDocs, DataType dataType) {
+    this(reader, numDocs, dataType, null);
+  }
+
+  private SingleValueSet(SingleColumnSingleValueReader reader, int numDocs, DataType dataType,
+      ReaderContext sharedReaderContext) {
     _reader = reader;
     _numDocs = numDocs;
     _dataType = dataType;
+    _sharedReaderContext = sharedReaderContext;
   }
 
   @Override
@@ -45,10 +54,19 @@ public final class SingleValueSet extends BaseBlockValSet {
     return _dataType;
   }
 
+  @Override
+  public SingleValueSet withSharedReaderContext() {
+    return new SingleValueSet(_reader, _numDocs, _dataType, _reader.createContext());
+  }
+
+  private ReaderContext getReaderContext() {
+    return _sharedReaderContext != null ? _sharedReaderContext : _reader.createContext();
+  }
+
   @Override
   public void getIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
-    ReaderContext context = _reader.createContext();
+    ReaderContext context = getReaderContext();
     if (_dataType == DataType.INT) {
       for (int i = inStartPos; i < inEndPos; i++) {
         outValues[outStartPos++] = _reader.getInt(inDocIds[i], context);
@@ -61,7 +79,7 @@ public final class SingleValueSet extends BaseBlockValSet {
   @Override
   public void getLongValues(int[] inDocIds, int inStartPos, int inDocIdsSize, long[] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
-    ReaderContext context = _reader.createContext();
+    ReaderContext context = getReaderContext();
     switch (_dataType) {
       case INT:
         for (int i = inStartPos; i < inEndPos; i++) {
@@ -81,7 +99,7 @@ public final class SingleValueSet extends BaseBlockValSet {
   @Override
   public void getFloatValues(int[] inDocIds, int inStartPos, int inDocIdsSize, float[] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
-    ReaderContext context = _reader.createContext();
+    ReaderContext context = getReaderContext();
     switch (_dataType) {
       case INT:
         for (int i = inStartPos; i < inEndPos; i++) {
@@ -106,7 +124,7 @@ public final class SingleValueSet extends BaseBlockValSet {
   @Override
   public void getDoubleValues(int[] inDocIds, int inStartPos, int inDocIdsSize, double[] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
-    ReaderContext context = _reader.createContext();
+    ReaderContext context = getReaderContext();
     switch (_dataType) {
       case INT:
         for (int i = inStartPos; i < inEndPos; i++) {
@@ -136,7 +154,7 @@ public final class SingleValueSet extends BaseBlockValSet {
   @Override
   public void getStringValues(int[] inDocIds, int inStartPos, int inDocIdsSize, String[] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
-    ReaderContext context = _reader.createContext();
+    ReaderContext context = getReaderContext();
     if (_dataType == DataType.STRING) {
       for (int i = inStartPos; i < inEndPos; i++) {
         outValues[outStartPos++] = _reader.getString(inDocIds[i], context);
@@ -149,7 +167,7 @@ public final class SingleValueSet extends BaseBlockValSet {
   @Override
   public void getBytesValues(int[] inDocIds, int inStartPos, int inDocIdsSize, byte[][] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
-    ReaderContext context = _reader.createContext();
+    ReaderContext context = getReaderContext();
     if (_dataType.equals(DataType.BYTES)) {
       for (int i = inStartPos; i < inEndPos; i++) {
         outValues[outStartPos++] = _reader.getBytes(inDocIds[i], context);
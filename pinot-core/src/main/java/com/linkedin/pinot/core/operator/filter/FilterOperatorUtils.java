@@ -19,6 +19,7 @@ import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.common.DataSourceMetadata;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -42,9 +43,16 @@ public class FilterOperatorUtils {
       return EmptyFilterOperator.getInstance();
     }
 
-    // Use inverted index if the predicate type is not RANGE or REGEXP_LIKE for efficiency
+    // Use range index for RANGE predicate if available
     DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
     Predicate.Type predicateType = predicateEvaluator.getPredicateType();
+    if (predicateType == Predicate.Type.RANGE && dataSource.getRangeIndex() != null
+        && predicateEvaluator instanceof OfflineDictionaryBasedRangePredicateEvaluator) {
+      return new RangeIndexBasedFilterOperator((OfflineDictionaryBasedRangePredicateEvaluator) predicateEvaluator,
+          dataSource, startDocId, endDocId);
+    }
+
+    // Use inverted index if the predicate type is not RANGE or REGEXP_LIKE for efficiency
     if (dataSourceMetadata.hasInvertedIndex() && (predicateType != Predicate.Type.RANGE) && (predicateType
         != Predicate.Type.REGEXP_LIKE)) {
       if (dataSourceMetadata.isSorted()) {
@@ -75,7 +83,8 @@ public class FilterOperatorUtils {
         if (filterOperator instanceof SortedInvertedIndexBasedFilterOperator) {
           return 0;
         }
-        if (filterOperator instanceof BitmapBasedFilterOperator) {
+        if (filterOperator instanceof BitmapBasedFilterOperator
+            || filterOperator instanceof RangeIndexBasedFilterOperator) {
           return 1;
         }
         if (filterOperator instanceof AndFilterOperator) {
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.operator.blocks.FilterBlock;
+import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
+import com.linkedin.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator;
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Filter operator for RANGE predicate on column with range index.
+ * <p>The documents of the ranges fully covered by the predicate are matched with bitmap operations only, and the
+ * documents of the ranges partially covered by the predicate (at most 2 ranges on the boundaries) are matched by
+ * scanning their dictionary ids.
+ */
+public class RangeIndexBasedFilterOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "RangeIndexBasedFilterOperator";
+
+  private final OfflineDictionaryBasedRangePredicateEvaluator _predicateEvaluator;
+  private final DataSource _dataSource;
+  private final int _startDocId;
+  // Inclusive, same as the end document id taken by BitmapDocIdSet
+  private final int _endDocId;
+
+  public RangeIndexBasedFilterOperator(OfflineDictionaryBasedRangePredicateEvaluator predicateEvaluator,
+      DataSource dataSource, int startDocId, int endDocId) {
+    _predicateEvaluator = predicateEvaluator;
+    _dataSource = dataSource;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  @Override
+  protected FilterBlock getNextBlock() {
+    BitmapRangeIndexReader rangeIndex = _dataSource.getRangeIndex();
+    int startDictId = _predicateEvaluator.getStartDictId();
+    int endDictId = _predicateEvaluator.getEndDictId();
+    int firstRangeId = rangeIndex.getRangeId(startDictId);
+    int lastRangeId = rangeIndex.getRangeId(endDictId - 1);
+
+    List<ImmutableRoaringBitmap> matchingBitmaps = new ArrayList<>(lastRangeId - firstRangeId + 1);
+    List<ImmutableRoaringBitmap> partiallyMatchingBitmaps = new ArrayList<>(2);
+    for (int rangeId = firstRangeId; rangeId <= lastRangeId; rangeId++) {
+      if (rangeIndex.getRangeStartDictId(rangeId) >= startDictId
+          && rangeIndex.getRangeEndDictId(rangeId) <= endDictId) {
+        matchingBitmaps.add(rangeIndex.getDocIds(rangeId));
+      } else {
+        partiallyMatchingBitmaps.add(rangeIndex.getDocIds(rangeId));
+      }
+    }
+    ImmutableRoaringBitmap[] bitmaps = matchingBitmaps.toArray(new ImmutableRoaringBitmap[0]);
+    if (partiallyMatchingBitmaps.isEmpty()) {
+      return new FilterBlock(new BitmapDocIdSet(bitmaps, _startDocId, _endDocId, false));
+    }
+
+    // Scan the dictionary ids for the documents in the partially matching ranges
+    MutableRoaringBitmap docIds = bitmaps.length > 0 ? MutableRoaringBitmap.or(bitmaps) : new MutableRoaringBitmap();
+    BlockValSet blockValueSet = _dataSource.nextBlock().getBlockValueSet();
+    int[] docIdBuffer = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    int[] dictIdBuffer = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+    long numEntriesScanned = 0L;
+    for (ImmutableRoaringBitmap bitmap : partiallyMatchingBitmaps) {
+      IntIterator intIterator = bitmap.getIntIterator();
+      int numDocs = 0;
+      while (intIterator.hasNext()) {
+        int docId = intIterator.next();
+        if (docId < _startDocId) {
+          continue;
+        }
+        if (docId > _endDocId) {
+          break;
+        }
+        docIdBuffer[numDocs++] = docId;
+        if (numDocs == DocIdSetPlanNode.MAX_DOC_PER_CALL) {
+          addMatchingDocIds(blockValueSet, docIdBuffer, dictIdBuffer, numDocs, docIds);
+          numEntriesScanned += numDocs;
+          numDocs = 0;
+        }
+      }
+      addMatchingDocIds(blockValueSet, docIdBuffer, dictIdBuffer, numDocs, docIds);
+      numEntriesScanned += numDocs;
+    }
+    return new FilterBlock(new BitmapDocIdSet(docIds, _startDocId, _endDocId, numEntriesScanned));
+  }
+
+  private void addMatchingDocIds(BlockValSet blockValueSet, int[] docIdBuffer, int[] dictIdBuffer, int numDocs,
+      MutableRoaringBitmap docIds) {
+    if (numDocs == 0) {
+      return;
+    }
+    blockValueSet.getDictionaryIds(docIdBuffer, 0, numDocs, dictIdBuffer, 0);
+    for (int i = 0; i < numDocs; i++) {
+      if (_predicateEvaluator.applySV(dictIdBuffer[i])) {
+        docIds.add(docIdBuffer[i]);
+      }
+    }
+  }
+
+  @Override
+  public boolean isResultEmpty() {
+    return _predicateEvaluator.isAlwaysFalse();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
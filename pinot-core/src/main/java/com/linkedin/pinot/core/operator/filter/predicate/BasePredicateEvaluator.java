@@ -31,4 +31,62 @@ public abstract class BasePredicateEvaluator implements PredicateEvaluator {
   public int getNumNonMatchingDictIds() {
     return getNonMatchingDictIds().length;
   }
+
+  // NOTE: Default batch implementations apply the entries one by one, override them with specialized loops for better
+  // performance
+
+  @Override
+  public int applySVBatch(int[] values, int length, int[] outMatchingIndexes) {
+    int numMatches = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        outMatchingIndexes[numMatches++] = i;
+      }
+    }
+    return numMatches;
+  }
+
+  @Override
+  public int applySVBatch(long[] values, int length, int[] outMatchingIndexes) {
+    int numMatches = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        outMatchingIndexes[numMatches++] = i;
+      }
+    }
+    return numMatches;
+  }
+
+  @Override
+  public int applySVBatch(float[] values, int length, int[] outMatchingIndexes) {
+    int numMatches = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        outMatchingIndexes[numMatches++] = i;
+      }
+    }
+    return numMatches;
+  }
+
+  @Override
+  public int applySVBatch(double[] values, int length, int[] outMatchingIndexes) {
+    int numMatches = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        outMatchingIndexes[numMatches++] = i;
+      }
+    }
+    return numMatches;
+  }
+
+  @Override
+  public int applySVBatch(String[] values, int length, int[] outMatchingIndexes) {
+    int numMatches = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        outMatchingIndexes[numMatches++] = i;
+      }
+    }
+    return numMatches;
+  }
 }
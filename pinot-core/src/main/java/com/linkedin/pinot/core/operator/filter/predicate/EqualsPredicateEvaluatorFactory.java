@@ -93,6 +93,18 @@ public class EqualsPredicateEvaluatorFactory {
       return _matchingDictId == dictId;
     }
 
+    @Override
+    public int applySVBatch(int[] dictIds, int length, int[] outMatchingIndexes) {
+      int matchingDictId = _matchingDictId;
+      int numMatches = 0;
+      for (int i = 0; i < length; i++) {
+        if (dictIds[i] == matchingDictId) {
+          outMatchingIndexes[numMatches++] = i;
+        }
+      }
+      return numMatches;
+    }
+
     @Override
     public int[] getMatchingDictIds() {
       return _matchingDictIds;
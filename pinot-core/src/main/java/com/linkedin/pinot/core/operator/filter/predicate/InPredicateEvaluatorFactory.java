@@ -107,6 +107,18 @@ public class InPredicateEvaluatorFactory {
       return _matchingDictIdSet.contains(dictId);
     }
 
+    @Override
+    public int applySVBatch(int[] dictIds, int length, int[] outMatchingIndexes) {
+      IntSet matchingDictIdSet = _matchingDictIdSet;
+      int numMatches = 0;
+      for (int i = 0; i < length; i++) {
+        if (matchingDictIdSet.contains(dictIds[i])) {
+          outMatchingIndexes[numMatches++] = i;
+        }
+      }
+      return numMatches;
+    }
+
     @Override
     public int getNumMatchingDictIds() {
      return _matchingDictIdSet.size();
@@ -51,6 +51,16 @@ public interface PredicateEvaluator {
    */
   boolean applySV(int value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate.
+   *
+   * @param values Array of dictionary ids or raw values
+   * @param length Number of entries in the batch
+   * @param outMatchingIndexes Buffer for the indexes (in the values array) of the matching entries
+   * @return Number of matching entries
+   */
+  int applySVBatch(int[] values, int length, int[] outMatchingIndexes);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -96,6 +106,16 @@ public interface PredicateEvaluator {
    */
   boolean applySV(long value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate.
+   *
+   * @param values Array of raw values
+   * @param length Number of entries in the batch
+   * @param outMatchingIndexes Buffer for the indexes (in the values array) of the matching entries
+   * @return Number of matching entries
+   */
+  int applySVBatch(long[] values, int length, int[] outMatchingIndexes);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -113,6 +133,16 @@ public interface PredicateEvaluator {
    */
   boolean applySV(float value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate.
+   *
+   * @param values Array of raw values
+   * @param length Number of entries in the batch
+   * @param outMatchingIndexes Buffer for the indexes (in the values array) of the matching entries
+   * @return Number of matching entries
+   */
+  int applySVBatch(float[] values, int length, int[] outMatchingIndexes);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -130,6 +160,16 @@ public interface PredicateEvaluator {
    */
   boolean applySV(double value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate.
+   *
+   * @param values Array of raw values
+   * @param length Number of entries in the batch
+   * @param outMatchingIndexes Buffer for the indexes (in the values array) of the matching entries
+   * @return Number of matching entries
+   */
+  int applySVBatch(double[] values, int length, int[] outMatchingIndexes);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -147,6 +187,16 @@ public interface PredicateEvaluator {
    */
   boolean applySV(String value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate.
+   *
+   * @param values Array of raw values
+   * @param length Number of entries in the batch
+   * @param outMatchingIndexes Buffer for the indexes (in the values array) of the matching entries
+   * @return Number of matching entries
+   */
+  int applySVBatch(String[] values, int length, int[] outMatchingIndexes);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -73,7 +73,11 @@ public class RangePredicateEvaluatorFactory {
     }
   }
 
-  private static final class OfflineDictionaryBasedRangePredicateEvaluator
+  /**
+   * Dictionary based RANGE predicate evaluator for OFFLINE segment, where the dictionary is sorted so that the matching
+   * dictionary ids are contiguous.
+   */
+  public static final class OfflineDictionaryBasedRangePredicateEvaluator
       extends BaseDictionaryBasedPredicateEvaluator {
     final int _startDictId;
     // Exclusive
@@ -118,6 +122,20 @@ public class RangePredicateEvaluatorFactory {
       _numMatchingDictIds = _endDictId - _startDictId;
     }
 
+    /**
+     * Returns the first matching dictionary id (inclusive).
+     */
+    public int getStartDictId() {
+      return _startDictId;
+    }
+
+    /**
+     * Returns the last matching dictionary id (exclusive).
+     */
+    public int getEndDictId() {
+      return _endDictId;
+    }
+
     @Override
     public Predicate.Type getPredicateType() {
       return Predicate.Type.RANGE;
@@ -133,6 +151,21 @@ public class RangePredicateEvaluatorFactory {
       return _startDictId <= dictId && _endDictId > dictId;
     }
 
+    @Override
+    public int applySVBatch(int[] dictIds, int length, int[] outMatchingIndexes) {
+      // Matching dictionary ids form the range [_startDictId, _endDictId), so each value only needs two comparisons
+      int startDictId = _startDictId;
+      int endDictId = _endDictId;
+      int numMatches = 0;
+      for (int i = 0; i < length; i++) {
+        int dictId = dictIds[i];
+        if (startDictId <= dictId && endDictId > dictId) {
+          outMatchingIndexes[numMatches++] = i;
+        }
+      }
+      return numMatches;
+    }
+
     @Override
     public int getNumMatchingDictIds() {
       return _numMatchingDictIds;
@@ -73,9 +73,15 @@ public class AggregationGroupByOperator extends BaseOperator<IntermediateResults
               _transformOperator);
     }
     TransformBlock transformBlock;
-    while ((transformBlock = _transformOperator.nextBlock()) != null) {
-      numDocsScanned += transformBlock.getNumDocs();
-      groupByExecutor.process(transformBlock);
+    try {
+      while ((transformBlock = _transformOperator.nextBlock()) != null) {
+        numDocsScanned += transformBlock.getNumDocs();
+        groupByExecutor.process(transformBlock);
+      }
+    } catch (RuntimeException e) {
+      // The result is never handed to the combine operator, release the resources held by the result holders here
+      groupByExecutor.getResult().close();
+      throw e;
     }
     AggregationGroupByResult groupByResult = groupByExecutor.getResult();
 
@@ -75,7 +75,7 @@ public class AggregationOperator extends BaseOperator<IntermediateResultsBlock>
             _numTotalRawDocs);
 
     // Build intermediate result block based on aggregation result from the executor
-    return new IntermediateResultsBlock(_functionContexts, aggregationResult, false);
+    return new IntermediateResultsBlock(_functionContexts, aggregationResult);
   }
 
   @Override
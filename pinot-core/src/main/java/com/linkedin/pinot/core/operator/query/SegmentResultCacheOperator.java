@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.query.cache.CachedSegmentResult;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>SegmentResultCacheOperator</code> class provides the operator to serve the result of a single segment from
+ * the {@link SegmentResultCache}. The operator for the query is only created and executed when the result is not
+ * cached, and the computed result is put into the cache.
+ */
+public class SegmentResultCacheOperator extends BaseOperator<IntermediateResultsBlock> {
+  private static final String OPERATOR_NAME = "SegmentResultCacheOperator";
+
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.Key _key;
+  private final IndexSegment _indexSegment;
+  private final PlanNode _planNode;
+
+  private ExecutionStatistics _executionStatistics;
+
+  public SegmentResultCacheOperator(@Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull SegmentResultCache.Key key, @Nonnull IndexSegment indexSegment, @Nonnull PlanNode planNode) {
+    _segmentResultCache = segmentResultCache;
+    _key = key;
+    _indexSegment = indexSegment;
+    _planNode = planNode;
+  }
+
+  @Override
+  protected IntermediateResultsBlock getNextBlock() {
+    CachedSegmentResult cachedResult = _segmentResultCache.get(_key, _indexSegment);
+    if (cachedResult != null) {
+      _executionStatistics = cachedResult.getExecutionStatistics();
+      return cachedResult.toResultsBlock();
+    }
+
+    Operator operator = _planNode.run();
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) operator.nextBlock();
+    _executionStatistics = operator.getExecutionStatistics();
+    cachedResult = _segmentResultCache.put(_key, _indexSegment, resultsBlock, _executionStatistics);
+    if (cachedResult != null) {
+      // Resources held by the results block are released after the snapshot is taken
+      return cachedResult.toResultsBlock();
+    } else {
+      return resultsBlock;
+    }
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+}
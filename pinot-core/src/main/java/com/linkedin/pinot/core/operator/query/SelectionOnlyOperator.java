@@ -59,6 +59,8 @@ public class SelectionOnlyOperator extends BaseOperator<IntermediateResultsBlock
     _dataSchema = SelectionOperatorUtils.extractDataSchema(null, selectionColumns, indexSegment);
     _blocks = new Block[selectionColumns.size()];
     _rowEvents = new ArrayList<>();
+    // Execution statistics for the operator skipped by the early termination of the combine operator
+    _executionStatistics = new ExecutionStatistics(0L, 0L, 0L, indexSegment.getSegmentMetadata().getTotalRawDocs());
   }
 
   @Override
@@ -19,15 +19,17 @@ import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.request.SelectionSort;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
 import com.linkedin.pinot.core.operator.ProjectionOperator;
-import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
+import com.linkedin.pinot.core.query.selection.SelectionOrderByDocIdHeap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
@@ -59,6 +61,15 @@ public class SelectionOrderByOperator extends BaseOperator<IntermediateResultsBl
     _selectionOperatorService = new SelectionOperatorService(_selection, indexSegment);
     _dataSchema = _selectionOperatorService.getDataSchema();
     _blocks = new Block[_selectionColumns.size()];
+    // Execution statistics for the operator skipped by the early termination of the combine operator
+    _executionStatistics = new ExecutionStatistics(0L, 0L, 0L, indexSegment.getSegmentMetadata().getTotalRawDocs());
+  }
+
+  /**
+   * Returns the index segment to apply the selection query on.
+   */
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
   }
 
   private void initColumnarDataSourcePlanNodeMap(IndexSegment indexSegment) {
@@ -79,21 +90,40 @@ public class SelectionOrderByOperator extends BaseOperator<IntermediateResultsBl
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>Only the order-by columns are read while scanning the documents to collect the top document ids, and the
+   * selection columns are fetched only for the top document ids after all the documents are scanned.
+   */
   @Override
   protected IntermediateResultsBlock getNextBlock() {
-    int numDocsScanned = 0;
+    List<SelectionSort> sortSequence = _selectionOperatorService.getSortSequence();
+    int numSortColumns = sortSequence.size();
+    SelectionOrderByDocIdHeap docIdHeap = null;
 
     ProjectionBlock projectionBlock;
     while ((projectionBlock = _projectionOperator.nextBlock()) != null) {
-      for (int i = 0; i < _dataSchema.size(); i++) {
-        _blocks[i] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
+      if (docIdHeap == null) {
+        for (int i = 0; i < _dataSchema.size(); i++) {
+          _blocks[i] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
+        }
+        BlockMetadata[] sortColumnsBlockMetadata = new BlockMetadata[numSortColumns];
+        for (int i = 0; i < numSortColumns; i++) {
+          sortColumnsBlockMetadata[i] = _blocks[i].getMetadata();
+        }
+        docIdHeap = new SelectionOrderByDocIdHeap(sortSequence, sortColumnsBlockMetadata,
+            _selection.getOffset() + _selection.getSize());
       }
-      DocIdSetBlock docIdSetBlock = projectionBlock.getDocIdSetBlock();
-      _selectionOperatorService.iterateOnBlocksWithOrdering(docIdSetBlock.getBlockDocIdSet().iterator(), _blocks);
+      docIdHeap.addDocs(projectionBlock);
+    }
+
+    long numDocsScanned = 0;
+    if (docIdHeap != null) {
+      numDocsScanned = docIdHeap.getNumDocsScanned();
+      _selectionOperatorService.mergeDocIdsWithOrdering(docIdHeap.getDocIds(), _blocks);
     }
 
     // Create execution statistics.
-    numDocsScanned += _selectionOperatorService.getNumDocsScanned();
     long numEntriesScannedInFilter = _projectionOperator.getExecutionStatistics().getNumEntriesScannedInFilter();
     long numEntriesScannedPostFilter = numDocsScanned * _projectionOperator.getNumColumnsProjected();
     long numTotalRawDocs = _indexSegment.getSegmentMetadata().getTotalRawDocs();
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.SegmentResultCacheOperator;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCachePlanNode</code> class wraps the plan node of a single segment, and serves the result of
+ * the segment from the {@link SegmentResultCache} if possible.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCachePlanNode.class);
+
+  private final SegmentResultCache _segmentResultCache;
+  private final IndexSegment _indexSegment;
+  private final SegmentResultCache.QueryKey _queryKey;
+  private final PlanNode _planNode;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param segmentResultCache Segment result cache
+   * @param indexSegment Segment to process
+   * @param queryKey Query part of the cache key, shared across all the segments queried
+   * @param planNode Plan node to compute the result when it is not cached
+   */
+  public SegmentResultCachePlanNode(@Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull IndexSegment indexSegment, @Nonnull SegmentResultCache.QueryKey queryKey, @Nonnull PlanNode planNode) {
+    _segmentResultCache = segmentResultCache;
+    _indexSegment = indexSegment;
+    _queryKey = queryKey;
+    _planNode = planNode;
+  }
+
+  @Override
+  public SegmentResultCacheOperator run() {
+    return new SegmentResultCacheOperator(_segmentResultCache,
+        SegmentResultCache.getKey(_indexSegment, _queryKey), _indexSegment, _planNode);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Result Cache Plan Node:");
+    LOGGER.debug(prefix + "Operator: SegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: PlanNode -");
+    _planNode.showTree(prefix + "    ");
+  }
+}
@@ -31,14 +31,18 @@ import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
 import com.linkedin.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionType;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,17 +61,28 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   private final int _maxInitialResultHolderCapacity;
   // Limit on number of groups, beyond which no new group will be created
   private final int _numGroupsLimit;
+  // Cache for the per-segment results, null if disabled
+  private final SegmentResultCache _segmentResultCache;
 
   @VisibleForTesting
   public InstancePlanMakerImplV2() {
     _maxInitialResultHolderCapacity = DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY;
     _numGroupsLimit = DEFAULT_NUM_GROUPS_LIMIT;
+    _segmentResultCache = null;
   }
 
   @VisibleForTesting
   public InstancePlanMakerImplV2(int maxInitialResultHolderCapacity, int numGroupsLimit) {
     _maxInitialResultHolderCapacity = maxInitialResultHolderCapacity;
     _numGroupsLimit = numGroupsLimit;
+    _segmentResultCache = null;
+  }
+
+  @VisibleForTesting
+  public InstancePlanMakerImplV2(@Nullable SegmentResultCache segmentResultCache) {
+    _maxInitialResultHolderCapacity = DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY;
+    _numGroupsLimit = DEFAULT_NUM_GROUPS_LIMIT;
+    _segmentResultCache = segmentResultCache;
   }
 
   /**
@@ -80,14 +95,28 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
    * @param queryExecutorConfig Query executor configuration
    */
   public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig) {
+    this(queryExecutorConfig, null);
+  }
+
+  /**
+   * Constructor for usage when client requires to pass {@link QueryExecutorConfig} and {@link SegmentResultCache} to
+   * this class.
+   *
+   * @param queryExecutorConfig Query executor configuration
+   * @param segmentResultCache Cache for the per-segment results, or <code>null</code> to disable the cache
+   */
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig,
+      @Nullable SegmentResultCache segmentResultCache) {
     _maxInitialResultHolderCapacity = queryExecutorConfig.getConfig()
         .getInt(MAX_INITIAL_RESULT_HOLDER_CAPACITY_KEY, DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY);
     _numGroupsLimit = queryExecutorConfig.getConfig().getInt(NUM_GROUPS_LIMIT, DEFAULT_NUM_GROUPS_LIMIT);
     Preconditions.checkState(_maxInitialResultHolderCapacity <= _numGroupsLimit,
         "Invalid configuration: maxInitialResultHolderCapacity: %d must be smaller or equal to numGroupsLimit: %d",
         _maxInitialResultHolderCapacity, _numGroupsLimit);
-    LOGGER.info("Initializing plan maker with maxInitialResultHolderCapacity: {}, numGroupsLimit: {}",
-        _maxInitialResultHolderCapacity, _numGroupsLimit);
+    _segmentResultCache = segmentResultCache;
+    LOGGER.info(
+        "Initializing plan maker with maxInitialResultHolderCapacity: {}, numGroupsLimit: {}, segmentResultCache: {}",
+        _maxInitialResultHolderCapacity, _numGroupsLimit, segmentResultCache != null ? "enabled" : "disabled");
   }
 
   @Override
@@ -122,9 +151,16 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     }
     BrokerRequestPreProcessor.preProcess(indexSegments, brokerRequest);
 
+    // Normalize the query for the segment result cache only once, and share it across all the segments
+    SegmentResultCache.QueryKey queryKey = null;
+    if (_segmentResultCache != null && SegmentResultCache.isCacheable(brokerRequest)) {
+      queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+    }
     List<PlanNode> planNodes = new ArrayList<>();
-    for (IndexSegment indexSegment : indexSegments) {
-      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+    // Combine operators process the segments in the order of the plan nodes, so schedule the largest segments first to
+    // avoid having a large segment processed last while the other threads are idle
+    for (IndexSegment indexSegment : sortSegmentsByNumDocsDescending(indexSegments)) {
+      planNodes.add(makeCachingInnerSegmentPlan(indexSegment, brokerRequest, queryKey));
     }
     CombinePlanNode combinePlanNode =
         new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs, _numGroupsLimit);
@@ -132,6 +168,41 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode));
   }
 
+  /**
+   * Helper method to make the plan for a single segment, which serves the result from the segment result cache if the
+   * cache is enabled (query key is not <code>null</code>) and the result of the segment can be cached.
+   * <p>Queries that can be solved by metadata or dictionary are not cached because they are already cheap.
+   */
+  private PlanNode makeCachingInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      @Nullable SegmentResultCache.QueryKey queryKey) {
+    PlanNode planNode = makeInnerSegmentPlan(indexSegment, brokerRequest);
+    if (queryKey != null && SegmentResultCache.isCacheable(indexSegment) && !isFitForMetadataBasedPlan(brokerRequest,
+        indexSegment) && !isFitForDictionaryBasedPlan(brokerRequest, indexSegment)) {
+      return new SegmentResultCachePlanNode(_segmentResultCache, indexSegment, queryKey, planNode);
+    }
+    return planNode;
+  }
+
+  /**
+   * Helper method to sort the segments by the number of documents in descending order.
+   * <p>The number of documents of consuming segments can change during sorting, so take a snapshot first.
+   */
+  private static List<IndexSegment> sortSegmentsByNumDocsDescending(List<IndexSegment> indexSegments) {
+    int numSegments = indexSegments.size();
+    Integer[] indexes = new Integer[numSegments];
+    int[] numDocs = new int[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      indexes[i] = i;
+      numDocs[i] = indexSegments.get(i).getSegmentMetadata().getTotalDocs();
+    }
+    Arrays.sort(indexes, (i1, i2) -> Integer.compare(numDocs[i2], numDocs[i1]));
+    List<IndexSegment> sortedIndexSegments = new ArrayList<>(numSegments);
+    for (int index : indexes) {
+      sortedIndexSegments.add(indexSegments.get(index));
+    }
+    return sortedIndexSegments;
+  }
+
   /**
    * Helper method to identify if query is fit to be be served purely based on metadata.
    * Currently count queries without any filters are supported.
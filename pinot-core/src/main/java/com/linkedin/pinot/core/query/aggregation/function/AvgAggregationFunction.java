@@ -22,14 +22,20 @@ import com.linkedin.pinot.core.common.ObjectSerDeUtils;
 import com.linkedin.pinot.core.query.aggregation.AggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.function.customobject.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.groupby.FixedWidthGroupByResultHolder;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
-import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.OffHeapGroupByResultHolder;
 import javax.annotation.Nonnull;
 
 
 public class AvgAggregationFunction implements AggregationFunction<AvgPair, Double> {
   private static final double DEFAULT_FINAL_RESULT = Double.NEGATIVE_INFINITY;
 
+  // Group-by results are stored in fixed-width slots of (sum, count)
+  private static final int SUM_INDEX = 0;
+  private static final int COUNT_INDEX = 1;
+  private static final long[] DEFAULT_SLOT_VALUES = {Double.doubleToRawLongBits(0.0), 0L};
+
   @Nonnull
   @Override
   public AggregationFunctionType getType() {
@@ -56,7 +62,7 @@ public class AvgAggregationFunction implements AggregationFunction<AvgPair, Doub
   @Nonnull
   @Override
   public GroupByResultHolder createGroupByResultHolder(int initialCapacity, int maxCapacity) {
-    return new ObjectGroupByResultHolder(initialCapacity, maxCapacity);
+    return new OffHeapGroupByResultHolder(initialCapacity, maxCapacity, DEFAULT_SLOT_VALUES);
   }
 
   @Override
@@ -165,12 +171,9 @@ public class AvgAggregationFunction implements AggregationFunction<AvgPair, Doub
 
   protected void setGroupByResult(int groupKey, @Nonnull GroupByResultHolder groupByResultHolder, double sum,
       long count) {
-    AvgPair avgPair = groupByResultHolder.getResult(groupKey);
-    if (avgPair == null) {
-      groupByResultHolder.setValueForKey(groupKey, new AvgPair(sum, count));
-    } else {
-      avgPair.apply(sum, count);
-    }
+    FixedWidthGroupByResultHolder resultHolder = (FixedWidthGroupByResultHolder) groupByResultHolder;
+    resultHolder.setDoubleValue(groupKey, SUM_INDEX, resultHolder.getDoubleValue(groupKey, SUM_INDEX) + sum);
+    resultHolder.setLongValue(groupKey, COUNT_INDEX, resultHolder.getLongValue(groupKey, COUNT_INDEX) + count);
   }
 
   @Nonnull
@@ -187,12 +190,9 @@ public class AvgAggregationFunction implements AggregationFunction<AvgPair, Doub
   @Nonnull
   @Override
   public AvgPair extractGroupByResult(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey) {
-    AvgPair avgPair = groupByResultHolder.getResult(groupKey);
-    if (avgPair == null) {
-      return new AvgPair(0.0, 0L);
-    } else {
-      return avgPair;
-    }
+    FixedWidthGroupByResultHolder resultHolder = (FixedWidthGroupByResultHolder) groupByResultHolder;
+    return new AvgPair(resultHolder.getDoubleValue(groupKey, SUM_INDEX),
+        resultHolder.getLongValue(groupKey, COUNT_INDEX));
   }
 
   @Nonnull
@@ -63,9 +63,22 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
   @Override
   public void aggregate(int length, @Nonnull AggregationResultHolder aggregationResultHolder,
       @Nonnull BlockValSet... blockValSets) {
-    HyperLogLog hyperLogLog = getHyperLogLog(aggregationResultHolder);
-
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
+    if (valueType == FieldSpec.DataType.BYTES) {
+      // Serialized HyperLogLog
+      byte[][] bytesValues = blockValSets[0].getBytesValuesSV();
+      try {
+        for (int i = 0; i < length; i++) {
+          mergeHyperLogLog(aggregationResultHolder,
+              ObjectSerDeUtils.HYPER_LOG_LOG_SER_DE.deserialize(bytesValues[i]));
+        }
+      } catch (Exception e) {
+        throw new RuntimeException("Caught exception while aggregating HyperLogLog", e);
+      }
+      return;
+    }
+
+    HyperLogLog hyperLogLog = getHyperLogLog(aggregationResultHolder);
     switch (valueType) {
       case INT:
         int[] intValues = blockValSets[0].getIntValuesSV();
@@ -97,17 +110,6 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
           hyperLogLog.offer(stringValues[i]);
         }
         break;
-      case BYTES:
-        // Serialized HyperLogLog
-        byte[][] bytesValues = blockValSets[0].getBytesValuesSV();
-        try {
-          for (int i = 0; i < length; i++) {
-            hyperLogLog.addAll(ObjectSerDeUtils.HYPER_LOG_LOG_SER_DE.deserialize(bytesValues[i]));
-          }
-        } catch (Exception e) {
-          throw new RuntimeException("Caught exception while aggregating HyperLogLog", e);
-        }
-        break;
       default:
         throw new IllegalStateException("Illegal data type for DISTINCT_COUNT_HLL aggregation function: " + valueType);
     }
@@ -205,8 +207,12 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
         byte[][] bytesValues = blockValSets[0].getBytesValuesSV();
         try {
           for (int i = 0; i < length; i++) {
-            setValueForGroupKeys(groupByResultHolder, groupKeysArray[i],
-                ObjectSerDeUtils.HYPER_LOG_LOG_SER_DE.deserialize(bytesValues[i]));
+            // Deserialize the value for each group key because the first value for a group key is kept in the result
+            // holder and modified when merging the following values
+            for (int groupKey : groupKeysArray[i]) {
+              setValueForGroupKey(groupByResultHolder, groupKey,
+                  ObjectSerDeUtils.HYPER_LOG_LOG_SER_DE.deserialize(bytesValues[i]));
+            }
           }
         } catch (Exception e) {
           throw new RuntimeException("Caught exception while aggregating HyperLogLog", e);
@@ -242,6 +248,14 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
   @Nonnull
   @Override
   public HyperLogLog merge(@Nonnull HyperLogLog intermediateResult1, @Nonnull HyperLogLog intermediateResult2) {
+    // Empty HyperLogLog (e.g. for segments without matching documents) has the default log2m, which might be different
+    // from the log2m of the pre-aggregated HyperLogLog values
+    if (intermediateResult1.cardinality() == 0) {
+      return intermediateResult2;
+    }
+    if (intermediateResult2.cardinality() == 0) {
+      return intermediateResult1;
+    }
     try {
       intermediateResult1.addAll(intermediateResult2);
     } catch (Exception e) {
@@ -289,33 +303,41 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
    */
   private static void setValueForGroupKey(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey,
       HyperLogLog value) throws CardinalityMergeException {
-    HyperLogLog hyperLogLog = getHyperLogLog(groupByResultHolder, groupKey);
-    hyperLogLog.addAll(value);
+    HyperLogLog hyperLogLog = groupByResultHolder.getResult(groupKey);
+    if (hyperLogLog == null) {
+      groupByResultHolder.setValueForKey(groupKey, value);
+    } else {
+      hyperLogLog.addAll(value);
+    }
   }
 
   /**
-   * Helper method to set value for a given array of group keys.
+   * Helper method to merge a pre-aggregated HyperLogLog value into the result holder.
+   * <p>The first value is kept in the result holder instead of being merged into a HyperLogLog with the default log2m,
+   * so that pre-aggregated values with non-default log2m can be aggregated.
    *
-   * @param groupByResultHolder Result Holder
-   * @param groupKeys Group keys for which to set the value
-   * @param value Value to set
+   * @param aggregationResultHolder Result holder
+   * @param value HyperLogLog value to merge
    */
-  private static void setValueForGroupKeys(@Nonnull GroupByResultHolder groupByResultHolder, int[] groupKeys,
-      Object value) {
-    for (int groupKey : groupKeys) {
-      setValueForGroupKey(groupByResultHolder, groupKey, value);
+  private static void mergeHyperLogLog(@Nonnull AggregationResultHolder aggregationResultHolder, HyperLogLog value)
+      throws CardinalityMergeException {
+    HyperLogLog hyperLogLog = aggregationResultHolder.getResult();
+    if (hyperLogLog == null) {
+      aggregationResultHolder.setValue(value);
+    } else {
+      hyperLogLog.addAll(value);
     }
   }
 
   /**
-   * Helper method to set HyperLogLog value for a given array of group keys.
+   * Helper method to set value for a given array of group keys.
    *
    * @param groupByResultHolder Result Holder
    * @param groupKeys Group keys for which to set the value
-   * @param value HyperLogLog value to set
+   * @param value Value to set
    */
   private static void setValueForGroupKeys(@Nonnull GroupByResultHolder groupByResultHolder, int[] groupKeys,
-      HyperLogLog value) throws CardinalityMergeException {
+      Object value) {
     for (int groupKey : groupKeys) {
       setValueForGroupKey(groupByResultHolder, groupKey, value);
     }
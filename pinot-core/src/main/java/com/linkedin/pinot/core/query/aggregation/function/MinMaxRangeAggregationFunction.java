@@ -22,12 +22,18 @@ import com.linkedin.pinot.core.common.ObjectSerDeUtils;
 import com.linkedin.pinot.core.query.aggregation.AggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.function.customobject.MinMaxRangePair;
+import com.linkedin.pinot.core.query.aggregation.groupby.FixedWidthGroupByResultHolder;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
-import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.OffHeapGroupByResultHolder;
 import javax.annotation.Nonnull;
 
 
 public class MinMaxRangeAggregationFunction implements AggregationFunction<MinMaxRangePair, Double> {
+  // Group-by results are stored in fixed-width slots of (min, max)
+  private static final int MIN_INDEX = 0;
+  private static final int MAX_INDEX = 1;
+  private static final long[] DEFAULT_SLOT_VALUES =
+      {Double.doubleToRawLongBits(Double.POSITIVE_INFINITY), Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY)};
 
   @Nonnull
   @Override
@@ -55,7 +61,7 @@ public class MinMaxRangeAggregationFunction implements AggregationFunction<MinMa
   @Nonnull
   @Override
   public GroupByResultHolder createGroupByResultHolder(int initialCapacity, int maxCapacity) {
-    return new ObjectGroupByResultHolder(initialCapacity, maxCapacity);
+    return new OffHeapGroupByResultHolder(initialCapacity, maxCapacity, DEFAULT_SLOT_VALUES);
   }
 
   @Override
@@ -174,11 +180,12 @@ public class MinMaxRangeAggregationFunction implements AggregationFunction<MinMa
 
   protected void setGroupByResult(int groupKey, @Nonnull GroupByResultHolder groupByResultHolder, double min,
       double max) {
-    MinMaxRangePair minMaxRangePair = groupByResultHolder.getResult(groupKey);
-    if (minMaxRangePair == null) {
-      groupByResultHolder.setValueForKey(groupKey, new MinMaxRangePair(min, max));
-    } else {
-      minMaxRangePair.apply(min, max);
+    FixedWidthGroupByResultHolder resultHolder = (FixedWidthGroupByResultHolder) groupByResultHolder;
+    if (min < resultHolder.getDoubleValue(groupKey, MIN_INDEX)) {
+      resultHolder.setDoubleValue(groupKey, MIN_INDEX, min);
+    }
+    if (max > resultHolder.getDoubleValue(groupKey, MAX_INDEX)) {
+      resultHolder.setDoubleValue(groupKey, MAX_INDEX, max);
     }
   }
 
@@ -196,12 +203,9 @@ public class MinMaxRangeAggregationFunction implements AggregationFunction<MinMa
   @Nonnull
   @Override
   public MinMaxRangePair extractGroupByResult(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey) {
-    MinMaxRangePair minMaxRangePair = groupByResultHolder.getResult(groupKey);
-    if (minMaxRangePair == null) {
-      return new MinMaxRangePair(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
-    } else {
-      return minMaxRangePair;
-    }
+    FixedWidthGroupByResultHolder resultHolder = (FixedWidthGroupByResultHolder) groupByResultHolder;
+    return new MinMaxRangePair(resultHolder.getDoubleValue(groupKey, MIN_INDEX),
+        resultHolder.getDoubleValue(groupKey, MAX_INDEX));
   }
 
   @Nonnull
@@ -44,6 +44,14 @@ public class AggregationGroupByResult {
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
+  /**
+   * Returns an iterator for group-by keys with typed group key values instead of string keys.
+   * @return
+   */
+  public Iterator<GroupKeyGenerator.GroupKey> getTypedGroupKeyIterator() {
+    return _groupKeyGenerator.getUniqueTypedGroupKeys();
+  }
+
   /**
    *
    * Given a group-by key and an index into the result holder array, returns
@@ -64,4 +72,14 @@ public class AggregationGroupByResult {
   public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
     return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupKey._groupId);
   }
+
+  /**
+   * Releases the resources (e.g. off-heap memory) held by the result holders.
+   * <p>Should be called after all the results are extracted, the results cannot be accessed after this call.
+   */
+  public void close() {
+    for (GroupByResultHolder resultHolder : _resultHolders) {
+      resultHolder.close();
+    }
+  }
 }
@@ -65,32 +65,18 @@ public class AggregationGroupByTrimmingService {
    */
   @SuppressWarnings("unchecked")
   @Nonnull
-  public List<Map<String, Object>> trimIntermediateResultsMap(@Nonnull Map<String, Object[]> intermediateResultsMap) {
+  public <K> List<Map<K, Object>> trimIntermediateResultsMap(@Nonnull Map<K, Object[]> intermediateResultsMap) {
     int numAggregationFunctions = _aggregationFunctions.length;
-    Map<String, Object>[] trimmedResultMaps = new Map[numAggregationFunctions];
+    Map<K, Object>[] trimmedResultMaps = new Map[numAggregationFunctions];
 
     int numGroups = intermediateResultsMap.size();
     if (numGroups > _trimThreshold) {
       // Trim the result only if number of groups is larger than the threshold
-
-      Sorter[] sorters = new Sorter[numAggregationFunctions];
-      for (int i = 0; i < numAggregationFunctions; i++) {
-        AggregationFunction aggregationFunction = _aggregationFunctions[i];
-        sorters[i] = getSorter(_trimSize, aggregationFunction, aggregationFunction.isIntermediateResultComparable());
-      }
-
-      // Add results into sorters
-      for (Map.Entry<String, Object[]> entry : intermediateResultsMap.entrySet()) {
-        String groupKey = entry.getKey();
-        Object[] intermediateResults = entry.getValue();
-        for (int i = 0; i < numAggregationFunctions; i++) {
-          sorters[i].add(groupKey, intermediateResults[i]);
-        }
-      }
+      Sorter<K>[] sorters = getSortersForIntermediateResults(intermediateResultsMap);
 
       // Dump trimmed results into maps
       for (int i = 0; i < numAggregationFunctions; i++) {
-        Map<String, Object> trimmedResultMap = new HashMap<>(_trimSize);
+        Map<K, Object> trimmedResultMap = new HashMap<>(_trimSize);
         sorters[i].dumpToMap(trimmedResultMap);
         trimmedResultMaps[i] = trimmedResultMap;
       }
@@ -100,8 +86,8 @@ public class AggregationGroupByTrimmingService {
       for (int i = 0; i < numAggregationFunctions; i++) {
         trimmedResultMaps[i] = new HashMap<>(numGroups);
       }
-      for (Map.Entry<String, Object[]> entry : intermediateResultsMap.entrySet()) {
-        String groupKey = entry.getKey();
+      for (Map.Entry<K, Object[]> entry : intermediateResultsMap.entrySet()) {
+        K groupKey = entry.getKey();
         Object[] intermediateResults = entry.getValue();
         for (int i = 0; i < numAggregationFunctions; i++) {
           trimmedResultMaps[i].put(groupKey, intermediateResults[i]);
@@ -112,12 +98,59 @@ public class AggregationGroupByTrimmingService {
     return Arrays.asList(trimmedResultMaps);
   }
 
+  /**
+   * Given a map from group key to the intermediate results for multiple aggregation functions, trim the results to
+   * desired size and keep the groups that are within the trim size for any of the aggregation functions.
+   * <p>Unlike {@link #trimIntermediateResultsMap(Map)}, the kept groups have intermediate results for all the
+   * aggregation functions, so that they can be stored as rows.
+   */
+  @SuppressWarnings("unchecked")
+  @Nonnull
+  public <K> Map<K, Object[]> trimIntermediateResults(@Nonnull Map<K, Object[]> intermediateResultsMap) {
+    if (intermediateResultsMap.size() <= _trimThreshold) {
+      return intermediateResultsMap;
+    }
+
+    // Trim the result only if number of groups is larger than the threshold
+    Sorter<K>[] sorters = getSortersForIntermediateResults(intermediateResultsMap);
+    Map<K, Object> trimmedResultMap = new HashMap<>(_trimSize);
+    for (Sorter<K> sorter : sorters) {
+      sorter.dumpToMap(trimmedResultMap);
+    }
+    Map<K, Object[]> trimmedResultsMap = new HashMap<>(trimmedResultMap.size());
+    for (K groupKey : trimmedResultMap.keySet()) {
+      trimmedResultsMap.put(groupKey, intermediateResultsMap.get(groupKey));
+    }
+    return trimmedResultsMap;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <K> Sorter<K>[] getSortersForIntermediateResults(Map<K, Object[]> intermediateResultsMap) {
+    int numAggregationFunctions = _aggregationFunctions.length;
+    Sorter<K>[] sorters = new Sorter[numAggregationFunctions];
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      AggregationFunction aggregationFunction = _aggregationFunctions[i];
+      sorters[i] = getSorter(_trimSize, aggregationFunction, aggregationFunction.isIntermediateResultComparable());
+    }
+
+    // Add results into sorters
+    for (Map.Entry<K, Object[]> entry : intermediateResultsMap.entrySet()) {
+      K groupKey = entry.getKey();
+      Object[] intermediateResults = entry.getValue();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        sorters[i].add(groupKey, intermediateResults[i]);
+      }
+    }
+    return sorters;
+  }
+
   /**
    * Given an array of maps from group key to final result for each aggregation function, trim the results to topN size.
+   * <p>Group key can be either {@link TypedGroupKey} or string key with values joined by {@link #GROUP_KEY_DELIMITER}.
    */
   @SuppressWarnings("unchecked")
   @Nonnull
-  public List<GroupByResult>[] trimFinalResults(@Nonnull Map<String, Comparable>[] finalResultMaps) {
+  public <K> List<GroupByResult>[] trimFinalResults(@Nonnull Map<K, Comparable>[] finalResultMaps) {
     int numAggregationFunctions = _aggregationFunctions.length;
     List<GroupByResult>[] trimmedResults = new List[numAggregationFunctions];
 
@@ -125,16 +158,16 @@ public class AggregationGroupByTrimmingService {
       LinkedList<GroupByResult> groupByResults = new LinkedList<>();
       trimmedResults[i] = groupByResults;
 
-      Map<String, Comparable> finalResultMap = finalResultMaps[i];
+      Map<K, Comparable> finalResultMap = finalResultMaps[i];
       if (finalResultMap.isEmpty()) {
         continue;
       }
 
       // Final result is always comparable
-      Sorter sorter = getSorter(_groupByTopN, _aggregationFunctions[i], true);
+      Sorter<K> sorter = getSorter(_groupByTopN, _aggregationFunctions[i], true);
 
       // Add results into sorter
-      for (Map.Entry<String, Comparable> entry : finalResultMap.entrySet()) {
+      for (Map.Entry<K, Comparable> entry : finalResultMap.entrySet()) {
         sorter.add(entry.getKey(), entry.getValue());
       }
 
@@ -145,31 +178,43 @@ public class AggregationGroupByTrimmingService {
     return trimmedResults;
   }
 
-  private interface Sorter {
-    void add(String groupKey, Object result);
+  private interface Sorter<K> {
+    void add(K groupKey, Object result);
 
-    void dumpToMap(Map<String, Object> dest);
+    void dumpToMap(Map<K, Object> dest);
 
     void dumpToGroupByResults(LinkedList<GroupByResult> dest);
   }
 
+  /**
+   * Helper method to get the values of the group-by expressions from the group key.
+   */
+  private static List<String> getGroupValues(Object groupKey) {
+    if (groupKey instanceof TypedGroupKey) {
+      return ((TypedGroupKey) groupKey).getGroupValues();
+    } else {
+      // Set limit to -1 to prevent removing trailing empty strings
+      return Arrays.asList(((String) groupKey).split(GROUP_KEY_DELIMITER, -1));
+    }
+  }
+
   @SuppressWarnings("unchecked")
-  private static Sorter getSorter(int trimSize, AggregationFunction aggregationFunction, boolean isComparable) {
+  private static <K> Sorter<K> getSorter(int trimSize, AggregationFunction aggregationFunction, boolean isComparable) {
     // This will cover both MIN and MINMV
     boolean minOrder = aggregationFunction instanceof MinAggregationFunction;
 
     if (isComparable) {
       if (minOrder) {
-        return new ComparableSorter(trimSize, Collections.reverseOrder());
+        return new ComparableSorter<>(trimSize, Collections.reverseOrder());
       } else {
-        return new ComparableSorter(trimSize, new ComparableComparator());
+        return new ComparableSorter<>(trimSize, new ComparableComparator());
       }
     } else {
       // Reverse the comparator so that keys are ordered in descending order
       if (minOrder) {
-        return new NonComparableSorter(trimSize, new ComparableComparator(), aggregationFunction);
+        return new NonComparableSorter<>(trimSize, new ComparableComparator(), aggregationFunction);
       } else {
-        return new NonComparableSorter(trimSize, Collections.reverseOrder(), aggregationFunction);
+        return new NonComparableSorter<>(trimSize, Collections.reverseOrder(), aggregationFunction);
       }
     }
   }
@@ -187,10 +232,10 @@ public class AggregationGroupByTrimmingService {
    *   </li>
    * </ul>
    */
-  private static class ComparableSorter implements Sorter {
+  private static class ComparableSorter<K> implements Sorter<K> {
     private final int _trimSize;
     private final Comparator<? super Comparable> _comparator;
-    private final PriorityQueue<GroupKeyResultPair> _heap;
+    private final PriorityQueue<GroupKeyResultPair<K>> _heap;
 
     public ComparableSorter(int trimSize, Comparator<? super Comparable> comparator) {
       _trimSize = trimSize;
@@ -200,10 +245,10 @@ public class AggregationGroupByTrimmingService {
 
     @SuppressWarnings("unchecked")
     @Override
-    public void add(String groupKey, Object result) {
-      GroupKeyResultPair newGroupKeyResultPair = new GroupKeyResultPair(groupKey, (Comparable) result);
+    public void add(K groupKey, Object result) {
+      GroupKeyResultPair<K> newGroupKeyResultPair = new GroupKeyResultPair<>(groupKey, (Comparable) result);
       if (_heap.size() == _trimSize) {
-        GroupKeyResultPair minGroupKeyResultPair = _heap.peek();
+        GroupKeyResultPair<K> minGroupKeyResultPair = _heap.peek();
         if (_comparator.compare(newGroupKeyResultPair, minGroupKeyResultPair) > 0) {
           _heap.poll();
           _heap.add(newGroupKeyResultPair);
@@ -214,8 +259,8 @@ public class AggregationGroupByTrimmingService {
     }
 
     @Override
-    public void dumpToMap(Map<String, Object> dest) {
-      GroupKeyResultPair groupKeyResultPair;
+    public void dumpToMap(Map<K, Object> dest) {
+      GroupKeyResultPair<K> groupKeyResultPair;
       while ((groupKeyResultPair = _heap.poll()) != null) {
         dest.put(groupKeyResultPair._groupKey, groupKeyResultPair._result);
       }
@@ -223,13 +268,10 @@ public class AggregationGroupByTrimmingService {
 
     @Override
     public void dumpToGroupByResults(LinkedList<GroupByResult> dest) {
-      GroupKeyResultPair groupKeyResultPair;
+      GroupKeyResultPair<K> groupKeyResultPair;
       while ((groupKeyResultPair = _heap.poll()) != null) {
-        // Set limit to -1 to prevent removing trailing empty strings
-        String[] groupKeys = groupKeyResultPair._groupKey.split(GROUP_KEY_DELIMITER, -1);
-
         GroupByResult groupByResult = new GroupByResult();
-        groupByResult.setGroup(Arrays.asList(groupKeys));
+        groupByResult.setGroup(getGroupValues(groupKeyResultPair._groupKey));
         groupByResult.setValue(AggregationFunctionUtils.getSerializableValue(groupKeyResultPair._result));
 
         // Add to head to reverse the order
@@ -237,17 +279,17 @@ public class AggregationGroupByTrimmingService {
       }
     }
 
-    private static class GroupKeyResultPair implements Comparable<GroupKeyResultPair> {
-      private String _groupKey;
+    private static class GroupKeyResultPair<K> implements Comparable<GroupKeyResultPair<K>> {
+      private K _groupKey;
       private Comparable<? super Comparable> _result;
 
-      public GroupKeyResultPair(@Nonnull String groupKey, @Nonnull Comparable<? super Comparable> result) {
+      public GroupKeyResultPair(@Nonnull K groupKey, @Nonnull Comparable<? super Comparable> result) {
         _groupKey = groupKey;
         _result = result;
       }
 
       @Override
-      public int compareTo(@Nonnull GroupKeyResultPair o) {
+      public int compareTo(@Nonnull GroupKeyResultPair<K> o) {
         return _result.compareTo(o._result);
       }
     }
@@ -274,11 +316,11 @@ public class AggregationGroupByTrimmingService {
    *   </li>
    * </ul>
    */
-  private static class NonComparableSorter implements Sorter {
+  private static class NonComparableSorter<K> implements Sorter<K> {
     private final int _trimSize;
     private final Comparator<? super Comparable> _comparator;
     private final AggregationFunction _aggregationFunction;
-    private final TreeMap<Comparable, List<ImmutablePair<String, Object>>> _treeMap;
+    private final TreeMap<Comparable, List<ImmutablePair<K, Object>>> _treeMap;
     private int _numValuesAdded = 0;
 
     public NonComparableSorter(int trimSize, Comparator<? super Comparable> comparator,
@@ -291,14 +333,14 @@ public class AggregationGroupByTrimmingService {
 
     @SuppressWarnings("unchecked")
     @Override
-    public void add(String groupKey, Object result) {
+    public void add(K groupKey, Object result) {
       Comparable newKey = _aggregationFunction.extractFinalResult(result);
-      ImmutablePair<String, Object> groupKeyResultPair = new ImmutablePair<>(groupKey, result);
+      ImmutablePair<K, Object> groupKeyResultPair = new ImmutablePair<>(groupKey, result);
 
-      List<ImmutablePair<String, Object>> groupKeyResultPairs = _treeMap.get(newKey);
+      List<ImmutablePair<K, Object>> groupKeyResultPairs = _treeMap.get(newKey);
       if (_numValuesAdded >= _trimSize) {
         // Check whether the pair should be added
-        Map.Entry<Comparable, List<ImmutablePair<String, Object>>> maxEntry = _treeMap.lastEntry();
+        Map.Entry<Comparable, List<ImmutablePair<K, Object>>> maxEntry = _treeMap.lastEntry();
         Comparable maxKey = maxEntry.getKey();
         if (_comparator.compare(newKey, maxKey) < 0) {
           // Add the pair into list of pairs
@@ -326,11 +368,11 @@ public class AggregationGroupByTrimmingService {
     }
 
     @Override
-    public void dumpToMap(Map<String, Object> dest) {
+    public void dumpToMap(Map<K, Object> dest) {
       // Track the number of results added because there could be more than trim size values inside the map
       int numResultsAdded = 0;
-      for (List<ImmutablePair<String, Object>> groupKeyResultPairs : _treeMap.values()) {
-        for (ImmutablePair<String, Object> groupResultPair : groupKeyResultPairs) {
+      for (List<ImmutablePair<K, Object>> groupKeyResultPairs : _treeMap.values()) {
+        for (ImmutablePair<K, Object> groupResultPair : groupKeyResultPairs) {
           if (numResultsAdded != _trimSize) {
             dest.put(groupResultPair.left, groupResultPair.right);
             numResultsAdded++;
@@ -15,10 +15,12 @@
  */
 package com.linkedin.pinot.core.query.aggregation.groupby;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.request.transform.TransformExpressionTree;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
 import com.linkedin.pinot.core.operator.transform.TransformOperator;
+import com.linkedin.pinot.core.operator.transform.TransformResultMetadata;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
@@ -63,6 +65,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
   private final int[] _cardinalities;
   private final boolean[] _isSingleValueColumn;
   private final Dictionary[] _dictionaries;
+  private final FieldSpec.DataType[] _storedTypes;
 
   // The first dimension is the index of group-by column
   // Reusable buffer for single-value column dictionary ids
@@ -83,6 +86,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     _cardinalities = new int[_numGroupByExpressions];
     _isSingleValueColumn = new boolean[_numGroupByExpressions];
     _dictionaries = new Dictionary[_numGroupByExpressions];
+    _storedTypes = new FieldSpec.DataType[_numGroupByExpressions];
     _singleValueDictIds = new int[_numGroupByExpressions][];
     _multiValueDictIds = new int[_numGroupByExpressions][][];
 
@@ -101,7 +105,9 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         }
       }
 
-      _isSingleValueColumn[i] = transformOperator.getResultMetadata(groupByExpression).isSingleValue();
+      TransformResultMetadata transformResultMetadata = transformOperator.getResultMetadata(groupByExpression);
+      _isSingleValueColumn[i] = transformResultMetadata.isSingleValue();
+      _storedTypes[i] = transformResultMetadata.getDataType().getStoredType();
     }
 
     if (longOverflow) {
@@ -163,6 +169,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     return _rawKeyHolder.iterator();
   }
 
+  @Override
+  public Iterator<GroupKey> getUniqueTypedGroupKeys() {
+    return _rawKeyHolder.typedIterator();
+  }
+
   private interface RawKeyHolder extends Iterable<GroupKey> {
 
     /**
@@ -187,6 +198,13 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
      * @return Upper bound of group id inside the holder
      */
     int getGroupIdUpperBound();
+
+    /**
+     * Get an iterator of group keys with typed group key values.
+     *
+     * @return Iterator of group keys with typed group key values
+     */
+    Iterator<GroupKey> typedIterator();
   }
 
   private class ArrayBasedHolder implements RawKeyHolder {
@@ -224,6 +242,15 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     @Nonnull
     @Override
     public Iterator<GroupKey> iterator() {
+      return getIterator(false);
+    }
+
+    @Override
+    public Iterator<GroupKey> typedIterator() {
+      return getIterator(true);
+    }
+
+    private Iterator<GroupKey> getIterator(boolean typed) {
       return new Iterator<GroupKey>() {
         private int _currentGroupId;
         private final GroupKey _groupKey = new GroupKey();
@@ -242,7 +269,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
             throw new NoSuchElementException();
           }
           _groupKey._groupId = _currentGroupId;
-          _groupKey._stringKey = getGroupKey(_currentGroupId);
+          if (typed) {
+            _groupKey._typedGroupKey = getTypedGroupKey(_currentGroupId);
+          } else {
+            _groupKey._stringKey = getGroupKey(_currentGroupId);
+          }
           _currentGroupId++;
           return _groupKey;
         }
@@ -306,6 +337,15 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     @Nonnull
     @Override
     public Iterator<GroupKey> iterator() {
+      return getIterator(false);
+    }
+
+    @Override
+    public Iterator<GroupKey> typedIterator() {
+      return getIterator(true);
+    }
+
+    private Iterator<GroupKey> getIterator(boolean typed) {
       return new Iterator<GroupKey>() {
         private final ObjectIterator<Int2IntMap.Entry> _iterator = _rawKeyToGroupIdMap.int2IntEntrySet().fastIterator();
         private final GroupKey _groupKey = new GroupKey();
@@ -319,7 +359,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Int2IntMap.Entry entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getIntKey());
+          if (typed) {
+            _groupKey._typedGroupKey = getTypedGroupKey(entry.getIntKey());
+          } else {
+            _groupKey._stringKey = getGroupKey(entry.getIntKey());
+          }
           return _groupKey;
         }
 
@@ -433,6 +477,23 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * Helper method to get typed group key from raw key.
+   *
+   * @param rawKey Integer raw key
+   * @return Typed group key
+   */
+  private TypedGroupKey getTypedGroupKey(int rawKey) {
+    long[] numericValues = new long[_numGroupByExpressions];
+    String[] stringValues = TypedGroupKey.createStringValues(_storedTypes);
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      int cardinality = _cardinalities[i];
+      TypedGroupKey.readValue(_storedTypes[i], _dictionaries[i], rawKey % cardinality, i, numericValues, stringValues);
+      rawKey /= cardinality;
+    }
+    return new TypedGroupKey(_storedTypes, numericValues, stringValues);
+  }
+
   private class LongMapBasedHolder implements RawKeyHolder {
     private final Long2IntOpenHashMap _rawKeyToGroupIdMap = new Long2IntOpenHashMap();
 
@@ -485,6 +546,15 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     @Nonnull
     @Override
     public Iterator<GroupKey> iterator() {
+      return getIterator(false);
+    }
+
+    @Override
+    public Iterator<GroupKey> typedIterator() {
+      return getIterator(true);
+    }
+
+    private Iterator<GroupKey> getIterator(boolean typed) {
       return new Iterator<GroupKey>() {
         private final ObjectIterator<Long2IntMap.Entry> _iterator =
             _rawKeyToGroupIdMap.long2IntEntrySet().fastIterator();
@@ -499,7 +569,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Long2IntMap.Entry entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getLongKey());
+          if (typed) {
+            _groupKey._typedGroupKey = getTypedGroupKey(entry.getLongKey());
+          } else {
+            _groupKey._stringKey = getGroupKey(entry.getLongKey());
+          }
           return _groupKey;
         }
 
@@ -603,6 +677,24 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     return groupKeyBuilder.toString();
   }
 
+  /**
+   * Helper method to get typed group key from raw key.
+   *
+   * @param rawKey Long raw key
+   * @return Typed group key
+   */
+  private TypedGroupKey getTypedGroupKey(long rawKey) {
+    long[] numericValues = new long[_numGroupByExpressions];
+    String[] stringValues = TypedGroupKey.createStringValues(_storedTypes);
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      int cardinality = _cardinalities[i];
+      TypedGroupKey.readValue(_storedTypes[i], _dictionaries[i], (int) (rawKey % cardinality), i, numericValues,
+          stringValues);
+      rawKey /= cardinality;
+    }
+    return new TypedGroupKey(_storedTypes, numericValues, stringValues);
+  }
+
   private class ArrayMapBasedHolder implements RawKeyHolder {
     private final Object2IntOpenHashMap<IntArray> _rawKeyToGroupIdMap = new Object2IntOpenHashMap<>();
 
@@ -655,6 +747,15 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     @Nonnull
     @Override
     public Iterator<GroupKey> iterator() {
+      return getIterator(false);
+    }
+
+    @Override
+    public Iterator<GroupKey> typedIterator() {
+      return getIterator(true);
+    }
+
+    private Iterator<GroupKey> getIterator(boolean typed) {
       return new Iterator<GroupKey>() {
         private final ObjectIterator<Object2IntMap.Entry<IntArray>> _iterator =
             _rawKeyToGroupIdMap.object2IntEntrySet().fastIterator();
@@ -669,7 +770,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Object2IntMap.Entry<IntArray> entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getKey());
+          if (typed) {
+            _groupKey._typedGroupKey = getTypedGroupKey(entry.getKey());
+          } else {
+            _groupKey._stringKey = getGroupKey(entry.getKey());
+          }
           return _groupKey;
         }
 
@@ -773,6 +878,21 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     return groupKeyBuilder.toString();
   }
 
+  /**
+   * Helper method to get typed group key from raw key.
+   *
+   * @param rawKey IntArray raw key
+   * @return Typed group key
+   */
+  private TypedGroupKey getTypedGroupKey(IntArray rawKey) {
+    long[] numericValues = new long[_numGroupByExpressions];
+    String[] stringValues = TypedGroupKey.createStringValues(_storedTypes);
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      TypedGroupKey.readValue(_storedTypes[i], _dictionaries[i], rawKey._elements[i], i, numericValues, stringValues);
+    }
+    return new TypedGroupKey(_storedTypes, numericValues, stringValues);
+  }
+
   /**
    * Drop un-necessary checks for highest performance.
    */
@@ -93,4 +93,8 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
   public void setValueForKey(int groupKey, Object newValue) {
     throw new UnsupportedOperationException();
   }
+
+  @Override
+  public void close() {
+  }
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+/**
+ * Interface for GroupByResultHolder with a fixed-width slot of values per group key (e.g. sum and count for AVG).
+ * <p>Aggregation functions with fixed-width intermediate results can read and write the values of the slot directly
+ * instead of allocating one object per group key.
+ */
+public interface FixedWidthGroupByResultHolder extends GroupByResultHolder {
+
+  /**
+   * Returns the value (double) at the given index of the slot for the given group key.
+   *
+   * @param groupKey Group key
+   * @param index Index of the value inside the slot
+   * @return Value at the given index as double
+   */
+  double getDoubleValue(int groupKey, int index);
+
+  /**
+   * Stores the given value (of type double) at the given index of the slot for the given group key.
+   *
+   * @param groupKey Group key
+   * @param index Index of the value inside the slot
+   * @param value Value to store
+   */
+  void setDoubleValue(int groupKey, int index, double value);
+
+  /**
+   * Returns the value (long) at the given index of the slot for the given group key.
+   *
+   * @param groupKey Group key
+   * @param index Index of the value inside the slot
+   * @return Value at the given index as long
+   */
+  long getLongValue(int groupKey, int index);
+
+  /**
+   * Stores the given value (of type long) at the given index of the slot for the given group key.
+   *
+   * @param groupKey Group key
+   * @param index Index of the value inside the slot
+   * @param value Value to store
+   */
+  void setLongValue(int groupKey, int index, long value);
+}
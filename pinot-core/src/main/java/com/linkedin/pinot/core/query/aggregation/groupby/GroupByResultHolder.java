@@ -65,4 +65,10 @@ public interface GroupByResultHolder {
    * @param capacity
    */
   void ensureCapacity(int capacity);
+
+  /**
+   * Releases the resources (e.g. off-heap memory) held by the result holder.
+   * Should be called once all the results are extracted, the result holder cannot be accessed after this call.
+   */
+  void close();
 }
@@ -70,10 +70,21 @@ public interface GroupKeyGenerator {
   Iterator<GroupKey> getUniqueGroupKeys();
 
   /**
-   * This class encapsulates the integer group id and the string group key.
+   * Returns an iterator of group keys with typed group key values. Unlike {@link #getUniqueGroupKeys()}, the string key
+   * is not built ({@link GroupKey#_stringKey} is <code>null</code>), and a new {@link TypedGroupKey} is created for each
+   * group key so that it can be directly used as the key of a map. Use this interface to combine group keys across
+   * segments.
+   *
+   * @return iterator of group keys with typed group key values.
+   */
+  Iterator<GroupKey> getUniqueTypedGroupKeys();
+
+  /**
+   * This class encapsulates the integer group id and the string (or typed) group key.
    */
   class GroupKey {
     public int _groupId;
     public String _stringKey;
+    public TypedGroupKey _typedGroupKey;
   }
 }
@@ -44,6 +44,7 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
   private final TransformExpressionTree[] _groupByExpressions;
   private final int _numGroupByExpressions;
   private final FieldSpec.DataType[] _dataTypes;
+  private final FieldSpec.DataType[] _storedTypes;
   private final Dictionary[] _dictionaries;
   private final ValueToIdMap[] _onTheFlyDictionaries;
   private final Object2IntOpenHashMap<FixedIntArray> _groupKeyMap;
@@ -56,6 +57,7 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     _groupByExpressions = groupByExpressions;
     _numGroupByExpressions = groupByExpressions.length;
     _dataTypes = new FieldSpec.DataType[_numGroupByExpressions];
+    _storedTypes = new FieldSpec.DataType[_numGroupByExpressions];
     _dictionaries = new Dictionary[_numGroupByExpressions];
     _onTheFlyDictionaries = new ValueToIdMap[_numGroupByExpressions];
 
@@ -63,6 +65,7 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
       TransformExpressionTree groupByExpression = groupByExpressions[i];
       TransformResultMetadata transformResultMetadata = transformOperator.getResultMetadata(groupByExpression);
       _dataTypes[i] = transformResultMetadata.getDataType();
+      _storedTypes[i] = _dataTypes[i].getStoredType();
       if (transformResultMetadata.hasDictionary()) {
         _dictionaries[i] = transformOperator.getDictionary(groupByExpression);
       } else {
@@ -144,7 +147,12 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
 
   @Override
   public Iterator<GroupKey> getUniqueGroupKeys() {
-    return new GroupKeyIterator(_groupKeyMap);
+    return new GroupKeyIterator(_groupKeyMap, false);
+  }
+
+  @Override
+  public Iterator<GroupKey> getUniqueTypedGroupKeys() {
+    return new GroupKeyIterator(_groupKeyMap, true);
   }
 
   /**
@@ -170,10 +178,12 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
   class GroupKeyIterator implements Iterator<GroupKey> {
     Iterator<Map.Entry<FixedIntArray, Integer>> _iterator;
     GroupKey _groupKey;
+    boolean _typed;
 
-    public GroupKeyIterator(Map<FixedIntArray, Integer> map) {
+    public GroupKeyIterator(Map<FixedIntArray, Integer> map, boolean typed) {
       _iterator = map.entrySet().iterator();
       _groupKey = new GroupKey();
+      _typed = typed;
     }
 
     @Override
@@ -185,7 +195,11 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     public GroupKey next() {
       Map.Entry<FixedIntArray, Integer> entry = _iterator.next();
       _groupKey._groupId = entry.getValue();
-      _groupKey._stringKey = buildStringKeyFromIds(entry.getKey());
+      if (_typed) {
+        _groupKey._typedGroupKey = buildTypedGroupKeyFromIds(entry.getKey());
+      } else {
+        _groupKey._stringKey = buildStringKeyFromIds(entry.getKey());
+      }
       return _groupKey;
     }
 
@@ -217,6 +231,40 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     return builder.toString();
   }
 
+  private TypedGroupKey buildTypedGroupKeyFromIds(FixedIntArray keyList) {
+    long[] numericValues = new long[_numGroupByExpressions];
+    String[] stringValues = TypedGroupKey.createStringValues(_storedTypes);
+    int[] keys = keyList.elements();
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      int dictId = keys[i];
+
+      if (_dictionaries[i] != null) {
+        TypedGroupKey.readValue(_storedTypes[i], _dictionaries[i], dictId, i, numericValues, stringValues);
+      } else {
+        ValueToIdMap onTheFlyDictionary = _onTheFlyDictionaries[i];
+        switch (_storedTypes[i]) {
+          case INT:
+            numericValues[i] = TypedGroupKey.encodeInt(onTheFlyDictionary.getInt(dictId));
+            break;
+          case LONG:
+            numericValues[i] = TypedGroupKey.encodeLong(onTheFlyDictionary.getLong(dictId));
+            break;
+          case FLOAT:
+            numericValues[i] = TypedGroupKey.encodeFloat(onTheFlyDictionary.getFloat(dictId));
+            break;
+          case DOUBLE:
+            numericValues[i] = TypedGroupKey.encodeDouble(onTheFlyDictionary.getDouble(dictId));
+            break;
+          default:
+            assert stringValues != null;
+            stringValues[i] = onTheFlyDictionary.getString(dictId);
+            break;
+        }
+      }
+    }
+    return new TypedGroupKey(_storedTypes, numericValues, stringValues);
+  }
+
   /**
    * Helper method to fetch values from BlockValSet
    * @param dataType Data type
@@ -43,6 +43,7 @@ import javax.annotation.Nonnull;
 public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenerator {
   private final TransformExpressionTree _groupByExpression;
   private final FieldSpec.DataType _dataType;
+  private final FieldSpec.DataType[] _storedTypes;
   private final Map _groupKeyMap;
   private final int _globalGroupIdUpperBound;
 
@@ -52,6 +53,7 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
       TransformExpressionTree groupByExpression, int numGroupsLimit) {
     _groupByExpression = groupByExpression;
     _dataType = transformOperator.getResultMetadata(_groupByExpression).getDataType();
+    _storedTypes = new FieldSpec.DataType[]{_dataType.getStoredType()};
     _groupKeyMap = createGroupKeyMap(_dataType);
     _globalGroupIdUpperBound = numGroupsLimit;
   }
@@ -161,7 +163,12 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
 
   @Override
   public Iterator<GroupKey> getUniqueGroupKeys() {
-    return new GroupKeyIterator(_groupKeyMap);
+    return new GroupKeyIterator(_groupKeyMap, false);
+  }
+
+  @Override
+  public Iterator<GroupKey> getUniqueTypedGroupKeys() {
+    return new GroupKeyIterator(_groupKeyMap, true);
   }
 
   @SuppressWarnings("unchecked")
@@ -229,17 +236,48 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
     return groupId;
   }
 
+  /**
+   * Helper method to get typed group key from the key of the group-key map.
+   *
+   * @param key Key of the group-key map
+   * @return Typed group key
+   */
+  private TypedGroupKey getTypedGroupKey(Object key) {
+    long[] numericValues = new long[1];
+    String[] stringValues = null;
+    switch (_dataType) {
+      case INT:
+        numericValues[0] = TypedGroupKey.encodeInt((Integer) key);
+        break;
+      case LONG:
+        numericValues[0] = TypedGroupKey.encodeLong((Long) key);
+        break;
+      case FLOAT:
+        numericValues[0] = TypedGroupKey.encodeFloat((Float) key);
+        break;
+      case DOUBLE:
+        numericValues[0] = TypedGroupKey.encodeDouble((Double) key);
+        break;
+      default:
+        stringValues = new String[]{key.toString()};
+        break;
+    }
+    return new TypedGroupKey(_storedTypes, numericValues, stringValues);
+  }
+
   /**
    * Iterator for {Group-Key, Group-id) pair.
    */
   class GroupKeyIterator implements Iterator<GroupKey> {
     Iterator<Map.Entry<Object, Integer>> _iterator;
     GroupKey _groupKey;
+    boolean _typed;
 
     @SuppressWarnings("unchecked")
-    public GroupKeyIterator(Map map) {
+    public GroupKeyIterator(Map map, boolean typed) {
       _iterator = (Iterator<Map.Entry<Object, Integer>>) map.entrySet().iterator();
       _groupKey = new GroupKey();
+      _typed = typed;
     }
 
     @Override
@@ -251,7 +289,11 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
     public GroupKey next() {
       Map.Entry<Object, Integer> entry = _iterator.next();
       _groupKey._groupId = entry.getValue();
-      _groupKey._stringKey = entry.getKey().toString();
+      if (_typed) {
+        _groupKey._typedGroupKey = getTypedGroupKey(entry.getKey());
+      } else {
+        _groupKey._stringKey = entry.getKey().toString();
+      }
       return _groupKey;
     }
 
@@ -84,4 +84,8 @@ public class ObjectGroupByResultHolder implements GroupByResultHolder {
       _resultArray[groupKey] = newValue;
     }
   }
+
+  @Override
+  public void close() {
+  }
 }
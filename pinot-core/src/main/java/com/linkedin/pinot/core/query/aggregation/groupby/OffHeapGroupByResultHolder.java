@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Result holder with a fixed-width slot per group, backed by off-heap memory.
+ * <p>Each slot has a fixed number of 8-byte values (e.g. sum and count for AVG, min and max for MINMAXRANGE), which
+ * can be read and written as <code>double</code> or <code>long</code>. Aggregation functions with fixed-width
+ * intermediate results can use this holder to avoid allocating one object per group.
+ * <p>Reading the values for {@link GroupKeyGenerator#INVALID_ID} returns the default values, and writing the values for
+ * {@link GroupKeyGenerator#INVALID_ID} is a no-op.
+ * <p>{@link #getDoubleResult(int)} and {@link #setValueForKey(int, double)} access the first value of the slot as
+ * <code>double</code>; {@link #getResult(int)} and {@link #setValueForKey(int, Object)} access the whole slot as raw
+ * 8-byte values (<code>long[]</code>).
+ * <p>Small result holders (up to {@link #POOLED_SLAB_SIZE} bytes) are backed by fixed-size <code>long[]</code> slabs
+ * from a small per-thread pool instead, so that small group-bys neither allocate nor register (under the global lock of
+ * {@link PinotDataBuffer}) a direct buffer for every segment and function, and do not create garbage either. At most
+ * {@link #MAX_NUM_POOLED_SLABS} slabs are kept per thread. Result holders growing out of the slab move to an off-heap
+ * buffer of the exact size.
+ * <p>The result holder should be released by calling {@link #close()} after the results are extracted, which returns
+ * the slab to the pool of the current thread or releases the off-heap memory.
+ */
+public class OffHeapGroupByResultHolder implements FixedWidthGroupByResultHolder {
+  private static final int VALUE_SIZE = Long.BYTES;
+  public static final int POOLED_SLAB_SIZE = 256 * 1024;
+  public static final int MAX_NUM_POOLED_SLABS = 4;
+  private static final int POOLED_SLAB_LENGTH = POOLED_SLAB_SIZE / VALUE_SIZE;
+  private static final ThreadLocal<ArrayDeque<long[]>> SLAB_POOL = new ThreadLocal<ArrayDeque<long[]>>() {
+    @Override
+    protected ArrayDeque<long[]> initialValue() {
+      return new ArrayDeque<>(MAX_NUM_POOLED_SLABS);
+    }
+  };
+
+  private final int _maxCapacity;
+  private final long[] _defaultValues;
+  private final int _numValuesPerSlot;
+
+  private int _resultHolderCapacity;
+  // Pooled slab for the small result holders, null after moving off-heap
+  private long[] _slab;
+  // Off-heap buffer for the large result holders
+  private PinotDataBuffer _dataBuffer;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param initialCapacity Initial capacity of the result holder
+   * @param maxCapacity Maximum capacity of the result holder
+   * @param defaultValues Default values of the slot as raw 8-byte values (use
+   *                      {@link Double#doubleToRawLongBits(double)} for <code>double</code> values)
+   */
+  public OffHeapGroupByResultHolder(int initialCapacity, int maxCapacity, @Nonnull long[] defaultValues) {
+    _maxCapacity = maxCapacity;
+    _defaultValues = defaultValues;
+    _numValuesPerSlot = defaultValues.length;
+
+    _resultHolderCapacity = initialCapacity;
+    if ((long) initialCapacity * _numValuesPerSlot <= POOLED_SLAB_LENGTH) {
+      _slab = SLAB_POOL.get().pollLast();
+      if (_slab == null) {
+        _slab = new long[POOLED_SLAB_LENGTH];
+      }
+    } else {
+      _dataBuffer = allocateDirect(initialCapacity);
+    }
+    fillDefaultValues(0, initialCapacity);
+  }
+
+  private PinotDataBuffer allocateDirect(int capacity) {
+    return PinotDataBuffer.allocateDirect((long) capacity * _numValuesPerSlot * VALUE_SIZE,
+        PinotDataBuffer.NATIVE_ORDER, "OffHeapGroupByResultHolder");
+  }
+
+  private void fillDefaultValues(int startGroupKey, int endGroupKey) {
+    if (_slab != null) {
+      int index = startGroupKey * _numValuesPerSlot;
+      for (int i = startGroupKey; i < endGroupKey; i++) {
+        for (long defaultValue : _defaultValues) {
+          _slab[index++] = defaultValue;
+        }
+      }
+    } else {
+      long offset = (long) startGroupKey * _numValuesPerSlot * VALUE_SIZE;
+      for (int i = startGroupKey; i < endGroupKey; i++) {
+        for (long defaultValue : _defaultValues) {
+          _dataBuffer.putLong(offset, defaultValue);
+          offset += VALUE_SIZE;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    Preconditions.checkArgument(capacity <= _maxCapacity);
+
+    if (capacity > _resultHolderCapacity) {
+      int copyLength = _resultHolderCapacity;
+      _resultHolderCapacity = Math.max(_resultHolderCapacity * 2, capacity);
+
+      // Cap the growth to maximum possible number of group keys
+      _resultHolderCapacity = Math.min(_resultHolderCapacity, _maxCapacity);
+
+      if (_slab != null) {
+        // Move off-heap when the slab is full
+        if ((long) _resultHolderCapacity * _numValuesPerSlot > POOLED_SLAB_LENGTH) {
+          PinotDataBuffer dataBuffer = allocateDirect(_resultHolderCapacity);
+          int numValues = copyLength * _numValuesPerSlot;
+          for (int i = 0; i < numValues; i++) {
+            dataBuffer.putLong((long) i * VALUE_SIZE, _slab[i]);
+          }
+          releaseSlab();
+          _dataBuffer = dataBuffer;
+        }
+      } else {
+        PinotDataBuffer current = _dataBuffer;
+        _dataBuffer = allocateDirect(_resultHolderCapacity);
+        current.copyTo(0L, _dataBuffer, 0L, (long) copyLength * _numValuesPerSlot * VALUE_SIZE);
+        closeDataBuffer(current);
+      }
+
+      fillDefaultValues(copyLength, _resultHolderCapacity);
+    }
+  }
+
+  private void releaseSlab() {
+    ArrayDeque<long[]> slabPool = SLAB_POOL.get();
+    if (slabPool.size() < MAX_NUM_POOLED_SLABS) {
+      slabPool.addLast(_slab);
+    }
+    _slab = null;
+  }
+
+  private static void closeDataBuffer(PinotDataBuffer dataBuffer) {
+    try {
+      dataBuffer.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the value at the given index of the slot for the given group key as <code>long</code>.
+   */
+  @Override
+  public long getLongValue(int groupKey, int index) {
+    if (groupKey == GroupKeyGenerator.INVALID_ID) {
+      return _defaultValues[index];
+    }
+    int valueIndex = groupKey * _numValuesPerSlot + index;
+    if (_slab != null) {
+      return _slab[valueIndex];
+    } else {
+      return _dataBuffer.getLong((long) valueIndex * VALUE_SIZE);
+    }
+  }
+
+  /**
+   * Sets the value at the given index of the slot for the given group key as <code>long</code>.
+   */
+  @Override
+  public void setLongValue(int groupKey, int index, long value) {
+    if (groupKey != GroupKeyGenerator.INVALID_ID) {
+      int valueIndex = groupKey * _numValuesPerSlot + index;
+      if (_slab != null) {
+        _slab[valueIndex] = value;
+      } else {
+        _dataBuffer.putLong((long) valueIndex * VALUE_SIZE, value);
+      }
+    }
+  }
+
+  /**
+   * Returns the value at the given index of the slot for the given group key as <code>double</code>.
+   */
+  @Override
+  public double getDoubleValue(int groupKey, int index) {
+    return Double.longBitsToDouble(getLongValue(groupKey, index));
+  }
+
+  /**
+   * Sets the value at the given index of the slot for the given group key as <code>double</code>.
+   */
+  @Override
+  public void setDoubleValue(int groupKey, int index, double value) {
+    setLongValue(groupKey, index, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public double getDoubleResult(int groupKey) {
+    return getDoubleValue(groupKey, 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T getResult(int groupKey) {
+    int numValues = _defaultValues.length;
+    long[] values = new long[numValues];
+    for (int i = 0; i < numValues; i++) {
+      values[i] = getLongValue(groupKey, i);
+    }
+    return (T) values;
+  }
+
+  @Override
+  public void setValueForKey(int groupKey, double newValue) {
+    setDoubleValue(groupKey, 0, newValue);
+  }
+
+  @Override
+  public void setValueForKey(int groupKey, Object newValue) {
+    long[] values = (long[]) newValue;
+    Preconditions.checkArgument(values.length == _defaultValues.length);
+    for (int i = 0; i < values.length; i++) {
+      setLongValue(groupKey, i, values[i]);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (_slab != null) {
+      releaseSlab();
+    }
+    if (_dataBuffer != null) {
+      closeDataBuffer(_dataBuffer);
+      _dataBuffer = null;
+    }
+  }
+}
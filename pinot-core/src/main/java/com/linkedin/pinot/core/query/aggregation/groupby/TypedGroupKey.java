@@ -0,0 +1,352 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The <code>TypedGroupKey</code> class represents a group key by the typed values of the group-by expressions instead of
+ * the string key, so that group keys from different segments can be compared without building strings.
+ * <p>Values of numeric (INT, LONG, FLOAT, DOUBLE) group-by expressions are encoded into a <code>long</code> slot, values
+ * of other types are stored as <code>String</code>.
+ * <p>The string key (the same one as {@link GroupKeyGenerator.GroupKey#_stringKey}) can be built on demand with
+ * {@link #getStringKey()}.
+ */
+public final class TypedGroupKey {
+  private final FieldSpec.DataType[] _storedTypes;
+  private final long[] _numericValues;
+  private final String[] _stringValues;
+  private final int _hashCode;
+
+  /**
+   * Constructor for the typed group key.
+   *
+   * @param storedTypes Stored data types of the group-by expressions (shared across all group keys)
+   * @param numericValues Encoded numeric values (see {@link #encodeInt(int)}, {@link #encodeLong(long)},
+   *                      {@link #encodeFloat(float)} and {@link #encodeDouble(double)})
+   * @param stringValues Non-numeric values, or <code>null</code> if all group-by expressions are numeric
+   */
+  public TypedGroupKey(@Nonnull FieldSpec.DataType[] storedTypes, @Nonnull long[] numericValues,
+      @Nullable String[] stringValues) {
+    _storedTypes = storedTypes;
+    _numericValues = numericValues;
+    _stringValues = stringValues;
+    _hashCode = 31 * Arrays.hashCode(numericValues) + Arrays.hashCode(stringValues);
+  }
+
+  public static long encodeInt(int value) {
+    return value;
+  }
+
+  public static long encodeLong(long value) {
+    return value;
+  }
+
+  public static long encodeFloat(float value) {
+    return Float.floatToIntBits(value);
+  }
+
+  public static long encodeDouble(double value) {
+    return Double.doubleToLongBits(value);
+  }
+
+  /**
+   * Returns whether the given stored type is kept in the numeric slots.
+   */
+  public static boolean isNumeric(@Nonnull FieldSpec.DataType storedType) {
+    switch (storedType) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Helper method to create the buffer for non-numeric values, returns <code>null</code> if all the stored types are
+   * numeric.
+   */
+  @Nullable
+  public static String[] createStringValues(@Nonnull FieldSpec.DataType[] storedTypes) {
+    for (FieldSpec.DataType storedType : storedTypes) {
+      if (!isNumeric(storedType)) {
+        return new String[storedTypes.length];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Helper method to read the value for the given dictionary id into the value buffers at the given index.
+   */
+  public static void readValue(@Nonnull FieldSpec.DataType storedType, @Nonnull Dictionary dictionary, int dictId,
+      int index, @Nonnull long[] numericValues, @Nullable String[] stringValues) {
+    switch (storedType) {
+      case INT:
+        numericValues[index] = encodeInt(dictionary.getIntValue(dictId));
+        break;
+      case LONG:
+        numericValues[index] = encodeLong(dictionary.getLongValue(dictId));
+        break;
+      case FLOAT:
+        numericValues[index] = encodeFloat(dictionary.getFloatValue(dictId));
+        break;
+      case DOUBLE:
+        numericValues[index] = encodeDouble(dictionary.getDoubleValue(dictId));
+        break;
+      default:
+        assert stringValues != null;
+        stringValues[index] = dictionary.get(dictId).toString();
+        break;
+    }
+  }
+
+  /**
+   * Builds a typed group key with all values stored as <code>STRING</code> from the given string key.
+   * <p>This is used to merge with string keys (e.g. from servers on the legacy group-by data table format), and the
+   * result equals to the key returned by {@link #toStringTypedGroupKey()} for the same group.
+   *
+   * @param stringKey String key with values joined by {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}
+   * @param numGroupByExpressions Number of group-by expressions
+   * @return Typed group key with all values stored as <code>STRING</code>
+   */
+  @Nonnull
+  public static TypedGroupKey fromStringKey(@Nonnull String stringKey, int numGroupByExpressions) {
+    // Set limit to -1 to prevent removing trailing empty strings
+    String[] stringValues = stringKey.split(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER, -1);
+    return new TypedGroupKey(getStringStoredTypes(numGroupByExpressions), new long[numGroupByExpressions],
+        stringValues);
+  }
+
+  /**
+   * Returns a typed group key with all values stored as <code>STRING</code> for the same group.
+   */
+  @Nonnull
+  public TypedGroupKey toStringTypedGroupKey() {
+    return convertTo(getStringStoredTypes(_storedTypes.length));
+  }
+
+  /**
+   * Returns the stored type that can represent the values of both the given stored types: <code>LONG</code> for
+   * <code>INT</code> and <code>LONG</code>, <code>DOUBLE</code> for other mixed numeric types, <code>STRING</code>
+   * otherwise.
+   * <p>Group keys from different segments or servers can have different stored types for the same group-by expression
+   * (e.g. after the column data type is changed), and need to be converted to the widened stored type to be merged.
+   */
+  @Nonnull
+  public static FieldSpec.DataType getWidenedStoredType(@Nonnull FieldSpec.DataType storedType1,
+      @Nonnull FieldSpec.DataType storedType2) {
+    if (storedType1 == storedType2) {
+      return storedType1;
+    }
+    if (!isNumeric(storedType1) || !isNumeric(storedType2)) {
+      return FieldSpec.DataType.STRING;
+    }
+    if ((storedType1 == FieldSpec.DataType.INT || storedType1 == FieldSpec.DataType.LONG) && (
+        storedType2 == FieldSpec.DataType.INT || storedType2 == FieldSpec.DataType.LONG)) {
+      return FieldSpec.DataType.LONG;
+    }
+    return FieldSpec.DataType.DOUBLE;
+  }
+
+  /**
+   * Returns the widened stored types (see {@link #getWidenedStoredType(FieldSpec.DataType, FieldSpec.DataType)}) of
+   * the given stored types, or the first stored types (same instance) if no widening is needed.
+   */
+  @Nonnull
+  public static FieldSpec.DataType[] getWidenedStoredTypes(@Nonnull FieldSpec.DataType[] storedTypes1,
+      @Nonnull FieldSpec.DataType[] storedTypes2) {
+    if (Arrays.equals(storedTypes1, storedTypes2)) {
+      return storedTypes1;
+    }
+    int numValues = storedTypes1.length;
+    FieldSpec.DataType[] widenedStoredTypes = new FieldSpec.DataType[numValues];
+    for (int i = 0; i < numValues; i++) {
+      widenedStoredTypes[i] = getWidenedStoredType(storedTypes1[i], storedTypes2[i]);
+    }
+    return widenedStoredTypes;
+  }
+
+  /**
+   * Returns a typed group key for the same group with the values converted to the given stored types, which must be
+   * the same as or widened from the stored types of this group key.
+   * <p>NOTE: <code>FLOAT</code> values are converted to <code>DOUBLE</code> through their string representation, so
+   * that e.g. <code>1.1f</code> matches the <code>DOUBLE</code> value <code>1.1</code> (the same as with the string
+   * keys).
+   */
+  @Nonnull
+  public TypedGroupKey convertTo(@Nonnull FieldSpec.DataType[] storedTypes) {
+    if (Arrays.equals(_storedTypes, storedTypes)) {
+      return this;
+    }
+    int numValues = storedTypes.length;
+    long[] numericValues = new long[numValues];
+    String[] stringValues = createStringValues(storedTypes);
+    for (int i = 0; i < numValues; i++) {
+      FieldSpec.DataType storedType = storedTypes[i];
+      FieldSpec.DataType currentStoredType = _storedTypes[i];
+      if (storedType == currentStoredType) {
+        numericValues[i] = _numericValues[i];
+        if (stringValues != null && _stringValues != null) {
+          stringValues[i] = _stringValues[i];
+        }
+        continue;
+      }
+      switch (storedType) {
+        case LONG:
+          // INT and LONG values are encoded the same way
+          numericValues[i] = _numericValues[i];
+          break;
+        case DOUBLE:
+          switch (currentStoredType) {
+            case INT:
+            case LONG:
+              numericValues[i] = encodeDouble(_numericValues[i]);
+              break;
+            case FLOAT:
+              numericValues[i] = encodeDouble(Double.parseDouble(Float.toString(getFloatValue(i))));
+              break;
+            default:
+              throw new IllegalArgumentException(
+                  "Cannot convert group key value from: " + currentStoredType + " to: " + storedType);
+          }
+          break;
+        case STRING:
+          assert stringValues != null;
+          stringValues[i] = getStringValue(i);
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Cannot convert group key value from: " + currentStoredType + " to: " + storedType);
+      }
+    }
+    return new TypedGroupKey(storedTypes, numericValues, stringValues);
+  }
+
+  /**
+   * Returns the stored types for group keys with all values stored as <code>STRING</code>.
+   */
+  @Nonnull
+  public static FieldSpec.DataType[] getStringStoredTypes(int numValues) {
+    FieldSpec.DataType[] storedTypes = new FieldSpec.DataType[numValues];
+    Arrays.fill(storedTypes, FieldSpec.DataType.STRING);
+    return storedTypes;
+  }
+
+  @Nonnull
+  public FieldSpec.DataType[] getStoredTypes() {
+    return _storedTypes;
+  }
+
+  public int getIntValue(int index) {
+    return (int) _numericValues[index];
+  }
+
+  public long getLongValue(int index) {
+    return _numericValues[index];
+  }
+
+  public float getFloatValue(int index) {
+    return Float.intBitsToFloat((int) _numericValues[index]);
+  }
+
+  public double getDoubleValue(int index) {
+    return Double.longBitsToDouble(_numericValues[index]);
+  }
+
+  /**
+   * Returns the string representation of the value at the given index (the same as in the string key).
+   */
+  @Nonnull
+  public String getStringValue(int index) {
+    long numericValue = _numericValues[index];
+    switch (_storedTypes[index]) {
+      case INT:
+        return Integer.toString((int) numericValue);
+      case LONG:
+        return Long.toString(numericValue);
+      case FLOAT:
+        return Float.toString(Float.intBitsToFloat((int) numericValue));
+      case DOUBLE:
+        return Double.toString(Double.longBitsToDouble(numericValue));
+      default:
+        return _stringValues[index];
+    }
+  }
+
+  /**
+   * Returns the string representations of the values of the group-by expressions.
+   */
+  @Nonnull
+  public List<String> getGroupValues() {
+    int numValues = _storedTypes.length;
+    String[] groupValues = new String[numValues];
+    for (int i = 0; i < numValues; i++) {
+      groupValues[i] = getStringValue(i);
+    }
+    return Arrays.asList(groupValues);
+  }
+
+  /**
+   * Builds the string key with values of the group-by expressions joined by
+   * {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}.
+   */
+  @Nonnull
+  public String getStringKey() {
+    int numValues = _storedTypes.length;
+    if (numValues == 1) {
+      return getStringValue(0);
+    }
+    StringBuilder groupKeyBuilder = new StringBuilder(getStringValue(0));
+    for (int i = 1; i < numValues; i++) {
+      groupKeyBuilder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER).append(getStringValue(i));
+    }
+    return groupKeyBuilder.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    TypedGroupKey that = (TypedGroupKey) obj;
+    // Group keys with different stored types are not equal even if the encoded values are the same (e.g. INT value
+    // 1065353216 and FLOAT value 1.0f), and need to be converted to the same stored types to be compared
+    return _hashCode == that._hashCode && Arrays.equals(_numericValues, that._numericValues) && Arrays.equals(
+        _stringValues, that._stringValues) && (_storedTypes == that._storedTypes || Arrays.equals(_storedTypes,
+        that._storedTypes));
+  }
+
+  @Override
+  public String toString() {
+    return getStringKey();
+  }
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.common.ObjectSerDeUtils;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The <code>CachedSegmentResult</code> class is an immutable snapshot of the intermediate result of an aggregation
+ * (with or without group-by) query on a segment.
+ * <p>The combine operators merge the segment results in place, so the mutable intermediate results (e.g. AvgPair,
+ * HyperLogLog) are kept in serialized form and de-serialized into new objects for each results block, while the
+ * immutable ones (String, Long and Double) are shared.
+ */
+public class CachedSegmentResult {
+  // Rough estimation of the object overhead
+  private static final int OBJECT_OVERHEAD = 16;
+  private static final int REFERENCE_SIZE = 8;
+
+  private final WeakReference<IndexSegment> _indexSegmentReference;
+  private final AggregationFunctionContext[] _functionContexts;
+  private final ExecutionStatistics _executionStatistics;
+  // For aggregation only, values for all aggregation functions
+  private final Object[] _aggregationResult;
+  private final boolean _isGroupBy;
+  // For aggregation group-by, typed group keys and values for each aggregation function in the same order
+  private final TypedGroupKey[] _groupKeys;
+  private final Object[][] _groupByResult;
+  // For mutable values, object types used to de-serialize the value, -1 for immutable values
+  private final int[] _objectTypes;
+  private final int _sizeInBytes;
+
+  private CachedSegmentResult(IndexSegment indexSegment, AggregationFunctionContext[] functionContexts,
+      ExecutionStatistics executionStatistics, @Nullable Object[] aggregationResult, boolean isGroupBy,
+      @Nullable TypedGroupKey[] groupKeys, @Nullable Object[][] groupByResult, int[] objectTypes, int sizeInBytes) {
+    _indexSegmentReference = new WeakReference<>(indexSegment);
+    _functionContexts = functionContexts;
+    _executionStatistics = executionStatistics;
+    _aggregationResult = aggregationResult;
+    _isGroupBy = isGroupBy;
+    _groupKeys = groupKeys;
+    _groupByResult = groupByResult;
+    _objectTypes = objectTypes;
+    _sizeInBytes = sizeInBytes;
+  }
+
+  /**
+   * Takes a snapshot of the given results block, returns <code>null</code> if the results block cannot be cached (e.g.
+   * contains processing exceptions).
+   * <p>The resources held by the aggregation group-by result of the results block are released after the snapshot is
+   * taken.
+   */
+  @Nullable
+  public static CachedSegmentResult of(@Nonnull IndexSegment indexSegment,
+      @Nonnull IntermediateResultsBlock resultsBlock, @Nonnull ExecutionStatistics executionStatistics) {
+    if (resultsBlock.getProcessingExceptions() != null && !resultsBlock.getProcessingExceptions().isEmpty()) {
+      return null;
+    }
+    AggregationFunctionContext[] functionContexts = resultsBlock.getAggregationFunctionContexts();
+    if (functionContexts == null) {
+      return null;
+    }
+    int numAggregationFunctions = functionContexts.length;
+    int[] objectTypes = new int[numAggregationFunctions];
+    long sizeInBytes = OBJECT_OVERHEAD * 4;
+
+    List<Object> aggregationResult = resultsBlock.getAggregationResult();
+    if (aggregationResult != null) {
+      Object[] values = new Object[numAggregationFunctions];
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        Object value = aggregationResult.get(i);
+        objectTypes[i] = getObjectType(value);
+        values[i] = snapshot(value, objectTypes[i]);
+        sizeInBytes += getSizeInBytes(values[i]);
+      }
+      return new CachedSegmentResult(indexSegment, functionContexts, executionStatistics, values, false, null, null,
+          objectTypes, (int) Math.min(sizeInBytes, Integer.MAX_VALUE));
+    }
+
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    if (aggregationGroupByResult == null) {
+      return new CachedSegmentResult(indexSegment, functionContexts, executionStatistics, null, true, null, null,
+          objectTypes, (int) sizeInBytes);
+    }
+    try {
+      List<TypedGroupKey> groupKeys = new ArrayList<>();
+      List<Object[]> groupByResult = new ArrayList<>();
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getTypedGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        TypedGroupKey typedGroupKey = groupKey._typedGroupKey;
+        groupKeys.add(typedGroupKey);
+        sizeInBytes += getSizeInBytes(typedGroupKey);
+        Object[] values = new Object[numAggregationFunctions];
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          Object value = aggregationGroupByResult.getResultForKey(groupKey, i);
+          // Values for the same aggregation function are always of the same type
+          objectTypes[i] = getObjectType(value);
+          values[i] = snapshot(value, objectTypes[i]);
+          sizeInBytes += REFERENCE_SIZE + getSizeInBytes(values[i]);
+        }
+        groupByResult.add(values);
+      }
+      return new CachedSegmentResult(indexSegment, functionContexts, executionStatistics, null, true,
+          groupKeys.toArray(new TypedGroupKey[0]), groupByResult.toArray(new Object[0][]), objectTypes,
+          (int) Math.min(sizeInBytes, Integer.MAX_VALUE));
+    } finally {
+      aggregationGroupByResult.close();
+    }
+  }
+
+  private static int getObjectType(Object value) {
+    if (value instanceof String || value instanceof Long || value instanceof Double) {
+      return -1;
+    } else {
+      return ObjectSerDeUtils.ObjectType.getObjectType(value).getValue();
+    }
+  }
+
+  private static Object snapshot(Object value, int objectType) {
+    if (objectType == -1) {
+      return value;
+    } else {
+      return ObjectSerDeUtils.serialize(value, objectType);
+    }
+  }
+
+  private static Object restore(Object value, int objectType) {
+    if (objectType == -1) {
+      return value;
+    } else {
+      return ObjectSerDeUtils.deserialize((byte[]) value, objectType);
+    }
+  }
+
+  private static long getSizeInBytes(Object value) {
+    if (value instanceof byte[]) {
+      return OBJECT_OVERHEAD + ((byte[]) value).length;
+    } else if (value instanceof String) {
+      return OBJECT_OVERHEAD * 2 + ((String) value).length() * 2;
+    } else {
+      return OBJECT_OVERHEAD + Long.BYTES;
+    }
+  }
+
+  private static long getSizeInBytes(TypedGroupKey typedGroupKey) {
+    FieldSpec.DataType[] storedTypes = typedGroupKey.getStoredTypes();
+    int numValues = storedTypes.length;
+    long sizeInBytes = OBJECT_OVERHEAD * 3 + (long) numValues * Long.BYTES;
+    for (int i = 0; i < numValues; i++) {
+      if (!TypedGroupKey.isNumeric(storedTypes[i])) {
+        sizeInBytes += REFERENCE_SIZE + getSizeInBytes(typedGroupKey.getStringValue(i));
+      }
+    }
+    return sizeInBytes;
+  }
+
+  /**
+   * Returns whether the result is computed on the given instance of the segment.
+   */
+  public boolean isComputedOn(@Nonnull IndexSegment indexSegment) {
+    return _indexSegmentReference.get() == indexSegment;
+  }
+
+  /**
+   * Returns the execution statistics of the cached result. No entry is scanned when serving the cached result, but the
+   * number of documents scanned is kept so that the query response stays the same.
+   */
+  public ExecutionStatistics getExecutionStatistics() {
+    return new ExecutionStatistics(_executionStatistics.getNumDocsScanned(), 0L, 0L,
+        _executionStatistics.getNumTotalRawDocs());
+  }
+
+  /**
+   * Returns the estimated size of the cached result in bytes.
+   */
+  public int getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  /**
+   * Returns a new results block for the cached result, which can be modified by the caller.
+   */
+  public IntermediateResultsBlock toResultsBlock() {
+    if (!_isGroupBy) {
+      int numAggregationFunctions = _aggregationResult.length;
+      List<Object> aggregationResult = new ArrayList<>(numAggregationFunctions);
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        aggregationResult.add(restore(_aggregationResult[i], _objectTypes[i]));
+      }
+      return new IntermediateResultsBlock(_functionContexts, aggregationResult);
+    } else {
+      return new IntermediateResultsBlock(_functionContexts,
+          _groupKeys != null ? new CachedAggregationGroupByResult() : null);
+    }
+  }
+
+  /**
+   * Aggregation group-by result backed by the cached group keys and values.
+   * <p>Only typed group keys are cached, the string keys are generated from the typed group keys on the fly.
+   */
+  private class CachedAggregationGroupByResult extends AggregationGroupByResult {
+
+    CachedAggregationGroupByResult() {
+      super(null, null, null);
+    }
+
+    @Override
+    public Iterator<GroupKeyGenerator.GroupKey> getGroupKeyIterator() {
+      return new GroupKeyIterator(true);
+    }
+
+    @Override
+    public Iterator<GroupKeyGenerator.GroupKey> getTypedGroupKeyIterator() {
+      return new GroupKeyIterator(false);
+    }
+
+    @Override
+    public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
+      return restore(_groupByResult[groupKey._groupId][index], _objectTypes[index]);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Iterator over the cached group keys, which re-uses the same group key object.
+   */
+  private class GroupKeyIterator implements Iterator<GroupKeyGenerator.GroupKey> {
+    private final GroupKeyGenerator.GroupKey _groupKey = new GroupKeyGenerator.GroupKey();
+    private final boolean _generateStringKey;
+    private int _groupId = 0;
+
+    GroupKeyIterator(boolean generateStringKey) {
+      _generateStringKey = generateStringKey;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _groupId < _groupKeys.length;
+    }
+
+    @Override
+    public GroupKeyGenerator.GroupKey next() {
+      TypedGroupKey typedGroupKey = _groupKeys[_groupId];
+      _groupKey._groupId = _groupId++;
+      _groupKey._typedGroupKey = typedGroupKey;
+      if (_generateStringKey) {
+        _groupKey._stringKey = typedGroupKey.getStringKey();
+      }
+      return _groupKey;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
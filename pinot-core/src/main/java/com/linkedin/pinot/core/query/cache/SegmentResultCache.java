@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterQuery;
+import com.linkedin.pinot.common.request.FilterQueryMap;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The <code>SegmentResultCache</code> class caches the per-segment intermediate results of aggregation (with or without
+ * group-by) queries on immutable segments, so that the same query on the same segment does not need to be re-computed.
+ * <p>The cache key consists of the segment name, the segment CRC and a {@link QueryKey}, which contains the table name
+ * and a normalized copy of the broker request that only keeps the parts that affect the per-segment result (filter,
+ * aggregations and group-by expressions). The query key should be computed once per query and shared across all the
+ * segments queried. The cache is bounded by the estimated size of the cached results and evicts the least recently used
+ * entries.
+ * <p>Each cache entry keeps a weak reference to the segment it is computed on. When the segment is reloaded or replaced
+ * (a different segment instance with the same name), the entry is treated as a miss and replaced with the new result.
+ */
+@ThreadSafe
+public class SegmentResultCache {
+  public static final String MAX_SIZE_IN_BYTES_KEY = "segment.result.cache.max.size.bytes";
+  public static final long DEFAULT_MAX_SIZE_IN_BYTES = 0L;
+
+  private final Cache<Key, CachedSegmentResult> _cache;
+  private final ServerMetrics _serverMetrics;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param maxSizeInBytes Maximum estimated size of the cached results in bytes
+   * @param serverMetrics Server metrics to record the cache hits and misses
+   */
+  public SegmentResultCache(long maxSizeInBytes, @Nonnull ServerMetrics serverMetrics) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid max size in bytes: %s", maxSizeInBytes);
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeInBytes)
+        .weigher((Key key, CachedSegmentResult value) -> value.getSizeInBytes())
+        .build();
+    _serverMetrics = serverMetrics;
+  }
+
+  /**
+   * Returns whether the result of the given query on the given segment can be cached.
+   * <p>Only aggregation queries on immutable segments with CRC can be cached, because the results of consuming segments
+   * keep changing.
+   */
+  public static boolean isCacheable(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    return isCacheable(brokerRequest) && isCacheable(indexSegment);
+  }
+
+  /**
+   * Returns whether the result of the given query can be cached (on segments that can be cached).
+   */
+  public static boolean isCacheable(@Nonnull BrokerRequest brokerRequest) {
+    return brokerRequest.isSetAggregationsInfo() && !brokerRequest.isSetSelections();
+  }
+
+  /**
+   * Returns whether the results on the given segment can be cached (for queries that can be cached).
+   */
+  public static boolean isCacheable(@Nonnull IndexSegment indexSegment) {
+    return indexSegment instanceof ImmutableSegment && indexSegment.getSegmentMetadata().getCrc() != null;
+  }
+
+  /**
+   * Returns the query part of the cache key for the given query, which can be shared across all the segments queried.
+   */
+  public static QueryKey getQueryKey(@Nonnull BrokerRequest brokerRequest) {
+    return new QueryKey(brokerRequest.getQuerySource().getTableName(), normalize(brokerRequest));
+  }
+
+  /**
+   * Returns the cache key for the given query on the given segment.
+   */
+  public static Key getKey(@Nonnull IndexSegment indexSegment, @Nonnull QueryKey queryKey) {
+    return new Key(indexSegment.getSegmentName(), indexSegment.getSegmentMetadata().getCrc(), queryKey);
+  }
+
+  /**
+   * Helper method to make a copy of the broker request which only keeps the parts that affect the per-segment result.
+   * <p>The group-by top N only takes effect when combining the results of multiple segments, so it is not kept.
+   */
+  private static BrokerRequest normalize(BrokerRequest brokerRequest) {
+    BrokerRequest normalizedBrokerRequest = new BrokerRequest();
+    FilterQuery filterQuery = brokerRequest.getFilterQuery();
+    if (filterQuery != null) {
+      normalizedBrokerRequest.setFilterQuery(filterQuery.deepCopy());
+      FilterQueryMap filterSubQueryMap = brokerRequest.getFilterSubQueryMap();
+      if (filterSubQueryMap != null) {
+        normalizedBrokerRequest.setFilterSubQueryMap(filterSubQueryMap.deepCopy());
+      }
+    }
+    List<AggregationInfo> aggregationsInfo = brokerRequest.getAggregationsInfo();
+    List<AggregationInfo> normalizedAggregationsInfo = new ArrayList<>(aggregationsInfo.size());
+    for (AggregationInfo aggregationInfo : aggregationsInfo) {
+      normalizedAggregationsInfo.add(aggregationInfo.deepCopy());
+    }
+    normalizedBrokerRequest.setAggregationsInfo(normalizedAggregationsInfo);
+    GroupBy groupBy = brokerRequest.getGroupBy();
+    if (groupBy != null) {
+      GroupBy normalizedGroupBy = groupBy.deepCopy();
+      normalizedGroupBy.unsetTopN();
+      normalizedBrokerRequest.setGroupBy(normalizedGroupBy);
+    }
+    return normalizedBrokerRequest;
+  }
+
+  /**
+   * Returns the cached result for the given key and segment, or <code>null</code> if the result is not cached or is
+   * computed on a different instance of the segment (segment reloaded or replaced).
+   */
+  @Nullable
+  public CachedSegmentResult get(@Nonnull Key key, @Nonnull IndexSegment indexSegment) {
+    CachedSegmentResult cachedResult = _cache.getIfPresent(key);
+    if (cachedResult != null) {
+      if (cachedResult.isComputedOn(indexSegment)) {
+        _serverMetrics.addMeteredTableValue(key._queryKey._tableName, ServerMeter.SEGMENT_RESULT_CACHE_HITS, 1);
+        return cachedResult;
+      }
+      _cache.invalidate(key);
+    }
+    _serverMetrics.addMeteredTableValue(key._queryKey._tableName, ServerMeter.SEGMENT_RESULT_CACHE_MISSES, 1);
+    return null;
+  }
+
+  /**
+   * Caches the result computed on the given segment, returns the cached result if the results block can be cached, or
+   * <code>null</code> otherwise (e.g. the results block contains processing exceptions).
+   * <p>The cached result is a snapshot of the results block, and the results block should not be used after this call
+   * because its resources are released. Use {@link CachedSegmentResult#toResultsBlock()} to get a copy of the results
+   * block instead.
+   */
+  @Nullable
+  public CachedSegmentResult put(@Nonnull Key key, @Nonnull IndexSegment indexSegment,
+      @Nonnull IntermediateResultsBlock resultsBlock, @Nonnull ExecutionStatistics executionStatistics) {
+    CachedSegmentResult cachedResult = CachedSegmentResult.of(indexSegment, resultsBlock, executionStatistics);
+    if (cachedResult != null) {
+      _cache.put(key, cachedResult);
+    }
+    return cachedResult;
+  }
+
+  @VisibleForTesting
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Query part of the key of the segment result cache.
+   */
+  public static final class QueryKey {
+    private final String _tableName;
+    private final BrokerRequest _normalizedBrokerRequest;
+    private final int _hashCode;
+
+    private QueryKey(String tableName, BrokerRequest normalizedBrokerRequest) {
+      _tableName = tableName;
+      _normalizedBrokerRequest = normalizedBrokerRequest;
+      _hashCode = 31 * tableName.hashCode() + normalizedBrokerRequest.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof QueryKey)) {
+        return false;
+      }
+      QueryKey that = (QueryKey) obj;
+      return _hashCode == that._hashCode && _tableName.equals(that._tableName) && _normalizedBrokerRequest.equals(
+          that._normalizedBrokerRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  /**
+   * Key of the segment result cache.
+   */
+  public static final class Key {
+    private final String _segmentName;
+    private final String _crc;
+    private final QueryKey _queryKey;
+    private final int _hashCode;
+
+    private Key(String segmentName, String crc, QueryKey queryKey) {
+      _segmentName = segmentName;
+      _crc = crc;
+      _queryKey = queryKey;
+      _hashCode = 31 * (31 * segmentName.hashCode() + crc.hashCode()) + queryKey.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) obj;
+      return _hashCode == that._hashCode && _segmentName.equals(that._segmentName) && _crc.equals(that._crc)
+          && _queryKey.equals(that._queryKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
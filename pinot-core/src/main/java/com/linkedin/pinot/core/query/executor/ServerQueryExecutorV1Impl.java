@@ -32,11 +32,13 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.exception.BadQueryRequestException;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerService;
 import com.linkedin.pinot.core.query.request.ServerQueryRequest;
 import com.linkedin.pinot.core.query.request.context.TimerContext;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryExecutorService;
 import com.linkedin.pinot.core.util.trace.TraceContext;
 import java.util.Iterator;
 import java.util.List;
@@ -73,9 +75,16 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     }
     LOGGER.info("Default timeout for query executor : {}", _defaultTimeOutMs);
     LOGGER.info("Trying to build SegmentPrunerService");
-    _segmentPrunerService = new SegmentPrunerService(queryExecutorConfig.getPrunerConfig());
+    _segmentPrunerService = new SegmentPrunerService(queryExecutorConfig.getPrunerConfig(), serverMetrics);
+    SegmentResultCache segmentResultCache = null;
+    long segmentResultCacheMaxSizeInBytes = queryExecutorConfig.getConfig()
+        .getLong(SegmentResultCache.MAX_SIZE_IN_BYTES_KEY, SegmentResultCache.DEFAULT_MAX_SIZE_IN_BYTES);
+    if (segmentResultCacheMaxSizeInBytes > 0) {
+      LOGGER.info("Enabling segment result cache with max size: {} bytes", segmentResultCacheMaxSizeInBytes);
+      segmentResultCache = new SegmentResultCache(segmentResultCacheMaxSizeInBytes, serverMetrics);
+    }
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig);
+    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig, segmentResultCache);
     LOGGER.info("Trying to build QueryExecutorTimer");
   }
 
@@ -148,6 +157,11 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
             _planMaker.makeInterSegmentPlan(segmentDataManagers, brokerRequest, executorService, remainingTimeMs);
         planBuildTimer.stopAndRecord();
 
+        if (executorService instanceof QueryExecutorService) {
+          allotThreads((QueryExecutorService) executorService, segmentDataManagers, brokerRequest,
+              tableNameWithType);
+        }
+
         if (PRINT_QUERY_PLAN) {
           LOGGER.debug("***************************** Query Plan for Request {} ***********************************",
               queryRequest.getRequestId());
@@ -194,6 +208,34 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     return dataTable;
   }
 
+  /**
+   * Helper method to adjust the thread budget of the query based on the cost of the query after segment pruning.
+   * <p>The query is scan-free if all the segments can be solved by metadata or dictionary.
+   */
+  private void allotThreads(QueryExecutorService queryExecutorService, List<SegmentDataManager> segmentDataManagers,
+      BrokerRequest brokerRequest, String tableNameWithType) {
+    long numDocs = 0;
+    boolean isScanFree = true;
+    for (SegmentDataManager segmentDataManager : segmentDataManagers) {
+      IndexSegment indexSegment = segmentDataManager.getSegment();
+      numDocs += indexSegment.getSegmentMetadata().getTotalDocs();
+      if (isScanFree) {
+        isScanFree = InstancePlanMakerImplV2.isFitForMetadataBasedPlan(brokerRequest, indexSegment)
+            || InstancePlanMakerImplV2.isFitForDictionaryBasedPlan(brokerRequest, indexSegment);
+      }
+    }
+    int numThreads = queryExecutorService.allotThreads(segmentDataManagers.size(), numDocs, isScanFree);
+    if (numThreads == Integer.MAX_VALUE) {
+      // Executor service not bounded
+      return;
+    }
+    if (numThreads == 0) {
+      _serverMetrics.addMeteredTableValue(tableNameWithType, ServerMeter.QUERIES_EXECUTED_INLINE, 1);
+    } else {
+      _serverMetrics.addMeteredTableValue(tableNameWithType, ServerMeter.QUERY_WORKER_THREADS_ALLOTTED, numThreads);
+    }
+  }
+
   /**
    * Helper method to prune segments.
    *
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.query.request.ServerQueryRequest;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Implementation of {@link SegmentPruner} that uses the column bloom filters to perform pruning.
+ * <p>The segment is pruned if none of the values of an EQUALITY or IN predicate is contained in the bloom filter of the
+ * column. This complements {@link ColumnValueSegmentPruner} for point lookups on columns that are neither sorted nor
+ * partitioned, where the values usually fall within the min/max value of every segment.
+ */
+public class BloomFilterSegmentPruner implements SegmentPruner {
+
+  @Override
+  public void init(Configuration config) {
+  }
+
+  @Override
+  public boolean prune(@Nonnull IndexSegment segment, @Nonnull ServerQueryRequest queryRequest) {
+    FilterQueryTree filterQueryTree = queryRequest.getFilterQueryTree();
+    // Bloom filter is only available for immutable segments
+    if (filterQueryTree == null || !(segment instanceof ImmutableSegment)) {
+      return false;
+    }
+    Map<String, ColumnMetadata> columnMetadataMap =
+        ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataMap();
+    return pruneSegment((ImmutableSegment) segment, filterQueryTree, columnMetadataMap);
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilterSegmentPruner";
+  }
+
+  /**
+   * Helper method to determine if a segment can be pruned based on the column bloom filters:
+   * <ul>
+   *   <li> For leaf node: Returns true if there is an EQUALITY or IN predicate on a column with bloom filter, and none
+   *   of the values of the predicate is contained in the bloom filter, false otherwise. </li>
+   *   <li> For non-leaf AND node: True if any of its children returned true, false otherwise. </li>
+   *   <li> For non-leaf OR node: True if all its children returned true, false otherwise. </li>
+   * </ul>
+   */
+  private boolean pruneSegment(ImmutableSegment segment, FilterQueryTree filterQueryTree,
+      Map<String, ColumnMetadata> columnMetadataMap) {
+    FilterOperator filterOperator = filterQueryTree.getOperator();
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+
+    if (children != null && !children.isEmpty()) {
+      // Non-leaf node
+      switch (filterOperator) {
+        case AND:
+          for (FilterQueryTree child : children) {
+            if (pruneSegment(segment, child, columnMetadataMap)) {
+              return true;
+            }
+          }
+          return false;
+        case OR:
+          for (FilterQueryTree child : children) {
+            if (!pruneSegment(segment, child, columnMetadataMap)) {
+              return false;
+            }
+          }
+          return true;
+        default:
+          throw new IllegalStateException("Unsupported filter operator: " + filterOperator);
+      }
+    }
+
+    // Leaf node
+    if (filterOperator != FilterOperator.EQUALITY && filterOperator != FilterOperator.IN) {
+      return false;
+    }
+    String column = filterQueryTree.getColumn();
+    ColumnMetadata columnMetadata = columnMetadataMap.get(column);
+    if (columnMetadata == null) {
+      // Column does not exist in the segment, leave it to DataSchemaSegmentPruner
+      return false;
+    }
+    BloomFilterReader bloomFilter = segment.getBloomFilter(column);
+    if (bloomFilter == null) {
+      return false;
+    }
+
+    // Convert the values to the column data type so that they have the same string representation as the values in
+    // the bloom filter
+    if (filterOperator == FilterOperator.EQUALITY) {
+      return !mightContain(bloomFilter, filterQueryTree.getValue().get(0), columnMetadata);
+    } else {
+      for (String value : new InPredicate(null, filterQueryTree.getValue()).getValues()) {
+        if (mightContain(bloomFilter, value, columnMetadata)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static boolean mightContain(BloomFilterReader bloomFilter, String value, ColumnMetadata columnMetadata) {
+    return bloomFilter.mightContain(AbstractSegmentPruner.getValue(value, columnMetadata.getDataType()).toString());
+  }
+}
@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.core.query.pruner;
 
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.query.config.SegmentPrunerConfig;
 import com.linkedin.pinot.core.query.request.ServerQueryRequest;
@@ -27,13 +29,16 @@ import org.slf4j.LoggerFactory;
 /**
  * The <code>SegmentPrunerService</code> class contains multiple segment pruners and provides service to prune segments
  * against all pruners.
+ * <p>The number of pruned segments is recorded in the server metrics for each table, and the segments pruned by
+ * {@link BloomFilterSegmentPruner} are also recorded separately to track the effectiveness of the bloom filters.
  */
 public class SegmentPrunerService {
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentPrunerService.class);
 
   private final List<SegmentPruner> _segmentPruners;
+  private final ServerMetrics _serverMetrics;
 
-  public SegmentPrunerService(SegmentPrunerConfig config) {
+  public SegmentPrunerService(SegmentPrunerConfig config, ServerMetrics serverMetrics) {
     int numPruners = config.numberOfSegmentPruner();
     _segmentPruners = new ArrayList<>(numPruners);
     for (int i = 0; i < numPruners; i++) {
@@ -41,6 +46,7 @@ public class SegmentPrunerService {
       _segmentPruners.add(
           SegmentPrunerProvider.getSegmentPruner(config.getSegmentPrunerName(i), config.getSegmentPrunerConfig(i)));
     }
+    _serverMetrics = serverMetrics;
   }
 
   /**
@@ -50,6 +56,11 @@ public class SegmentPrunerService {
     for (SegmentPruner segmentPruner : _segmentPruners) {
       if (segmentPruner.prune(segment, queryRequest)) {
         LOGGER.debug("Pruned segment: {}", segment.getSegmentName());
+        String tableNameWithType = queryRequest.getTableNameWithType();
+        _serverMetrics.addMeteredTableValue(tableNameWithType, ServerMeter.NUM_SEGMENTS_PRUNED, 1);
+        if (segmentPruner instanceof BloomFilterSegmentPruner) {
+          _serverMetrics.addMeteredTableValue(tableNameWithType, ServerMeter.NUM_SEGMENTS_PRUNED_BY_BLOOM_FILTER, 1);
+        }
         return true;
       }
     }
@@ -0,0 +1,745 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.request.HavingFilterQuery;
+import com.linkedin.pinot.common.request.HavingFilterQueryMap;
+import com.linkedin.pinot.common.request.Selection;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.response.broker.QueryProcessingException;
+import com.linkedin.pinot.common.response.broker.SelectionResults;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>StreamingBrokerReducer</code> class reduces data tables from multiple servers to
+ * {@link BrokerResponseNative} incrementally, one data table at a time.
+ * <p>Each data table is merged into the partial results as soon as it is passed in via
+ * {@link #reduceDataTable(ServerInstance, DataTable)}, and no reference to the data table is kept afterwards, so that
+ * the reduce work overlaps with waiting for the other servers, and the memory usage scales with the size of the merged
+ * results instead of the number of servers queried.
+ * <p>Call {@link #getBrokerResponse()} once after all the data tables are reduced (or the query timed out) to finish
+ * the reduce. Data tables passed in after that are ignored.
+ */
+@ThreadSafe
+public class StreamingBrokerReducer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingBrokerReducer.class);
+
+  // Name of the map column in the legacy group-by data table format
+  private static final String LEGACY_GROUP_BY_RESULT_MAP_COLUMN_NAME = "GroupByResultMap";
+
+  private final BrokerRequest _brokerRequest;
+  private final BrokerMetrics _brokerMetrics;
+  private final BrokerResponseNative _brokerResponseNative = new BrokerResponseNative();
+
+  // Execution statistics
+  private long _numDocsScanned = 0L;
+  private long _numEntriesScannedInFilter = 0L;
+  private long _numEntriesScannedPostFilter = 0L;
+  private long _numTotalRawDocs = 0L;
+  private boolean _numGroupsLimitReached = false;
+
+  // Cache a data schema from data tables (try to cache one with data rows associated with it)
+  private DataSchema _cachedDataSchema;
+  private int _numDataTablesReduced = 0;
+  private int _numDataTablesWithRows = 0;
+  private boolean _finished = false;
+
+  // For selection query
+  private DataSchema _selectionDataSchema;
+  private SelectionOperatorService _selectionOperatorService;
+  private List<Serializable[]> _selectionRows;
+  private final List<String> _droppedServers = new ArrayList<>();
+
+  // For aggregation query
+  private AggregationFunction[] _aggregationFunctions;
+  private Object[] _aggregationIntermediateResults;
+  private Map<TypedGroupKey, Object[]> _groupByIntermediateResultsMap;
+  // Stored types of the merged group keys, widened to cover the group-by columns from all the data tables
+  private FieldSpec.DataType[] _groupKeyStoredTypes;
+  // Aggregation column names from the data table in the legacy group-by format
+  private String[] _legacyAggregationColumnNames;
+
+  public StreamingBrokerReducer(@Nonnull BrokerRequest brokerRequest, @Nullable BrokerMetrics brokerMetrics) {
+    _brokerRequest = brokerRequest;
+    _brokerMetrics = brokerMetrics;
+    if (!brokerRequest.isSetSelections()) {
+      _aggregationFunctions = AggregationFunctionUtils.getAggregationFunctions(brokerRequest.getAggregationsInfo());
+      if (brokerRequest.isSetGroupBy()) {
+        _groupByIntermediateResultsMap = new HashMap<>();
+      } else {
+        _aggregationIntermediateResults = new Object[_aggregationFunctions.length];
+      }
+    }
+  }
+
+  /**
+   * Merges the data table from the given server into the partial results.
+   * <p>Returns <code>false</code> if the reduce is already finished and the data table is ignored.
+   *
+   * @param serverInstance server instance the data table comes from.
+   * @param dataTable data table to be merged.
+   * @return whether the data table is reduced.
+   */
+  public synchronized boolean reduceDataTable(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable) {
+    if (_finished) {
+      return false;
+    }
+    _numDataTablesReduced++;
+    Map<String, String> metadata = dataTable.getMetadata();
+
+    // Reduce on trace info.
+    // NOTE: the trace info is keyed by the host name. Only when the host name is already taken (e.g. by the OFFLINE and
+    // REALTIME servers on the same host, or by multiple hedged requests to the same server), key it by the server
+    // instance, the sequence for the table type and the request id so that it does not overwrite the other one.
+    if (_brokerRequest.isEnableTrace()) {
+      Map<String, String> traceInfo = _brokerResponseNative.getTraceInfo();
+      String traceInfoKey = serverInstance.getHostname();
+      if (traceInfo.containsKey(traceInfoKey)) {
+        traceInfoKey =
+            serverInstance + "_" + serverInstance.getSeq() + "_" + metadata.get(DataTable.REQUEST_ID_METADATA_KEY);
+      }
+      traceInfo.put(traceInfoKey, metadata.get(DataTable.TRACE_INFO_METADATA_KEY));
+    }
+
+    // Reduce on exceptions.
+    List<QueryProcessingException> processingExceptions = _brokerResponseNative.getProcessingExceptions();
+    for (String key : metadata.keySet()) {
+      if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+        processingExceptions.add(new QueryProcessingException(Integer.parseInt(key.substring(9)), metadata.get(key)));
+      }
+    }
+
+    // Reduce on execution statistics.
+    String numDocsScannedString = metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY);
+    if (numDocsScannedString != null) {
+      _numDocsScanned += Long.parseLong(numDocsScannedString);
+    }
+    String numEntriesScannedInFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY);
+    if (numEntriesScannedInFilterString != null) {
+      _numEntriesScannedInFilter += Long.parseLong(numEntriesScannedInFilterString);
+    }
+    String numEntriesScannedPostFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY);
+    if (numEntriesScannedPostFilterString != null) {
+      _numEntriesScannedPostFilter += Long.parseLong(numEntriesScannedPostFilterString);
+    }
+    String numTotalRawDocsString = metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY);
+    if (numTotalRawDocsString != null) {
+      _numTotalRawDocs += Long.parseLong(numTotalRawDocsString);
+    }
+    _numGroupsLimitReached |= Boolean.valueOf(metadata.get(DataTable.NUM_GROUPS_LIMIT_REACHED_KEY));
+
+    // After processing the metadata, skip data tables without data rows inside.
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (dataSchema == null) {
+      return true;
+    }
+    if (dataTable.getNumberOfRows() == 0) {
+      if (_cachedDataSchema == null) {
+        _cachedDataSchema = dataSchema;
+      }
+      return true;
+    }
+    _cachedDataSchema = dataSchema;
+    _numDataTablesWithRows++;
+
+    // Merge the data rows into the partial results.
+    try {
+      if (_brokerRequest.isSetSelections()) {
+        reduceSelectionDataTable(serverInstance, dataTable);
+      } else if (!_brokerRequest.isSetGroupBy()) {
+        reduceAggregationDataTable(dataTable);
+      } else {
+        reduceGroupByDataTable(dataTable);
+      }
+    } catch (Exception e) {
+      String errorMessage =
+          QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": caught exception while merging response for table: "
+              + _brokerRequest.getQuerySource().getTableName() + " from server: " + serverInstance + ": " + e;
+      LOGGER.error(errorMessage, e);
+      if (_brokerMetrics != null) {
+        _brokerMetrics.addMeteredTableValue(getRawTableName(), BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
+      }
+      processingExceptions.add(new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of data tables reduced.
+   */
+  public synchronized int getNumDataTablesReduced() {
+    return _numDataTablesReduced;
+  }
+
+  /**
+   * Finishes the reduce and returns the broker response. Data tables passed in after this call are ignored.
+   * <p>Should only be called once.
+   *
+   * @return broker response.
+   */
+  @Nonnull
+  public synchronized BrokerResponseNative getBrokerResponse() {
+    _finished = true;
+    if (_numDataTablesReduced == 0) {
+      // Empty response.
+      return BrokerResponseNative.empty();
+    }
+
+    // Set execution statistics.
+    BrokerResponseNative brokerResponseNative = _brokerResponseNative;
+    brokerResponseNative.setNumDocsScanned(_numDocsScanned);
+    brokerResponseNative.setNumEntriesScannedInFilter(_numEntriesScannedInFilter);
+    brokerResponseNative.setNumEntriesScannedPostFilter(_numEntriesScannedPostFilter);
+    brokerResponseNative.setTotalDocs(_numTotalRawDocs);
+    brokerResponseNative.setNumGroupsLimitReached(_numGroupsLimitReached);
+
+    // Update broker metrics.
+    String tableName = _brokerRequest.getQuerySource().getTableName();
+    String rawTableName = getRawTableName();
+    if (_brokerMetrics != null) {
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.DOCUMENTS_SCANNED, _numDocsScanned);
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_IN_FILTER,
+          _numEntriesScannedInFilter);
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_POST_FILTER,
+          _numEntriesScannedPostFilter);
+    }
+
+    // Parse the option from request whether to preserve the type
+    String preserveTypeString = (_brokerRequest.getQueryOptions() == null) ? "false" : _brokerRequest.getQueryOptions()
+        .getOrDefault(CommonConstants.Broker.Request.QueryOptionKey.PRESERVE_TYPE, "false");
+    boolean preserveType = Boolean.valueOf(preserveTypeString);
+
+    if (_numDataTablesWithRows == 0) {
+      // For no data table with data rows, construct empty result using the cached data schema.
+
+      // This will only happen to selection query and aggregation group-by query.
+      if (_cachedDataSchema != null) {
+        if (_brokerRequest.isSetSelections()) {
+          List<String> selectionColumns =
+              SelectionOperatorUtils.getSelectionColumns(_brokerRequest.getSelections().getSelectionColumns(),
+                  _cachedDataSchema);
+          brokerResponseNative.setSelectionResults(new SelectionResults(selectionColumns, new ArrayList<>(0)));
+        } else if (_brokerRequest.isSetGroupBy()) {
+          setGroupByHavingResults(brokerResponseNative, preserveType);
+        }
+      }
+    } else {
+      // Set the reduced results into the broker response.
+      assert _cachedDataSchema != null;
+
+      if (_brokerRequest.isSetSelections()) {
+        // Selection query.
+        if (!_droppedServers.isEmpty()) {
+          String errorMessage =
+              QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": responses for table: " + tableName
+                  + " from servers: " + _droppedServers + " got dropped due to data schema inconsistency.";
+          LOGGER.info(errorMessage);
+          if (_brokerMetrics != null) {
+            _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
+          }
+          brokerResponseNative.addToExceptions(
+              new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
+        }
+        setSelectionResults(brokerResponseNative, preserveType);
+      } else if (!_brokerRequest.isSetGroupBy()) {
+        // Aggregation only query.
+        setAggregationResults(brokerResponseNative, preserveType);
+      } else {
+        // Aggregation group-by query.
+        setGroupByHavingResults(brokerResponseNative, preserveType);
+        if (_brokerMetrics != null && (!brokerResponseNative.getAggregationResults().isEmpty())) {
+          // We emit the group by size when the result isn't empty. All the sizes among group-by results should be the same.
+          // Thus, we can just emit the one from the 1st result.
+          _brokerMetrics.addMeteredQueryValue(_brokerRequest, BrokerMeter.GROUP_BY_SIZE,
+              brokerResponseNative.getAggregationResults().get(0).getGroupByResult().size());
+        }
+      }
+    }
+    return brokerResponseNative;
+  }
+
+  private String getRawTableName() {
+    return TableNameBuilder.extractRawTableName(_brokerRequest.getQuerySource().getTableName());
+  }
+
+  /**
+   * Merge selection rows from the data table into the partial results.
+   * <p>The data schema of the first data table with data rows is used as the master data schema, data tables that are
+   * not compatible with the master data schema are dropped, and the master data schema is upgraded to cover all the
+   * merged data schemas.
+   */
+  private void reduceSelectionDataTable(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable) {
+    Selection selection = _brokerRequest.getSelections();
+    int selectionSize = selection.getSize();
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (_selectionDataSchema == null) {
+      _selectionDataSchema = dataSchema.clone();
+      if (selection.isSetSelectionSortSequence() && selectionSize != 0) {
+        // NOTE: the selection operator service shares the master data schema, which will be upgraded in place.
+        _selectionOperatorService = new SelectionOperatorService(selection, _selectionDataSchema);
+      } else {
+        _selectionRows = new ArrayList<>(selectionSize);
+      }
+    } else {
+      if (!_selectionDataSchema.isTypeCompatibleWith(dataSchema)) {
+        _droppedServers.add(serverInstance.toString());
+        return;
+      }
+      _selectionDataSchema.upgradeToCover(dataSchema);
+    }
+
+    if (_selectionOperatorService != null) {
+      // Selection order-by.
+      _selectionOperatorService.reduceWithOrdering(dataTable);
+    } else {
+      // Selection only.
+      SelectionOperatorUtils.reduceWithoutOrdering(_selectionRows, dataTable, selectionSize);
+    }
+  }
+
+  /**
+   * Merge aggregation results from the data table into the partial results.
+   */
+  private void reduceAggregationDataTable(@Nonnull DataTable dataTable) {
+    DataSchema dataSchema = dataTable.getDataSchema();
+    int numAggregationFunctions = _aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Object intermediateResultToMerge;
+      DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
+      switch (columnDataType) {
+        case LONG:
+          intermediateResultToMerge = dataTable.getLong(0, i);
+          break;
+        case DOUBLE:
+          intermediateResultToMerge = dataTable.getDouble(0, i);
+          break;
+        case OBJECT:
+          intermediateResultToMerge = dataTable.getObject(0, i);
+          break;
+        default:
+          throw new IllegalStateException("Illegal column data type in aggregation results: " + columnDataType);
+      }
+      mergeIntermediateResult(_aggregationFunctions[i], _aggregationIntermediateResults, i, intermediateResultToMerge);
+    }
+  }
+
+  /**
+   * Merge group-by results from the data table into the partial results.
+   * <p>The group keys are merged with the stored types widened to cover the group-by column data types from all the
+   * data tables (e.g. a column can be FLOAT on one server and DOUBLE on another), and the group keys already merged are
+   * converted when the stored types are widened.
+   * <p>NOTE: when there are data tables in the legacy format (one map from string key to intermediate result per
+   * aggregation function), merge all the group keys as STRING so that they match the string keys.
+   */
+  private void reduceGroupByDataTable(@Nonnull DataTable dataTable) {
+    int numGroupByExpressions = _brokerRequest.getGroupBy().getExpressions().size();
+    if (isLegacyGroupByDataSchema(dataTable.getDataSchema())) {
+      if (_legacyAggregationColumnNames == null) {
+        int numAggregationFunctions = _aggregationFunctions.length;
+        _legacyAggregationColumnNames = new String[numAggregationFunctions];
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          _legacyAggregationColumnNames[i] = dataTable.getString(i, 0);
+        }
+        // Convert the group keys already merged to STRING
+        setGroupKeyStoredTypes(TypedGroupKey.getStringStoredTypes(numGroupByExpressions));
+      }
+      mergeLegacyGroupByDataTable(dataTable, _aggregationFunctions, numGroupByExpressions,
+          _groupByIntermediateResultsMap);
+    } else {
+      DataSchema dataSchema = dataTable.getDataSchema();
+      FieldSpec.DataType[] storedTypes = new FieldSpec.DataType[numGroupByExpressions];
+      for (int i = 0; i < numGroupByExpressions; i++) {
+        storedTypes[i] = getGroupKeyStoredType(dataSchema.getColumnDataType(i));
+      }
+      if (_groupKeyStoredTypes == null) {
+        _groupKeyStoredTypes = storedTypes;
+      } else {
+        setGroupKeyStoredTypes(TypedGroupKey.getWidenedStoredTypes(_groupKeyStoredTypes, storedTypes));
+      }
+      mergeGroupByDataTable(dataTable, _aggregationFunctions, storedTypes, _groupKeyStoredTypes,
+          _groupByIntermediateResultsMap);
+    }
+  }
+
+  /**
+   * Helper method to set the stored types of the merged group keys, and convert the group keys already merged if the
+   * stored types are changed.
+   */
+  private void setGroupKeyStoredTypes(@Nonnull FieldSpec.DataType[] groupKeyStoredTypes) {
+    if (!Arrays.equals(groupKeyStoredTypes, _groupKeyStoredTypes)) {
+      _groupKeyStoredTypes = groupKeyStoredTypes;
+      if (!_groupByIntermediateResultsMap.isEmpty()) {
+        _groupByIntermediateResultsMap =
+            convertGroupKeys(_aggregationFunctions, _groupByIntermediateResultsMap, groupKeyStoredTypes);
+      }
+    }
+  }
+
+  /**
+   * Set the reduced selection results into the broker response.
+   */
+  private void setSelectionResults(@Nonnull BrokerResponseNative brokerResponseNative, boolean preserveType) {
+    Selection selection = _brokerRequest.getSelections();
+    DataSchema dataSchema = _selectionDataSchema;
+    SelectionResults selectionResults;
+    int[] columnIndices;
+    List<String> selectionColumns =
+        SelectionOperatorUtils.getSelectionColumns(selection.getSelectionColumns(), dataSchema);
+    if (_selectionOperatorService != null) {
+      // Selection order-by.
+      selectionResults = _selectionOperatorService.renderSelectionResultsWithOrdering();
+      columnIndices = SelectionOperatorUtils.getColumnIndicesWithOrdering(selectionColumns, dataSchema);
+    } else {
+      // Selection only.
+      selectionResults =
+          SelectionOperatorUtils.renderSelectionResultsWithoutOrdering(_selectionRows, dataSchema, selectionColumns);
+      columnIndices = SelectionOperatorUtils.getColumnIndicesWithoutOrdering(selectionColumns, dataSchema);
+    }
+
+    // TODO: use "formatRowsWithoutOrdering", "formatRowsWithOrdering" properly for selection when the server is updated
+    // to the latest code
+    if (!preserveType) {
+      selectionResults.setRows(
+          SelectionOperatorUtils.formatRowsWithOrdering(selectionResults.getRows(), columnIndices, dataSchema));
+    }
+
+    brokerResponseNative.setSelectionResults(selectionResults);
+  }
+
+  /**
+   * Set the reduced aggregation results into the broker response.
+   */
+  private void setAggregationResults(@Nonnull BrokerResponseNative brokerResponseNative, boolean preserveType) {
+    int numAggregationFunctions = _aggregationFunctions.length;
+    List<AggregationResult> reducedAggregationResults = new ArrayList<>(numAggregationFunctions);
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Serializable resultValue = AggregationFunctionUtils.getSerializableValue(
+          _aggregationFunctions[i].extractFinalResult(_aggregationIntermediateResults[i]));
+
+      // Format the value into string if required
+      if (!preserveType) {
+        resultValue = AggregationFunctionUtils.formatValue(resultValue);
+      }
+      reducedAggregationResults.add(new AggregationResult(_cachedDataSchema.getColumnName(i), resultValue));
+    }
+    brokerResponseNative.setAggregationResults(reducedAggregationResults);
+  }
+
+  /**
+   * Set the reduced group-by results into the broker response, and apply the HAVING clause if any.
+   */
+  @SuppressWarnings("unchecked")
+  private void setGroupByHavingResults(@Nonnull BrokerResponseNative brokerResponseNative, boolean preserveType) {
+    AggregationFunction[] aggregationFunctions = _aggregationFunctions;
+    boolean[] aggregationFunctionsSelectStatus =
+        AggregationFunctionUtils.getAggregationFunctionsSelectStatus(_brokerRequest.getAggregationsInfo());
+    GroupBy groupBy = _brokerRequest.getGroupBy();
+    HavingFilterQuery havingFilterQuery = _brokerRequest.getHavingFilterQuery();
+    HavingFilterQueryMap havingFilterQueryMap = _brokerRequest.getHavingFilterSubQueryMap();
+    int numAggregationFunctions = aggregationFunctions.length;
+    int numGroupByExpressions = groupBy.getExpressions().size();
+
+    // Extract the aggregation column names.
+    String[] columnNames = _legacyAggregationColumnNames;
+    if (columnNames == null) {
+      columnNames = new String[numAggregationFunctions];
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        columnNames[i] = _cachedDataSchema.getColumnName(numGroupByExpressions + i);
+      }
+    }
+
+    // Extract final result maps from the merged intermediate results.
+    Map<TypedGroupKey, Comparable>[] finalResultMaps = new Map[numAggregationFunctions];
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      finalResultMaps[i] = new HashMap<>();
+    }
+    for (Map.Entry<TypedGroupKey, Object[]> entry : _groupByIntermediateResultsMap.entrySet()) {
+      TypedGroupKey groupKey = entry.getKey();
+      Object[] intermediateResults = entry.getValue();
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        Object intermediateResult = intermediateResults[i];
+        // Intermediate result might be missing for data tables in the legacy format because of the server side trimming
+        if (intermediateResult != null) {
+          finalResultMaps[i].put(groupKey, aggregationFunctions[i].extractFinalResult(intermediateResult));
+        }
+      }
+    }
+    //If HAVING clause is set, we further filter the group by results based on the HAVING predicate
+    if (havingFilterQuery != null) {
+      HavingClauseComparisonTree havingClauseComparisonTree =
+          HavingClauseComparisonTree.buildHavingClauseComparisonTree(havingFilterQuery, havingFilterQueryMap);
+      //Applying close policy
+      //We just keep those groups (from different aggregation functions) that are exist in the result set of all aggregation functions.
+      //In other words, we just keep intersection of groups of different aggregation functions.
+      //Here we calculate the intersection of group key sets of different aggregation functions
+      Set<TypedGroupKey> intersectionOfKeySets = finalResultMaps[0].keySet();
+      for (int i = 1; i < numAggregationFunctions; i++) {
+        intersectionOfKeySets.retainAll(finalResultMaps[i].keySet());
+      }
+
+      //Now it is time to remove those groups that do not validate HAVING clause predicate
+      //We use TreeMap which supports CASE_INSENSITIVE_ORDER
+      Map<String, Comparable> singleGroupAggResults = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      Map<TypedGroupKey, Comparable>[] finalFilteredResultMaps = new Map[numAggregationFunctions];
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        finalFilteredResultMaps[i] = new HashMap<>();
+      }
+
+      for (TypedGroupKey groupKey : intersectionOfKeySets) {
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          singleGroupAggResults.put(columnNames[i], finalResultMaps[i].get(groupKey));
+        }
+        //if this group validate HAVING predicate keep it in the new map
+        if (havingClauseComparisonTree.isThisGroupPassPredicates(singleGroupAggResults)) {
+          for (int i = 0; i < numAggregationFunctions; i++) {
+            finalFilteredResultMaps[i].put(groupKey, singleGroupAggResults.get(columnNames[i]));
+          }
+        }
+      }
+      //update the final results
+      finalResultMaps = finalFilteredResultMaps;
+    }
+
+    int aggregationNumsInFinalResult = 0;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      if (aggregationFunctionsSelectStatus[i]) {
+        aggregationNumsInFinalResult++;
+      }
+    }
+
+    if (aggregationNumsInFinalResult > 0) {
+      String[] finalColumnNames = new String[aggregationNumsInFinalResult];
+      Map<TypedGroupKey, Comparable>[] finalOutResultMaps = new Map[aggregationNumsInFinalResult];
+      AggregationFunction[] finalAggregationFunctions = new AggregationFunction[aggregationNumsInFinalResult];
+      int count = 0;
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        if (aggregationFunctionsSelectStatus[i]) {
+          finalColumnNames[count] = columnNames[i];
+          finalOutResultMaps[count] = finalResultMaps[i];
+          finalAggregationFunctions[count] = aggregationFunctions[i];
+          count++;
+        }
+      }
+      // Trim the final result maps to topN and set them into the broker response.
+      AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
+          new AggregationGroupByTrimmingService(finalAggregationFunctions, (int) groupBy.getTopN());
+      List<GroupByResult>[] groupByResultLists =
+          aggregationGroupByTrimmingService.trimFinalResults(finalOutResultMaps);
+
+      // Format the value into string if required
+      if (!preserveType) {
+        for (List<GroupByResult> groupByResultList: groupByResultLists) {
+          for (GroupByResult groupByResult: groupByResultList) {
+            groupByResult.setValue(AggregationFunctionUtils.formatValue(groupByResult.getValue()));
+          }
+        }
+      }
+
+      List<AggregationResult> aggregationResults = new ArrayList<>(count);
+      for (int i = 0; i < aggregationNumsInFinalResult; i++) {
+        List<GroupByResult> groupByResultList = groupByResultLists[i];
+        aggregationResults.add(new AggregationResult(groupByResultList, groupBy.getExpressions(), finalColumnNames[i]));
+      }
+      brokerResponseNative.setAggregationResults(aggregationResults);
+    } else {
+      throw new IllegalStateException(
+          "There should be minimum one aggregation function in the select list of a Group by query");
+    }
+  }
+
+  /**
+   * Returns whether the data schema is for the legacy group-by data table format, where each row contains the
+   * aggregation column name and the map from string group key to intermediate result for one aggregation function.
+   */
+  private static boolean isLegacyGroupByDataSchema(@Nonnull DataSchema dataSchema) {
+    return dataSchema.size() == 2 && dataSchema.getColumnName(1).equals(LEGACY_GROUP_BY_RESULT_MAP_COLUMN_NAME);
+  }
+
+  /**
+   * Helper method to merge the data table in the legacy group-by format into the intermediate results map.
+   */
+  private static void mergeLegacyGroupByDataTable(@Nonnull DataTable dataTable,
+      @Nonnull AggregationFunction[] aggregationFunctions, int numGroupByExpressions,
+      @Nonnull Map<TypedGroupKey, Object[]> intermediateResultsMap) {
+    int numAggregationFunctions = aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Map<String, Object> intermediateResultMap = dataTable.getObject(i, 1);
+      for (Map.Entry<String, Object> entry : intermediateResultMap.entrySet()) {
+        TypedGroupKey groupKey = TypedGroupKey.fromStringKey(entry.getKey(), numGroupByExpressions);
+        Object[] intermediateResults = intermediateResultsMap.get(groupKey);
+        if (intermediateResults == null) {
+          intermediateResults = new Object[numAggregationFunctions];
+          intermediateResultsMap.put(groupKey, intermediateResults);
+        }
+        mergeIntermediateResult(aggregationFunctions[i], intermediateResults, i, entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Helper method to merge the data table in the typed group-by format (one row per group with the group-by
+   * expressions followed by the intermediate results) into the intermediate results map.
+   */
+  private static void mergeGroupByDataTable(@Nonnull DataTable dataTable,
+      @Nonnull AggregationFunction[] aggregationFunctions, @Nonnull FieldSpec.DataType[] storedTypes,
+      @Nonnull FieldSpec.DataType[] groupKeyStoredTypes, @Nonnull Map<TypedGroupKey, Object[]> intermediateResultsMap) {
+    DataSchema dataSchema = dataTable.getDataSchema();
+    int numGroupByExpressions = storedTypes.length;
+    boolean convertGroupKeys = !Arrays.equals(storedTypes, groupKeyStoredTypes);
+    int numAggregationFunctions = aggregationFunctions.length;
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      long[] numericValues = new long[numGroupByExpressions];
+      String[] stringValues = TypedGroupKey.createStringValues(storedTypes);
+      for (int i = 0; i < numGroupByExpressions; i++) {
+        switch (storedTypes[i]) {
+          case INT:
+            numericValues[i] = TypedGroupKey.encodeInt(dataTable.getInt(rowId, i));
+            break;
+          case LONG:
+            numericValues[i] = TypedGroupKey.encodeLong(dataTable.getLong(rowId, i));
+            break;
+          case FLOAT:
+            numericValues[i] = TypedGroupKey.encodeFloat(dataTable.getFloat(rowId, i));
+            break;
+          case DOUBLE:
+            numericValues[i] = TypedGroupKey.encodeDouble(dataTable.getDouble(rowId, i));
+            break;
+          default:
+            assert stringValues != null;
+            stringValues[i] = dataTable.getString(rowId, i);
+            break;
+        }
+      }
+      TypedGroupKey groupKey = new TypedGroupKey(storedTypes, numericValues, stringValues);
+      if (convertGroupKeys) {
+        groupKey = groupKey.convertTo(groupKeyStoredTypes);
+      }
+
+      Object[] intermediateResults = intermediateResultsMap.get(groupKey);
+      if (intermediateResults == null) {
+        intermediateResults = new Object[numAggregationFunctions];
+        intermediateResultsMap.put(groupKey, intermediateResults);
+      }
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        int colId = numGroupByExpressions + i;
+        Object intermediateResultToMerge;
+        switch (dataSchema.getColumnDataType(colId)) {
+          case LONG:
+            intermediateResultToMerge = dataTable.getLong(rowId, colId);
+            break;
+          case DOUBLE:
+            intermediateResultToMerge = dataTable.getDouble(rowId, colId);
+            break;
+          case OBJECT:
+            intermediateResultToMerge = dataTable.getObject(rowId, colId);
+            break;
+          default:
+            throw new UnsupportedOperationException(
+                "Unsupported aggregation column data type: " + dataSchema.getColumnDataType(colId) + " for column: "
+                    + dataSchema.getColumnName(colId));
+        }
+        mergeIntermediateResult(aggregationFunctions[i], intermediateResults, i, intermediateResultToMerge);
+      }
+    }
+  }
+
+  private static void mergeIntermediateResult(@Nonnull AggregationFunction aggregationFunction,
+      @Nonnull Object[] intermediateResults, int index, @Nonnull Object intermediateResultToMerge) {
+    Object mergedIntermediateResult = intermediateResults[index];
+    if (mergedIntermediateResult == null) {
+      intermediateResults[index] = intermediateResultToMerge;
+    } else {
+      intermediateResults[index] = aggregationFunction.merge(mergedIntermediateResult, intermediateResultToMerge);
+    }
+  }
+
+  /**
+   * Helper method to get the stored type of the group key values for the given data table column data type.
+   */
+  private static FieldSpec.DataType getGroupKeyStoredType(@Nonnull DataSchema.ColumnDataType columnDataType) {
+    switch (columnDataType) {
+      case INT:
+        return FieldSpec.DataType.INT;
+      case LONG:
+        return FieldSpec.DataType.LONG;
+      case FLOAT:
+        return FieldSpec.DataType.FLOAT;
+      case DOUBLE:
+        return FieldSpec.DataType.DOUBLE;
+      default:
+        return FieldSpec.DataType.STRING;
+    }
+  }
+
+  /**
+   * Helper method to convert the group keys in the intermediate results map to the given (widened) stored types, e.g.
+   * to group keys with all values stored as <code>STRING</code> so that they can be merged with the string keys from
+   * the legacy group-by format. Intermediate results for group keys that become the same after the conversion are
+   * merged.
+   */
+  private static Map<TypedGroupKey, Object[]> convertGroupKeys(@Nonnull AggregationFunction[] aggregationFunctions,
+      @Nonnull Map<TypedGroupKey, Object[]> intermediateResultsMap, @Nonnull FieldSpec.DataType[] storedTypes) {
+    int numAggregationFunctions = aggregationFunctions.length;
+    Map<TypedGroupKey, Object[]> stringKeyIntermediateResultsMap = new HashMap<>(intermediateResultsMap.size());
+    for (Map.Entry<TypedGroupKey, Object[]> entry : intermediateResultsMap.entrySet()) {
+      TypedGroupKey groupKey = entry.getKey().convertTo(storedTypes);
+      Object[] intermediateResultsToMerge = entry.getValue();
+      Object[] intermediateResults = stringKeyIntermediateResultsMap.putIfAbsent(groupKey, intermediateResultsToMerge);
+      if (intermediateResults != null) {
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          Object intermediateResultToMerge = intermediateResultsToMerge[i];
+          if (intermediateResultToMerge != null) {
+            mergeIntermediateResult(aggregationFunctions[i], intermediateResults, i, intermediateResultToMerge);
+          }
+        }
+      }
+    }
+    return stringKeyIntermediateResultsMap;
+  }
+}
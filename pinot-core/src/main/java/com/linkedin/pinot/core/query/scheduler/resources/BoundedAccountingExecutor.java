@@ -33,13 +33,17 @@ import org.slf4j.LoggerFactory;
  * This class also supports a resource accounting interface to accurately track resources
  * utilization based on submission time and end time of a task. This does not require
  * any changes to client code which continue to use ExecutorService interface.
+ *
+ * The bounds can be changed before any task is submitted (see {@link #setBounds(int)}). With
+ * bounds of 0, tasks are run inline on the submitting thread, and are accounted the same way as
+ * the tasks run on the delegate executor.
  */
 public class BoundedAccountingExecutor extends QueryExecutorService {
   private static Logger LOGGER = LoggerFactory.getLogger(BoundedAccountingExecutor.class);
 
   private final Executor delegateExecutor;
-  private final int bounds;
-  private Semaphore semaphore;
+  private volatile int bounds;
+  private volatile Semaphore semaphore;
   private final SchedulerGroupAccountant accountant;
 
   public BoundedAccountingExecutor(@Nonnull Executor s, int bounds,
@@ -55,7 +59,29 @@ public class BoundedAccountingExecutor extends QueryExecutorService {
 
   @Override
   public void execute(Runnable command) {
-    delegateExecutor.execute(toAccountingRunnable(command));
+    if (bounds == 0) {
+      toAccountingRunnable(command).run();
+    } else {
+      delegateExecutor.execute(toAccountingRunnable(command));
+    }
+  }
+
+  /**
+   * Changes the number of concurrent jobs allowed and updates the threads reserved with the accountant accordingly.
+   * With bounds of 0, jobs are run inline on the submitting thread without reserving any thread.
+   * <p>Should only be called before any job is submitted.
+   * @param newBounds new upper bound on the number of concurrent jobs
+   */
+  public void setBounds(int newBounds) {
+    Preconditions.checkArgument(newBounds >= 0);
+    int delta = newBounds - bounds;
+    if (delta > 0) {
+      accountant.addReservedThreads(delta);
+    } else if (delta < 0) {
+      accountant.releasedReservedThreads(-delta);
+    }
+    semaphore = new Semaphore(Math.max(1, newBounds));
+    bounds = newBounds;
   }
 
   @Override
@@ -63,6 +89,12 @@ public class BoundedAccountingExecutor extends QueryExecutorService {
     accountant.releasedReservedThreads(bounds);
   }
 
+  @Override
+  public int getMaxNumConcurrentJobs() {
+    // Jobs run inline are executed one at a time
+    return Math.max(1, bounds);
+  }
+
   private QueryAccountingRunnable toAccountingRunnable(Runnable runnable) {
     acquirePermits(1);
     return new QueryAccountingRunnable(runnable, semaphore, accountant);
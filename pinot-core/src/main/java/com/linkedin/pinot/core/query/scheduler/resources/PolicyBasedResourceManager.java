@@ -66,9 +66,23 @@ public class PolicyBasedResourceManager extends ResourceManager {
     // We use this thread reservation only to determine priority based on resource utilization and not as a way to
     // improve system performance (because we don't have good insight on that yet)
     accountant.addReservedThreads(spareThreads);
-    // TODO: For 1 thread we should have the query run in the same queryRunner thread
-    // by supplying an executor service that similar to Guava' directExecutor()
-    return new BoundedAccountingExecutor(queryWorkers, spareThreads, accountant);
+    // The reservation is based on the number of segments before pruning, it is adjusted based on the query cost after
+    // pruning (see ResourceLimitPolicy.getNumThreadsForQuery()), and cheap queries are run inline on the query runner
+    // thread
+    return new BoundedAccountingExecutor(queryWorkers, spareThreads, accountant) {
+      @Override
+      public int allotThreads(int numSegments, long numDocs, boolean isScanFree) {
+        int numThreads = resourcePolicy.getNumThreadsForQuery(numSegments, numDocs, isScanFree);
+        int currentThreads = getMaxNumConcurrentJobs();
+        if (numThreads > currentThreads) {
+          // Only grow into the threads not reserved by other queries of the group
+          int spareThreads = resourcePolicy.getTableThreadsHardLimit() - accountant.totalReservedThreads();
+          numThreads = currentThreads + Math.max(0, Math.min(numThreads - currentThreads, spareThreads));
+        }
+        setBounds(numThreads);
+        return numThreads;
+      }
+    };
   }
 
   @Override
@@ -47,6 +47,30 @@ public abstract class QueryExecutorService implements ExecutorService {
   public void releaseWorkers() {
 
   }
+
+  /**
+   * Returns the maximum number of jobs that can be executed concurrently with this executor service, which is the
+   * thread budget of the query. Returns {@link Integer#MAX_VALUE} if the executor service is not bounded.
+   */
+  public int getMaxNumConcurrentJobs() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Adjusts the thread budget of the query based on the cost of the query after segment pruning, and returns the
+   * number of worker threads allotted to the query, where <code>0</code> means the jobs are run inline on the calling
+   * thread. Returns {@link #getMaxNumConcurrentJobs()} if the executor service does not adapt to the query cost.
+   * <p>Should be called before any job is submitted.
+   *
+   * @param numSegments Number of segments to process after pruning
+   * @param numDocs Total number of documents in the segments to process
+   * @param isScanFree Whether the query can be solved without scanning (e.g. metadata or dictionary based)
+   * @return Number of worker threads allotted to the query
+   */
+  public int allotThreads(int numSegments, long numDocs, boolean isScanFree) {
+    return getMaxNumConcurrentJobs();
+  }
+
   @Override
   public <T> Future<T> submit(Runnable task, T result) {
     return submit(Executors.callable(task, result));
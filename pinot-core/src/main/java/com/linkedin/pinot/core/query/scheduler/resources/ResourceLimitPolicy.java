@@ -22,6 +22,13 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Helper class to read configured resource limit policy
+ * <p>Configuration keys (relative to the scheduler configuration):
+ * <ul>
+ *   <li>{@value #THREADS_PER_QUERY_PCT}: max worker threads per query, in percent of the worker threads</li>
+ *   <li>{@value #TABLE_THREADS_SOFT_LIMIT}, {@value #TABLE_THREADS_HARD_LIMIT}: worker threads per table</li>
+ *   <li>{@value #INLINE_QUERY_MAX_COST}: max cost of the queries run inline on the query runner thread</li>
+ *   <li>{@value #QUERY_COST_PER_THREAD}: cost of the query handled by each worker thread</li>
+ * </ul>
  */
 public class ResourceLimitPolicy {
   private static final Logger LOGGER = LoggerFactory.getLogger(ResourceLimitPolicy.class);
@@ -34,10 +41,20 @@ public class ResourceLimitPolicy {
   public static final String TABLE_THREADS_HARD_LIMIT = "table_threads_hard_limit_pct";
   public static final int DEFAULT_TABLE_THREADS_SOFT_LIMIT = 30;
   public static final int DEFAULT_TABLE_THREADS_HARD_LIMIT = 45;
+  // Queries with cost (in number of documents) no more than this are run inline on the query runner thread
+  public static final String INLINE_QUERY_MAX_COST = "inline_query_max_cost";
+  public static final long DEFAULT_INLINE_QUERY_MAX_COST = 100_000L;
+  // Cost (in number of documents) of the query to be handled by each worker thread
+  public static final String QUERY_COST_PER_THREAD = "query_cost_per_thread";
+  public static final long DEFAULT_QUERY_COST_PER_THREAD = 1_000_000L;
+  // Fixed per-segment cost (planning, operator setup, combine), in number of documents
+  static final long SEGMENT_COST = 1_000L;
 
   private final int maxThreadsPerQuery;
   private final int tableThreadsSoftLimit;
   private final int tableThreadsHardLimit;
+  private final long inlineQueryMaxCost;
+  private final long queryCostPerThread;
 
   ResourceLimitPolicy(Configuration config, int numWorkerThreads) {
     int softLimit = checkGetOrDefaultPct(config, TABLE_THREADS_SOFT_LIMIT,
@@ -55,8 +72,46 @@ public class ResourceLimitPolicy {
     maxThreadsPerQuery = Math.min(tableThreadsHardLimit,
         Math.min(MAX_THREAD_LIMIT, Math.max(1, numWorkerThreads * tpqPct / 100)));
 
-    LOGGER.info("MaxThreadsPerQuery: {}, tableThreadsSoftLimit: {}, tableThreadsHardLimit: {}",
-        maxThreadsPerQuery, tableThreadsSoftLimit, tableThreadsHardLimit);
+    inlineQueryMaxCost = config.getLong(INLINE_QUERY_MAX_COST, DEFAULT_INLINE_QUERY_MAX_COST);
+    long costPerThread = config.getLong(QUERY_COST_PER_THREAD, DEFAULT_QUERY_COST_PER_THREAD);
+    if (costPerThread <= 0) {
+      LOGGER.error("Incorrect value for {}, value: {}; using default: {}", QUERY_COST_PER_THREAD, costPerThread,
+          DEFAULT_QUERY_COST_PER_THREAD);
+      costPerThread = DEFAULT_QUERY_COST_PER_THREAD;
+    }
+    queryCostPerThread = costPerThread;
+
+    LOGGER.info("MaxThreadsPerQuery: {}, tableThreadsSoftLimit: {}, tableThreadsHardLimit: {}, inlineQueryMaxCost: {}, "
+            + "queryCostPerThread: {}", maxThreadsPerQuery, tableThreadsSoftLimit, tableThreadsHardLimit,
+        inlineQueryMaxCost, queryCostPerThread);
+  }
+
+  /**
+   * Returns the number of worker threads for a query based on its cost, where 0 means running the query inline on the
+   * query runner thread.
+   * <ul>
+   *   <li>Queries solved without scanning (metadata or dictionary based) are always run inline</li>
+   *   <li>
+   *     Otherwise the cost is the number of documents plus a fixed cost per segment. Cheap queries are run inline, and
+   *     other queries get one thread per {@link #QUERY_COST_PER_THREAD}, bounded by the number of segments and the max
+   *     threads per query
+   *   </li>
+   * </ul>
+   * @param numSegments number of segments to process after pruning
+   * @param numDocs total number of documents in the segments to process
+   * @param isScanFree whether the query can be solved without scanning
+   * @return number of worker threads
+   */
+  int getNumThreadsForQuery(int numSegments, long numDocs, boolean isScanFree) {
+    if (isScanFree) {
+      return 0;
+    }
+    long cost = numDocs + numSegments * SEGMENT_COST;
+    if (cost <= inlineQueryMaxCost) {
+      return 0;
+    }
+    long numThreads = (cost + queryCostPerThread - 1) / queryCostPerThread;
+    return (int) Math.max(1, Math.min(numThreads, Math.min(numSegments, maxThreadsPerQuery)));
   }
 
   private int checkGetOrDefaultPct(Configuration schedulerConfig, String key, int defaultValue) {
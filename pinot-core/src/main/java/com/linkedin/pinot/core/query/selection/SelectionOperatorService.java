@@ -22,10 +22,7 @@ import com.linkedin.pinot.common.response.broker.SelectionResults;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.Block;
-import com.linkedin.pinot.core.common.BlockDocIdIterator;
-import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
-import com.linkedin.pinot.core.query.selection.comparator.CompositeDocIdValComparator;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -72,8 +69,6 @@ public class SelectionOperatorService {
   private final int _maxNumRows;
   private final PriorityQueue<Serializable[]> _rows;
 
-  private long _numDocsScanned = 0;
-
   /**
    * Constructor for <code>SelectionOperatorService</code> with {@link IndexSegment}. (Inner segment)
    *
@@ -256,34 +251,29 @@ public class SelectionOperatorService {
   }
 
   /**
-   * Get number of documents scanned. (Inner segment)
+   * Get the de-duplicated sort sequence.
    *
-   * @return number of documents scanned.
+   * @return sort sequence.
    */
-  public long getNumDocsScanned() {
-    return _numDocsScanned;
+  @Nonnull
+  public List<SelectionSort> getSortSequence() {
+    return _sortSequence;
   }
 
   /**
-   * Iterate over {@link Block}s, extract values from them and merge the values to the selection results for selection
-   * queries with <code>ORDER BY</code>. (Inner segment)
+   * Fetch the rows for the given document ids from the {@link Block}s and merge them to the selection results for
+   * selection queries with <code>ORDER BY</code>. (Inner segment)
+   * <p>The document ids should be the top documents collected by {@link SelectionOrderByDocIdHeap}, so that only the
+   * rows that can make into the selection results are materialized.
    *
-   * @param blockDocIdIterator block document id iterator.
+   * @param docIds document ids.
    * @param blocks {@link Block} array.
    */
-  public void iterateOnBlocksWithOrdering(@Nonnull BlockDocIdIterator blockDocIdIterator, @Nonnull Block[] blocks) {
-    Comparator<Integer> rowDocIdComparator = new CompositeDocIdValComparator(_sortSequence, blocks);
-    PriorityQueue<Integer> rowDocIdPriorityQueue = new PriorityQueue<>(_maxNumRows, rowDocIdComparator);
-    int docId;
-    while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
-      _numDocsScanned++;
-      SelectionOperatorUtils.addToPriorityQueue(docId, rowDocIdPriorityQueue, _maxNumRows);
-    }
-
+  public void mergeDocIdsWithOrdering(@Nonnull int[] docIds, @Nonnull Block[] blocks) {
     SelectionFetcher selectionFetcher = new SelectionFetcher(blocks, _dataSchema);
-    Collection<Serializable[]> rows = new ArrayList<>(rowDocIdPriorityQueue.size());
-    for (int rowDocId : rowDocIdPriorityQueue) {
-      rows.add(selectionFetcher.getRow(rowDocId));
+    Collection<Serializable[]> rows = new ArrayList<>(docIds.length);
+    for (int docId : docIds) {
+      rows.add(selectionFetcher.getRow(docId));
     }
     SelectionOperatorUtils.mergeWithOrdering(_rows, rows, _maxNumRows);
   }
@@ -296,11 +286,21 @@ public class SelectionOperatorService {
    */
   public void reduceWithOrdering(@Nonnull Map<ServerInstance, DataTable> selectionResults) {
     for (DataTable dataTable : selectionResults.values()) {
-      int numRows = dataTable.getNumberOfRows();
-      for (int rowId = 0; rowId < numRows; rowId++) {
-        Serializable[] row = SelectionOperatorUtils.extractRowFromDataTable(dataTable, rowId);
-        SelectionOperatorUtils.addToPriorityQueue(row, _rows, _maxNumRows);
-      }
+      reduceWithOrdering(dataTable);
+    }
+  }
+
+  /**
+   * Reduce a single {@link DataTable} to selection rows for selection queries with <code>ORDER BY</code>.
+   * (Broker side)
+   *
+   * @param dataTable {@link DataTable} from one server.
+   */
+  public void reduceWithOrdering(@Nonnull DataTable dataTable) {
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      Serializable[] row = SelectionOperatorUtils.extractRowFromDataTable(dataTable, rowId);
+      SelectionOperatorUtils.addToPriorityQueue(row, _rows, _maxNumRows);
     }
   }
 
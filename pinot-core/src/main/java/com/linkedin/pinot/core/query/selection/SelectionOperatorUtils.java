@@ -403,18 +403,31 @@ public class SelectionOperatorUtils {
       int selectionSize) {
     List<Serializable[]> rows = new ArrayList<>(selectionSize);
     for (DataTable dataTable : selectionResults.values()) {
-      int numRows = dataTable.getNumberOfRows();
-      for (int rowId = 0; rowId < numRows; rowId++) {
-        if (rows.size() < selectionSize) {
-          rows.add(extractRowFromDataTable(dataTable, rowId));
-        } else {
-          return rows;
-        }
+      if (rows.size() < selectionSize) {
+        reduceWithoutOrdering(rows, dataTable, selectionSize);
+      } else {
+        break;
       }
     }
     return rows;
   }
 
+  /**
+   * Reduce a single {@link DataTable} into the selection rows for selection queries without <code>ORDER BY</code>.
+   * (Broker side)
+   *
+   * @param rows selection rows to be added into.
+   * @param dataTable {@link DataTable} from one server.
+   * @param selectionSize size of the selection.
+   */
+  public static void reduceWithoutOrdering(@Nonnull List<Serializable[]> rows, @Nonnull DataTable dataTable,
+      int selectionSize) {
+    int numRows = Math.min(dataTable.getNumberOfRows(), selectionSize - rows.size());
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      rows.add(extractRowFromDataTable(dataTable, rowId));
+    }
+  }
+
   /**
    * Render the selection rows to a formatted {@link SelectionResults} object for selection queries without
    * <code>ORDER BY</code>. (Broker side)
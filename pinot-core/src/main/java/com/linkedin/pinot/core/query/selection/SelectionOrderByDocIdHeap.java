@@ -0,0 +1,409 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.selection;
+
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.core.common.BlockMetadata;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>SelectionOrderByDocIdHeap</code> class keeps the top document ids of a segment for selection queries with
+ * <code>ORDER BY</code>. (Inner segment)
+ * <p>Only the values of the order-by columns are read from the {@link ProjectionBlock}s, and they are kept in primitive
+ * arrays along with the document ids, so that no row is materialized while scanning the documents. The caller should
+ * fetch the selection columns only for the final top document ids.
+ * <ul>
+ *   <li>For columns with sorted dictionary, the dictionary ids are compared directly.</li>
+ *   <li>For columns with unsorted dictionary (e.g. consuming segments) or without dictionary, the values are compared.
+ *   </li>
+ *   <li>Multi-value columns and BYTES columns are not compared, same as the selection results merging.</li>
+ * </ul>
+ * <p>The heap keeps the worst document on top, and a document only replaces it when it is strictly better, so that the
+ * document ids selected are the same as merging the rows into the selection results one by one.
+ */
+public class SelectionOrderByDocIdHeap {
+  private final int _maxNumDocs;
+  private final SortColumn[] _sortColumns;
+  // Slot id to document id
+  private final int[] _docIds;
+  // Heap of slot ids, with the worst document on top
+  private final int[] _heap;
+  private int _numDocs = 0;
+  private long _numDocsScanned = 0;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param sortSequence De-duplicated sort sequence
+   * @param blockMetadata Block metadata for each sort column in the same order as the sort sequence
+   * @param maxNumDocs Maximum number of documents to keep
+   */
+  public SelectionOrderByDocIdHeap(@Nonnull List<SelectionSort> sortSequence, @Nonnull BlockMetadata[] blockMetadata,
+      int maxNumDocs) {
+    _maxNumDocs = maxNumDocs;
+    List<SortColumn> sortColumns = new ArrayList<>();
+    int numSortColumns = sortSequence.size();
+    for (int i = 0; i < numSortColumns; i++) {
+      SelectionSort selectionSort = sortSequence.get(i);
+      SortColumn sortColumn = createSortColumn(selectionSort.getColumn(), selectionSort.isIsAsc(), blockMetadata[i]);
+      if (sortColumn != null) {
+        sortColumns.add(sortColumn);
+      }
+    }
+    _sortColumns = sortColumns.toArray(new SortColumn[0]);
+    _docIds = new int[maxNumDocs];
+    _heap = new int[maxNumDocs];
+  }
+
+  private SortColumn createSortColumn(String column, boolean isAsc, BlockMetadata blockMetadata) {
+    if (!blockMetadata.isSingleValue()) {
+      return null;
+    }
+    if (blockMetadata.hasDictionary() && blockMetadata.getDictionary().isSorted()) {
+      return new DictIdSortColumn(column, isAsc, _maxNumDocs);
+    }
+    switch (blockMetadata.getDataType()) {
+      case INT:
+        return new IntSortColumn(column, isAsc, _maxNumDocs);
+      case LONG:
+        return new LongSortColumn(column, isAsc, _maxNumDocs);
+      case FLOAT:
+        return new FloatSortColumn(column, isAsc, _maxNumDocs);
+      case DOUBLE:
+        return new DoubleSortColumn(column, isAsc, _maxNumDocs);
+      case STRING:
+        return new StringSortColumn(column, isAsc, _maxNumDocs);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Adds the documents in the given {@link ProjectionBlock} into the heap.
+   */
+  public void addDocs(@Nonnull ProjectionBlock projectionBlock) {
+    int numDocs = projectionBlock.getNumDocs();
+    int[] docIds = projectionBlock.getDocIdSetBlock().getDocIdSet();
+    _numDocsScanned += numDocs;
+    if (_maxNumDocs == 0) {
+      return;
+    }
+    for (SortColumn sortColumn : _sortColumns) {
+      sortColumn.readBlockValues(projectionBlock);
+    }
+
+    for (int i = 0; i < numDocs; i++) {
+      if (_numDocs < _maxNumDocs) {
+        int slotId = _numDocs++;
+        setSlot(slotId, docIds[i], i);
+        _heap[slotId] = slotId;
+        siftUp(slotId);
+      } else {
+        int topSlotId = _heap[0];
+        if (compareBlockValueWithSlot(i, topSlotId) < 0) {
+          setSlot(topSlotId, docIds[i], i);
+          siftDown(0);
+        }
+      }
+    }
+  }
+
+  private void setSlot(int slotId, int docId, int index) {
+    _docIds[slotId] = docId;
+    for (SortColumn sortColumn : _sortColumns) {
+      sortColumn.copyBlockValueToSlot(index, slotId);
+    }
+  }
+
+  /**
+   * Returns negative value if the block value should be ordered before the slot, positive value if it should be ordered
+   * after the slot, or 0 if they are equal.
+   */
+  private int compareBlockValueWithSlot(int index, int slotId) {
+    for (SortColumn sortColumn : _sortColumns) {
+      int result = sortColumn.compareBlockValueWithSlot(index, slotId);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private int compareSlots(int slotId1, int slotId2) {
+    for (SortColumn sortColumn : _sortColumns) {
+      int result = sortColumn.compareSlots(slotId1, slotId2);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private void siftUp(int heapIndex) {
+    int slotId = _heap[heapIndex];
+    while (heapIndex > 0) {
+      int parentIndex = (heapIndex - 1) >>> 1;
+      int parentSlotId = _heap[parentIndex];
+      if (compareSlots(slotId, parentSlotId) <= 0) {
+        break;
+      }
+      _heap[heapIndex] = parentSlotId;
+      heapIndex = parentIndex;
+    }
+    _heap[heapIndex] = slotId;
+  }
+
+  private void siftDown(int heapIndex) {
+    int slotId = _heap[heapIndex];
+    int half = _numDocs >>> 1;
+    while (heapIndex < half) {
+      int childIndex = 2 * heapIndex + 1;
+      int childSlotId = _heap[childIndex];
+      int rightIndex = childIndex + 1;
+      if (rightIndex < _numDocs && compareSlots(_heap[rightIndex], childSlotId) > 0) {
+        childIndex = rightIndex;
+        childSlotId = _heap[rightIndex];
+      }
+      if (compareSlots(slotId, childSlotId) >= 0) {
+        break;
+      }
+      _heap[heapIndex] = childSlotId;
+      heapIndex = childIndex;
+    }
+    _heap[heapIndex] = slotId;
+  }
+
+  /**
+   * Returns the number of documents scanned.
+   */
+  public long getNumDocsScanned() {
+    return _numDocsScanned;
+  }
+
+  /**
+   * Returns the number of documents kept in the heap.
+   */
+  public int getNumDocs() {
+    return _numDocs;
+  }
+
+  /**
+   * Returns the document ids kept in the heap, in ascending order for better locality when fetching the values.
+   */
+  @Nonnull
+  public int[] getDocIds() {
+    int[] docIds = Arrays.copyOf(_docIds, _numDocs);
+    Arrays.sort(docIds);
+    return docIds;
+  }
+
+  /**
+   * Sort column which reads the values from the {@link ProjectionBlock} and keeps the values for the slots.
+   * <p>All the comparisons return negative value if the first value should be ordered before the second one.
+   */
+  private static abstract class SortColumn {
+    final String _column;
+    final boolean _isAsc;
+
+    SortColumn(String column, boolean isAsc) {
+      _column = column;
+      _isAsc = isAsc;
+    }
+
+    void readBlockValues(ProjectionBlock projectionBlock) {
+      readBlockValues(projectionBlock.getBlockValueSet(_column));
+    }
+
+    int order(int result) {
+      return _isAsc ? result : -result;
+    }
+
+    abstract void readBlockValues(BlockValSet blockValSet);
+
+    abstract void copyBlockValueToSlot(int index, int slotId);
+
+    abstract int compareBlockValueWithSlot(int index, int slotId);
+
+    abstract int compareSlots(int slotId1, int slotId2);
+  }
+
+  private static class DictIdSortColumn extends IntSortColumn {
+    DictIdSortColumn(String column, boolean isAsc, int maxNumDocs) {
+      super(column, isAsc, maxNumDocs);
+    }
+
+    @Override
+    void readBlockValues(BlockValSet blockValSet) {
+      _blockValues = blockValSet.getDictionaryIdsSV();
+    }
+  }
+
+  private static class IntSortColumn extends SortColumn {
+    final int[] _slotValues;
+    int[] _blockValues;
+
+    IntSortColumn(String column, boolean isAsc, int maxNumDocs) {
+      super(column, isAsc);
+      _slotValues = new int[maxNumDocs];
+    }
+
+    @Override
+    void readBlockValues(BlockValSet blockValSet) {
+      _blockValues = blockValSet.getIntValuesSV();
+    }
+
+    @Override
+    void copyBlockValueToSlot(int index, int slotId) {
+      _slotValues[slotId] = _blockValues[index];
+    }
+
+    @Override
+    int compareBlockValueWithSlot(int index, int slotId) {
+      return order(Integer.compare(_blockValues[index], _slotValues[slotId]));
+    }
+
+    @Override
+    int compareSlots(int slotId1, int slotId2) {
+      return order(Integer.compare(_slotValues[slotId1], _slotValues[slotId2]));
+    }
+  }
+
+  private static class LongSortColumn extends SortColumn {
+    final long[] _slotValues;
+    long[] _blockValues;
+
+    LongSortColumn(String column, boolean isAsc, int maxNumDocs) {
+      super(column, isAsc);
+      _slotValues = new long[maxNumDocs];
+    }
+
+    @Override
+    void readBlockValues(BlockValSet blockValSet) {
+      _blockValues = blockValSet.getLongValuesSV();
+    }
+
+    @Override
+    void copyBlockValueToSlot(int index, int slotId) {
+      _slotValues[slotId] = _blockValues[index];
+    }
+
+    @Override
+    int compareBlockValueWithSlot(int index, int slotId) {
+      return order(Long.compare(_blockValues[index], _slotValues[slotId]));
+    }
+
+    @Override
+    int compareSlots(int slotId1, int slotId2) {
+      return order(Long.compare(_slotValues[slotId1], _slotValues[slotId2]));
+    }
+  }
+
+  private static class FloatSortColumn extends SortColumn {
+    final float[] _slotValues;
+    float[] _blockValues;
+
+    FloatSortColumn(String column, boolean isAsc, int maxNumDocs) {
+      super(column, isAsc);
+      _slotValues = new float[maxNumDocs];
+    }
+
+    @Override
+    void readBlockValues(BlockValSet blockValSet) {
+      _blockValues = blockValSet.getFloatValuesSV();
+    }
+
+    @Override
+    void copyBlockValueToSlot(int index, int slotId) {
+      _slotValues[slotId] = _blockValues[index];
+    }
+
+    @Override
+    int compareBlockValueWithSlot(int index, int slotId) {
+      return order(Float.compare(_blockValues[index], _slotValues[slotId]));
+    }
+
+    @Override
+    int compareSlots(int slotId1, int slotId2) {
+      return order(Float.compare(_slotValues[slotId1], _slotValues[slotId2]));
+    }
+  }
+
+  private static class DoubleSortColumn extends SortColumn {
+    final double[] _slotValues;
+    double[] _blockValues;
+
+    DoubleSortColumn(String column, boolean isAsc, int maxNumDocs) {
+      super(column, isAsc);
+      _slotValues = new double[maxNumDocs];
+    }
+
+    @Override
+    void readBlockValues(BlockValSet blockValSet) {
+      _blockValues = blockValSet.getDoubleValuesSV();
+    }
+
+    @Override
+    void copyBlockValueToSlot(int index, int slotId) {
+      _slotValues[slotId] = _blockValues[index];
+    }
+
+    @Override
+    int compareBlockValueWithSlot(int index, int slotId) {
+      return order(Double.compare(_blockValues[index], _slotValues[slotId]));
+    }
+
+    @Override
+    int compareSlots(int slotId1, int slotId2) {
+      return order(Double.compare(_slotValues[slotId1], _slotValues[slotId2]));
+    }
+  }
+
+  private static class StringSortColumn extends SortColumn {
+    final String[] _slotValues;
+    String[] _blockValues;
+
+    StringSortColumn(String column, boolean isAsc, int maxNumDocs) {
+      super(column, isAsc);
+      _slotValues = new String[maxNumDocs];
+    }
+
+    @Override
+    void readBlockValues(BlockValSet blockValSet) {
+      _blockValues = blockValSet.getStringValuesSV();
+    }
+
+    @Override
+    void copyBlockValueToSlot(int index, int slotId) {
+      _slotValues[slotId] = _blockValues[index];
+    }
+
+    @Override
+    int compareBlockValueWithSlot(int index, int slotId) {
+      return order(_blockValues[index].compareTo(_slotValues[slotId]));
+    }
+
+    @Override
+    int compareSlots(int slotId1, int slotId2) {
+      return order(_slotValues[slotId1].compareTo(_slotValues[slotId2]));
+    }
+  }
+}
@@ -405,8 +405,9 @@ public abstract class BaseOffHeapMutableDictionary extends MutableDictionary {
    *
    * @param value value to be inserted into the dictionary
    * @param serializedValue serialized representation of the value, may be null.
+   * @return dictionary ID of the value.
    */
-  protected void indexValue(@Nonnull Object value, byte[] serializedValue) {
+  protected int indexValue(@Nonnull Object value, byte[] serializedValue) {
     final int hashVal = value.hashCode() & Integer.MAX_VALUE;
     ValueToDictId valueToDictId = _valueToDict;
     final List<IntBuffer> iBufList = valueToDictId.getIBufList();
@@ -417,12 +418,13 @@ public abstract class BaseOffHeapMutableDictionary extends MutableDictionary {
       for (int i = offsetInBuf; i < offsetInBuf + NUM_COLUMNS; i++) {
         final int dictId = iBuf.get(i);
         if (dictId == NULL_VALUE_INDEX) {
-          setRawValueAt(_numEntries, value, serializedValue);
+          int newDictId = _numEntries;
+          setRawValueAt(newDictId, value, serializedValue);
           iBuf.put(i, _numEntries++);
-          return;
+          return newDictId;
         }
         if (equalsValueAt(dictId, value, serializedValue)) {
-          return;
+          return dictId;
         }
       }
     }
@@ -431,16 +433,17 @@ public abstract class BaseOffHeapMutableDictionary extends MutableDictionary {
     if (_maxItemsInOverflowHash > 0) {
       Integer dictId = overflowMap.get(value);
       if (dictId != null) {
-        return;
+        return dictId;
       }
     }
 
-    setRawValueAt(_numEntries, value, serializedValue);
+    int newDictId = _numEntries;
+    setRawValueAt(newDictId, value, serializedValue);
 
     if (_maxItemsInOverflowHash > 0) {
       if (overflowMap.size() < _maxItemsInOverflowHash) {
         overflowMap.put(value, _numEntries++);
-        return;
+        return newDictId;
       }
     }
     // Need a new buffer
@@ -465,6 +468,7 @@ public abstract class BaseOffHeapMutableDictionary extends MutableDictionary {
       overflowMap = valueToDictId.getOverflowMap();
       overflowMap.put(value, _numEntries++);
     }
+    return newDictId;
   }
 
   public long getTotalOffHeapMemUsed() {
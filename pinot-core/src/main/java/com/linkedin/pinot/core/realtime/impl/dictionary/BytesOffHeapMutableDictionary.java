@@ -84,6 +84,15 @@ public class BytesOffHeapMutableDictionary extends BaseOffHeapMutableDictionary
     }
   }
 
+  @Override
+  public void index(@Nonnull Object[] rawValues, int length, @Nonnull int[] dictIds) {
+    for (int i = 0; i < length; i++) {
+      ByteArray bytes = (ByteArray) rawValues[i];
+      dictIds[i] = indexValue(bytes, bytes.getBytes());
+      updateMinMax(bytes);
+    }
+  }
+
   @Override
   public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
       boolean includeUpper) {
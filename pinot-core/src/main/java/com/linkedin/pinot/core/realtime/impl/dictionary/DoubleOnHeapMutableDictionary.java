@@ -48,6 +48,15 @@ public class DoubleOnHeapMutableDictionary extends BaseOnHeapMutableDictionary {
     }
   }
 
+  @Override
+  public void index(@Nonnull Object[] rawValues, int length, @Nonnull int[] dictIds) {
+    for (int i = 0; i < length; i++) {
+      Object rawValue = rawValues[i];
+      dictIds[i] = indexValue(rawValue);
+      updateMinMax((Double) rawValue);
+    }
+  }
+
   @SuppressWarnings("Duplicates")
   @Override
   public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
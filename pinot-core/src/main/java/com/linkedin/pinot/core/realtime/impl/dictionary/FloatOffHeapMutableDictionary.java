@@ -65,6 +65,15 @@ public class FloatOffHeapMutableDictionary extends BaseOffHeapMutableDictionary
     }
   }
 
+  @Override
+  public void index(@Nonnull Object[] rawValues, int length, @Nonnull int[] dictIds) {
+    for (int i = 0; i < length; i++) {
+      Object rawValue = rawValues[i];
+      dictIds[i] = indexValue(rawValue, null);
+      updateMinMax((Float) rawValue);
+    }
+  }
+
   @SuppressWarnings("Duplicates")
   @Override
   public boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare, boolean includeLower,
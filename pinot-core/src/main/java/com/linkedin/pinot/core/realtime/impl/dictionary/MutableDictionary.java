@@ -31,6 +31,23 @@ public abstract class MutableDictionary extends BaseDictionary {
 
   public abstract void index(@Nonnull Object rawValue);
 
+  /**
+   * Indexes a batch of single values, and fills the dictionary ids of the values into the given array.
+   * <p>The default implementation looks up each value again after indexing it, sub-classes should override it to take
+   * the dictionary id from the insert itself.
+   *
+   * @param rawValues Single values to index
+   * @param length Number of values to index
+   * @param dictIds Array to fill the dictionary ids
+   */
+  public void index(@Nonnull Object[] rawValues, int length, @Nonnull int[] dictIds) {
+    for (int i = 0; i < length; i++) {
+      Object rawValue = rawValues[i];
+      index(rawValue);
+      dictIds[i] = indexOf(rawValue);
+    }
+  }
+
   public abstract boolean inRange(@Nonnull String lower, @Nonnull String upper, int dictIdToCompare,
       boolean includeLower, boolean includeUpper);
 
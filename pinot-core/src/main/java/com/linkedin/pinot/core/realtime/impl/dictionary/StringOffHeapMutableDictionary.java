@@ -67,6 +67,15 @@ public class StringOffHeapMutableDictionary extends BaseOffHeapMutableDictionary
     }
   }
 
+  @Override
+  public void index(@Nonnull Object[] rawValues, int length, @Nonnull int[] dictIds) {
+    for (int i = 0; i < length; i++) {
+      Object rawValue = rawValues[i];
+      dictIds[i] = indexValue(rawValue, StringUtil.encodeUtf8((String) rawValue));
+      updateMinMax((String) rawValue);
+    }
+  }
+
   private String getInternal(int dictId) {
     return StringUtil.decodeUtf8(_byteStore.get(dictId));
   }
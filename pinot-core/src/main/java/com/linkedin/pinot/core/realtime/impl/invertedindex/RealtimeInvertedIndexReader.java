@@ -16,52 +16,93 @@
 package com.linkedin.pinot.core.realtime.impl.invertedindex;
 
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Arrays;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
+/**
+ * Inverted index for consuming segments.
+ * <p>The index is single-writer multi-reader and lock-free:
+ * <ul>
+ *   <li>
+ *     The posting lists are stored in a chunked, append-only array. A new posting list is fully initialized before
+ *     the volatile number of posting lists is bumped, and existing chunks are never moved.
+ *   </li>
+ *   <li>
+ *     Each posting list stores the document ids as an immutable snapshot bitmap plus a small buffer of the document
+ *     ids added after the snapshot. The document id is written into the buffer before the volatile size is bumped,
+ *     and when the buffer is full, a new snapshot bitmap is built from the old snapshot and the buffer, and published
+ *     together with a new buffer. Readers always see a consistent prefix of the posting list (bounded by the number
+ *     of documents indexed when the document ids were added).
+ *   </li>
+ * </ul>
+ * <p>Readers never block the writer, and the writer never blocks the readers. {@link #getDocIds(int)} returns the
+ * snapshot bitmap itself when there is no buffered document id. Otherwise it copies the snapshot bitmap and adds the
+ * buffered document ids, and caches the result until the next document id is added, so that queries between two
+ * additions share the copy. The buffer grows with the snapshot, so the cost of building the snapshots is amortized,
+ * and the buffer is at most 1/16 of the posting list.
+ * <p>NOTE: the returned bitmaps are shared, callers must not modify them.
+ * <p>NOTE: document ids must be added in non-decreasing order, which is always the case for consuming segments.
+ */
 public class RealtimeInvertedIndexReader implements InvertedIndexReader<MutableRoaringBitmap> {
-  private final List<ThreadSafeMutableRoaringBitmap> _bitmaps = new ArrayList<>();
-  private final ReentrantReadWriteLock.ReadLock _readLock;
-  private final ReentrantReadWriteLock.WriteLock _writeLock;
-
-  public RealtimeInvertedIndexReader() {
-    ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    _readLock = readWriteLock.readLock();
-    _writeLock = readWriteLock.writeLock();
-  }
+  private static final int NUM_POSTING_LISTS_PER_CHUNK_SHIFT = 10;
+  private static final int NUM_POSTING_LISTS_PER_CHUNK = 1 << NUM_POSTING_LISTS_PER_CHUNK_SHIFT;
+  private static final int POSTING_LIST_CHUNK_MASK = NUM_POSTING_LISTS_PER_CHUNK - 1;
+
+  // Only grows (by copying the chunk references), existing chunks are never replaced
+  private volatile PostingList[][] _postingListChunks = new PostingList[1][];
+  private volatile int _numPostingLists;
 
   /**
-   * Add the document id to the bitmap for the given dictionary id.
+   * Add the document id to the posting list for the given dictionary id.
+   * <p>Should only be called by the single writer thread.
    */
   public void add(int dictId, int docId) {
-    if (_bitmaps.size() == dictId) {
-      // Bitmap for the dictionary id does not exist, add a new bitmap into the list
-      ThreadSafeMutableRoaringBitmap bitmap = new ThreadSafeMutableRoaringBitmap(docId);
-      try {
-        _writeLock.lock();
-        _bitmaps.add(bitmap);
-      } finally {
-        _writeLock.unlock();
-      }
+    int numPostingLists = _numPostingLists;
+    if (dictId < numPostingLists) {
+      // Posting list for the dictionary id already exists, add the document id into the posting list
+      getPostingList(dictId).add(docId);
     } else {
-      // Bitmap for the dictionary id already exists, check and add document id into the bitmap
-      _bitmaps.get(dictId).checkAndAdd(docId);
+      // Posting list for the dictionary id does not exist, add a new posting list (dictionary ids are added in order,
+      // but fill the gap if any so that the dictionary id is always the index of the posting list)
+      for (int i = numPostingLists; i < dictId; i++) {
+        addPostingList(i, new PostingList());
+      }
+      PostingList postingList = new PostingList();
+      postingList.add(docId);
+      addPostingList(dictId, postingList);
+      // Publish the new posting lists
+      _numPostingLists = dictId + 1;
     }
   }
 
+  private void addPostingList(int index, PostingList postingList) {
+    int chunkId = index >>> NUM_POSTING_LISTS_PER_CHUNK_SHIFT;
+    PostingList[][] postingListChunks = _postingListChunks;
+    if (chunkId == postingListChunks.length) {
+      postingListChunks = Arrays.copyOf(postingListChunks, postingListChunks.length * 2);
+      _postingListChunks = postingListChunks;
+    }
+    PostingList[] chunk = postingListChunks[chunkId];
+    if (chunk == null) {
+      chunk = new PostingList[NUM_POSTING_LISTS_PER_CHUNK];
+      postingListChunks[chunkId] = chunk;
+    }
+    chunk[index & POSTING_LIST_CHUNK_MASK] = postingList;
+  }
+
+  private PostingList getPostingList(int dictId) {
+    return _postingListChunks[dictId >>> NUM_POSTING_LISTS_PER_CHUNK_SHIFT][dictId & POSTING_LIST_CHUNK_MASK];
+  }
+
   @Override
   public MutableRoaringBitmap getDocIds(int dictId) {
-    ThreadSafeMutableRoaringBitmap bitmap;
-    try {
-      _readLock.lock();
-      bitmap = _bitmaps.get(dictId);
-    } finally {
-      _readLock.unlock();
+    // The dictionary id might not be published yet if the value is added to the dictionary but the document is still
+    // being indexed
+    if (dictId < _numPostingLists) {
+      return getPostingList(dictId).getDocIds();
     }
-    return bitmap.getMutableRoaringBitmap();
+    return new MutableRoaringBitmap();
   }
 
   @Override
@@ -69,26 +110,103 @@ public class RealtimeInvertedIndexReader implements InvertedIndexReader<MutableR
   }
 
   /**
-   * Helper wrapper class for {@link MutableRoaringBitmap} to make it thread-safe.
+   * Append-only list of increasing document ids.
+   * <p>The document ids are stored in an immutable snapshot bitmap followed by a buffer of the document ids added after
+   * the snapshot. The buffer size is 1/16 of the number of document ids in the snapshot (at least
+   * <code>MIN_BUFFER_SIZE</code>), so the snapshot is rebuilt a logarithmic number of times.
    */
-  private static class ThreadSafeMutableRoaringBitmap {
-    private MutableRoaringBitmap _mutableRoaringBitmap;
+  private static class PostingList {
+    private static final int MIN_BUFFER_SIZE = 4;
+    private static final int BUFFER_SIZE_SHIFT = 4;
+    // Shared by all the empty posting lists, never modified
+    private static final MutableRoaringBitmap EMPTY_DOC_IDS = new MutableRoaringBitmap();
 
-    public ThreadSafeMutableRoaringBitmap(int firstDocId) {
-      _mutableRoaringBitmap = new MutableRoaringBitmap();
-      _mutableRoaringBitmap.add(firstDocId);
-    }
+    private volatile Snapshot _snapshot = new Snapshot(EMPTY_DOC_IDS, 0, new int[MIN_BUFFER_SIZE]);
+    private volatile int _size;
+    // Snapshot merged with the buffered document ids, built by the readers
+    private volatile MergedDocIds _mergedDocIds;
+    // Only accessed by the writer thread
+    private int _lastDocId = -1;
 
-    public void checkAndAdd(int docId) {
-      if (!_mutableRoaringBitmap.contains(docId)) {
-        synchronized (this) {
-          _mutableRoaringBitmap.add(docId);
+    void add(int docId) {
+      // Skip duplicate document ids (multi-value column with the same value multiple times in a document)
+      if (docId == _lastDocId) {
+        return;
+      }
+      int size = _size;
+      Snapshot snapshot = _snapshot;
+      int bufferIndex = size - snapshot._numSnapshotDocIds;
+      if (bufferIndex == snapshot._buffer.length) {
+        // Buffer is full, publish a new snapshot with all the document ids and an empty buffer
+        MutableRoaringBitmap snapshotDocIds = snapshot._snapshotDocIds.clone();
+        for (int bufferedDocId : snapshot._buffer) {
+          snapshotDocIds.add(bufferedDocId);
         }
+        snapshotDocIds.runOptimize();
+        snapshot = new Snapshot(snapshotDocIds, size, new int[Math.max(MIN_BUFFER_SIZE, size >>> BUFFER_SIZE_SHIFT)]);
+        _snapshot = snapshot;
+        // The merged document ids are covered by the new snapshot
+        _mergedDocIds = null;
+        bufferIndex = 0;
       }
+      snapshot._buffer[bufferIndex] = docId;
+      _lastDocId = docId;
+      // Publish the document id
+      _size = size + 1;
     }
 
-    public synchronized MutableRoaringBitmap getMutableRoaringBitmap() {
-      return _mutableRoaringBitmap.clone();
+    /**
+     * Returns a bitmap of the snapshot of the document ids, which should not be modified.
+     */
+    MutableRoaringBitmap getDocIds() {
+      // Read the size before the snapshot. If the snapshot is replaced after reading the size, the new snapshot already
+      // contains all the document ids within the size.
+      int size = _size;
+      Snapshot snapshot = _snapshot;
+      int numBufferedDocIds = size - snapshot._numSnapshotDocIds;
+      if (numBufferedDocIds <= 0) {
+        return snapshot._snapshotDocIds;
+      }
+      MergedDocIds mergedDocIds = _mergedDocIds;
+      if (mergedDocIds != null && mergedDocIds._size == size) {
+        return mergedDocIds._docIds;
+      }
+      MutableRoaringBitmap docIds = snapshot._snapshotDocIds.clone();
+      int[] buffer = snapshot._buffer;
+      for (int i = 0; i < numBufferedDocIds; i++) {
+        docIds.add(buffer[i]);
+      }
+      _mergedDocIds = new MergedDocIds(docIds, size);
+      return docIds;
+    }
+  }
+
+  /**
+   * Document ids of a posting list at a given size, never modified after being published.
+   */
+  private static class MergedDocIds {
+    final MutableRoaringBitmap _docIds;
+    final int _size;
+
+    MergedDocIds(MutableRoaringBitmap docIds, int size) {
+      _docIds = docIds;
+      _size = size;
+    }
+  }
+
+  /**
+   * Immutable snapshot of a posting list, where only the buffer is appended (by the writer thread).
+   */
+  private static class Snapshot {
+    // Never modified after the snapshot is published
+    final MutableRoaringBitmap _snapshotDocIds;
+    final int _numSnapshotDocIds;
+    final int[] _buffer;
+
+    Snapshot(MutableRoaringBitmap snapshotDocIds, int numSnapshotDocIds, int[] buffer) {
+      _snapshotDocIds = snapshotDocIds;
+      _numSnapshotDocIds = numSnapshotDocIds;
+      _buffer = buffer;
     }
   }
 }
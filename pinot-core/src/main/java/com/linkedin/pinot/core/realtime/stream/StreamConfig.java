@@ -46,6 +46,7 @@ public class StreamConfig {
   private static final int DEFAULT_FLUSH_THRESHOLD_ROWS = 5_000_000;
   private static final long DEFAULT_FLUSH_THRESHOLD_TIME = TimeUnit.MILLISECONDS.convert(6, TimeUnit.HOURS);
   private static final long DEFAULT_DESIRED_SEGMENT_SIZE_BYTES = 200 * 1024 * 1024; // 200M
+  private static final int DEFAULT_CONSUMPTION_PIPELINE_QUEUE_SIZE = 0;
   private static final String DEFAULT_CONSUMER_FACTORY_CLASS_NAME_STRING = SimpleConsumerFactory.class.getName();
 
   protected static final long DEFAULT_STREAM_CONNECTION_TIMEOUT_MILLIS = 30_000;
@@ -68,6 +69,8 @@ public class StreamConfig {
   final private long _flushThresholdTimeMillis;
   final private long _flushSegmentDesiredSizeBytes;
 
+  final private int _consumptionPipelineQueueSize;
+
   final private Map<String, String> _streamConfigMap = new HashMap<>();
 
   /**
@@ -199,6 +202,20 @@ public class StreamConfig {
       _flushSegmentDesiredSizeBytes = DEFAULT_DESIRED_SEGMENT_SIZE_BYTES;
     }
 
+    int consumptionPipelineQueueSize = DEFAULT_CONSUMPTION_PIPELINE_QUEUE_SIZE;
+    String consumptionPipelineQueueSizeValue =
+        streamConfigMap.get(StreamConfigProperties.CONSUMPTION_PIPELINE_QUEUE_SIZE);
+    if (consumptionPipelineQueueSizeValue != null) {
+      try {
+        consumptionPipelineQueueSize = Integer.parseInt(consumptionPipelineQueueSizeValue);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception when parsing consumption pipeline queue size {}:{}, defaulting to {}",
+            StreamConfigProperties.CONSUMPTION_PIPELINE_QUEUE_SIZE, consumptionPipelineQueueSizeValue,
+            DEFAULT_CONSUMPTION_PIPELINE_QUEUE_SIZE, e);
+      }
+    }
+    _consumptionPipelineQueueSize = consumptionPipelineQueueSize;
+
     _streamConfigMap.putAll(streamConfigMap);
   }
 
@@ -274,6 +291,10 @@ public class StreamConfig {
     return _decoderProperties;
   }
 
+  public int getConsumptionPipelineQueueSize() {
+    return _consumptionPipelineQueueSize;
+  }
+
   public Map<String, String> getStreamConfigsMap() {
     return _streamConfigMap;
   }
@@ -285,7 +306,8 @@ public class StreamConfig {
         + _offsetCriteria + '\'' + ", _connectionTimeoutMillis=" + _connectionTimeoutMillis + ", _fetchTimeoutMillis="
         + _fetchTimeoutMillis + ", _flushThresholdRows=" + _flushThresholdRows + ", _flushThresholdTimeMillis="
         + _flushThresholdTimeMillis + ", _flushSegmentDesiredSizeBytes=" + _flushSegmentDesiredSizeBytes
-        + ", _decoderClass='" + _decoderClass + '\'' + ", _decoderProperties=" + _decoderProperties + '}';
+        + ", _consumptionPipelineQueueSize=" + _consumptionPipelineQueueSize + ", _decoderClass='" + _decoderClass
+        + '\'' + ", _decoderProperties=" + _decoderProperties + '}';
   }
 
   @Override
@@ -304,6 +326,7 @@ public class StreamConfig {
         _fetchTimeoutMillis, that._fetchTimeoutMillis) && EqualityUtils.isEqual(_flushThresholdRows,
         that._flushThresholdRows) && EqualityUtils.isEqual(_flushThresholdTimeMillis, that._flushThresholdTimeMillis)
         && EqualityUtils.isEqual(_flushSegmentDesiredSizeBytes, that._flushSegmentDesiredSizeBytes)
+        && EqualityUtils.isEqual(_consumptionPipelineQueueSize, that._consumptionPipelineQueueSize)
         && EqualityUtils.isEqual(_type, that._type) && EqualityUtils.isEqual(_topicName, that._topicName)
         && EqualityUtils.isEqual(_consumerTypes, that._consumerTypes) && EqualityUtils.isEqual(
         _consumerFactoryClassName, that._consumerFactoryClassName) && EqualityUtils.isEqual(_offsetCriteria,
@@ -323,6 +346,7 @@ public class StreamConfig {
     result = EqualityUtils.hashCodeOf(result, _flushThresholdRows);
     result = EqualityUtils.hashCodeOf(result, _flushThresholdTimeMillis);
     result = EqualityUtils.hashCodeOf(result, _flushSegmentDesiredSizeBytes);
+    result = EqualityUtils.hashCodeOf(result, _consumptionPipelineQueueSize);
     result = EqualityUtils.hashCodeOf(result, _decoderClass);
     result = EqualityUtils.hashCodeOf(result, _decoderProperties);
     result = EqualityUtils.hashCodeOf(result, _streamConfigMap);
@@ -85,6 +85,13 @@ public class StreamConfigProperties {
   // Time threshold that controller will wait for the segment to be built by the server
   public static final String SEGMENT_COMMIT_TIMEOUT_SECONDS = "realtime.segment.commit.timeoutSeconds";
 
+  /**
+   * Capacity (number of message batches) of the queues between the fetch, decode and index stages of the pipelined
+   * consumption for low level consumers. When this value is positive, messages are fetched from the stream and decoded
+   * on separate threads ahead of indexing; when it is 0 (default), all stages run on the consumer thread.
+   */
+  public static final String CONSUMPTION_PIPELINE_QUEUE_SIZE = "realtime.segment.consumption.pipeline.queue.size";
+
 
   /**
    * Helper method to create a stream specific property
@@ -20,7 +20,12 @@ import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
 import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
 import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.core.segment.creator.impl.stats.SegmentPreIndexStatsCollectorImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,9 +39,19 @@ public class RecordReaderSegmentCreationDataSource implements SegmentCreationDat
   private static final Logger LOGGER = LoggerFactory.getLogger(RecordReaderSegmentCreationDataSource.class);
 
   private final RecordReader _recordReader;
+  private final int _numThreads;
 
   public RecordReaderSegmentCreationDataSource(RecordReader recordReader) {
+    this(recordReader, 1);
+  }
+
+  /**
+   * Constructor for the data source which gathers the stats with multiple threads. When the number of threads is larger
+   * than 1, the rows are read in batches, and the stats for each column are collected in parallel.
+   */
+  public RecordReaderSegmentCreationDataSource(RecordReader recordReader, int numThreads) {
     _recordReader = recordReader;
+    _numThreads = numThreads;
   }
 
   @Override
@@ -45,15 +60,19 @@ public class RecordReaderSegmentCreationDataSource implements SegmentCreationDat
       PlainFieldExtractor fieldExtractor =
           FieldExtractorFactory.getPlainFieldExtractor(statsCollectorConfig.getSchema());
 
-      SegmentPreIndexStatsCollector collector = new SegmentPreIndexStatsCollectorImpl(statsCollectorConfig);
+      SegmentPreIndexStatsCollectorImpl collector = new SegmentPreIndexStatsCollectorImpl(statsCollectorConfig);
       collector.init();
 
       // Gather the stats
       GenericRow readRow = new GenericRow();
-      GenericRow transformedRow = new GenericRow();
-      while (_recordReader.hasNext()) {
-        transformedRow = fieldExtractor.transform(_recordReader.next(readRow), transformedRow);
-        collector.collectRow(transformedRow);
+      if (_numThreads > 1) {
+        gatherStatsInBatches(fieldExtractor, collector, readRow);
+      } else {
+        GenericRow transformedRow = new GenericRow();
+        while (_recordReader.hasNext()) {
+          transformedRow = fieldExtractor.transform(_recordReader.next(readRow), transformedRow);
+          collector.collectRow(transformedRow);
+        }
       }
 
       collector.build();
@@ -65,6 +84,31 @@ public class RecordReaderSegmentCreationDataSource implements SegmentCreationDat
     }
   }
 
+  private void gatherStatsInBatches(PlainFieldExtractor fieldExtractor, SegmentPreIndexStatsCollectorImpl collector,
+      GenericRow readRow) throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(_numThreads);
+    try {
+      int batchSize = SegmentIndexCreationDriverImpl.NUM_ROWS_PER_BATCH;
+      List<GenericRow> rows = new ArrayList<>(batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        rows.add(new GenericRow());
+      }
+      int numRows = 0;
+      while (_recordReader.hasNext()) {
+        fieldExtractor.transform(_recordReader.next(readRow), rows.get(numRows));
+        if (++numRows == batchSize) {
+          collector.collectRows(rows, executorService);
+          numRows = 0;
+        }
+      }
+      if (numRows > 0) {
+        collector.collectRows(rows.subList(0, numRows), executorService);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   @Override
   public RecordReader getRecordReader() {
     try {
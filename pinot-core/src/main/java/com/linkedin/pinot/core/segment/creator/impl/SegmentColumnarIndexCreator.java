@@ -35,22 +35,29 @@ import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.SingleValueForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.SingleValueRawIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.MultiValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueFixedByteRawIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueVarByteRawIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OnHeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.startree.hll.HllConfig;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang.math.IntRange;
@@ -76,6 +83,8 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private Map<String, SegmentDictionaryCreator> _dictionaryCreatorMap = new HashMap<>();
   private Map<String, ForwardIndexCreator> _forwardIndexCreatorMap = new HashMap<>();
   private Map<String, InvertedIndexCreator> _invertedIndexCreatorMap = new HashMap<>();
+  private Map<String, BitmapRangeIndexCreator> _rangeIndexCreatorMap = new HashMap<>();
+  private Map<String, BloomFilterCreator> _bloomFilterCreatorMap = new HashMap<>();
   private String segmentName;
   private Schema schema;
   private File _indexDir;
@@ -117,8 +126,20 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           "Cannot create inverted index for column: %s because it is not in schema", columnName);
       invertedIndexColumns.add(columnName);
     }
+    Set<String> rangeIndexColumns = new HashSet<>();
+    for (String columnName : config.getRangeIndexCreationColumns()) {
+      Preconditions.checkState(schema.hasColumn(columnName),
+          "Cannot create range index for column: %s because it is not in schema", columnName);
+      rangeIndexColumns.add(columnName);
+    }
+    Set<String> bloomFilterColumns = new HashSet<>();
+    for (String columnName : config.getBloomFilterCreationColumns()) {
+      Preconditions.checkState(schema.hasColumn(columnName),
+          "Cannot create bloom filter for column: %s because it is not in schema", columnName);
+      bloomFilterColumns.add(columnName);
+    }
 
-    // Initialize creators for dictionary, forward index and inverted index
+    // Initialize creators for dictionary, forward index, inverted index, range index and bloom filter
     for (FieldSpec fieldSpec : fieldSpecs) {
       String columnName = fieldSpec.getName();
 
@@ -174,6 +195,17 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
                     indexCreationInfo.getTotalNumberOfEntries()));
           }
         }
+
+        // Initialize range index creator
+        // NOTE: sorted column does not need range index because the matching documents are already contiguous
+        if (rangeIndexColumns.contains(columnName)) {
+          Preconditions.checkState(fieldSpec.isSingleValueField(),
+              "Cannot create range index for multi-value column: %s", columnName);
+          if (!indexCreationInfo.isSorted()) {
+            _rangeIndexCreatorMap.put(columnName,
+                new BitmapRangeIndexCreator(_indexDir, columnName, cardinality, totalDocs));
+          }
+        }
       } else {
         // Create raw index
 
@@ -182,6 +214,8 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
             columnName);
         Preconditions.checkState(!invertedIndexColumns.contains(columnName),
             "Cannot create inverted index for raw index column: %s", columnName);
+        Preconditions.checkState(!rangeIndexColumns.contains(columnName),
+            "Cannot create range index for raw index column: %s", columnName);
 
         ChunkCompressorFactory.CompressionType compressionType =
             getColumnCompressionType(segmentCreationSpec, fieldSpec);
@@ -191,9 +225,57 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
             getRawIndexCreatorForColumn(_indexDir, compressionType, columnName, fieldSpec.getDataType(), totalDocs,
                 indexCreationInfo.getLengthOfLongestEntry()));
       }
+
+      // Initialize bloom filter creator
+      if (bloomFilterColumns.contains(columnName)) {
+        _bloomFilterCreatorMap.put(columnName, createBloomFilter(fieldSpec, indexCreationInfo));
+      }
     }
   }
 
+  /**
+   * Helper method to create the bloom filter for a column with the sorted unique values from the column statistics.
+   * <p>Values are added with the same string representation as the one returned by the dictionary, so that the values
+   * from the query can be looked up after being converted to the column data type.
+   */
+  private BloomFilterCreator createBloomFilter(FieldSpec fieldSpec, ColumnIndexCreationInfo indexCreationInfo) {
+    String columnName = fieldSpec.getName();
+    BloomFilterCreator bloomFilterCreator =
+        new BloomFilterCreator(_indexDir, columnName, indexCreationInfo.getDistinctValueCount());
+    Object sortedUniqueElements = indexCreationInfo.getSortedUniqueElementsArray();
+    switch (fieldSpec.getDataType()) {
+      case INT:
+        for (int value : (int[]) sortedUniqueElements) {
+          bloomFilterCreator.add(Integer.toString(value));
+        }
+        break;
+      case LONG:
+        for (long value : (long[]) sortedUniqueElements) {
+          bloomFilterCreator.add(Long.toString(value));
+        }
+        break;
+      case FLOAT:
+        for (float value : (float[]) sortedUniqueElements) {
+          bloomFilterCreator.add(Float.toString(value));
+        }
+        break;
+      case DOUBLE:
+        for (double value : (double[]) sortedUniqueElements) {
+          bloomFilterCreator.add(Double.toString(value));
+        }
+        break;
+      case STRING:
+        for (String value : (String[]) sortedUniqueElements) {
+          bloomFilterCreator.add(value);
+        }
+        break;
+      default:
+        throw new IllegalStateException(
+            "Cannot create bloom filter for column: " + columnName + " of data type: " + fieldSpec.getDataType());
+    }
+    return bloomFilterCreator;
+  }
+
   /**
    * Helper method that returns compression type to use based on segment creation spec and field type.
    * <ul>
@@ -257,32 +339,64 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   @Override
   public void indexRow(GenericRow row) {
     for (String columnName : _forwardIndexCreatorMap.keySet()) {
-      Object columnValueToIndex = row.getValue(columnName);
-      if (columnValueToIndex == null) {
-        throw new RuntimeException("Null value for column:" + columnName);
-      }
+      indexColumn(columnName, docIdCounter, row.getValue(columnName));
+    }
+    docIdCounter++;
+  }
 
-      SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
-      if (schema.getFieldSpecFor(columnName).isSingleValueField()) {
-        if (dictionaryCreator != null) {
-          int dictId = dictionaryCreator.indexOfSV(columnValueToIndex);
-          ((SingleValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docIdCounter, dictId);
-          if (_invertedIndexCreatorMap.containsKey(columnName)) {
-            _invertedIndexCreatorMap.get(columnName).add(dictId);
-          }
-        } else {
-          ((SingleValueRawIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docIdCounter,
-              columnValueToIndex);
+  /**
+   * Indexes a batch of rows, where each column is processed by a separate task submitted to the given executor service.
+   * The dictionary, forward index and inverted index creators of different columns do not share any state, so they can
+   * be updated concurrently.
+   * <p>The rows are indexed in order starting from the next document id, same as calling {@link #indexRow(GenericRow)}
+   * for each row.
+   */
+  public void indexRows(List<GenericRow> rows, ExecutorService executorService)
+      throws InterruptedException, ExecutionException {
+    int startDocId = docIdCounter;
+    List<Callable<Void>> tasks = new ArrayList<>(_forwardIndexCreatorMap.size());
+    for (String columnName : _forwardIndexCreatorMap.keySet()) {
+      tasks.add(() -> {
+        int docId = startDocId;
+        for (GenericRow row : rows) {
+          indexColumn(columnName, docId++, row.getValue(columnName));
         }
-      } else {
-        int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
-        ((MultiValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docIdCounter, dictIds);
+        return null;
+      });
+    }
+    // Wait for all the tasks to finish, then propagate the first exception if any
+    for (Future<Void> future : executorService.invokeAll(tasks)) {
+      future.get();
+    }
+    docIdCounter += rows.size();
+  }
+
+  private void indexColumn(String columnName, int docId, Object columnValueToIndex) {
+    if (columnValueToIndex == null) {
+      throw new RuntimeException("Null value for column:" + columnName);
+    }
+
+    SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+    if (schema.getFieldSpecFor(columnName).isSingleValueField()) {
+      if (dictionaryCreator != null) {
+        int dictId = dictionaryCreator.indexOfSV(columnValueToIndex);
+        ((SingleValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docId, dictId);
         if (_invertedIndexCreatorMap.containsKey(columnName)) {
-          _invertedIndexCreatorMap.get(columnName).add(dictIds, dictIds.length);
+          _invertedIndexCreatorMap.get(columnName).add(dictId);
         }
+        if (_rangeIndexCreatorMap.containsKey(columnName)) {
+          _rangeIndexCreatorMap.get(columnName).add(dictId);
+        }
+      } else {
+        ((SingleValueRawIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docId, columnValueToIndex);
+      }
+    } else {
+      int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
+      ((MultiValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docId, dictIds);
+      if (_invertedIndexCreatorMap.containsKey(columnName)) {
+        _invertedIndexCreatorMap.get(columnName).add(dictIds, dictIds.length);
       }
     }
-    docIdCounter++;
   }
 
   @Override
@@ -295,6 +409,12 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     for (InvertedIndexCreator invertedIndexCreator : _invertedIndexCreatorMap.values()) {
       invertedIndexCreator.seal();
     }
+    for (BitmapRangeIndexCreator rangeIndexCreator : _rangeIndexCreatorMap.values()) {
+      rangeIndexCreator.seal();
+    }
+    for (BloomFilterCreator bloomFilterCreator : _bloomFilterCreatorMap.values()) {
+      bloomFilterCreator.seal();
+    }
     writeMetadata();
   }
 
@@ -546,5 +666,11 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     for (InvertedIndexCreator invertedIndexCreator : _invertedIndexCreatorMap.values()) {
       invertedIndexCreator.close();
     }
+    for (BitmapRangeIndexCreator rangeIndexCreator : _rangeIndexCreatorMap.values()) {
+      rangeIndexCreator.close();
+    }
+    for (BloomFilterCreator bloomFilterCreator : _bloomFilterCreatorMap.values()) {
+      bloomFilterCreator.close();
+    }
   }
 }
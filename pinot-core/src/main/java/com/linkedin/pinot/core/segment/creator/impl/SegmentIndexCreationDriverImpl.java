@@ -54,12 +54,15 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,6 +76,10 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentIndexCreationDriverImpl.class);
 
+  // Number of rows read into a shared batch before processing the columns in parallel (when multiple threads are
+  // configured)
+  public static final int NUM_ROWS_PER_BATCH = 10_000;
+
   private SegmentGeneratorConfig config;
   private RecordReader recordReader;
   private SegmentPreIndexStatsContainer segmentStats;
@@ -99,7 +106,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
   @Override
   public void init(SegmentGeneratorConfig config) throws Exception {
-    init(config, new RecordReaderSegmentCreationDataSource(RecordReaderFactory.getRecordReader(config)));
+    init(config, new RecordReaderSegmentCreationDataSource(RecordReaderFactory.getRecordReader(config),
+        config.getNumThreads()));
   }
 
   public void init(SegmentGeneratorConfig config, SegmentCreationDataSource dataSource) throws Exception {
@@ -156,7 +164,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   }
 
   public void init(SegmentGeneratorConfig config, RecordReader reader) throws Exception {
-    init(config, new RecordReaderSegmentCreationDataSource(reader));
+    init(config, new RecordReaderSegmentCreationDataSource(reader, config.getNumThreads()));
   }
 
   private void addDerivedFieldsInSchema() {
@@ -319,15 +327,19 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       recordReader.rewind();
       LOGGER.info("Start building IndexCreator!");
       GenericRow readRow = new GenericRow();
-      GenericRow transformedRow = new GenericRow();
-      while (recordReader.hasNext()) {
-        long start = System.currentTimeMillis();
-        transformedRow = readNextRowSanitized(readRow, transformedRow);
-        long stop = System.currentTimeMillis();
-        indexCreator.indexRow(transformedRow);
-        long stop1 = System.currentTimeMillis();
-        totalRecordReadTime += (stop - start);
-        totalIndexTime += (stop1 - stop);
+      if (config.getNumThreads() > 1) {
+        indexRowsInBatches(readRow);
+      } else {
+        GenericRow transformedRow = new GenericRow();
+        while (recordReader.hasNext()) {
+          long start = System.currentTimeMillis();
+          transformedRow = readNextRowSanitized(readRow, transformedRow);
+          long stop = System.currentTimeMillis();
+          indexCreator.indexRow(transformedRow);
+          long stop1 = System.currentTimeMillis();
+          totalRecordReadTime += (stop - start);
+          totalIndexTime += (stop1 - stop);
+        }
       }
     } catch (Exception e) {
       indexCreator.close();
@@ -360,6 +372,44 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     handlePostCreation();
   }
 
+  /**
+   * Helper method to read the rows into a shared batch, and index all the columns of the batch in parallel.
+   */
+  private void indexRowsInBatches(GenericRow readRow) throws Exception {
+    int numThreads = config.getNumThreads();
+    LOGGER.info("Indexing rows in batches of {} with {} threads", NUM_ROWS_PER_BATCH, numThreads);
+    SegmentColumnarIndexCreator columnarIndexCreator = (SegmentColumnarIndexCreator) indexCreator;
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<GenericRow> rows = new ArrayList<>(NUM_ROWS_PER_BATCH);
+      for (int i = 0; i < NUM_ROWS_PER_BATCH; i++) {
+        rows.add(new GenericRow());
+      }
+      int numRows = 0;
+      long start = System.currentTimeMillis();
+      while (recordReader.hasNext()) {
+        readNextRowSanitized(readRow, rows.get(numRows));
+        if (++numRows == NUM_ROWS_PER_BATCH) {
+          long stop = System.currentTimeMillis();
+          columnarIndexCreator.indexRows(rows, executorService);
+          long stop1 = System.currentTimeMillis();
+          totalRecordReadTime += (stop - start);
+          totalIndexTime += (stop1 - stop);
+          numRows = 0;
+          start = stop1;
+        }
+      }
+      if (numRows > 0) {
+        long stop = System.currentTimeMillis();
+        columnarIndexCreator.indexRows(rows.subList(0, numRows), executorService);
+        totalRecordReadTime += (stop - start);
+        totalIndexTime += (System.currentTimeMillis() - stop);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   private void handlePostCreation() throws Exception {
     final String timeColumn = config.getTimeColumnName();
     segmentName = config.getSegmentNameGenerator().generateSegmentName(segmentStats.getColumnProfileFor(timeColumn));
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.bloom;
+
+import com.google.common.hash.BloomFilter;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Creator for the bloom filter of a column.
+ * <p>The bloom filter contains the string representation of all the values of the column (same as the one returned by
+ * {@link com.linkedin.pinot.core.segment.index.readers.Dictionary#getStringValue(int)}), and is used to prune the
+ * segments that do not contain the values of the EQUALITY and IN predicates.
+ * <p>To create a bloom filter, call {@link #add(String)} for each distinct value of the column, then call
+ * {@link #seal()} after all values have been added.
+ */
+public class BloomFilterCreator implements Closeable {
+  public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.05;
+
+  private final File _bloomFilterFile;
+  private final BloomFilter<CharSequence> _bloomFilter;
+
+  public BloomFilterCreator(File indexDir, String columnName, int cardinality) {
+    this(indexDir, columnName, cardinality, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+  }
+
+  public BloomFilterCreator(File indexDir, String columnName, int cardinality, double falsePositiveProbability) {
+    _bloomFilterFile = new File(indexDir, columnName + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    // Bloom filter requires positive expected insertions
+    _bloomFilter =
+        BloomFilter.create(BloomFilterReader.FUNNEL, Math.max(cardinality, 1), falsePositiveProbability);
+  }
+
+  /**
+   * Adds the string representation of a value of the column.
+   */
+  public void add(String value) {
+    _bloomFilter.put(value);
+  }
+
+  /**
+   * Seals the bloom filter and flushes it to disk.
+   */
+  public void seal() throws IOException {
+    try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(_bloomFilterFile))) {
+      _bloomFilter.writeTo(outputStream);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
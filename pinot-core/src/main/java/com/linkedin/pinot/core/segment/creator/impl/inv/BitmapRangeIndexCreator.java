@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.inv;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Creator for the bitmap range index of a single-value dictionary-encoded column.
+ * <p>The sorted dictionary ids are split into a small number of contiguous ranges with similar number of documents, and
+ * one bitmap is created for the documents of each range. A range predicate can then be solved by combining the bitmaps
+ * of the ranges fully covered by the predicate, and scanning the documents of the (at most 2) ranges partially covered
+ * by the predicate.
+ * <pre>
+ * Layout for bitmap range index:
+ * |-------------------------------------------------------------------------|
+ * |                           Number of ranges                              |
+ * |-------------------------------------------------------------------------|
+ * |                     Start dictId of 1st range (0)                       |
+ * |                                   ...                                   |
+ * |                     Start dictId of last range                          |
+ * |             End dictId of last range (exclusive, cardinality)           |
+ * |-------------------------------------------------------------------------|
+ * |                    Start offset of 1st bitmap                           |
+ * |    End offset of 1st bitmap (exclusive) / Start offset of 2nd bitmap    |
+ * |                                   ...                                   |
+ * |                  End offset of last bitmap (exclusive)                  |
+ * |-------------------------------------------------------------------------|
+ * |                           Data for 1st bitmap                           |
+ * |                                   ...                                   |
+ * |                           Data for last bitmap                          |
+ * |-------------------------------------------------------------------------|
+ * </pre>
+ * <p>To create a range index, call {@link #add(int)} for each docId in sequence starting with 0, then call
+ * {@link #seal()} after all dictIds have been added.
+ */
+public final class BitmapRangeIndexCreator implements Closeable {
+  public static final int DEFAULT_NUM_RANGES = 20;
+
+  private final File _rangeIndexFile;
+  private final int _cardinality;
+  private final int _numRanges;
+  // Dictionary id for each document, used to build the bitmaps after the ranges are determined
+  private final int[] _dictIds;
+  private final int[] _numDocsPerDictId;
+  private int _nextDocId;
+
+  public BitmapRangeIndexCreator(File indexDir, String columnName, int cardinality, int numDocs) {
+    this(indexDir, columnName, cardinality, numDocs, DEFAULT_NUM_RANGES);
+  }
+
+  public BitmapRangeIndexCreator(File indexDir, String columnName, int cardinality, int numDocs, int numRanges) {
+    Preconditions.checkArgument(numRanges > 0, "Invalid number of ranges: %s", numRanges);
+    _rangeIndexFile = new File(indexDir, columnName + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    _cardinality = cardinality;
+    _numRanges = numRanges;
+    _dictIds = new int[numDocs];
+    _numDocsPerDictId = new int[cardinality];
+  }
+
+  /**
+   * Adds the dictionary id for the next document.
+   */
+  public void add(int dictId) {
+    _dictIds[_nextDocId++] = dictId;
+    _numDocsPerDictId[dictId]++;
+  }
+
+  /**
+   * Seals the index and flushes it to disk.
+   */
+  public void seal() throws IOException {
+    int[] rangeStartDictIds = getRangeStartDictIds();
+    int numRanges = rangeStartDictIds.length - 1;
+
+    int[] rangeIds = new int[_cardinality];
+    for (int rangeId = 0; rangeId < numRanges; rangeId++) {
+      for (int dictId = rangeStartDictIds[rangeId]; dictId < rangeStartDictIds[rangeId + 1]; dictId++) {
+        rangeIds[dictId] = rangeId;
+      }
+    }
+    MutableRoaringBitmap[] bitmaps = new MutableRoaringBitmap[numRanges];
+    for (int i = 0; i < numRanges; i++) {
+      bitmaps[i] = new MutableRoaringBitmap();
+    }
+    for (int docId = 0; docId < _nextDocId; docId++) {
+      bitmaps[rangeIds[_dictIds[docId]]].add(docId);
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(_rangeIndexFile)))) {
+      // Write ranges
+      out.writeInt(numRanges);
+      for (int rangeStartDictId : rangeStartDictIds) {
+        out.writeInt(rangeStartDictId);
+      }
+
+      // Write bitmap offsets
+      int bitmapOffset = (2 * numRanges + 3) * Integer.BYTES;
+      out.writeInt(bitmapOffset);
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.runOptimize();
+        bitmapOffset += bitmap.serializedSizeInBytes();
+        // Check for int overflow
+        Preconditions.checkState(bitmapOffset > 0, "Range index file: %s exceeds 2GB limit", _rangeIndexFile);
+        out.writeInt(bitmapOffset);
+      }
+
+      // Write bitmap data
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.serialize(out);
+      }
+    } catch (Exception e) {
+      FileUtils.deleteQuietly(_rangeIndexFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Helper method to split the dictionary ids into contiguous ranges with similar number of documents. A dictionary id
+   * with lots of documents might take more than one share of documents, so there might be less ranges than configured.
+   * <p>Returns the start dictionary id of each range, followed by the cardinality as the end of the last range.
+   */
+  private int[] getRangeStartDictIds() {
+    int numDocs = _nextDocId;
+    int numRanges = Math.min(_numRanges, _cardinality);
+    if (numDocs == 0 || numRanges <= 1) {
+      return new int[]{0, _cardinality};
+    }
+    int[] rangeStartDictIds = new int[numRanges + 1];
+    int numRangesAdded = 1;
+    int nextShare = 1;
+    long numDocsInRanges = 0;
+    for (int dictId = 0; dictId < _cardinality - 1 && nextShare < numRanges; dictId++) {
+      numDocsInRanges += _numDocsPerDictId[dictId];
+      // Start a new range when the documents in the current ranges reach the next share of documents
+      if (numDocsInRanges * numRanges >= (long) numDocs * nextShare) {
+        rangeStartDictIds[numRangesAdded++] = dictId + 1;
+        nextShare = (int) (numDocsInRanges * numRanges / numDocs) + 1;
+      }
+    }
+    rangeStartDictIds[numRangesAdded] = _cardinality;
+    if (numRangesAdded == numRanges) {
+      return rangeStartDictIds;
+    } else {
+      int[] trimmedRangeStartDictIds = new int[numRangesAdded + 1];
+      System.arraycopy(rangeStartDictIds, 0, trimmedRangeStartDictIds, 0, numRangesAdded + 1);
+      return trimmedRangeStartDictIds;
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
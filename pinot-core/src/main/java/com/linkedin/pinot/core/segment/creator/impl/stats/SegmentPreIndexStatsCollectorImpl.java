@@ -21,8 +21,14 @@ import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.segment.creator.ColumnStatistics;
 import com.linkedin.pinot.core.segment.creator.SegmentPreIndexStatsCollector;
 import com.linkedin.pinot.core.segment.creator.StatsCollectorConfig;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -123,6 +129,38 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
     }
   }
 
+  /**
+   * Collects the stats for a batch of raw (non-aggregated) rows, where each column is processed by a separate task
+   * submitted to the given executor service. The stats collectors of different columns do not share any state, so they
+   * can be updated concurrently.
+   * <p>Columns missing from the rows (e.g. derived metrics) are skipped, same as {@link #collectRow(GenericRow)}.
+   */
+  public void collectRows(List<GenericRow> rows, ExecutorService executorService)
+      throws InterruptedException, ExecutionException {
+    List<Callable<Void>> tasks = new ArrayList<>(columnStatsCollectorMap.size());
+    for (Map.Entry<String, AbstractColumnStatisticsCollector> entry : columnStatsCollectorMap.entrySet()) {
+      String columnName = entry.getKey();
+      AbstractColumnStatisticsCollector statsCollector = entry.getValue();
+      tasks.add(() -> {
+        for (GenericRow row : rows) {
+          Object value = row.getValue(columnName);
+          if (value != null) {
+            statsCollector.collect(value);
+          }
+        }
+        return null;
+      });
+    }
+    // Wait for all the tasks to finish, then propagate the first exception if any
+    for (Future<Void> future : executorService.invokeAll(tasks)) {
+      future.get();
+    }
+
+    int numRows = rows.size();
+    totalDocCount += numRows;
+    rawDocCount += numRows;
+  }
+
   @Override
   public int getRawDocCount() {
     return rawDocCount;
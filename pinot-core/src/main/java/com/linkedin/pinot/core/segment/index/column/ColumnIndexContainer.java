@@ -16,6 +16,8 @@
 package com.linkedin.pinot.core.segment.index.column;
 
 import com.linkedin.pinot.core.io.reader.DataFileReader;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 
@@ -35,6 +37,16 @@ public interface ColumnIndexContainer {
    */
   InvertedIndexReader getInvertedIndex();
 
+  /**
+   * Returns the range index for the column, or {@code null} if it does not exist.
+   */
+  BitmapRangeIndexReader getRangeIndex();
+
+  /**
+   * Returns the bloom filter for the column, or {@code null} if it does not exist.
+   */
+  BloomFilterReader getBloomFilter();
+
   /**
    * Returns the dictionary for the column, or {@code null} if it does not exist.
    */
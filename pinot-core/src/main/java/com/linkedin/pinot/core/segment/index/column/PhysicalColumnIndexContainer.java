@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.segment.index.column;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
+import com.linkedin.pinot.core.io.reader.impl.ChunkCache;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitMultiValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader;
@@ -27,6 +28,8 @@ import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.BytesDictionary;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
@@ -53,16 +56,29 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
 
   private final DataFileReader _forwardIndex;
   private final InvertedIndexReader _invertedIndex;
+  private final BitmapRangeIndexReader _rangeIndex;
+  private final BloomFilterReader _bloomFilter;
   private final ImmutableDictionaryReader _dictionary;
 
   public PhysicalColumnIndexContainer(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfig indexLoadingConfig) throws IOException {
     String columnName = metadata.getColumnName();
     boolean loadInvertedIndex = false;
+    boolean loadRangeIndex = false;
+    boolean loadBloomFilter = false;
     boolean loadOnHeapDictionary = false;
+    ChunkCache chunkCache = null;
     if (indexLoadingConfig != null) {
       loadInvertedIndex = indexLoadingConfig.getInvertedIndexColumns().contains(columnName);
+      loadRangeIndex = indexLoadingConfig.getRangeIndexColumns().contains(columnName);
+      loadBloomFilter = indexLoadingConfig.getBloomFilterColumns().contains(columnName);
       loadOnHeapDictionary = indexLoadingConfig.getOnHeapDictionaryColumns().contains(columnName);
+      chunkCache = indexLoadingConfig.getChunkCache();
+    }
+    if (loadBloomFilter && segmentReader.hasIndexFor(columnName, ColumnIndexType.BLOOM_FILTER)) {
+      _bloomFilter = new BloomFilterReader(segmentReader.getIndexFor(columnName, ColumnIndexType.BLOOM_FILTER));
+    } else {
+      _bloomFilter = null;
     }
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(columnName, ColumnIndexType.FORWARD_INDEX);
     if (metadata.hasDictionary()) {
@@ -76,6 +92,7 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
           SortedIndexReader sortedIndexReader = new SortedIndexReaderImpl(fwdIndexBuffer, metadata.getCardinality());
           _forwardIndex = sortedIndexReader;
           _invertedIndex = sortedIndexReader;
+          _rangeIndex = null;
           return;
         } else {
           // Unsorted
@@ -95,10 +112,17 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
       } else {
         _invertedIndex = null;
       }
+      // Range index is only created for single-value unsorted column
+      if (loadRangeIndex && segmentReader.hasIndexFor(columnName, ColumnIndexType.RANGE_INDEX)) {
+        _rangeIndex = new BitmapRangeIndexReader(segmentReader.getIndexFor(columnName, ColumnIndexType.RANGE_INDEX));
+      } else {
+        _rangeIndex = null;
+      }
     } else {
       // Raw index
-      _forwardIndex = loadRawForwardIndex(fwdIndexBuffer, metadata.getDataType());
+      _forwardIndex = loadRawForwardIndex(fwdIndexBuffer, metadata.getDataType(), chunkCache);
       _invertedIndex = null;
+      _rangeIndex = null;
       _dictionary = null;
     }
   }
@@ -113,6 +137,16 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
     return _invertedIndex;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return _rangeIndex;
+  }
+
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    return _bloomFilter;
+  }
+
   @Override
   public ImmutableDictionaryReader getDictionary() {
     return _dictionary;
@@ -161,17 +195,17 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
   }
 
   private static SingleColumnSingleValueReader loadRawForwardIndex(PinotDataBuffer forwardIndexBuffer,
-      FieldSpec.DataType dataType) throws IOException {
+      FieldSpec.DataType dataType, ChunkCache chunkCache) throws IOException {
 
     switch (dataType) {
       case INT:
       case LONG:
       case FLOAT:
       case DOUBLE:
-        return new FixedByteChunkSingleValueReader(forwardIndexBuffer);
+        return new FixedByteChunkSingleValueReader(forwardIndexBuffer, chunkCache);
       case STRING:
       case BYTES:
-        return new VarByteChunkSingleValueReader(forwardIndexBuffer);
+        return new VarByteChunkSingleValueReader(forwardIndexBuffer, chunkCache);
       default:
         throw new IllegalStateException("Illegal data type for raw forward index: " + dataType);
     }
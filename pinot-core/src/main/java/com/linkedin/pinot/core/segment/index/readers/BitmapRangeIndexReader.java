@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reader for the bitmap range index created by {@link BitmapRangeIndexCreator}.
+ * <p>The number of ranges is small, so the bitmaps for all the ranges are mapped when the reader is constructed.
+ */
+public class BitmapRangeIndexReader implements Closeable {
+  private final PinotDataBuffer _dataBuffer;
+  private final int _numRanges;
+  // Start dictId of each range, followed by the end dictId (exclusive) of the last range
+  private final int[] _rangeStartDictIds;
+  private final ImmutableRoaringBitmap[] _bitmaps;
+
+  public BitmapRangeIndexReader(PinotDataBuffer dataBuffer) {
+    _dataBuffer = dataBuffer;
+    _numRanges = dataBuffer.getInt(0);
+    _rangeStartDictIds = new int[_numRanges + 1];
+    long offset = Integer.BYTES;
+    for (int i = 0; i <= _numRanges; i++) {
+      _rangeStartDictIds[i] = dataBuffer.getInt(offset);
+      offset += Integer.BYTES;
+    }
+    _bitmaps = new ImmutableRoaringBitmap[_numRanges];
+    int bitmapStartOffset = dataBuffer.getInt(offset);
+    for (int i = 0; i < _numRanges; i++) {
+      offset += Integer.BYTES;
+      int bitmapEndOffset = dataBuffer.getInt(offset);
+      int bitmapLength = bitmapEndOffset - bitmapStartOffset;
+      _bitmaps[i] = new ImmutableRoaringBitmap(dataBuffer.toDirectByteBuffer(bitmapStartOffset, bitmapLength));
+      bitmapStartOffset = bitmapEndOffset;
+    }
+  }
+
+  /**
+   * Returns the number of ranges.
+   */
+  public int getNumRanges() {
+    return _numRanges;
+  }
+
+  /**
+   * Returns the id of the range that contains the given dictionary id.
+   */
+  public int getRangeId(int dictId) {
+    int index = Arrays.binarySearch(_rangeStartDictIds, 0, _numRanges, dictId);
+    return index >= 0 ? index : -(index + 1) - 1;
+  }
+
+  /**
+   * Returns the first dictionary id (inclusive) of the given range.
+   */
+  public int getRangeStartDictId(int rangeId) {
+    return _rangeStartDictIds[rangeId];
+  }
+
+  /**
+   * Returns the last dictionary id (exclusive) of the given range.
+   */
+  public int getRangeEndDictId(int rangeId) {
+    return _rangeStartDictIds[rangeId + 1];
+  }
+
+  /**
+   * Returns the documents with dictionary id in the given range.
+   */
+  public ImmutableRoaringBitmap getDocIds(int rangeId) {
+    return _bitmaps[rangeId];
+  }
+
+  @Override
+  public void close() throws IOException {
+    _dataBuffer.close();
+  }
+}
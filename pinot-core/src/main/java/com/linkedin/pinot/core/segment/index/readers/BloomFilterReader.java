@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Reader for the bloom filter created by
+ * {@link com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator}.
+ * <p>The bloom filter is small, so it is de-serialized on heap when the reader is constructed.
+ */
+public class BloomFilterReader {
+  public static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(StandardCharsets.UTF_8);
+
+  private final BloomFilter<CharSequence> _bloomFilter;
+
+  public BloomFilterReader(PinotDataBuffer dataBuffer) throws IOException {
+    byte[] bytes = new byte[(int) dataBuffer.size()];
+    dataBuffer.copyTo(0L, bytes);
+    _bloomFilter = BloomFilter.readFrom(new ByteArrayInputStream(bytes), FUNNEL);
+  }
+
+  /**
+   * Returns <code>false</code> if the column definitely does not contain the given value, <code>true</code> otherwise.
+   *
+   * @param value String representation of the value (same as the one returned by
+   *              {@link Dictionary#getStringValue(int)})
+   */
+  public boolean mightContain(String value) {
+    return _bloomFilter.mightContain(value);
+  }
+}
@@ -18,6 +18,8 @@ package com.linkedin.pinot.core.segment.virtualcolumn;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.column.PhysicalColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 
@@ -47,6 +49,16 @@ public class VirtualColumnIndexContainer implements ColumnIndexContainer {
     return _invertedIndex;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    return null;
+  }
+
   @Override
   public Dictionary getDictionary() {
     return _dictionary;
@@ -49,9 +49,12 @@ public class StarTreeUtils {
    * <p>The query is fit for star tree index if the following conditions are met:
    * <ul>
    *   <li>Star-tree contains all aggregation function column pairs</li>
-   *   <li>All predicate columns and group-by columns are star-tree dimensions</li>
-   *   <li>All predicates are conjoined by AND</li>
+   *   <li>
+   *     All predicate columns and group-by columns (columns in the group-by expressions, e.g. the column in a time
+   *     conversion transform) are star-tree dimensions
+   *   </li>
    * </ul>
+   * <p>Predicates can be conjoined by AND or OR.
    */
   public static boolean isFitForStarTree(@Nonnull StarTreeV2Metadata starTreeV2Metadata,
       @Nonnull Set<AggregationFunctionColumnPair> aggregationFunctionColumnPairs,
@@ -80,15 +83,11 @@ public class StarTreeUtils {
   }
 
   /**
-   * Helper method to check whether all columns in predicates are star-tree dimensions, and all predicates are
-   * conjoined by AND.
+   * Helper method to check whether all columns in predicates are star-tree dimensions.
    */
   private static boolean checkFilters(@Nonnull FilterQueryTree filterNode, @Nonnull Set<String> starTreeDimensions) {
     FilterOperator operator = filterNode.getOperator();
-    if (operator == FilterOperator.OR) {
-      return false;
-    }
-    if (operator == FilterOperator.AND) {
+    if (operator == FilterOperator.AND || operator == FilterOperator.OR) {
       for (FilterQueryTree child : filterNode.getChildren()) {
         if (!checkFilters(child, starTreeDimensions)) {
           return false;
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.startree.operator;
 
+import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.utils.request.FilterQueryTree;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.common.Predicate;
@@ -23,7 +24,9 @@ import com.linkedin.pinot.core.operator.blocks.FilterBlock;
 import com.linkedin.pinot.core.operator.filter.AndFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.EmptyFilterOperator;
 import com.linkedin.pinot.core.operator.filter.FilterOperatorUtils;
+import com.linkedin.pinot.core.operator.filter.OrFilterOperator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
 import com.linkedin.pinot.core.startree.StarTree;
@@ -54,7 +57,19 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
  * <p>High-level algorithm:
  * <ul>
  *   <li>
- *     Traverse the filter tree and generate a map from column to a list of {@link PredicateEvaluator}s applied to it
+ *     Traverse the filter tree and generate a map from column to a list of {@link PredicateEvaluator}s applied to it,
+ *     and collect the compound (OR) filters conjoined with them
+ *     <ul>
+ *       <li>
+ *         Compound filters on a single column are treated as predicates on that column, where the matching dictionary
+ *         ids are evaluated from the compound filter
+ *       </li>
+ *       <li>
+ *         Compound filters on multiple columns cannot be matched in the star tree, so we treat their columns as
+ *         group-by columns (star node won't be used for them), and apply the compound filters on the matching
+ *         documents
+ *       </li>
+ *     </ul>
  *   </li>
  *   <li>
  *     Traverse the star tree index, try to match as many predicates as possible, add the matching documents into a
@@ -76,9 +91,10 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
  *     </ul>
  *   </li>
  *   <li>
- *     For each remaining predicate columns, use the list of {@link PredicateEvaluator}s to generate separate
- *     {@link BaseFilterOperator}s for it
+ *     For each remaining predicate columns, use the list of {@link PredicateEvaluator}s and the single column compound
+ *     filters to generate separate {@link BaseFilterOperator}s for it
  *   </li>
+ *   <li>Generate {@link BaseFilterOperator}s for the compound filters on multiple columns</li>
  *   <li>Conjoin all {@link BaseFilterOperator}s with AND if we have multiple of them</li>
  * </ul>
  */
@@ -124,6 +140,12 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
   private final Set<String> _groupByColumns;
   // Map from column to predicate evaluators
   private final Map<String, List<PredicateEvaluator>> _predicateEvaluatorsMap;
+  // Map from column to compound filters on the column
+  private final Map<String, List<FilterQueryTree>> _compoundFilterNodesMap;
+  // Columns with predicate evaluators or compound filters
+  private final Set<String> _predicateColumns;
+  // Compound filters on multiple columns
+  private final List<FilterQueryTree> _multiColumnFilterNodes;
   // Map from column to matching dictionary ids
   private final Map<String, IntSet> _matchingDictIdsMap;
 
@@ -133,17 +155,41 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
   public StarTreeFilterOperator(StarTreeV2 starTreeV2, @Nullable FilterQueryTree rootFilterNode,
       @Nullable Set<String> groupByColumns, @Nullable Map<String, String> debugOptions) {
     _starTreeV2 = starTreeV2;
-    _groupByColumns = groupByColumns != null ? new HashSet<>(groupByColumns) : Collections.emptySet();
+    _groupByColumns = groupByColumns != null ? new HashSet<>(groupByColumns) : new HashSet<>();
     _debugOptions = debugOptions;
 
     if (rootFilterNode != null) {
-      // Process the filter tree and get a map from column to a list of predicates applied to it
-      Map<String, List<Predicate>> predicatesMap = getPredicatesMap(rootFilterNode);
+      // Process the filter tree and get a map from column to a list of predicates applied to it, and a list of
+      // compound filters
+      Map<String, List<Predicate>> predicatesMap = new HashMap<>();
+      List<FilterQueryTree> compoundFilterNodes = new ArrayList<>();
+      processFilterTree(rootFilterNode, predicatesMap, compoundFilterNodes);
+
+      // Split the compound filters on single column and multiple columns
+      _compoundFilterNodesMap = new HashMap<>();
+      _multiColumnFilterNodes = new ArrayList<>();
+      Set<String> multiColumnFilterColumns = new HashSet<>();
+      for (FilterQueryTree compoundFilterNode : compoundFilterNodes) {
+        Set<String> columns = new HashSet<>();
+        getColumns(compoundFilterNode, columns);
+        if (columns.size() == 1) {
+          _compoundFilterNodesMap.computeIfAbsent(columns.iterator().next(), k -> new ArrayList<>())
+              .add(compoundFilterNode);
+        } else {
+          _multiColumnFilterNodes.add(compoundFilterNode);
+          multiColumnFilterColumns.addAll(columns);
+        }
+      }
+      _predicateColumns = new HashSet<>(predicatesMap.keySet());
+      _predicateColumns.addAll(_compoundFilterNodesMap.keySet());
+
+      // Star node cannot be used for columns in compound filters on multiple columns, treat them as group-by columns
+      _groupByColumns.addAll(multiColumnFilterColumns);
 
       // Remove columns with predicates from group-by columns because we won't use star node for that column
-      _groupByColumns.removeAll(predicatesMap.keySet());
+      _groupByColumns.removeAll(_predicateColumns);
 
-      int numColumnsInPredicates = predicatesMap.size();
+      int numColumnsInPredicates = _predicateColumns.size();
       _predicateEvaluatorsMap = new HashMap<>(numColumnsInPredicates);
       _matchingDictIdsMap = new HashMap<>(numColumnsInPredicates);
 
@@ -168,31 +214,45 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
       }
     } else {
       _predicateEvaluatorsMap = Collections.emptyMap();
+      _compoundFilterNodesMap = Collections.emptyMap();
+      _predicateColumns = Collections.emptySet();
+      _multiColumnFilterNodes = Collections.emptyList();
       _matchingDictIdsMap = Collections.emptyMap();
     }
   }
 
   /**
-   * Helper method to process the filter tree and get a map from column to a list of predicates applied to it.
+   * Helper method to process the filter tree, put the predicates conjoined with AND into a map from column to a list of
+   * predicates applied to it, and the compound (OR) filters conjoined with AND into a list.
    */
-  private Map<String, List<Predicate>> getPredicatesMap(@Nonnull FilterQueryTree rootFilterNode) {
-    Map<String, List<Predicate>> predicatesMap = new HashMap<>();
-    Queue<FilterQueryTree> queue = new LinkedList<>();
-    queue.add(rootFilterNode);
-
-    while (!queue.isEmpty()) {
-      FilterQueryTree filterNode = queue.remove();
-      List<FilterQueryTree> children = filterNode.getChildren();
-      if (children == null) {
-        String columnName = filterNode.getColumn();
-        Predicate predicate = Predicate.newPredicate(filterNode);
-        predicatesMap.computeIfAbsent(columnName, k -> new ArrayList<>()).add(predicate);
-      } else {
-        queue.addAll(children);
+  private static void processFilterTree(@Nonnull FilterQueryTree filterNode,
+      @Nonnull Map<String, List<Predicate>> predicatesMap, @Nonnull List<FilterQueryTree> compoundFilterNodes) {
+    List<FilterQueryTree> children = filterNode.getChildren();
+    if (children == null) {
+      String columnName = filterNode.getColumn();
+      Predicate predicate = Predicate.newPredicate(filterNode);
+      predicatesMap.computeIfAbsent(columnName, k -> new ArrayList<>()).add(predicate);
+    } else if (filterNode.getOperator() == FilterOperator.AND) {
+      for (FilterQueryTree child : children) {
+        processFilterTree(child, predicatesMap, compoundFilterNodes);
       }
+    } else {
+      compoundFilterNodes.add(filterNode);
     }
+  }
 
-    return predicatesMap;
+  /**
+   * Helper method to get all the columns in the given filter tree.
+   */
+  private static void getColumns(@Nonnull FilterQueryTree filterNode, @Nonnull Set<String> columns) {
+    List<FilterQueryTree> children = filterNode.getChildren();
+    if (children == null) {
+      columns.add(filterNode.getColumn());
+    } else {
+      for (FilterQueryTree child : children) {
+        getColumns(child, columns);
+      }
+    }
   }
 
   @Override
@@ -238,7 +298,7 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
     }
 
     List<BaseFilterOperator> childFilterOperators =
-        new ArrayList<>(1 + starTreeResult._remainingPredicateColumns.size());
+        new ArrayList<>(1 + starTreeResult._remainingPredicateColumns.size() + _multiColumnFilterNodes.size());
 
     int startDocId = 0;
     // Inclusive end document id
@@ -252,16 +312,77 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
     // Add remaining predicates
     for (String remainingPredicateColumn : starTreeResult._remainingPredicateColumns) {
       List<PredicateEvaluator> predicateEvaluators = _predicateEvaluatorsMap.get(remainingPredicateColumn);
-      DataSource dataSource = _starTreeV2.getDataSource(remainingPredicateColumn);
-      for (PredicateEvaluator predicateEvaluator : predicateEvaluators) {
-        childFilterOperators.add(
-            FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId));
+      if (predicateEvaluators != null) {
+        DataSource dataSource = _starTreeV2.getDataSource(remainingPredicateColumn);
+        for (PredicateEvaluator predicateEvaluator : predicateEvaluators) {
+          childFilterOperators.add(
+              FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId));
+        }
+      }
+      List<FilterQueryTree> compoundFilterNodes = _compoundFilterNodesMap.get(remainingPredicateColumn);
+      if (compoundFilterNodes != null) {
+        for (FilterQueryTree compoundFilterNode : compoundFilterNodes) {
+          BaseFilterOperator filterOperator = getFilterOperator(compoundFilterNode, startDocId, endDocId);
+          if (filterOperator.isResultEmpty()) {
+            return Collections.emptyList();
+          }
+          childFilterOperators.add(filterOperator);
+        }
       }
     }
 
+    // Add compound filters on multiple columns
+    for (FilterQueryTree multiColumnFilterNode : _multiColumnFilterNodes) {
+      BaseFilterOperator filterOperator = getFilterOperator(multiColumnFilterNode, startDocId, endDocId);
+      if (filterOperator.isResultEmpty()) {
+        return Collections.emptyList();
+      }
+      childFilterOperators.add(filterOperator);
+    }
+
     return childFilterOperators;
   }
 
+  /**
+   * Helper method to construct the filter operator for the given filter tree on the star-tree documents.
+   */
+  private BaseFilterOperator getFilterOperator(@Nonnull FilterQueryTree filterNode, int startDocId, int endDocId) {
+    List<FilterQueryTree> children = filterNode.getChildren();
+    if (children == null) {
+      DataSource dataSource = _starTreeV2.getDataSource(filterNode.getColumn());
+      PredicateEvaluator predicateEvaluator =
+          PredicateEvaluatorProvider.getPredicateEvaluator(Predicate.newPredicate(filterNode), dataSource);
+      return FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+    }
+
+    List<BaseFilterOperator> childFilterOperators = new ArrayList<>(children.size());
+    if (filterNode.getOperator() == FilterOperator.AND) {
+      for (FilterQueryTree child : children) {
+        BaseFilterOperator childFilterOperator = getFilterOperator(child, startDocId, endDocId);
+        if (childFilterOperator.isResultEmpty()) {
+          return EmptyFilterOperator.getInstance();
+        }
+        childFilterOperators.add(childFilterOperator);
+      }
+      FilterOperatorUtils.reorderAndFilterChildOperators(childFilterOperators, _debugOptions);
+      return new AndFilterOperator(childFilterOperators);
+    } else {
+      for (FilterQueryTree child : children) {
+        BaseFilterOperator childFilterOperator = getFilterOperator(child, startDocId, endDocId);
+        if (!childFilterOperator.isResultEmpty()) {
+          childFilterOperators.add(childFilterOperator);
+        }
+      }
+      if (childFilterOperators.isEmpty()) {
+        return EmptyFilterOperator.getInstance();
+      } else if (childFilterOperators.size() == 1) {
+        return childFilterOperators.get(0);
+      } else {
+        return new OrFilterOperator(childFilterOperators);
+      }
+    }
+  }
+
   /**
    * Helper method to traverse the star tree, get matching documents and keep track of all the predicate columns that
    * are not matched.
@@ -278,7 +399,7 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
 
     // Use BFS to traverse the star tree
     Queue<SearchEntry> queue = new LinkedList<>();
-    queue.add(new SearchEntry(starTreeRootNode, _predicateEvaluatorsMap.keySet(), _groupByColumns));
+    queue.add(new SearchEntry(starTreeRootNode, _predicateColumns, _groupByColumns));
     while (!queue.isEmpty()) {
       SearchEntry searchEntry = queue.remove();
       StarTreeNode starTreeNode = searchEntry._starTreeNode;
@@ -304,7 +425,7 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
 
             IntSet matchingDictIds = _matchingDictIdsMap.get(nextDimension);
             if (matchingDictIds == null) {
-              matchingDictIds = getMatchingDictIds(_predicateEvaluatorsMap.get(nextDimension));
+              matchingDictIds = getMatchingDictIds(nextDimension);
 
               // If no matching dictionary id found, directly return null
               if (matchingDictIds.isEmpty()) {
@@ -373,6 +494,58 @@ public class StarTreeFilterOperator extends BaseFilterOperator {
     return new StarTreeResult(matchedDocIds, remainingPredicateColumns);
   }
 
+  /**
+   * Helper method to get a set of matching dictionary ids for the given column from the predicate evaluators and the
+   * compound filters on it.
+   */
+  private IntSet getMatchingDictIds(@Nonnull String column) {
+    IntSet matchingDictIds = null;
+    List<PredicateEvaluator> predicateEvaluators = _predicateEvaluatorsMap.get(column);
+    if (predicateEvaluators != null) {
+      matchingDictIds = getMatchingDictIds(predicateEvaluators);
+    }
+    List<FilterQueryTree> compoundFilterNodes = _compoundFilterNodesMap.get(column);
+    if (compoundFilterNodes != null) {
+      DataSource dataSource = _starTreeV2.getDataSource(column);
+      for (FilterQueryTree compoundFilterNode : compoundFilterNodes) {
+        IntSet compoundMatchingDictIds = getMatchingDictIds(compoundFilterNode, dataSource);
+        if (matchingDictIds == null) {
+          matchingDictIds = compoundMatchingDictIds;
+        } else {
+          matchingDictIds.retainAll(compoundMatchingDictIds);
+        }
+      }
+    }
+    assert matchingDictIds != null;
+    return matchingDictIds;
+  }
+
+  /**
+   * Helper method to get a set of matching dictionary ids from a filter tree on a single column.
+   */
+  private static IntSet getMatchingDictIds(@Nonnull FilterQueryTree filterNode, @Nonnull DataSource dataSource) {
+    List<FilterQueryTree> children = filterNode.getChildren();
+    if (children == null) {
+      PredicateEvaluator predicateEvaluator =
+          PredicateEvaluatorProvider.getPredicateEvaluator(Predicate.newPredicate(filterNode), dataSource);
+      return new IntOpenHashSet(predicateEvaluator.getMatchingDictIds());
+    }
+
+    IntSet matchingDictIds = null;
+    boolean isAnd = filterNode.getOperator() == FilterOperator.AND;
+    for (FilterQueryTree child : children) {
+      IntSet childMatchingDictIds = getMatchingDictIds(child, dataSource);
+      if (matchingDictIds == null) {
+        matchingDictIds = childMatchingDictIds;
+      } else if (isAnd) {
+        matchingDictIds.retainAll(childMatchingDictIds);
+      } else {
+        matchingDictIds.addAll(childMatchingDictIds);
+      }
+    }
+    return matchingDictIds;
+  }
+
   /**
    * Helper method to get a set of matching dictionary ids from a list of predicate evaluators conjoined with AND.
    * <ul>
@@ -34,13 +34,17 @@ import com.linkedin.pinot.core.startree.StarTreeNode;
 import com.linkedin.pinot.core.startree.v2.AggregationFunctionColumnPair;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
@@ -60,6 +64,7 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
   final File _outputDir;
   final ImmutableSegment _segment;
   final Configuration _metadataProperties;
+  final ForkJoinPool _forkJoinPool;
 
   final int _numDimensions;
   final String[] _dimensionsSplitOrder;
@@ -95,6 +100,20 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
     }
   }
 
+  /**
+   * The {@code NodeSplit} class contains the children nodes of a node split on the next dimension, and the aggregated
+   * records for the star-node (if required) which are not appended to the star-tree yet.
+   */
+  static class NodeSplit {
+    final Map<Integer, TreeNode> _children;
+    final Iterator<Record> _starNodeRecordIterator;
+
+    NodeSplit(Map<Integer, TreeNode> children, @Nullable Iterator<Record> starNodeRecordIterator) {
+      _children = children;
+      _starNodeRecordIterator = starNodeRecordIterator;
+    }
+  }
+
   /**
    * Constructor for the base single star-tree builder.
    *
@@ -102,13 +121,16 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
    * @param outputDir Directory to store the index files
    * @param segment Index segment
    * @param metadataProperties Segment metadata properties
+   * @param forkJoinPool Fork-join pool to split the tree nodes concurrently, or {@code null} to split them in the
+   *                     current thread
    */
   BaseSingleTreeBuilder(StarTreeV2BuilderConfig builderConfig, File outputDir, ImmutableSegment segment,
-      Configuration metadataProperties) {
+      Configuration metadataProperties, @Nullable ForkJoinPool forkJoinPool) {
     _builderConfig = builderConfig;
     _outputDir = outputDir;
     _segment = segment;
     _metadataProperties = metadataProperties;
+    _forkJoinPool = forkJoinPool;
 
     List<String> dimensionsSplitOrder = builderConfig.getDimensionsSplitOrder();
     _numDimensions = dimensionsSplitOrder.size();
@@ -179,6 +201,14 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
    */
   abstract int getDimensionValue(int docId, int dimensionId) throws IOException;
 
+  /**
+   * Makes all the appended records readable.
+   * <p>After this method is called and before the next record is appended, {@link #getStarTreeRecord(int)},
+   * {@link #getDimensionValue(int, int)} and {@link #generateRecordsForStarNode(int, int, int)} can be called
+   * concurrently.
+   */
+  abstract void flushRecords() throws IOException;
+
   /**
    * Sorts and aggregates the records in the segment, and returns a record iterator for all the aggregated records.
    * <p>This method reads records from segment and generates the initial records for the star-tree.
@@ -190,6 +220,7 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
 
   /**
    * Generates aggregated records for star-node.
+   * <p>The records are sorted when this method is called, and aggregated lazily when iterating the returned iterator.
    * <p>This method will do the following steps:
    * <ul>
    *   <li>Creates a temporary buffer for the given range of documents</li>
@@ -305,7 +336,9 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
     LOGGER.info("Generated {} star-tree records from {} segment records", numSegmentRecords, numStarTreeRecords);
 
     int numRecordsUnderStarNode = _numDocs - numStarTreeRecords;
-    constructStarTree(_rootNode, 0, _numDocs);
+    _rootNode._startDocId = 0;
+    _rootNode._endDocId = _numDocs;
+    constructStarTree(Collections.singletonList(_rootNode));
     LOGGER.info("Finish constructing star-tree, got {} tree nodes and {} records under star-node", _numNodes,
         numRecordsUnderStarNode);
 
@@ -330,30 +363,91 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
     return new TreeNode();
   }
 
-  private void constructStarTree(TreeNode node, int startDocId, int endDocId) throws IOException {
-    int childDimensionId = node._dimensionId + 1;
-    if (childDimensionId == _numDimensions) {
-      return;
+  /**
+   * Constructs the star-tree under the given nodes with the same parent.
+   * <p>The nodes are split concurrently because splitting a node only reads the existing star-tree records, then the
+   * records for the star-nodes are appended to the star-tree one node after another so that the documents under each
+   * node are contiguous.
+   */
+  private void constructStarTree(List<TreeNode> nodes) throws IOException {
+    appendChildren(nodes);
+
+    // Further split on children nodes if required
+    for (TreeNode node : nodes) {
+      List<TreeNode> childrenToSplit = new ArrayList<>();
+      for (TreeNode child : node._children.values()) {
+        if (child._endDocId - child._startDocId > _maxLeafRecords && child._dimensionId + 1 < _numDimensions) {
+          childrenToSplit.add(child);
+        }
+      }
+      if (!childrenToSplit.isEmpty()) {
+        constructStarTree(childrenToSplit);
+      }
     }
+  }
+
+  /**
+   * Splits the given nodes on the next dimension, and appends the records for the star-nodes to the star-tree.
+   */
+  private void appendChildren(List<TreeNode> nodes) throws IOException {
+    int numNodes = nodes.size();
+    List<NodeSplit> nodeSplits = new ArrayList<>(numNodes);
+    if (_forkJoinPool == null || numNodes == 1) {
+      for (TreeNode node : nodes) {
+        nodeSplits.add(splitNode(node));
+      }
+    } else {
+      flushRecords();
+      List<ForkJoinTask<NodeSplit>> tasks = new ArrayList<>(numNodes);
+      boolean inForkJoinPool = ForkJoinTask.getPool() == _forkJoinPool;
+      for (TreeNode node : nodes) {
+        ForkJoinTask<NodeSplit> task = ForkJoinTask.adapt(() -> splitNode(node));
+        if (inForkJoinPool) {
+          task.fork();
+        } else {
+          _forkJoinPool.execute(task);
+        }
+        tasks.add(task);
+      }
+      for (ForkJoinTask<NodeSplit> task : tasks) {
+        nodeSplits.add(task.join());
+      }
+    }
+
+    for (int i = 0; i < numNodes; i++) {
+      TreeNode node = nodes.get(i);
+      NodeSplit nodeSplit = nodeSplits.get(i);
+      Map<Integer, TreeNode> children = nodeSplit._children;
+      node._childDimensionId = node._dimensionId + 1;
+      node._children = children;
+      _numNodes += children.size();
+      if (nodeSplit._starNodeRecordIterator != null) {
+        children.put(StarTreeNode.ALL,
+            constructStarNode(node._childDimensionId, nodeSplit._starNodeRecordIterator));
+      }
+    }
+  }
+
+  private NodeSplit splitNode(TreeNode node) throws IOException {
+    int startDocId = node._startDocId;
+    int endDocId = node._endDocId;
+    int childDimensionId = node._dimensionId + 1;
 
     // Construct all non-star children nodes
-    node._childDimensionId = childDimensionId;
     Map<Integer, TreeNode> children = constructNonStarNodes(startDocId, endDocId, childDimensionId);
-    node._children = children;
 
-    // Construct star-node if required
+    // Generate records for star-node if required
     if (!_skipStarNodeCreationForDimensions.contains(childDimensionId) && children.size() > 1) {
-      children.put(StarTreeNode.ALL, constructStarNode(startDocId, endDocId, childDimensionId));
-    }
-
-    // Further split on child nodes if required
-    for (TreeNode child : children.values()) {
-      if (child._endDocId - child._startDocId > _maxLeafRecords) {
-        constructStarTree(child, child._startDocId, child._endDocId);
-      }
+      return new NodeSplit(children, generateRecordsForStarNode(startDocId, endDocId, childDimensionId));
+    } else {
+      return new NodeSplit(children, null);
     }
   }
 
+  /**
+   * Constructs the non-star children nodes. The nodes are not counted in {@link #_numNodes} because this method can be
+   * called concurrently.
+   */
   private Map<Integer, TreeNode> constructNonStarNodes(int startDocId, int endDocId, int dimensionId)
       throws IOException {
     Map<Integer, TreeNode> nodes = new HashMap<>();
@@ -362,7 +456,7 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
     for (int i = startDocId + 1; i < endDocId; i++) {
       int dimensionValue = getDimensionValue(i, dimensionId);
       if (dimensionValue != nodeDimensionValue) {
-        TreeNode child = getNewNode();
+        TreeNode child = new TreeNode();
         child._dimensionId = dimensionId;
         child._dimensionValue = nodeDimensionValue;
         child._startDocId = nodeStartDocId;
@@ -373,7 +467,7 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
         nodeDimensionValue = dimensionValue;
       }
     }
-    TreeNode laseNode = getNewNode();
+    TreeNode laseNode = new TreeNode();
     laseNode._dimensionId = dimensionId;
     laseNode._dimensionValue = nodeDimensionValue;
     laseNode._startDocId = nodeStartDocId;
@@ -382,12 +476,11 @@ abstract class BaseSingleTreeBuilder implements SingleTreeBuilder {
     return nodes;
   }
 
-  private TreeNode constructStarNode(int startDocId, int endDocId, int dimensionId) throws IOException {
+  private TreeNode constructStarNode(int dimensionId, Iterator<Record> recordIterator) throws IOException {
     TreeNode starNode = getNewNode();
     starNode._dimensionId = dimensionId;
     starNode._dimensionValue = StarTreeNode.ALL;
     starNode._startDocId = _numDocs;
-    Iterator<Record> recordIterator = generateRecordsForStarNode(startDocId, endDocId, dimensionId);
     while (recordIterator.hasNext()) {
       appendToStarTree(recordIterator.next());
     }
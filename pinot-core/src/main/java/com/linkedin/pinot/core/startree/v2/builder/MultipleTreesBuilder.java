@@ -25,8 +25,14 @@ import com.linkedin.pinot.core.startree.v2.store.StarTreeIndexMapUtils;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.io.FileUtils;
@@ -43,6 +49,9 @@ import static com.linkedin.pinot.core.startree.v2.store.StarTreeIndexMapUtils.*;
  * {@code OFF_HEAP}).
  * <p>The indexes for all star-trees will be stored in a single index file, and there will be an extra index map file to
  * mark the offset and size of each index in the index file.
+ * <p>If any {@link StarTreeV2BuilderConfig} allows multiple threads, the star-trees are built concurrently in a
+ * fork-join pool with the maximum number of threads configured, which is also used to split the tree nodes
+ * concurrently.
  */
 public class MultipleTreesBuilder {
   private static final Logger LOGGER = LoggerFactory.getLogger(MultipleTreesBuilder.class);
@@ -89,6 +98,12 @@ public class MultipleTreesBuilder {
     LOGGER.info("Start building {} star-trees with configs: {} using {} builder", numStarTrees, _builderConfigs,
         _buildMode);
 
+    int numThreads = StarTreeV2BuilderConfig.DEFAULT_NUM_THREADS;
+    for (StarTreeV2BuilderConfig builderConfig : _builderConfigs) {
+      numThreads = Math.max(numThreads, builderConfig.getNumThreads());
+    }
+    ForkJoinPool forkJoinPool = numThreads > 1 ? new ForkJoinPool(numThreads) : null;
+
     try (
         StarTreeIndexCombiner indexCombiner = new StarTreeIndexCombiner(new File(_segmentDirectory, INDEX_FILE_NAME))) {
       File starTreeIndexDir = new File(_segmentDirectory, STAR_TREE_TEMP_DIR);
@@ -96,32 +111,78 @@ public class MultipleTreesBuilder {
       _metadataProperties.addProperty(MetadataKey.STAR_TREE_COUNT, numStarTrees);
       List<Map<IndexKey, IndexValue>> indexMaps = new ArrayList<>(numStarTrees);
 
-      // Build all star-trees
+      // Build all star-trees, each star-tree uses a separate directory and metadata properties so that they can be
+      // built concurrently
+      List<Callable<Configuration>> buildTasks = new ArrayList<>(numStarTrees);
+      for (int i = 0; i < numStarTrees; i++) {
+        StarTreeV2BuilderConfig builderConfig = _builderConfigs.get(i);
+        File outputDir = new File(starTreeIndexDir, Integer.toString(i));
+        FileUtils.forceMkdir(outputDir);
+        buildTasks.add(() -> buildStarTree(builderConfig, outputDir, forkJoinPool));
+      }
+      List<Future<Configuration>> futures = new ArrayList<>(numStarTrees);
+      if (forkJoinPool != null) {
+        for (Callable<Configuration> buildTask : buildTasks) {
+          futures.add(forkJoinPool.submit(buildTask));
+        }
+      }
+
+      // Combine the star-tree indexes and metadata in order
       for (int i = 0; i < numStarTrees; i++) {
         StarTreeV2BuilderConfig builderConfig = _builderConfigs.get(i);
+        Configuration starTreeMetadataProperties;
+        if (forkJoinPool != null) {
+          try {
+            starTreeMetadataProperties = futures.get(i).get();
+          } catch (ExecutionException e) {
+            throw new IllegalStateException("Caught exception while building star-tree with config: " + builderConfig,
+                e.getCause());
+          }
+        } else {
+          starTreeMetadataProperties = buildTasks.get(i).call();
+        }
         Configuration metadataProperties = _metadataProperties.subset(MetadataKey.getStarTreePrefix(i));
-        try (SingleTreeBuilder singleTreeBuilder = getSingleTreeBuilder(builderConfig, starTreeIndexDir, _segment,
-            metadataProperties, _buildMode)) {
-          singleTreeBuilder.build();
+        Iterator<String> keys = starTreeMetadataProperties.getKeys();
+        while (keys.hasNext()) {
+          String key = keys.next();
+          metadataProperties.setProperty(key, starTreeMetadataProperties.getProperty(key));
         }
-        indexMaps.add(indexCombiner.combine(builderConfig, starTreeIndexDir));
+        indexMaps.add(indexCombiner.combine(builderConfig, new File(starTreeIndexDir, Integer.toString(i))));
       }
 
       // Save the metadata and index maps to the disk
       _metadataProperties.save();
       StarTreeIndexMapUtils.storeToFile(indexMaps, new File(_segmentDirectory, INDEX_MAP_FILE_NAME));
       FileUtils.forceDelete(starTreeIndexDir);
+    } finally {
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdownNow();
+      }
     }
 
     LOGGER.info("Finish building {} star-trees in {}ms", numStarTrees, System.currentTimeMillis() - startTime);
   }
 
+  /**
+   * Builds a single star-tree into the given directory, and returns the metadata properties of the star-tree.
+   */
+  private Configuration buildStarTree(StarTreeV2BuilderConfig builderConfig, File outputDir,
+      @Nullable ForkJoinPool forkJoinPool) throws Exception {
+    Configuration metadataProperties = new PropertiesConfiguration();
+    try (SingleTreeBuilder singleTreeBuilder = getSingleTreeBuilder(builderConfig, outputDir, _segment,
+        metadataProperties, _buildMode, forkJoinPool)) {
+      singleTreeBuilder.build();
+    }
+    return metadataProperties;
+  }
+
   private static SingleTreeBuilder getSingleTreeBuilder(StarTreeV2BuilderConfig builderConfig, File outputDir,
-      ImmutableSegment segment, Configuration metadataProperties, BuildMode buildMode) throws FileNotFoundException {
+      ImmutableSegment segment, Configuration metadataProperties, BuildMode buildMode,
+      @Nullable ForkJoinPool forkJoinPool) throws FileNotFoundException {
     if (buildMode == BuildMode.ON_HEAP) {
-      return new OnHeapSingleTreeBuilder(builderConfig, outputDir, segment, metadataProperties);
+      return new OnHeapSingleTreeBuilder(builderConfig, outputDir, segment, metadataProperties, forkJoinPool);
     } else {
-      return new OffHeapSingleTreeBuilder(builderConfig, outputDir, segment, metadataProperties);
+      return new OffHeapSingleTreeBuilder(builderConfig, outputDir, segment, metadataProperties, forkJoinPool);
     }
   }
 }
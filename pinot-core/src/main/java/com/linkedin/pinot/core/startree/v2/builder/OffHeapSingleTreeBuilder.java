@@ -29,6 +29,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.io.FileUtils;
 
@@ -59,11 +61,13 @@ public class OffHeapSingleTreeBuilder extends BaseSingleTreeBuilder {
    * @param outputDir Directory to store the index files
    * @param segment Index segment
    * @param metadataProperties Segment metadata properties
+   * @param forkJoinPool Fork-join pool to split the tree nodes concurrently, or {@code null} to split them in the
+   *                     current thread
    * @throws FileNotFoundException
    */
   public OffHeapSingleTreeBuilder(StarTreeV2BuilderConfig builderConfig, File outputDir, ImmutableSegment segment,
-      Configuration metadataProperties) throws FileNotFoundException {
-    super(builderConfig, outputDir, segment, metadataProperties);
+      Configuration metadataProperties, @Nullable ForkJoinPool forkJoinPool) throws FileNotFoundException {
+    super(builderConfig, outputDir, segment, metadataProperties, forkJoinPool);
     _segmentRecordFile = new File(_outputDir, SEGMENT_RECORD_FILE_NAME);
     Preconditions.checkState(!_segmentRecordFile.exists(),
         "Segment record file: " + _segmentRecordFile + " already exists");
@@ -170,6 +174,11 @@ public class OffHeapSingleTreeBuilder extends BaseSingleTreeBuilder {
     return _starTreeRecordBuffer.getInt(_starTreeRecordOffsets.get(docId) + dimensionId * Integer.BYTES);
   }
 
+  @Override
+  void flushRecords() throws IOException {
+    ensureBufferReadable(_numDocs - 1);
+  }
+
   private void ensureBufferReadable(int docId) throws IOException {
     if (_numReadableStarTreeRecords <= docId) {
       _starTreeRecordOutputStream.flush();
@@ -270,7 +279,7 @@ public class OffHeapSingleTreeBuilder extends BaseSingleTreeBuilder {
 
   @Override
   Iterator<Record> generateRecordsForStarNode(int startDocId, int endDocId, int dimensionId) throws IOException {
-    ensureBufferReadable(endDocId);
+    ensureBufferReadable(endDocId - 1);
 
     // Sort all records using an int array
     int numDocs = endDocId - startDocId;
@@ -21,6 +21,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 
 import static com.linkedin.pinot.core.startree.v2.StarTreeV2Constants.*;
@@ -39,10 +41,12 @@ public class OnHeapSingleTreeBuilder extends BaseSingleTreeBuilder {
    * @param outputDir Directory to store the index files
    * @param segment Index segment
    * @param metadataProperties Segment metadata properties
+   * @param forkJoinPool Fork-join pool to split the tree nodes concurrently, or {@code null} to split them in the
+   *                     current thread
    */
   public OnHeapSingleTreeBuilder(StarTreeV2BuilderConfig builderConfig, File outputDir, ImmutableSegment segment,
-      Configuration metadataProperties) {
-    super(builderConfig, outputDir, segment, metadataProperties);
+      Configuration metadataProperties, @Nullable ForkJoinPool forkJoinPool) {
+    super(builderConfig, outputDir, segment, metadataProperties, forkJoinPool);
   }
 
   @Override
@@ -60,6 +64,10 @@ public class OnHeapSingleTreeBuilder extends BaseSingleTreeBuilder {
     return _records.get(docId)._dimensions[dimensionId];
   }
 
+  @Override
+  void flushRecords() {
+  }
+
   @Override
   Iterator<Record> sortAndAggregateSegmentRecords(int numDocs) {
     Record[] records = new Record[numDocs];
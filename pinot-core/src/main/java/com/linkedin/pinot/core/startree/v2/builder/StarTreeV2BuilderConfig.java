@@ -28,18 +28,21 @@ import org.apache.commons.lang3.builder.ToStringStyle;
  */
 public class StarTreeV2BuilderConfig {
   public static final int DEFAULT_MAX_LEAF_RECORDS = 10_000;
+  public static final int DEFAULT_NUM_THREADS = 1;
 
   private final List<String> _dimensionsSplitOrder;
   private final Set<String> _skipStarNodeCreationForDimensions;
   private final Set<AggregationFunctionColumnPair> _functionColumnPairs;
   private final int _maxLeafRecords;
+  private final int _numThreads;
 
   private StarTreeV2BuilderConfig(List<String> dimensionsSplitOrder, Set<String> skipStarNodeCreationForDimensions,
-      Set<AggregationFunctionColumnPair> functionColumnPairs, int maxLeafRecords) {
+      Set<AggregationFunctionColumnPair> functionColumnPairs, int maxLeafRecords, int numThreads) {
     _dimensionsSplitOrder = dimensionsSplitOrder;
     _skipStarNodeCreationForDimensions = skipStarNodeCreationForDimensions;
     _functionColumnPairs = functionColumnPairs;
     _maxLeafRecords = maxLeafRecords;
+    _numThreads = numThreads;
   }
 
   public List<String> getDimensionsSplitOrder() {
@@ -58,12 +61,21 @@ public class StarTreeV2BuilderConfig {
     return _maxLeafRecords;
   }
 
+  /**
+   * Returns the number of threads used to build the star-trees. Multiple star-trees are built concurrently, and the
+   * tree nodes with the same parent are split concurrently.
+   */
+  public int getNumThreads() {
+    return _numThreads;
+  }
+
   @Override
   public String toString() {
     return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("splitOrder", _dimensionsSplitOrder)
         .append("skipStarNodeCreation", _skipStarNodeCreationForDimensions)
         .append("functionColumnPairs", _functionColumnPairs)
         .append("maxLeafRecords", _maxLeafRecords)
+        .append("numThreads", _numThreads)
         .toString();
   }
 
@@ -72,6 +84,7 @@ public class StarTreeV2BuilderConfig {
     private Set<String> _skipStarNodeCreationForDimensions;
     private Set<AggregationFunctionColumnPair> _functionColumnPairs;
     private int _maxLeafRecords = DEFAULT_MAX_LEAF_RECORDS;
+    private int _numThreads = DEFAULT_NUM_THREADS;
 
     public Builder setDimensionsSplitOrder(List<String> dimensionsSplitOrder) {
       _dimensionsSplitOrder = dimensionsSplitOrder;
@@ -93,6 +106,11 @@ public class StarTreeV2BuilderConfig {
       return this;
     }
 
+    public Builder setNumThreads(int numThreads) {
+      _numThreads = numThreads;
+      return this;
+    }
+
     public StarTreeV2BuilderConfig build() {
       if (_dimensionsSplitOrder == null || _dimensionsSplitOrder.isEmpty()) {
         throw new IllegalStateException("Illegal _dimensions split order: " + _dimensionsSplitOrder);
@@ -111,8 +129,11 @@ public class StarTreeV2BuilderConfig {
       if (_maxLeafRecords <= 0) {
         throw new IllegalStateException("Illegal maximum number of leaf records: " + _maxLeafRecords);
       }
+      if (_numThreads <= 0) {
+        throw new IllegalStateException("Illegal number of threads: " + _numThreads);
+      }
       return new StarTreeV2BuilderConfig(_dimensionsSplitOrder, _skipStarNodeCreationForDimensions,
-          _functionColumnPairs, _maxLeafRecords);
+          _functionColumnPairs, _maxLeafRecords, _numThreads);
     }
   }
 }
@@ -15,31 +15,88 @@
  */
 package com.linkedin.pinot.core.transport;
 
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.common.utils.DataTable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * The {@code AsyncQueryResponse} class represents an asynchronous query response.
  * <p>Call {@link #getResponse()} to get the query response asynchronously.
+ * <p>If a data table consumer is provided, each data table is passed to the consumer as soon as it is received (on the
+ * data table consumer executor of the {@link QueryRouter} if configured, or on the network thread otherwise), and is
+ * not kept in the {@link ServerResponse}. The data tables of a query are consumed one at a time by a single task, so
+ * that a query never occupies more than one thread of the shared executor. The server is counted as responded after its data tables are consumed, so
+ * that all the data tables are consumed before {@link #getResponse()} returns (unless timed out).
+ * <p>With a data table consumer, the segments of a server that has not responded can be re-issued to other replicas
+ * with hedged requests (see {@link HedgedRequestPolicy}). The first complete response for the server (from the server
+ * itself, or from all the hedged requests for the server) is consumed, and the other one is ignored.
  */
 @ThreadSafe
 public class AsyncQueryResponse {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncQueryResponse.class);
+
   private final QueryRouter _queryRouter;
   private final long _requestId;
+  private final BiConsumer<Server, DataTable> _dataTableConsumer;
+  private final String _offlineTableName;
   private final ConcurrentHashMap<Server, ServerResponse> _responseMap;
   private final CountDownLatch _countDownLatch;
   private final long _maxEndTimeMs;
 
+  // Hedged requests keyed by the server being hedged, and the request id of the hedged requests
+  private final ConcurrentHashMap<Server, HedgedResponse> _hedgedResponseMap = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Long, HedgedResponse> _hedgedRequestIdMap = new ConcurrentHashMap<>();
+  @GuardedBy("this")
+  private boolean _done = false;
+  private volatile Future _hedgeFuture;
+
+  // Consumer tasks waiting to be run, and the number of consumer tasks not finished yet. Only the consumer task that
+  // brings the number from 0 to 1 schedules the draining of the queue, so that the tasks run one at a time.
+  private final Queue<Runnable> _consumerTasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger _numPendingConsumerTasks = new AtomicInteger();
+
   public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<Server> serversQueried, long startTimeMs,
       long timeoutMs) {
+    this(queryRouter, requestId, serversQueried, startTimeMs, timeoutMs, null, null);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param queryRouter Query router that sent the requests
+   * @param requestId Request id
+   * @param serversQueried Servers queried
+   * @param startTimeMs Start time of the query in milliseconds
+   * @param timeoutMs Query timeout in milliseconds
+   * @param dataTableConsumer Consumer of the data tables as soon as they are received, or null to not consume them
+   * @param offlineTableName Name of the OFFLINE table queried (with type suffix), or null if not queried
+   */
+  public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<Server> serversQueried, long startTimeMs,
+      long timeoutMs, @Nullable BiConsumer<Server, DataTable> dataTableConsumer, @Nullable String offlineTableName) {
     _queryRouter = queryRouter;
     _requestId = requestId;
+    _dataTableConsumer = dataTableConsumer;
+    _offlineTableName = offlineTableName;
     int numServersQueried = serversQueried.size();
     _responseMap = new ConcurrentHashMap<>(numServersQueried);
     for (Server server : serversQueried) {
@@ -58,6 +115,46 @@ public class AsyncQueryResponse {
       return _responseMap;
     } finally {
       _queryRouter.markQueryDone(_requestId);
+      markDone();
+      recordUnfinishedRequests();
+    }
+  }
+
+  /**
+   * Marks the query done so that no more hedged request is sent, and cleans up the hedged requests.
+   */
+  private void markDone() {
+    Future hedgeFuture = _hedgeFuture;
+    if (hedgeFuture != null) {
+      hedgeFuture.cancel(false);
+    }
+    synchronized (this) {
+      _done = true;
+    }
+    for (Long hedgedRequestId : _hedgedRequestIdMap.keySet()) {
+      _queryRouter.markQueryDone(hedgedRequestId);
+    }
+  }
+
+  /**
+   * Records the requests to the servers that have not responded as finished, with the time elapsed since the request
+   * was submitted as the latency, so that the slow servers are penalized.
+   */
+  private void recordUnfinishedRequests() {
+    ServerLoadTracker serverLoadTracker = _queryRouter.getServerLoadTracker();
+    if (serverLoadTracker != null) {
+      long currentTimeMs = System.currentTimeMillis();
+      for (Map.Entry<Server, ServerResponse> entry : _responseMap.entrySet()) {
+        ServerResponse serverResponse = entry.getValue();
+        long submitRequestTimeMs = serverResponse.getSubmitRequestTimeMs();
+        if (submitRequestTimeMs != 0 && serverResponse.markRequestFinished()) {
+          serverLoadTracker.recordRequestFinished(entry.getKey().getInstanceName(),
+              currentTimeMs - submitRequestTimeMs);
+        }
+      }
+      for (HedgedResponse hedgedResponse : _hedgedResponseMap.values()) {
+        hedgedResponse.recordUnfinishedRequests(serverLoadTracker, currentTimeMs);
+      }
     }
   }
 
@@ -70,17 +167,202 @@ public class AsyncQueryResponse {
         new StringBuilder("(Server=SubmitDelayMs,ResponseDelayMs,ResponseSize,DeserializationTimeMs)");
     for (Map.Entry<Server, ServerResponse> entry : _responseMap.entrySet()) {
       stringBuilder.append(';').append(entry.getKey().getShortName()).append('=').append(entry.getValue().toString());
+      if (entry.getValue().isRespondedByHedgedRequest()) {
+        stringBuilder.append("(hedged)");
+      }
     }
     return stringBuilder.toString();
   }
 
+  long getRequestId() {
+    return _requestId;
+  }
+
+  boolean hasDataTableConsumer() {
+    return _dataTableConsumer != null;
+  }
+
+  void setHedgeFuture(Future hedgeFuture) {
+    _hedgeFuture = hedgeFuture;
+  }
+
   void markRequestSubmitted(Server server) {
     _responseMap.get(server).markRequestSubmitted();
+    ServerLoadTracker serverLoadTracker = _queryRouter.getServerLoadTracker();
+    if (serverLoadTracker != null) {
+      serverLoadTracker.recordRequestSent(server.getInstanceName());
+    }
+  }
+
+  /**
+   * Returns the servers that have not responded and are not hedged yet.
+   */
+  List<Server> getServersToHedge() {
+    List<Server> serversToHedge = new ArrayList<>();
+    for (Map.Entry<Server, ServerResponse> entry : _responseMap.entrySet()) {
+      Server server = entry.getKey();
+      if (!entry.getValue().isResponded() && !_hedgedResponseMap.containsKey(server)) {
+        serversToHedge.add(server);
+      }
+    }
+    return serversToHedge;
+  }
+
+  /**
+   * Registers the hedged requests (map from request id to server) for the given server, returns {@code false} if the
+   * query is already done.
+   */
+  synchronized boolean addHedgedRequests(String rawTableName, Server hedgedServer, Map<Long, Server> hedgedRequests) {
+    if (_done) {
+      return false;
+    }
+    HedgedResponse hedgedResponse = new HedgedResponse(rawTableName, hedgedServer, hedgedRequests);
+    _hedgedResponseMap.put(hedgedServer, hedgedResponse);
+    for (Long hedgedRequestId : hedgedRequests.keySet()) {
+      _hedgedRequestIdMap.put(hedgedRequestId, hedgedResponse);
+      _queryRouter.registerHedgedRequest(hedgedRequestId, this);
+    }
+    return true;
+  }
+
+  void markHedgedRequestSubmitted(long hedgedRequestId) {
+    HedgedResponse hedgedResponse = _hedgedRequestIdMap.get(hedgedRequestId);
+    if (hedgedResponse != null) {
+      Server server = hedgedResponse.markRequestSubmitted(hedgedRequestId);
+      ServerLoadTracker serverLoadTracker = _queryRouter.getServerLoadTracker();
+      if (serverLoadTracker != null) {
+        serverLoadTracker.recordRequestSent(server.getInstanceName());
+      }
+    }
+  }
+
+  void markHedgedRequestFailed(long hedgedRequestId) {
+    HedgedResponse hedgedResponse = _hedgedRequestIdMap.get(hedgedRequestId);
+    if (hedgedResponse != null) {
+      hedgedResponse.markFailed();
+      failIfServerDown(hedgedResponse._hedgedServer);
+    }
   }
 
   void receiveDataTable(Server server, DataTable dataTable, long responseSize, long deserializationTimeMs) {
-    _responseMap.get(server).receiveDataTable(dataTable, responseSize, deserializationTimeMs);
-    _countDownLatch.countDown();
+    ServerResponse serverResponse = _responseMap.get(server);
+    long submitRequestTimeMs = serverResponse.getSubmitRequestTimeMs();
+    // NOTE: the data table might be received before the request is marked submitted, in which case the latency is
+    // unknown and should not be recorded
+    long latencyMs = submitRequestTimeMs != 0 ? System.currentTimeMillis() - submitRequestTimeMs : -1;
+    ServerLoadTracker serverLoadTracker = _queryRouter.getServerLoadTracker();
+    if (serverLoadTracker != null && serverResponse.markRequestFinished()) {
+      recordRequestFinished(serverLoadTracker, server, latencyMs);
+    }
+    HedgedRequestPolicy hedgedRequestPolicy = _queryRouter.getHedgedRequestPolicy();
+    if (hedgedRequestPolicy != null && server.getTableType() == TableType.OFFLINE && latencyMs >= 0) {
+      hedgedRequestPolicy.recordLatencyMs(_offlineTableName, latencyMs);
+    }
+
+    // Ignore the data table if the hedged requests already responded
+    if (!serverResponse.markResponded()) {
+      return;
+    }
+    if (_dataTableConsumer != null) {
+      // Consume the data table before counting down so that it is consumed before the query is done
+      runConsumer(() -> {
+        consumeDataTable(server, dataTable);
+        serverResponse.receiveDataTable(null, responseSize, deserializationTimeMs);
+        _countDownLatch.countDown();
+      });
+    } else {
+      serverResponse.receiveDataTable(dataTable, responseSize, deserializationTimeMs);
+      _countDownLatch.countDown();
+    }
+  }
+
+  void receiveHedgedDataTable(long hedgedRequestId, Server server, DataTable dataTable, long responseSize,
+      long deserializationTimeMs) {
+    HedgedResponse hedgedResponse = _hedgedRequestIdMap.get(hedgedRequestId);
+    if (hedgedResponse == null) {
+      return;
+    }
+    ServerLoadTracker serverLoadTracker = _queryRouter.getServerLoadTracker();
+    boolean allResponded =
+        hedgedResponse.receiveDataTable(hedgedRequestId, dataTable, responseSize, deserializationTimeMs,
+            serverLoadTracker);
+
+    // Consume the data tables from the hedged requests only if all of them responded before the hedged server
+    ServerResponse serverResponse = _responseMap.get(hedgedResponse._hedgedServer);
+    if (allResponded && serverResponse.markResponded()) {
+      // Same as the data tables from the original requests, consume them before counting down
+      runConsumer(() -> {
+        long totalResponseSize = 0;
+        long totalDeserializationTimeMs = 0;
+        for (HedgedRequest hedgedRequest : hedgedResponse._hedgedRequests.values()) {
+          consumeDataTable(hedgedRequest._server, hedgedRequest._dataTable);
+          hedgedRequest._dataTable = null;
+          totalResponseSize += hedgedRequest._responseSize;
+          totalDeserializationTimeMs += hedgedRequest._deserializationTimeMs;
+        }
+        serverResponse.receiveHedgedDataTables(totalResponseSize, totalDeserializationTimeMs);
+        _queryRouter.markHedgedServerWon(hedgedResponse._rawTableName);
+        _countDownLatch.countDown();
+      });
+    }
+  }
+
+  /**
+   * Records the finished request to the server load tracker, where negative latency means the latency is unknown.
+   */
+  private static void recordRequestFinished(ServerLoadTracker serverLoadTracker, Server server, long latencyMs) {
+    if (latencyMs >= 0) {
+      serverLoadTracker.recordRequestFinished(server.getInstanceName(), latencyMs);
+    } else {
+      serverLoadTracker.recordRequestFinished(server.getInstanceName());
+    }
+  }
+
+  /**
+   * Runs the data table consumer task after the previous ones for the query, on the data table consumer executor if
+   * configured, or on the current thread otherwise (or if the executor rejects the task).
+   * <p>NOTE: instead of blocking the executor threads on the consumer, the task is queued, and the queue is drained by
+   * a single task so that the other data tables of the query do not hold executor threads while waiting.
+   */
+  private void runConsumer(Runnable consumerTask) {
+    _consumerTasks.add(consumerTask);
+    if (_numPendingConsumerTasks.getAndIncrement() != 0) {
+      // The queue is being drained
+      return;
+    }
+    Executor executor = _queryRouter.getDataTableConsumerExecutor();
+    if (executor != null) {
+      try {
+        executor.execute(this::drainConsumerTasks);
+        return;
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("Data table consumer task for request {} is rejected, consuming on the current thread",
+            _requestId);
+      }
+    }
+    drainConsumerTasks();
+  }
+
+  /**
+   * Runs the queued consumer tasks one at a time until there is no pending one.
+   */
+  private void drainConsumerTasks() {
+    do {
+      try {
+        _consumerTasks.poll().run();
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while running data table consumer task for request {}", _requestId, e);
+      }
+    } while (_numPendingConsumerTasks.decrementAndGet() != 0);
+  }
+
+  private void consumeDataTable(Server server, DataTable dataTable) {
+    try {
+      _dataTableConsumer.accept(server, dataTable);
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while consuming data table for request {} from server: {}", _requestId, server,
+          e);
+    }
   }
 
   void markQueryFailed() {
@@ -92,12 +374,131 @@ public class AsyncQueryResponse {
 
   /**
    * NOTE: the server might not be hit by the query. Only fail the query if the query was sent to the server and the
-   * server hasn't responded yet.
+   * server hasn't responded yet, and the server is not hedged by other servers.
    */
   void markServerDown(Server server) {
     ServerResponse serverResponse = _responseMap.get(server);
-    if (serverResponse != null && serverResponse.getDataTable() == null) {
-      markQueryFailed();
+    if (serverResponse != null) {
+      serverResponse.markServerDown();
+      failIfServerDown(server);
+    }
+    for (HedgedResponse hedgedResponse : _hedgedResponseMap.values()) {
+      if (hedgedResponse.markServerDown(server)) {
+        failIfServerDown(hedgedResponse._hedgedServer);
+      }
+    }
+  }
+
+  /**
+   * Fails the query if the given server is down without response, and cannot be covered by the hedged requests.
+   */
+  private void failIfServerDown(Server server) {
+    ServerResponse serverResponse = _responseMap.get(server);
+    if (serverResponse.isServerDown() && !serverResponse.isResponded()) {
+      HedgedResponse hedgedResponse = _hedgedResponseMap.get(server);
+      if (hedgedResponse == null || hedgedResponse.isFailed()) {
+        markQueryFailed();
+      }
+    }
+  }
+
+  /**
+   * Hedged requests for a server, which respond for the server only when all of them responded.
+   */
+  private static class HedgedResponse {
+    final String _rawTableName;
+    final Server _hedgedServer;
+    final Map<Long, HedgedRequest> _hedgedRequests;
+    int _numPendingRequests;
+    volatile boolean _failed;
+
+    HedgedResponse(String rawTableName, Server hedgedServer, Map<Long, Server> hedgedRequests) {
+      _rawTableName = rawTableName;
+      _hedgedServer = hedgedServer;
+      _hedgedRequests = new HashMap<>(hedgedRequests.size());
+      for (Map.Entry<Long, Server> entry : hedgedRequests.entrySet()) {
+        _hedgedRequests.put(entry.getKey(), new HedgedRequest(entry.getValue()));
+      }
+      _numPendingRequests = hedgedRequests.size();
+    }
+
+    synchronized Server markRequestSubmitted(long hedgedRequestId) {
+      HedgedRequest hedgedRequest = _hedgedRequests.get(hedgedRequestId);
+      hedgedRequest._submitRequestTimeMs = System.currentTimeMillis();
+      return hedgedRequest._server;
+    }
+
+    /**
+     * Returns {@code true} if all the hedged requests responded.
+     */
+    synchronized boolean receiveDataTable(long hedgedRequestId, DataTable dataTable, long responseSize,
+        long deserializationTimeMs, @Nullable ServerLoadTracker serverLoadTracker) {
+      HedgedRequest hedgedRequest = _hedgedRequests.get(hedgedRequestId);
+      if (hedgedRequest._responded) {
+        return false;
+      }
+      hedgedRequest._responded = true;
+      if (serverLoadTracker != null) {
+        long latencyMs =
+            hedgedRequest._submitRequestTimeMs != 0 ? System.currentTimeMillis() - hedgedRequest._submitRequestTimeMs
+                : -1;
+        recordRequestFinished(serverLoadTracker, hedgedRequest._server, latencyMs);
+      }
+      if (_failed) {
+        return false;
+      }
+      hedgedRequest._dataTable = dataTable;
+      hedgedRequest._responseSize = responseSize;
+      hedgedRequest._deserializationTimeMs = deserializationTimeMs;
+      return --_numPendingRequests == 0;
+    }
+
+    synchronized void recordUnfinishedRequests(ServerLoadTracker serverLoadTracker, long currentTimeMs) {
+      for (HedgedRequest hedgedRequest : _hedgedRequests.values()) {
+        if (!hedgedRequest._responded && hedgedRequest._submitRequestTimeMs != 0) {
+          hedgedRequest._responded = true;
+          serverLoadTracker.recordRequestFinished(hedgedRequest._server.getInstanceName(),
+              currentTimeMs - hedgedRequest._submitRequestTimeMs);
+        }
+      }
+    }
+
+    synchronized void markFailed() {
+      _failed = true;
+    }
+
+    boolean isFailed() {
+      return _failed;
+    }
+
+    /**
+     * Marks the hedged requests failed if any of them is sent to the given server and has not responded, returns
+     * {@code true} if the hedged requests are failed because of the server down.
+     */
+    synchronized boolean markServerDown(Server server) {
+      if (_failed) {
+        return false;
+      }
+      for (HedgedRequest hedgedRequest : _hedgedRequests.values()) {
+        if (hedgedRequest._server.equals(server) && !hedgedRequest._responded) {
+          markFailed();
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class HedgedRequest {
+    final Server _server;
+    long _submitRequestTimeMs;
+    boolean _responded;
+    DataTable _dataTable;
+    long _responseSize;
+    long _deserializationTimeMs;
+
+    HedgedRequest(Server server) {
+      _server = server;
     }
   }
 }
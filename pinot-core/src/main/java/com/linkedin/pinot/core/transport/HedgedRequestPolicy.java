@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.transport;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The {@code HedgedRequestPolicy} class decides when to send hedged requests for the servers that have not responded,
+ * and provides the replicas of the segments to send the hedged requests to.
+ * <p>The hedged requests are sent after the configured percentile of the recent response latencies of the table
+ * (bounded by the minimum delay), so that only the stragglers are hedged. The latencies are tracked per table because
+ * the latencies of different tables can be orders of magnitude apart. No hedged request is sent for a table until
+ * enough latencies are recorded for it.
+ */
+@ThreadSafe
+public class HedgedRequestPolicy {
+  public static final double DEFAULT_LATENCY_PERCENTILE = 95;
+  public static final long DEFAULT_MIN_DELAY_MS = 10L;
+
+  // Number of recent latencies to compute the percentile from
+  private static final int LATENCY_WINDOW_SIZE = 1000;
+  // Minimum number of latencies recorded before sending hedged requests
+  private static final int MIN_NUM_LATENCIES = 100;
+  // Number of latencies recorded between two updates of the delay
+  private static final int DELAY_UPDATE_INTERVAL = 100;
+
+  private final double _latencyPercentile;
+  private final long _minDelayMs;
+  private final Function<String, Map<String, List<String>>> _segmentToServersMapProvider;
+  private final ConcurrentHashMap<String, LatencyWindow> _latencyWindowMap = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for the class.
+   *
+   * @param latencyPercentile Percentile of the recent response latencies to wait before sending hedged requests, in
+   *                          range (0, 100]
+   * @param minDelayMs Minimum delay in milliseconds before sending hedged requests
+   * @param segmentToServersMapProvider Provider of the map from segment to the servers hosting the segment for a table
+   *                                    (with type suffix), returns {@code null} if not available
+   */
+  public HedgedRequestPolicy(double latencyPercentile, long minDelayMs,
+      Function<String, Map<String, List<String>>> segmentToServersMapProvider) {
+    Preconditions.checkArgument(latencyPercentile > 0 && latencyPercentile <= 100, "Invalid latency percentile: %s",
+        latencyPercentile);
+    Preconditions.checkArgument(minDelayMs >= 0, "Invalid min delay: %s", minDelayMs);
+    _latencyPercentile = latencyPercentile;
+    _minDelayMs = minDelayMs;
+    _segmentToServersMapProvider = segmentToServersMapProvider;
+  }
+
+  /**
+   * Records the response latency of a server for the given table (with type suffix).
+   */
+  public void recordLatencyMs(String tableNameWithType, long latencyMs) {
+    _latencyWindowMap.computeIfAbsent(tableNameWithType, k -> new LatencyWindow()).recordLatencyMs(latencyMs);
+  }
+
+  /**
+   * Returns the delay in milliseconds before sending hedged requests for the given table (with type suffix), or -1 if
+   * not enough latencies are recorded.
+   */
+  public long getDelayMs(String tableNameWithType) {
+    LatencyWindow latencyWindow = _latencyWindowMap.get(tableNameWithType);
+    return latencyWindow != null ? latencyWindow.getDelayMs() : -1L;
+  }
+
+  /**
+   * Returns the map from segment to the servers hosting the segment for the given table (with type suffix), or
+   * {@code null} if not available.
+   */
+  @Nullable
+  public Map<String, List<String>> getSegmentToServersMap(String tableNameWithType) {
+    return _segmentToServersMapProvider.apply(tableNameWithType);
+  }
+
+  /**
+   * Window of the recent response latencies of a table.
+   */
+  private class LatencyWindow {
+    final long[] _latencies = new long[LATENCY_WINDOW_SIZE];
+    int _numLatencies = 0;
+    int _nextIndex = 0;
+    int _numLatenciesSinceLastUpdate = 0;
+    long _delayMs = -1L;
+
+    synchronized void recordLatencyMs(long latencyMs) {
+      _latencies[_nextIndex] = latencyMs;
+      _nextIndex = (_nextIndex + 1) % LATENCY_WINDOW_SIZE;
+      if (_numLatencies < LATENCY_WINDOW_SIZE) {
+        _numLatencies++;
+      }
+      if (_numLatencies >= MIN_NUM_LATENCIES && (_delayMs < 0
+          || ++_numLatenciesSinceLastUpdate >= DELAY_UPDATE_INTERVAL)) {
+        long[] latencies = Arrays.copyOf(_latencies, _numLatencies);
+        Arrays.sort(latencies);
+        int index = (int) Math.ceil(_latencyPercentile / 100 * _numLatencies) - 1;
+        _delayMs = Math.max(latencies[Math.max(index, 0)], _minDelayMs);
+        _numLatenciesSinceLastUpdate = 0;
+      }
+    }
+
+    synchronized long getDelayMs() {
+      return _delayMs;
+    }
+  }
+}
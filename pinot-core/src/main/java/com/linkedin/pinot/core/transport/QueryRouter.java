@@ -21,10 +21,18 @@ import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.InstanceRequest;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.common.utils.DataTable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.slf4j.Logger;
@@ -35,6 +43,11 @@ import org.slf4j.LoggerFactory;
  * The {@code QueryRouter} class provides methods to route the query based on the routing table, and returns a
  * {@link AsyncQueryResponse} so that caller can handle the query response asynchronously.
  * <p>It works on {@link ServerChannels} which maintains only a single connection between the broker and each server.
+ * <p>If a {@link HedgedRequestPolicy} is provided, the segments of the OFFLINE servers that have not responded after
+ * the delay decided by the policy are re-issued to other replicas as hedged requests. The hedged requests use negative
+ * request ids so that they can be distinguished from the original requests. If the server load is tracked, a server is
+ * only hedged when the replicas to re-issue its segments to are less loaded than the server itself, so that hedging
+ * does not pile more load onto a cluster that is uniformly slow (the request to the hedged server cannot be cancelled).
  */
 @ThreadSafe
 public class QueryRouter {
@@ -42,12 +55,52 @@ public class QueryRouter {
 
   private final String _brokerId;
   private final BrokerMetrics _brokerMetrics;
+  private final ServerLoadTracker _serverLoadTracker;
+  private final HedgedRequestPolicy _hedgedRequestPolicy;
+  private final Executor _dataTableConsumerExecutor;
+  private final ScheduledExecutorService _hedgeExecutor;
+  private final AtomicLong _hedgedRequestIdGenerator = new AtomicLong();
+  private final Random _random = new Random();
   private final ServerChannels _serverChannels;
   private final ConcurrentHashMap<Long, AsyncQueryResponse> _asyncQueryResponseMap = new ConcurrentHashMap<>();
 
   public QueryRouter(String brokerId, BrokerMetrics brokerMetrics) {
+    this(brokerId, brokerMetrics, null);
+  }
+
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, @Nullable ServerLoadTracker serverLoadTracker) {
+    this(brokerId, brokerMetrics, serverLoadTracker, null);
+  }
+
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, @Nullable ServerLoadTracker serverLoadTracker,
+      @Nullable HedgedRequestPolicy hedgedRequestPolicy) {
+    this(brokerId, brokerMetrics, serverLoadTracker, hedgedRequestPolicy, null);
+  }
+
+  /**
+   * If the server load tracker is provided, the load of each server (in-flight requests and response latency) is
+   * recorded into the tracker.
+   * <p>If the hedged request policy is provided, hedged requests are sent for the straggler servers.
+   * <p>If the data table consumer executor is provided, the data tables are passed to the data table consumer on the
+   * executor instead of the network thread, so that merging the data tables does not block reading the responses
+   * from the other servers.
+   */
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, @Nullable ServerLoadTracker serverLoadTracker,
+      @Nullable HedgedRequestPolicy hedgedRequestPolicy, @Nullable Executor dataTableConsumerExecutor) {
     _brokerId = brokerId;
     _brokerMetrics = brokerMetrics;
+    _serverLoadTracker = serverLoadTracker;
+    _hedgedRequestPolicy = hedgedRequestPolicy;
+    _dataTableConsumerExecutor = dataTableConsumerExecutor;
+    if (hedgedRequestPolicy != null) {
+      _hedgeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "QueryRouterHedgeThread");
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      _hedgeExecutor = null;
+    }
     _serverChannels = new ServerChannels(this, brokerMetrics);
   }
 
@@ -55,16 +108,31 @@ public class QueryRouter {
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
       long timeoutMs) {
+    return submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
+        realtimeRoutingTable, timeoutMs, null);
+  }
+
+  /**
+   * Submits the query, and passes each data table to the given consumer as soon as it is received (see
+   * {@link AsyncQueryResponse}).
+   */
+  public AsyncQueryResponse submitQuery(long requestId, String rawTableName,
+      @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
+      @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
+      long timeoutMs, @Nullable BiConsumer<Server, DataTable> dataTableConsumer) {
     assert offlineBrokerRequest != null || realtimeBrokerRequest != null;
 
     // Build map from server to request based on the routing table
     Map<Server, InstanceRequest> requestMap = new HashMap<>();
+    Map<Server, InstanceRequest> offlineRequestMap = null;
     if (offlineBrokerRequest != null) {
       assert offlineRoutingTable != null;
+      offlineRequestMap = new HashMap<>();
       for (Map.Entry<String, List<String>> entry : offlineRoutingTable.entrySet()) {
         Server server = new Server(entry.getKey(), TableType.OFFLINE);
         InstanceRequest instanceRequest = getInstanceRequest(requestId, offlineBrokerRequest, entry.getValue());
         requestMap.put(server, instanceRequest);
+        offlineRequestMap.put(server, instanceRequest);
       }
     }
     if (realtimeBrokerRequest != null) {
@@ -77,8 +145,14 @@ public class QueryRouter {
     }
 
     // Create the asynchronous query response with the request map
+    // The OFFLINE table name is only needed to track the latencies for the hedged requests
+    String offlineTableName = null;
+    if (_hedgedRequestPolicy != null && offlineBrokerRequest != null) {
+      offlineTableName = offlineBrokerRequest.getQuerySource().getTableName();
+    }
     AsyncQueryResponse asyncQueryResponse =
-        new AsyncQueryResponse(this, requestId, requestMap.keySet(), System.currentTimeMillis(), timeoutMs);
+        new AsyncQueryResponse(this, requestId, requestMap.keySet(), System.currentTimeMillis(), timeoutMs,
+            dataTableConsumer, offlineTableName);
     _asyncQueryResponseMap.put(requestId, asyncQueryResponse);
     for (Map.Entry<Server, InstanceRequest> entry : requestMap.entrySet()) {
       Server server = entry.getKey();
@@ -90,24 +164,174 @@ public class QueryRouter {
             e);
         _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.REQUEST_SEND_EXCEPTIONS, 1);
         asyncQueryResponse.markQueryFailed();
-        break;
+        return asyncQueryResponse;
+      }
+    }
+
+    // Schedule the hedged requests for the OFFLINE servers (consuming the data tables from the hedged requests requires
+    // the data table consumer)
+    if (_hedgedRequestPolicy != null && offlineRequestMap != null && dataTableConsumer != null) {
+      long hedgeDelayMs = _hedgedRequestPolicy.getDelayMs(offlineTableName);
+      if (hedgeDelayMs >= 0 && hedgeDelayMs < timeoutMs) {
+        BrokerRequest brokerRequest = offlineBrokerRequest;
+        Map<Server, InstanceRequest> requestMapToHedge = offlineRequestMap;
+        asyncQueryResponse.setHedgeFuture(_hedgeExecutor.schedule(
+            () -> sendHedgedRequests(asyncQueryResponse, rawTableName, brokerRequest, requestMapToHedge), hedgeDelayMs,
+            TimeUnit.MILLISECONDS));
       }
     }
 
     return asyncQueryResponse;
   }
 
+  /**
+   * Sends the hedged requests for the OFFLINE servers that have not responded. The segments of each server are assigned
+   * to the other replicas hosting them, and the server is skipped if any of its segments has no other replica.
+   */
+  private void sendHedgedRequests(AsyncQueryResponse asyncQueryResponse, String rawTableName,
+      BrokerRequest offlineBrokerRequest, Map<Server, InstanceRequest> offlineRequestMap) {
+    try {
+      List<Server> serversToHedge = asyncQueryResponse.getServersToHedge();
+      if (serversToHedge.isEmpty()) {
+        return;
+      }
+      Map<String, List<String>> segmentToServersMap =
+          _hedgedRequestPolicy.getSegmentToServersMap(offlineBrokerRequest.getQuerySource().getTableName());
+      if (segmentToServersMap == null) {
+        return;
+      }
+      for (Server server : serversToHedge) {
+        InstanceRequest instanceRequest = offlineRequestMap.get(server);
+        if (instanceRequest == null) {
+          continue;
+        }
+        Map<String, List<String>> hedgedRoutingTable =
+            getHedgedRoutingTable(server.getInstanceName(), instanceRequest.getSearchSegments(), segmentToServersMap);
+        if (hedgedRoutingTable == null) {
+          continue;
+        }
+        Map<Long, Server> hedgedRequests = new HashMap<>();
+        Map<Long, InstanceRequest> hedgedInstanceRequests = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : hedgedRoutingTable.entrySet()) {
+          long hedgedRequestId = -_hedgedRequestIdGenerator.incrementAndGet();
+          hedgedRequests.put(hedgedRequestId, new Server(entry.getKey(), TableType.OFFLINE));
+          hedgedInstanceRequests.put(hedgedRequestId,
+              getInstanceRequest(hedgedRequestId, offlineBrokerRequest, entry.getValue()));
+        }
+        if (!asyncQueryResponse.addHedgedRequests(rawTableName, server, hedgedRequests)) {
+          // Query already done
+          return;
+        }
+        _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.HEDGED_SERVERS, 1);
+        for (Map.Entry<Long, InstanceRequest> entry : hedgedInstanceRequests.entrySet()) {
+          long hedgedRequestId = entry.getKey();
+          Server hedgedServer = hedgedRequests.get(hedgedRequestId);
+          try {
+            _serverChannels.sendRequest(hedgedServer, entry.getValue());
+            asyncQueryResponse.markHedgedRequestSubmitted(hedgedRequestId);
+          } catch (Exception e) {
+            LOGGER.warn("Caught exception while sending hedged request {} for request {} to server: {}",
+                hedgedRequestId, asyncQueryResponse.getRequestId(), hedgedServer, e);
+            _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.REQUEST_SEND_EXCEPTIONS, 1);
+            asyncQueryResponse.markHedgedRequestFailed(hedgedRequestId);
+            break;
+          }
+        }
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while sending hedged requests for request {}", asyncQueryResponse.getRequestId(),
+          e);
+    }
+  }
+
+  /**
+   * Returns the routing table to re-issue the given segments of the given server to the other replicas, or
+   * {@code null} if any of the segments has no other replica, or no other replica is less loaded than the server if the
+   * server load is tracked.
+   * <p>The replicas already picked are preferred to limit the number of hedged requests, then the least loaded replica
+   * if the server load is tracked, or a random replica otherwise.
+   */
+  @Nullable
+  private Map<String, List<String>> getHedgedRoutingTable(String instanceName, List<String> segments,
+      Map<String, List<String>> segmentToServersMap) {
+    double maxLoadScore = _serverLoadTracker != null ? _serverLoadTracker.getLoadScore(instanceName) : Double.MAX_VALUE;
+    Map<String, List<String>> hedgedRoutingTable = new HashMap<>();
+    for (String segment : segments) {
+      List<String> servers = segmentToServersMap.get(segment);
+      if (servers == null) {
+        return null;
+      }
+      String selectedServer = null;
+      for (String server : servers) {
+        if (hedgedRoutingTable.containsKey(server)) {
+          selectedServer = server;
+          break;
+        }
+      }
+      if (selectedServer == null) {
+        int numServers = servers.size();
+        int offset = _random.nextInt(numServers);
+        double minLoadScore = maxLoadScore;
+        for (int i = 0; i < numServers; i++) {
+          String server = servers.get((offset + i) % numServers);
+          if (!server.equals(instanceName)) {
+            double loadScore = _serverLoadTracker != null ? _serverLoadTracker.getLoadScore(server) : 1;
+            if (loadScore < minLoadScore) {
+              selectedServer = server;
+              minLoadScore = loadScore;
+            }
+          }
+        }
+        if (selectedServer == null) {
+          return null;
+        }
+      }
+      hedgedRoutingTable.computeIfAbsent(selectedServer, k -> new ArrayList<>()).add(segment);
+    }
+    return hedgedRoutingTable;
+  }
+
   public void shutDown() {
+    if (_hedgeExecutor != null) {
+      _hedgeExecutor.shutdownNow();
+    }
     _serverChannels.shutDown();
   }
 
+  @Nullable
+  ServerLoadTracker getServerLoadTracker() {
+    return _serverLoadTracker;
+  }
+
+  @Nullable
+  HedgedRequestPolicy getHedgedRequestPolicy() {
+    return _hedgedRequestPolicy;
+  }
+
+  @Nullable
+  Executor getDataTableConsumerExecutor() {
+    return _dataTableConsumerExecutor;
+  }
+
+  void registerHedgedRequest(long hedgedRequestId, AsyncQueryResponse asyncQueryResponse) {
+    _asyncQueryResponseMap.put(hedgedRequestId, asyncQueryResponse);
+  }
+
+  void markHedgedServerWon(String rawTableName) {
+    _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.HEDGED_SERVERS_WON, 1);
+  }
+
   void receiveDataTable(Server server, DataTable dataTable, long responseSize, long deserializationTimeMs) {
     long requestId = Long.parseLong(dataTable.getMetadata().get(DataTable.REQUEST_ID_METADATA_KEY));
     AsyncQueryResponse asyncQueryResponse = _asyncQueryResponseMap.get(requestId);
 
     // Query future might be null if the query is already done (maybe due to failure)
     if (asyncQueryResponse != null) {
-      asyncQueryResponse.receiveDataTable(server, dataTable, responseSize, deserializationTimeMs);
+      if (requestId == asyncQueryResponse.getRequestId()) {
+        asyncQueryResponse.receiveDataTable(server, dataTable, responseSize, deserializationTimeMs);
+      } else {
+        asyncQueryResponse.receiveHedgedDataTable(requestId, server, dataTable, responseSize, deserializationTimeMs);
+      }
     }
   }
 
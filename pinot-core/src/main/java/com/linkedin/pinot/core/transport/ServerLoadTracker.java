@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.transport;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.metrics.BrokerGauge;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The {@code ServerLoadTracker} class tracks the load of each server based on the queries routed to it: the exponential
+ * weighted moving average (EWMA) of the response latency and the number of in-flight requests.
+ * <p>The load score of a server is {@code (numInFlightRequests + 1) * (ewmaLatencyMs + 1)}. Lower score means less
+ * loaded server. Servers without any latency recorded yet (e.g. newly added servers) take the mean EWMA latency of the
+ * other servers, so that they are not considered as the least loaded servers and flooded with requests before their
+ * actual latency is known.
+ * <p>Servers are identified by the instance name, so that the same server serving both OFFLINE and REALTIME tables is
+ * counted as one.
+ */
+@ThreadSafe
+public class ServerLoadTracker {
+  public static final double DEFAULT_EWMA_ALPHA = 0.3;
+
+  private final double _ewmaAlpha;
+  private final ConcurrentHashMap<String, ServerLoad> _serverLoadMap = new ConcurrentHashMap<>();
+
+  // Running sum of the EWMA latency of the servers with latency recorded, and the number of such servers. The mean of
+  // them is used for the servers without latency recorded.
+  private final DoubleAdder _sumEwmaLatencyMs = new DoubleAdder();
+  private final AtomicInteger _numServersWithLatency = new AtomicInteger();
+
+  public ServerLoadTracker() {
+    this(DEFAULT_EWMA_ALPHA);
+  }
+
+  /**
+   * @param ewmaAlpha Weight of the latest latency in the EWMA latency, in range (0, 1]
+   */
+  public ServerLoadTracker(double ewmaAlpha) {
+    Preconditions.checkArgument(ewmaAlpha > 0 && ewmaAlpha <= 1, "Invalid EWMA alpha: %s", ewmaAlpha);
+    _ewmaAlpha = ewmaAlpha;
+  }
+
+  /**
+   * Records a request sent to the server.
+   */
+  public void recordRequestSent(String instanceName) {
+    getServerLoad(instanceName).requestSent();
+  }
+
+  /**
+   * Records a finished request (responded, or timed out with the time elapsed as the latency).
+   */
+  public void recordRequestFinished(String instanceName, long latencyMs) {
+    getServerLoad(instanceName).requestFinished(latencyMs);
+  }
+
+  /**
+   * Records a finished request without a known latency (e.g. the response is received before the request is marked
+   * submitted), which only updates the number of in-flight requests but not the EWMA latency.
+   */
+  public void recordRequestFinished(String instanceName) {
+    getServerLoad(instanceName).requestFinished();
+  }
+
+  /**
+   * Returns the load score of the server, lower score means less loaded server.
+   */
+  public double getLoadScore(String instanceName) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceName);
+    double meanEwmaLatencyMs = getMeanEwmaLatencyMs();
+    return serverLoad != null ? serverLoad.getLoadScore(meanEwmaLatencyMs) : meanEwmaLatencyMs + 1;
+  }
+
+  /**
+   * Returns the EWMA latency of the server in milliseconds, or -1 if no latency recorded.
+   */
+  public double getEwmaLatencyMs(String instanceName) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceName);
+    return serverLoad != null ? serverLoad.getEwmaLatencyMs() : -1;
+  }
+
+  /**
+   * Returns the mean EWMA latency in milliseconds of the servers with latency recorded, or 0 if no latency recorded.
+   */
+  public double getMeanEwmaLatencyMs() {
+    // NOTE: the sum is updated before the number of servers, read the number of servers first
+    int numServersWithLatency = _numServersWithLatency.get();
+    return numServersWithLatency > 0 ? Math.max(_sumEwmaLatencyMs.sum(), 0) / numServersWithLatency : 0;
+  }
+
+  /**
+   * Returns the number of in-flight requests of the server.
+   */
+  public int getNumInFlightRequests(String instanceName) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceName);
+    return serverLoad != null ? serverLoad.getNumInFlightRequests() : 0;
+  }
+
+  /**
+   * Registers the global gauges of the server load to the given broker metrics. The gauges are aggregated across all
+   * the servers to keep the metric cardinality bounded.
+   */
+  public void registerGauges(BrokerMetrics brokerMetrics) {
+    brokerMetrics.addCallbackGauge(BrokerGauge.SERVER_LOAD_MEAN_EWMA_LATENCY_MS.getGaugeName(),
+        () -> Math.round(getMeanEwmaLatencyMs()));
+    brokerMetrics.addCallbackGauge(BrokerGauge.SERVER_LOAD_MAX_EWMA_LATENCY_MS.getGaugeName(), () -> {
+      double maxEwmaLatencyMs = 0;
+      for (ServerLoad serverLoad : _serverLoadMap.values()) {
+        maxEwmaLatencyMs = Math.max(maxEwmaLatencyMs, serverLoad.getEwmaLatencyMs());
+      }
+      return Math.round(maxEwmaLatencyMs);
+    });
+    brokerMetrics.addCallbackGauge(BrokerGauge.SERVER_LOAD_MAX_LOAD_SCORE.getGaugeName(), () -> {
+      double meanEwmaLatencyMs = getMeanEwmaLatencyMs();
+      double maxLoadScore = 0;
+      for (ServerLoad serverLoad : _serverLoadMap.values()) {
+        maxLoadScore = Math.max(maxLoadScore, serverLoad.getLoadScore(meanEwmaLatencyMs));
+      }
+      return Math.round(maxLoadScore);
+    });
+    brokerMetrics.addCallbackGauge(BrokerGauge.SERVER_LOAD_IN_FLIGHT_REQUESTS.getGaugeName(), () -> {
+      long numInFlightRequests = 0;
+      for (ServerLoad serverLoad : _serverLoadMap.values()) {
+        numInFlightRequests += Math.max(serverLoad.getNumInFlightRequests(), 0);
+      }
+      return numInFlightRequests;
+    });
+  }
+
+  private ServerLoad getServerLoad(String instanceName) {
+    return _serverLoadMap.computeIfAbsent(instanceName, k -> new ServerLoad());
+  }
+
+  private class ServerLoad {
+    private int _numInFlightRequests = 0;
+    private double _ewmaLatencyMs = -1;
+
+    synchronized void requestSent() {
+      _numInFlightRequests++;
+    }
+
+    synchronized void requestFinished() {
+      _numInFlightRequests--;
+    }
+
+    synchronized void requestFinished(long latencyMs) {
+      _numInFlightRequests--;
+      if (_ewmaLatencyMs < 0) {
+        _ewmaLatencyMs = latencyMs;
+        _sumEwmaLatencyMs.add(latencyMs);
+        _numServersWithLatency.getAndIncrement();
+      } else {
+        double ewmaLatencyMs = _ewmaAlpha * latencyMs + (1 - _ewmaAlpha) * _ewmaLatencyMs;
+        _sumEwmaLatencyMs.add(ewmaLatencyMs - _ewmaLatencyMs);
+        _ewmaLatencyMs = ewmaLatencyMs;
+      }
+    }
+
+    synchronized double getLoadScore(double defaultEwmaLatencyMs) {
+      // NOTE: the response might be received before the request is recorded as sent, so the number of in-flight
+      // requests can be temporarily negative
+      double ewmaLatencyMs = _ewmaLatencyMs >= 0 ? _ewmaLatencyMs : defaultEwmaLatencyMs;
+      return (Math.max(_numInFlightRequests, 0) + 1) * (ewmaLatencyMs + 1);
+    }
+
+    synchronized double getEwmaLatencyMs() {
+      return _ewmaLatencyMs;
+    }
+
+    synchronized int getNumInFlightRequests() {
+      return _numInFlightRequests;
+    }
+  }
+}
@@ -16,6 +16,8 @@
 package com.linkedin.pinot.core.transport;
 
 import com.linkedin.pinot.common.utils.DataTable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 
@@ -30,15 +32,28 @@ public class ServerResponse {
   private volatile DataTable _dataTable;
   private volatile long _responseSize;
   private volatile long _deserializationTimeMs;
+  private final AtomicBoolean _finished = new AtomicBoolean();
+  private final AtomicBoolean _responded = new AtomicBoolean();
+  private volatile boolean _respondedByHedgedRequest;
+  private volatile boolean _serverDown;
 
   public ServerResponse(long startTimeMs) {
     _startTimeMs = startTimeMs;
   }
 
+  /**
+   * Returns the data table received from the server, or {@code null} if the data table is not received or is already
+   * consumed when received (see {@link AsyncQueryResponse}).
+   */
+  @Nullable
   public DataTable getDataTable() {
     return _dataTable;
   }
 
+  public boolean isDataTableReceived() {
+    return _receiveDataTabTimeMs != 0;
+  }
+
   public long getSubmitDelayMs() {
     if (_submitRequestTimeMs != 0) {
       return _submitRequestTimeMs - _startTimeMs;
@@ -55,6 +70,14 @@ public class ServerResponse {
     }
   }
 
+  /**
+   * Returns whether the response is received from the hedged request instead of the server (see
+   * {@link HedgedRequestPolicy}).
+   */
+  public boolean isRespondedByHedgedRequest() {
+    return _respondedByHedgedRequest;
+  }
+
   public long getResponseSize() {
     return _responseSize;
   }
@@ -73,10 +96,47 @@ public class ServerResponse {
     _submitRequestTimeMs = System.currentTimeMillis();
   }
 
-  void receiveDataTable(DataTable dataTable, long responseSize, long deserializationTimeMs) {
-    _receiveDataTabTimeMs = System.currentTimeMillis();
+  long getSubmitRequestTimeMs() {
+    return _submitRequestTimeMs;
+  }
+
+  /**
+   * Marks the request to the server finished (responded or given up), returns {@code true} for the first call only so
+   * that the request is recorded as finished exactly once.
+   */
+  boolean markRequestFinished() {
+    return _finished.compareAndSet(false, true);
+  }
+
+  /**
+   * Marks the response for the server received, either from the server or from the hedged request, returns
+   * {@code true} for the first call only so that only the first response is taken.
+   */
+  boolean markResponded() {
+    return _responded.compareAndSet(false, true);
+  }
+
+  boolean isResponded() {
+    return _responded.get();
+  }
+
+  void markServerDown() {
+    _serverDown = true;
+  }
+
+  boolean isServerDown() {
+    return _serverDown;
+  }
+
+  void receiveHedgedDataTables(long responseSize, long deserializationTimeMs) {
+    _respondedByHedgedRequest = true;
+    receiveDataTable(null, responseSize, deserializationTimeMs);
+  }
+
+  void receiveDataTable(@Nullable DataTable dataTable, long responseSize, long deserializationTimeMs) {
     _dataTable = dataTable;
     _responseSize = responseSize;
     _deserializationTimeMs = deserializationTimeMs;
+    _receiveDataTabTimeMs = System.currentTimeMillis();
   }
 }
@@ -50,8 +50,7 @@ public class FixedIntArrayOffHeapIdMap extends BaseOffHeapMutableDictionary impl
 
   @Override
   public int put(FixedIntArray fixedIntArray) {
-    index(fixedIntArray);
-    return indexOf(fixedIntArray);
+    return indexValue(fixedIntArray, null);
   }
 
   @Override
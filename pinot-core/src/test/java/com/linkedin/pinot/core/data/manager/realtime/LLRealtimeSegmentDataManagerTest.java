@@ -38,6 +38,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import junit.framework.Assert;
 import org.apache.commons.io.FileUtils;
@@ -546,6 +547,55 @@ public class LLRealtimeSegmentDataManagerTest {
     }
   }
 
+  // Test that the time limit is checked against the rows pending in the pipelined indexing, and an non-empty segment is
+  // not treated as empty.
+  @Test
+  public void testPipelineEndCriteriaWithPendingRows() throws Exception {
+    FakeLLRealtimeSegmentDataManager segmentDataManager = createFakeSegmentManager();
+    segmentDataManager._state.set(segmentDataManager, LLRealtimeSegmentDataManager.State.INITIAL_CONSUMING);
+    final long endTime = _timeNow + 10;
+    segmentDataManager.setConsumeEndTime(endTime);
+
+    // Replace the realtime segment with a mock that counts the rows indexed in batches
+    final int[] numDocsIndexed = new int[1];
+    MutableSegmentImpl mockSegmentImpl = mock(MutableSegmentImpl.class);
+    when(mockSegmentImpl.getNumDocsIndexed()).thenAnswer(invocation -> numDocsIndexed[0]);
+    when(mockSegmentImpl.indexBatch(anyListOf(GenericRow.class))).thenAnswer(invocation -> {
+      numDocsIndexed[0] += ((List) invocation.getArguments()[0]).size();
+      return true;
+    });
+    Field segmentImpl = LLRealtimeSegmentDataManager.class.getDeclaredField("_realtimeSegment");
+    segmentImpl.setAccessible(true);
+    segmentImpl.set(segmentDataManager, mockSegmentImpl);
+
+    // The consume time ends after the second row is consumed, while the first two rows are still pending
+    int numRows = 4;
+    GenericRow[] rows = new GenericRow[numRows];
+    long[] nextOffsets = new long[numRows];
+    for (int i = 0; i < numRows; i++) {
+      rows[i] = new GenericRow();
+      nextOffsets[i] = _startOffset + i + 1;
+    }
+    StreamConsumptionPipeline.DecodedBatch decodedBatch =
+        new StreamConsumptionPipeline.DecodedBatch(rows, nextOffsets) {
+          @Override
+          public GenericRow getRow(int index) {
+            if (index == 1) {
+              _timeNow = endTime;
+            }
+            return super.getRow(index);
+          }
+        };
+    Method indexDecodedBatch = LLRealtimeSegmentDataManager.class.getDeclaredMethod("indexDecodedBatch",
+        StreamConsumptionPipeline.DecodedBatch.class);
+    indexDecodedBatch.setAccessible(true);
+    indexDecodedBatch.invoke(segmentDataManager, decodedBatch);
+
+    Assert.assertEquals(numDocsIndexed[0], 2);
+    Assert.assertEquals(segmentDataManager.getCurrentOffset(), _startOffset + 2);
+    Assert.assertEquals(segmentDataManager.getStopReason(), SegmentCompletionProtocol.REASON_TIME_LIMIT);
+  }
+
   // Replace the realtime segment with a mock that returns numDocs for raw doc count.
   private void replaceRealtimeSegment(FakeLLRealtimeSegmentDataManager segmentDataManager, int numDocs) throws Exception {
     MutableSegmentImpl mockSegmentImpl = mock(MutableSegmentImpl.class);
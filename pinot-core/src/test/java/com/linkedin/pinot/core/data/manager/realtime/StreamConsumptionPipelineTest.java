@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
+import com.linkedin.pinot.core.realtime.stream.MessageBatch;
+import com.linkedin.pinot.core.realtime.stream.PermanentConsumerException;
+import com.linkedin.pinot.core.realtime.stream.StreamMessageDecoder;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Test for {@link StreamConsumptionPipeline}.
+ */
+public class StreamConsumptionPipelineTest {
+  private static final String COLUMN_NAME = "value";
+  private static final int NUM_MESSAGES = 1000;
+  private static final int MAX_NUM_MESSAGES_PER_BATCH = 17;
+  // Messages with offset divisible by this value cannot be decoded
+  private static final int INVALID_MESSAGE_DIVISOR = 7;
+  private static final long START_OFFSET = 10L;
+  private static final long POLL_TIMEOUT_MS = 10_000L;
+
+  @Test
+  public void testPipeline() throws Exception {
+    FakeMessageFetcher messageFetcher = new FakeMessageFetcher(NUM_MESSAGES);
+    StreamConsumptionPipeline pipeline = createPipeline(messageFetcher, 2);
+    pipeline.start();
+    try {
+      long expectedOffset = START_OFFSET;
+      while (expectedOffset < NUM_MESSAGES) {
+        StreamConsumptionPipeline.DecodedBatch decodedBatch = pipeline.poll(POLL_TIMEOUT_MS);
+        Assert.assertNotNull(decodedBatch);
+        int numMessages = decodedBatch.getNumMessages();
+        Assert.assertTrue(numMessages > 0 && numMessages <= MAX_NUM_MESSAGES_PER_BATCH);
+        for (int i = 0; i < numMessages; i++) {
+          GenericRow row = decodedBatch.getRow(i);
+          if (expectedOffset % INVALID_MESSAGE_DIVISOR == 0) {
+            Assert.assertNull(row);
+          } else {
+            Assert.assertNotNull(row);
+            Assert.assertEquals(row.getValue(COLUMN_NAME), expectedOffset);
+          }
+          Assert.assertEquals(decodedBatch.getNextOffset(i), ++expectedOffset);
+        }
+      }
+      Assert.assertEquals(expectedOffset, NUM_MESSAGES);
+
+      // No more message, the fetcher should become idle
+      Assert.assertNull(pipeline.poll(100L));
+    } finally {
+      pipeline.close();
+    }
+    Assert.assertTrue(messageFetcher._numIdleCalls > 0);
+    Assert.assertNull(messageFetcher._error, messageFetcher._error);
+  }
+
+  @Test
+  public void testFetchException() throws Exception {
+    int numMessagesBeforeException = 100;
+    FakeMessageFetcher messageFetcher = new FakeMessageFetcher(numMessagesBeforeException);
+    messageFetcher._throwAtEnd = true;
+    // Use a queue size of 1 so that the stages block on each other
+    StreamConsumptionPipeline pipeline = createPipeline(messageFetcher, 1);
+    pipeline.start();
+    try {
+      long expectedOffset = START_OFFSET;
+      try {
+        while (true) {
+          StreamConsumptionPipeline.DecodedBatch decodedBatch = pipeline.poll(POLL_TIMEOUT_MS);
+          Assert.assertNotNull(decodedBatch);
+          expectedOffset += decodedBatch.getNumMessages();
+          Assert.assertEquals(decodedBatch.getNextOffset(decodedBatch.getNumMessages() - 1), expectedOffset);
+        }
+      } catch (PermanentConsumerException e) {
+        // Expected after all the messages before the exception are returned
+        Assert.assertEquals(expectedOffset, numMessagesBeforeException);
+      }
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testCloseWithPendingBatches() throws Exception {
+    FakeMessageFetcher messageFetcher = new FakeMessageFetcher(NUM_MESSAGES);
+    StreamConsumptionPipeline pipeline = createPipeline(messageFetcher, 1);
+    pipeline.start();
+    StreamConsumptionPipeline.DecodedBatch decodedBatch = pipeline.poll(POLL_TIMEOUT_MS);
+    Assert.assertNotNull(decodedBatch);
+    Assert.assertEquals(decodedBatch.getNextOffset(0), START_OFFSET + 1);
+
+    // Close should return while the stages are blocked on the full queues
+    pipeline.close();
+    Assert.assertNull(pipeline.poll(0L));
+  }
+
+  private static StreamConsumptionPipeline createPipeline(FakeMessageFetcher messageFetcher, int queueSize) {
+    Schema schema = new Schema();
+    schema.addField(new DimensionFieldSpec(COLUMN_NAME, FieldSpec.DataType.LONG, true));
+    return new StreamConsumptionPipeline("testPipeline", messageFetcher, new FakeMessageDecoder(),
+        FieldExtractorFactory.getPlainFieldExtractor(schema), START_OFFSET, queueSize, 1L, 10L,
+        new ServerMetrics(new MetricsRegistry()), "testTable");
+  }
+
+  /**
+   * Message fetcher which returns the offsets as the messages. Every 3rd fetch fails with a transient error, and every
+   * 5th fetch returns no message.
+   */
+  private static class FakeMessageFetcher implements StreamConsumptionPipeline.MessageFetcher {
+    final int _endOffset;
+    boolean _throwAtEnd = false;
+    long _expectedStartOffset = START_OFFSET;
+    int _numFetchCalls = 0;
+    int _numIdleCalls = 0;
+    String _error = null;
+
+    FakeMessageFetcher(int endOffset) {
+      _endOffset = endOffset;
+    }
+
+    @Override
+    public MessageBatch fetchMessages(long startOffset) throws Exception {
+      if (startOffset != _expectedStartOffset) {
+        _error = "Expected start offset: " + _expectedStartOffset + ", got: " + startOffset;
+      }
+      _numFetchCalls++;
+      if (_numFetchCalls % 3 == 0) {
+        return null;
+      }
+      if (_numFetchCalls % 5 == 0) {
+        return new FakeMessageBatch(startOffset, 0);
+      }
+      if (startOffset >= _endOffset && _throwAtEnd) {
+        throw new PermanentConsumerException(new RuntimeException());
+      }
+      int numMessages = (int) Math.min(_numFetchCalls % MAX_NUM_MESSAGES_PER_BATCH + 1, _endOffset - startOffset);
+      _expectedStartOffset = startOffset + numMessages;
+      return new FakeMessageBatch(startOffset, numMessages);
+    }
+
+    @Override
+    public void onIdle() {
+      _numIdleCalls++;
+    }
+  }
+
+  private static class FakeMessageBatch implements MessageBatch<Long> {
+    final long _startOffset;
+    final int _numMessages;
+
+    FakeMessageBatch(long startOffset, int numMessages) {
+      _startOffset = startOffset;
+      _numMessages = numMessages;
+    }
+
+    @Override
+    public int getMessageCount() {
+      return _numMessages;
+    }
+
+    @Override
+    public Long getMessageAtIndex(int index) {
+      return _startOffset + index;
+    }
+
+    @Override
+    public int getMessageOffsetAtIndex(int index) {
+      return 0;
+    }
+
+    @Override
+    public int getMessageLengthAtIndex(int index) {
+      return Long.BYTES;
+    }
+
+    @Override
+    public long getNextStreamMessageOffsetAtIndex(int index) {
+      return _startOffset + index + 1;
+    }
+  }
+
+  private static class FakeMessageDecoder implements StreamMessageDecoder<Long> {
+
+    @Override
+    public void init(Map<String, String> props, Schema indexingSchema, String kafkaTopicName) {
+    }
+
+    @Override
+    public GenericRow decode(Long payload, GenericRow destination) {
+      if (payload % INVALID_MESSAGE_DIVISOR == 0) {
+        return null;
+      }
+      destination.putField(COLUMN_NAME, payload);
+      return destination;
+    }
+
+    @Override
+    public GenericRow decode(Long payload, int offset, int length, GenericRow destination) {
+      return decode(payload, destination);
+    }
+  }
+}
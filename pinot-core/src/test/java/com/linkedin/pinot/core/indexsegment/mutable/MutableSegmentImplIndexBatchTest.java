@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.indexsegment.mutable;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that indexing records with {@link MutableSegmentImpl#indexBatch(List)} generates the same segment as indexing
+ * them one by one with {@link MutableSegmentImpl#index(GenericRow)}.
+ */
+public class MutableSegmentImplIndexBatchTest {
+  private static final long RANDOM_SEED = System.nanoTime();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+  private static final String INT_DIMENSION = "intDim";
+  private static final String STRING_DIMENSION = "stringDim";
+  private static final String MV_DIMENSION = "mvDim";
+  private static final String LONG_METRIC = "longMetric";
+  private static final String DOUBLE_METRIC = "doubleMetric";
+  private static final String TIME_COLUMN = "daysSinceEpoch";
+  private static final int NUM_ROWS = 10_000;
+  private static final int MAX_BATCH_SIZE = 500;
+
+  private Schema _schema;
+  private MutableSegmentImpl _rowIndexedSegment;
+  private MutableSegmentImpl _batchIndexedSegment;
+
+  @BeforeClass
+  public void setUp() {
+    _schema = new Schema.SchemaBuilder().setSchemaName("testSchema")
+        .addSingleValueDimension(INT_DIMENSION, FieldSpec.DataType.INT)
+        .addSingleValueDimension(STRING_DIMENSION, FieldSpec.DataType.STRING)
+        .addMultiValueDimension(MV_DIMENSION, FieldSpec.DataType.INT)
+        .addMetric(LONG_METRIC, FieldSpec.DataType.LONG)
+        .addMetric(DOUBLE_METRIC, FieldSpec.DataType.DOUBLE)
+        .addTime(TIME_COLUMN, TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+    _rowIndexedSegment = MutableSegmentImplTestUtils.createMutableSegmentImpl(_schema,
+        Collections.singleton(LONG_METRIC), new HashSet<>(Arrays.asList(INT_DIMENSION, MV_DIMENSION)), false);
+    _batchIndexedSegment = MutableSegmentImplTestUtils.createMutableSegmentImpl(_schema,
+        Collections.singleton(LONG_METRIC), new HashSet<>(Arrays.asList(INT_DIMENSION, MV_DIMENSION)), false);
+
+    List<GenericRow> batch = new ArrayList<>();
+    int batchSize = RANDOM.nextInt(MAX_BATCH_SIZE) + 1;
+    for (int i = 0; i < NUM_ROWS; i++) {
+      GenericRow row = new GenericRow();
+      row.putField(INT_DIMENSION, RANDOM.nextInt(100));
+      row.putField(STRING_DIMENSION, "value" + RANDOM.nextInt(1000));
+      int numValues = RANDOM.nextInt(5) + 1;
+      Object[] values = new Object[numValues];
+      for (int j = 0; j < numValues; j++) {
+        values[j] = RANDOM.nextInt(50);
+      }
+      row.putField(MV_DIMENSION, values);
+      row.putField(LONG_METRIC, RANDOM.nextLong());
+      row.putField(DOUBLE_METRIC, (double) RANDOM.nextInt(200));
+      row.putField(TIME_COLUMN, 17000 + RANDOM.nextInt(365));
+
+      Assert.assertTrue(_rowIndexedSegment.index(row));
+      batch.add(row);
+      if (batch.size() == batchSize || i == NUM_ROWS - 1) {
+        Assert.assertTrue(_batchIndexedSegment.indexBatch(batch));
+        batch.clear();
+        batchSize = RANDOM.nextInt(MAX_BATCH_SIZE) + 1;
+      }
+    }
+  }
+
+  @Test
+  public void testIndexBatch() {
+    Assert.assertEquals(_batchIndexedSegment.getNumDocsIndexed(), NUM_ROWS);
+    Assert.assertEquals(_batchIndexedSegment.getMinTime(), _rowIndexedSegment.getMinTime());
+    Assert.assertEquals(_batchIndexedSegment.getMaxTime(), _rowIndexedSegment.getMaxTime());
+
+    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+      String column = fieldSpec.getName();
+      DataSource expectedDataSource = _rowIndexedSegment.getDataSource(column);
+      DataSource actualDataSource = _batchIndexedSegment.getDataSource(column);
+      Assert.assertEquals(actualDataSource.getDataSourceMetadata().getMaxNumMultiValues(),
+          expectedDataSource.getDataSourceMetadata().getMaxNumMultiValues());
+
+      // Dictionary ids are assigned in the same order
+      Dictionary expectedDictionary = expectedDataSource.getDictionary();
+      Dictionary actualDictionary = actualDataSource.getDictionary();
+      if (expectedDictionary == null) {
+        Assert.assertNull(actualDictionary);
+        continue;
+      }
+      int cardinality = expectedDictionary.length();
+      Assert.assertEquals(actualDictionary.length(), cardinality);
+      for (int dictId = 0; dictId < cardinality; dictId++) {
+        Assert.assertEquals(actualDictionary.get(dictId), expectedDictionary.get(dictId),
+            "Random seed: " + RANDOM_SEED);
+      }
+
+      InvertedIndexReader expectedInvertedIndex = expectedDataSource.getInvertedIndex();
+      InvertedIndexReader actualInvertedIndex = actualDataSource.getInvertedIndex();
+      if (expectedInvertedIndex == null) {
+        Assert.assertNull(actualInvertedIndex);
+      } else {
+        for (int dictId = 0; dictId < cardinality; dictId++) {
+          Assert.assertEquals(actualInvertedIndex.getDocIds(dictId), expectedInvertedIndex.getDocIds(dictId),
+              "Random seed: " + RANDOM_SEED);
+        }
+      }
+    }
+
+    GenericRow expectedRow = new GenericRow();
+    GenericRow actualRow = new GenericRow();
+    for (int docId = 0; docId < NUM_ROWS; docId++) {
+      _rowIndexedSegment.getRecord(docId, expectedRow);
+      _batchIndexedSegment.getRecord(docId, actualRow);
+      for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+        String column = fieldSpec.getName();
+        if (fieldSpec.isSingleValueField()) {
+          Assert.assertEquals(actualRow.getValue(column), expectedRow.getValue(column), "Random seed: " + RANDOM_SEED);
+        } else {
+          Assert.assertEquals((Object[]) actualRow.getValue(column), (Object[]) expectedRow.getValue(column),
+              "Random seed: " + RANDOM_SEED);
+        }
+      }
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _rowIndexedSegment.destroy();
+    _batchIndexedSegment.destroy();
+  }
+}
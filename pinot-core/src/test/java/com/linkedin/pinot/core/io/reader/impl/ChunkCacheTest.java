@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.io.reader.impl;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.io.compression.ChunkCompressorFactory;
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.v1.FixedByteChunkSingleValueWriter;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class ChunkCacheTest {
+  private static final File TEST_FILE = new File(FileUtils.getTempDirectory(), "ChunkCacheTest");
+  private static final int NUM_VALUES = 10_000;
+  private static final int NUM_DOCS_PER_CHUNK = 1000;
+  private static final int NUM_CHUNKS = NUM_VALUES / NUM_DOCS_PER_CHUNK;
+  private static final int CHUNK_SIZE_IN_BYTES = NUM_DOCS_PER_CHUNK * Long.BYTES;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  private final long[] _values = new long[NUM_VALUES];
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEST_FILE);
+    Random random = new Random(RANDOM_SEED);
+    try (FixedByteChunkSingleValueWriter writer = new FixedByteChunkSingleValueWriter(TEST_FILE,
+        ChunkCompressorFactory.CompressionType.SNAPPY, NUM_VALUES, NUM_DOCS_PER_CHUNK, Long.BYTES)) {
+      for (int i = 0; i < NUM_VALUES; i++) {
+        _values[i] = random.nextLong();
+        writer.setLong(i, _values[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testGetPut() {
+    long numDirectBuffers = PinotDataBuffer.getDirectBufferCount();
+    long directBufferUsage = getDirectMemoryUsed();
+    ChunkCache chunkCache = new ChunkCache(CHUNK_SIZE_IN_BYTES * 2, new ServerMetrics(new MetricsRegistry()), 1);
+    long readerId = chunkCache.newReaderId();
+    ByteBuffer destination = ByteBuffer.allocate(CHUNK_SIZE_IN_BYTES);
+    Assert.assertFalse(chunkCache.get(readerId, 0, destination));
+
+    ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE_IN_BYTES);
+    for (int i = 0; i < NUM_DOCS_PER_CHUNK; i++) {
+      chunk.putLong(i);
+    }
+    chunk.flip();
+    chunkCache.put(readerId, 0, chunk);
+    Assert.assertEquals(chunk.position(), 0);
+    Assert.assertEquals(chunk.limit(), CHUNK_SIZE_IN_BYTES);
+
+    // The cached chunk should be an off-heap copy, and get should copy it into the given buffer
+    chunk.putLong(0, -1L);
+    Assert.assertEquals(getDirectMemoryUsed(), directBufferUsage + CHUNK_SIZE_IN_BYTES);
+    destination.position(Long.BYTES);
+    Assert.assertTrue(chunkCache.get(readerId, 0, destination));
+    Assert.assertEquals(destination.position(), 0);
+    Assert.assertEquals(destination.limit(), CHUNK_SIZE_IN_BYTES);
+    for (int i = 0; i < NUM_DOCS_PER_CHUNK; i++) {
+      Assert.assertEquals(destination.getLong(i * Long.BYTES), i);
+    }
+    Assert.assertFalse(chunkCache.get(chunkCache.newReaderId(), 0, destination));
+    Assert.assertEquals(chunkCache.getSizeInBytes(), CHUNK_SIZE_IN_BYTES);
+
+    // The cached chunks should not be registered as data buffers
+    Assert.assertEquals(PinotDataBuffer.getDirectBufferCount(), numDirectBuffers);
+
+    // Putting a chunk that is already cached should keep the cached chunk
+    chunkCache.put(readerId, 0, chunk);
+    Assert.assertEquals(chunkCache.size(), 1);
+    Assert.assertEquals(chunkCache.getSizeInBytes(), CHUNK_SIZE_IN_BYTES);
+    Assert.assertEquals(getDirectMemoryUsed(), directBufferUsage + CHUNK_SIZE_IN_BYTES);
+    Assert.assertTrue(chunkCache.get(readerId, 0, destination));
+    Assert.assertEquals(destination.getLong(0), 0L);
+
+    // The least recently used chunk should be evicted and released when the cache is full
+    chunk.putLong(0, 0L);
+    chunkCache.put(readerId, 1, chunk);
+    chunkCache.get(readerId, 0, destination);
+    chunkCache.put(readerId, 2, chunk);
+    Assert.assertEquals(chunkCache.size(), 2);
+    Assert.assertTrue(chunkCache.get(readerId, 0, destination));
+    Assert.assertFalse(chunkCache.get(readerId, 1, destination));
+    Assert.assertEquals(chunkCache.getSizeInBytes(), CHUNK_SIZE_IN_BYTES * 2);
+    Assert.assertEquals(getDirectMemoryUsed(), directBufferUsage + CHUNK_SIZE_IN_BYTES * 2);
+
+    chunkCache.invalidate(readerId);
+    Assert.assertEquals(chunkCache.size(), 0);
+    Assert.assertEquals(chunkCache.getSizeInBytes(), 0);
+    Assert.assertEquals(getDirectMemoryUsed(), directBufferUsage);
+
+    // Chunks should not be cached for a reader that is already invalidated (segment unloaded)
+    chunkCache.put(readerId, 0, chunk);
+    Assert.assertEquals(chunkCache.size(), 0);
+    Assert.assertFalse(chunkCache.get(readerId, 0, destination));
+    Assert.assertEquals(getDirectMemoryUsed(), directBufferUsage);
+
+    // Invalidating a reader should not evict the chunks of the other readers
+    long readerId1 = chunkCache.newReaderId();
+    long readerId2 = chunkCache.newReaderId();
+    chunkCache.put(readerId1, 0, chunk);
+    chunkCache.put(readerId2, 0, chunk);
+    chunkCache.invalidate(readerId1);
+    Assert.assertEquals(chunkCache.size(), 1);
+    Assert.assertFalse(chunkCache.get(readerId1, 0, destination));
+    Assert.assertTrue(chunkCache.get(readerId2, 0, destination));
+    chunkCache.invalidate(readerId2);
+    Assert.assertEquals(chunkCache.size(), 0);
+    Assert.assertEquals(chunkCache.getSizeInBytes(), 0);
+    Assert.assertEquals(getDirectMemoryUsed(), directBufferUsage);
+  }
+
+  @Test
+  public void testReader() throws Exception {
+    ServerMetrics serverMetrics = new ServerMetrics(new MetricsRegistry());
+    ChunkCache chunkCache = new ChunkCache(CHUNK_SIZE_IN_BYTES * NUM_CHUNKS, serverMetrics, 1);
+    FixedByteChunkSingleValueReader reader =
+        new FixedByteChunkSingleValueReader(PinotDataBuffer.mapReadOnlyBigEndianFile(TEST_FILE), chunkCache);
+    try {
+      // First pass decompresses and caches all the chunks, second pass with a new context reads from the cache
+      for (int pass = 0; pass < 2; pass++) {
+        ChunkReaderContext context = reader.createContext();
+        for (int i = 0; i < NUM_VALUES; i++) {
+          Assert.assertEquals(reader.getLong(i, context), _values[i], "Random seed: " + RANDOM_SEED);
+        }
+        Assert.assertEquals(chunkCache.size(), NUM_CHUNKS);
+        Assert.assertEquals(chunkCache.getSizeInBytes(), CHUNK_SIZE_IN_BYTES * NUM_CHUNKS);
+      }
+      Assert.assertEquals(serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_MISSES, 0L, null).count(),
+          NUM_CHUNKS);
+      Assert.assertEquals(serverMetrics.addMeteredGlobalValue(ServerMeter.CHUNK_CACHE_HITS, 0L, null).count(),
+          NUM_CHUNKS);
+    } finally {
+      reader.close();
+    }
+
+    // Closing the reader (segment unloaded) should evict all its chunks
+    Assert.assertEquals(chunkCache.size(), 0);
+    Assert.assertEquals(chunkCache.getSizeInBytes(), 0);
+  }
+
+  private static long getDirectMemoryUsed() {
+    for (BufferPoolMXBean bufferPool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (bufferPool.getName().equals("direct")) {
+        return bufferPool.getMemoryUsed();
+      }
+    }
+    throw new IllegalStateException("Failed to find the direct buffer pool");
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEST_FILE);
+  }
+}
@@ -92,6 +92,41 @@ public class PinotDataBitSetTest {
     }
   }
 
+  @Test
+  public void testBulkReadInt() throws IOException {
+    int numValues = 1000;
+    int[] values = new int[numValues];
+    int[] buffer = new int[numValues];
+    for (ByteOrder byteOrder : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+      for (int numBitsPerValue = 1; numBitsPerValue <= 32; numBitsPerValue++) {
+        int dataBufferSize = (int) (((long) numValues * numBitsPerValue + Byte.SIZE - 1) / Byte.SIZE);
+        try (PinotDataBitSet dataBitSet = getEmptyBitSet(dataBufferSize, byteOrder)) {
+          for (int i = 0; i < numValues; i++) {
+            int value = RANDOM.nextInt() >>> (Integer.SIZE - numBitsPerValue);
+            values[i] = value;
+            dataBitSet.writeInt(i, numBitsPerValue, value);
+          }
+
+          // Read all values, which covers the last block in the buffer
+          dataBitSet.readInt(0, numBitsPerValue, numValues, buffer);
+          for (int i = 0; i < numValues; i++) {
+            assertEquals(buffer[i], values[i]);
+          }
+
+          // Read random ranges, which might not be aligned on the block boundary
+          for (int i = 0; i < 100; i++) {
+            int startIndex = RANDOM.nextInt(numValues);
+            int length = RANDOM.nextInt(numValues - startIndex) + 1;
+            dataBitSet.readInt(startIndex, numBitsPerValue, length, buffer);
+            for (int j = 0; j < length; j++) {
+              assertEquals(buffer[j], values[startIndex + j]);
+            }
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void testSetUnsetBit() throws IOException {
     int dataBufferSize = RANDOM.nextInt(100) + 1;
@@ -147,7 +182,11 @@ public class PinotDataBitSetTest {
   }
 
   private PinotDataBitSet getEmptyBitSet(int size) {
-    PinotDataBuffer pinotDataBuffer = PinotDataBuffer.allocateDirect(size, ByteOrder.BIG_ENDIAN, null);
+    return getEmptyBitSet(size, ByteOrder.BIG_ENDIAN);
+  }
+
+  private PinotDataBitSet getEmptyBitSet(int size, ByteOrder byteOrder) {
+    PinotDataBuffer pinotDataBuffer = PinotDataBuffer.allocateDirect(size, byteOrder, null);
     for (int i = 0; i < size; i++) {
       pinotDataBuffer.readFrom(0, new byte[size]);
     }
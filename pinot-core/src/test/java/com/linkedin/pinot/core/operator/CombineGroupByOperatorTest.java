@@ -0,0 +1,278 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class CombineGroupByOperatorTest {
+  private static final BrokerRequest BROKER_REQUEST = new Pql2Compiler().compileToBrokerRequest(
+      "SELECT COUNT(*) FROM table GROUP BY column TOP 1000 OPTION(typedGroupByDataTable=true)");
+  private static final BrokerRequest LEGACY_BROKER_REQUEST =
+      new Pql2Compiler().compileToBrokerRequest("SELECT COUNT(*) FROM table GROUP BY column TOP 1000");
+  private static final AggregationFunctionContext[] AGGREGATION_FUNCTION_CONTEXTS =
+      AggregationFunctionUtils.getAggregationFunctionContexts(BROKER_REQUEST.getAggregationsInfo(), null);
+  private static final FieldSpec.DataType[] STORED_TYPES = new FieldSpec.DataType[]{FieldSpec.DataType.INT};
+  private static final int NUM_THREADS = 4;
+  private static final long TIMEOUT_MS = 10_000L;
+
+  private final ExecutorService _executorService = Executors.newFixedThreadPool(NUM_THREADS);
+
+  @Test
+  public void testNumGroupsLimit() throws Exception {
+    int numOperators = 20;
+    int numGroups = 100;
+    int numGroupsLimit = 50;
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(numGroups, null));
+    }
+
+    IntermediateResultsBlock resultsBlock =
+        new CombineGroupByOperator(operators, BROKER_REQUEST, _executorService, TIMEOUT_MS, numGroupsLimit).nextBlock();
+    DataTable dataTable = resultsBlock.getDataTable();
+    Assert.assertEquals(dataTable.getMetadata().get(DataTable.NUM_GROUPS_LIMIT_REACHED_KEY), "true");
+
+    // Number of groups should be limited across all threads, and each admitted group should be merged from all the
+    // operators
+    int numRows = dataTable.getNumberOfRows();
+    Assert.assertEquals(numRows, numGroupsLimit);
+    for (int i = 0; i < numRows; i++) {
+      Assert.assertEquals(dataTable.getLong(i, 1), numOperators);
+    }
+  }
+
+  @Test
+  public void testNumGroupsLimitNotReached() throws Exception {
+    int numOperators = 20;
+    int numGroups = 100;
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(numGroups, null));
+    }
+
+    IntermediateResultsBlock resultsBlock =
+        new CombineGroupByOperator(operators, BROKER_REQUEST, _executorService, TIMEOUT_MS, numGroups + 1).nextBlock();
+    DataTable dataTable = resultsBlock.getDataTable();
+    Assert.assertNull(dataTable.getMetadata().get(DataTable.NUM_GROUPS_LIMIT_REACHED_KEY));
+    int numRows = dataTable.getNumberOfRows();
+    Assert.assertEquals(numRows, numGroups);
+    for (int i = 0; i < numRows; i++) {
+      Assert.assertEquals(dataTable.getLong(i, 1), numOperators);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testLegacyDataTable() throws Exception {
+    int numOperators = 20;
+    int numGroups = 100;
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(numGroups, null));
+    }
+
+    // Without the query option, the result should be sent as one map from string key to intermediate result per
+    // aggregation function
+    IntermediateResultsBlock resultsBlock =
+        new CombineGroupByOperator(operators, LEGACY_BROKER_REQUEST, _executorService, TIMEOUT_MS, 1000).nextBlock();
+    DataTable dataTable = resultsBlock.getDataTable();
+    DataSchema dataSchema = dataTable.getDataSchema();
+    Assert.assertEquals(dataSchema.getColumnDataType(0), DataSchema.ColumnDataType.STRING);
+    Assert.assertEquals(dataSchema.getColumnDataType(1), DataSchema.ColumnDataType.OBJECT);
+    Assert.assertEquals(dataTable.getNumberOfRows(), 1);
+    Assert.assertEquals(dataTable.getString(0, 0), AGGREGATION_FUNCTION_CONTEXTS[0].getAggregationColumnName());
+    Map<String, Object> resultMap = dataTable.getObject(0, 1);
+    Assert.assertEquals(resultMap.size(), numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      Assert.assertEquals(((Number) resultMap.get(Integer.toString(i))).longValue(), numOperators);
+    }
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    // Each operator takes 200ms, only the first batches of operators should be processed within the 300ms timeout, and
+    // the remaining operators should not be processed after the timeout
+    int numOperators = 20;
+    AtomicInteger numOperatorsProcessed = new AtomicInteger();
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(10, () -> {
+        numOperatorsProcessed.getAndIncrement();
+        try {
+          Thread.sleep(200L);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }));
+    }
+
+    IntermediateResultsBlock resultsBlock =
+        new CombineGroupByOperator(operators, BROKER_REQUEST, _executorService, 300L, 1000).nextBlock();
+    Assert.assertNotNull(resultsBlock.getProcessingExceptions());
+    Assert.assertFalse(resultsBlock.getProcessingExceptions().isEmpty());
+
+    // Wait for the cancelled workers to exit
+    Thread.sleep(1000L);
+    Assert.assertTrue(numOperatorsProcessed.get() <= 2 * NUM_THREADS);
+  }
+
+  @Test
+  public void testInlineTimeout() throws Exception {
+    // Each operator takes 200ms, the operators are processed one by one on the calling thread, and the remaining
+    // operators should not be processed after the 300ms timeout
+    int numOperators = 10;
+    AtomicInteger numOperatorsProcessed = new AtomicInteger();
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(10, () -> {
+        numOperatorsProcessed.getAndIncrement();
+        try {
+          Thread.sleep(200L);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }));
+    }
+
+    IntermediateResultsBlock resultsBlock = new CombineGroupByOperator(operators, BROKER_REQUEST,
+        CombineOperatorTest.getInlineExecutor(), 300L, 1000).nextBlock();
+    Assert.assertNotNull(resultsBlock.getProcessingExceptions());
+    Assert.assertFalse(resultsBlock.getProcessingExceptions().isEmpty());
+    Assert.assertEquals(numOperatorsProcessed.get(), 2);
+  }
+
+  @Test
+  public void testMixedStoredTypes() throws Exception {
+    // Same groups from segments with FLOAT and DOUBLE group-by column (e.g. after the column data type is changed)
+    int numGroups = 10;
+    FieldSpec.DataType[] floatStoredTypes = new FieldSpec.DataType[]{FieldSpec.DataType.FLOAT};
+    FieldSpec.DataType[] doubleStoredTypes = new FieldSpec.DataType[]{FieldSpec.DataType.DOUBLE};
+    List<TypedGroupKey> floatGroupKeys = new ArrayList<>(numGroups);
+    List<TypedGroupKey> doubleGroupKeys = new ArrayList<>(numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      float value = i + 0.1f;
+      floatGroupKeys.add(new TypedGroupKey(floatStoredTypes, new long[]{TypedGroupKey.encodeFloat(value)}, null));
+      doubleGroupKeys.add(new TypedGroupKey(doubleStoredTypes,
+          new long[]{TypedGroupKey.encodeDouble(Double.parseDouble(Float.toString(value)))}, null));
+    }
+    int numOperators = 20;
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(i % 2 == 0 ? floatGroupKeys : doubleGroupKeys, null));
+    }
+
+    IntermediateResultsBlock resultsBlock =
+        new CombineGroupByOperator(operators, BROKER_REQUEST, _executorService, TIMEOUT_MS, 1000).nextBlock();
+    DataTable dataTable = resultsBlock.getDataTable();
+    Assert.assertEquals(dataTable.getDataSchema().getColumnDataType(0), DataSchema.ColumnDataType.DOUBLE);
+    int numRows = dataTable.getNumberOfRows();
+    Assert.assertEquals(numRows, numGroups);
+    Set<String> groupValues = new HashSet<>();
+    for (int i = 0; i < numRows; i++) {
+      groupValues.add(Double.toString(dataTable.getDouble(i, 0)));
+      Assert.assertEquals(dataTable.getLong(i, 1), numOperators);
+    }
+    for (int i = 0; i < numGroups; i++) {
+      Assert.assertTrue(groupValues.contains(Float.toString(i + 0.1f)));
+    }
+  }
+
+  @Test
+  public void testDifferentStoredTypesNotEqual() {
+    // INT value 1065353216 has the same encoded value as FLOAT value 1.0f
+    TypedGroupKey intGroupKey = new TypedGroupKey(STORED_TYPES, new long[]{TypedGroupKey.encodeInt(1065353216)}, null);
+    TypedGroupKey floatGroupKey = new TypedGroupKey(new FieldSpec.DataType[]{FieldSpec.DataType.FLOAT},
+        new long[]{TypedGroupKey.encodeFloat(1.0f)}, null);
+    Assert.assertFalse(intGroupKey.equals(floatGroupKey));
+    Assert.assertEquals(floatGroupKey.convertTo(new FieldSpec.DataType[]{FieldSpec.DataType.DOUBLE}),
+        new TypedGroupKey(new FieldSpec.DataType[]{FieldSpec.DataType.DOUBLE},
+            new long[]{TypedGroupKey.encodeDouble(1.0)}, null));
+  }
+
+  /**
+   * Mocks an operator which returns the group-by result with COUNT of 1 for group keys from 0 to numGroups - 1, and
+   * runs the given action (if not null) when returning the result.
+   */
+  private static Operator mockOperator(int numGroups, Runnable action) {
+    List<TypedGroupKey> typedGroupKeys = new ArrayList<>(numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      typedGroupKeys.add(new TypedGroupKey(STORED_TYPES, new long[]{TypedGroupKey.encodeInt(i)}, null));
+    }
+    return mockOperator(typedGroupKeys, action);
+  }
+
+  /**
+   * Mocks an operator which returns the group-by result with COUNT of 1 for the given group keys, and runs the given
+   * action (if not null) when returning the result.
+   */
+  private static Operator mockOperator(List<TypedGroupKey> typedGroupKeys, Runnable action) {
+    int numGroups = typedGroupKeys.size();
+    List<GroupKeyGenerator.GroupKey> groupKeys = new ArrayList<>(numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      GroupKeyGenerator.GroupKey groupKey = new GroupKeyGenerator.GroupKey();
+      groupKey._groupId = i;
+      groupKey._typedGroupKey = typedGroupKeys.get(i);
+      groupKeys.add(groupKey);
+    }
+    AggregationGroupByResult aggregationGroupByResult = mock(AggregationGroupByResult.class);
+    when(aggregationGroupByResult.getTypedGroupKeyIterator()).thenReturn(groupKeys.iterator());
+    when(aggregationGroupByResult.getResultForKey(any(GroupKeyGenerator.GroupKey.class), anyInt())).thenReturn(1L);
+
+    Operator operator = mock(Operator.class);
+    when(operator.nextBlock()).thenAnswer(invocation -> {
+      if (action != null) {
+        action.run();
+      }
+      return new IntermediateResultsBlock(AGGREGATION_FUNCTION_CONTEXTS, aggregationGroupByResult);
+    });
+    return operator;
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception {
+    _executorService.shutdownNow();
+    _executorService.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.scheduler.SchedulerGroupAccountant;
+import com.linkedin.pinot.core.query.scheduler.resources.BoundedAccountingExecutor;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class CombineOperatorTest {
+  private static final BrokerRequest BROKER_REQUEST =
+      new Pql2Compiler().compileToBrokerRequest("SELECT COUNT(*) FROM table");
+  private static final AggregationFunctionContext[] AGGREGATION_FUNCTION_CONTEXTS =
+      AggregationFunctionUtils.getAggregationFunctionContexts(BROKER_REQUEST.getAggregationsInfo(), null);
+  private static final long TIMEOUT_MS = 10_000L;
+
+  @Test
+  public void testInline() {
+    int numOperators = 5;
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(null));
+    }
+
+    IntermediateResultsBlock resultsBlock =
+        new CombineOperator(operators, getInlineExecutor(), TIMEOUT_MS, BROKER_REQUEST).nextBlock();
+    Assert.assertNull(resultsBlock.getProcessingExceptions());
+    Assert.assertEquals(resultsBlock.getAggregationResult(), Collections.singletonList((long) numOperators));
+  }
+
+  @Test
+  public void testInlineTimeout() {
+    // Each operator takes 200ms, the operators are processed one by one on the calling thread, and the remaining
+    // operators should not be processed after the 300ms timeout
+    int numOperators = 10;
+    AtomicInteger numOperatorsProcessed = new AtomicInteger();
+    List<Operator> operators = new ArrayList<>(numOperators);
+    for (int i = 0; i < numOperators; i++) {
+      operators.add(mockOperator(() -> {
+        numOperatorsProcessed.getAndIncrement();
+        try {
+          Thread.sleep(200L);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }));
+    }
+
+    IntermediateResultsBlock resultsBlock =
+        new CombineOperator(operators, getInlineExecutor(), 300L, BROKER_REQUEST).nextBlock();
+    Assert.assertNotNull(resultsBlock.getProcessingExceptions());
+    Assert.assertFalse(resultsBlock.getProcessingExceptions().isEmpty());
+    Assert.assertNull(resultsBlock.getAggregationResult());
+    Assert.assertEquals(numOperatorsProcessed.get(), 2);
+  }
+
+  /**
+   * Returns a bounded executor with bounds of 0, which runs the jobs inline on the calling thread.
+   */
+  static BoundedAccountingExecutor getInlineExecutor() {
+    BoundedAccountingExecutor executor =
+        new BoundedAccountingExecutor(mock(Executor.class), 1, mock(SchedulerGroupAccountant.class));
+    executor.setBounds(0);
+    return executor;
+  }
+
+  /**
+   * Mocks an operator which returns the aggregation result with COUNT of 1, and runs the given action (if not null)
+   * when returning the result.
+   */
+  private static Operator mockOperator(Runnable action) {
+    Operator operator = mock(Operator.class);
+    when(operator.nextBlock()).thenAnswer(invocation -> {
+      if (action != null) {
+        action.run();
+      }
+      // The aggregation result is merged in place, so it should be modifiable
+      List<Object> aggregationResult = new ArrayList<>();
+      aggregationResult.add(1L);
+      return new IntermediateResultsBlock(AGGREGATION_FUNCTION_CONTEXTS, aggregationResult);
+    });
+    return operator;
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.SelectionOrderByOperator;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class SelectionEarlyTerminationTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"column"}, new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.INT});
+
+  @Test
+  public void testNotApplicable() {
+    List<Operator> operators = Collections.singletonList(mockOperator(0, 10));
+    Assert.assertNull(SelectionEarlyTermination.create(getBrokerRequest("SELECT COUNT(*) FROM table"), operators));
+    Assert.assertNull(SelectionEarlyTermination.create(getBrokerRequest("SELECT * FROM table LIMIT 0"), operators));
+    // No min/max value for the first order-by column
+    Assert.assertNull(SelectionEarlyTermination.create(
+        getBrokerRequest("SELECT * FROM table ORDER BY otherColumn LIMIT 10"), operators));
+  }
+
+  @Test
+  public void testSelectionOnly() {
+    List<Operator> operators = Arrays.asList(mockOperator(0, 10), mockOperator(10, 20), mockOperator(20, 30));
+    SelectionEarlyTermination earlyTermination =
+        SelectionEarlyTermination.create(getBrokerRequest("SELECT * FROM table LIMIT 5"), operators);
+    Assert.assertNotNull(earlyTermination);
+    Assert.assertEquals(earlyTermination.getOperators(), operators);
+    Assert.assertFalse(earlyTermination.canSkip(1));
+
+    IntermediateResultsBlock resultsBlock = getResultsBlock(new ArrayList<Serializable[]>(), 1, 2, 3);
+    earlyTermination.update(resultsBlock, resultsBlock);
+    Assert.assertFalse(earlyTermination.canSkip(1));
+    resultsBlock = getResultsBlock(new ArrayList<Serializable[]>(), 4, 5);
+    earlyTermination.update(resultsBlock, resultsBlock);
+    Assert.assertTrue(earlyTermination.canSkip(1));
+    Assert.assertTrue(earlyTermination.canSkip(2));
+  }
+
+  @Test
+  public void testSelectionOrderBy() {
+    Operator operator1 = mockOperator(20, 30);
+    Operator operator2 = mockOperator(0, 10);
+    Operator operator3 = mockOperator(10, 20);
+    Operator operator4 = mock(Operator.class);
+
+    // Ascending order: operators without min/max value first, then in the order of the min value
+    SelectionEarlyTermination earlyTermination = SelectionEarlyTermination.create(
+        getBrokerRequest("SELECT * FROM table ORDER BY column LIMIT 2"),
+        Arrays.asList(operator1, operator2, operator3, operator4));
+    Assert.assertNotNull(earlyTermination);
+    Assert.assertEquals(earlyTermination.getOperators(), Arrays.asList(operator4, operator2, operator3, operator1));
+    // Not enough rows collected
+    IntermediateResultsBlock resultsBlock = getResultsBlock(getPriorityQueue(true), 5);
+    earlyTermination.update(resultsBlock, resultsBlock);
+    Assert.assertFalse(earlyTermination.canSkip(2));
+    // Top rows: [5, 10], segment with min value 10 cannot be skipped, segment with min value 20 can be skipped
+    resultsBlock = getResultsBlock(resultsBlock.getSelectionResult(), 10);
+    earlyTermination.update(resultsBlock, resultsBlock);
+    Assert.assertFalse(earlyTermination.canSkip(0));
+    Assert.assertFalse(earlyTermination.canSkip(1));
+    Assert.assertFalse(earlyTermination.canSkip(2));
+    Assert.assertTrue(earlyTermination.canSkip(3));
+
+    // Descending order: operators without min/max value first, then in the reverse order of the max value
+    earlyTermination = SelectionEarlyTermination.create(
+        getBrokerRequest("SELECT * FROM table ORDER BY column DESC LIMIT 1"),
+        Arrays.asList(operator1, operator2, operator3, operator4));
+    Assert.assertNotNull(earlyTermination);
+    Assert.assertEquals(earlyTermination.getOperators(), Arrays.asList(operator4, operator1, operator3, operator2));
+    // Top rows: [25], segments with max value 20 and 10 can be skipped
+    resultsBlock = getResultsBlock(getPriorityQueue(false), 25);
+    earlyTermination.update(resultsBlock, resultsBlock);
+    Assert.assertFalse(earlyTermination.canSkip(0));
+    Assert.assertFalse(earlyTermination.canSkip(1));
+    Assert.assertTrue(earlyTermination.canSkip(2));
+    Assert.assertTrue(earlyTermination.canSkip(3));
+  }
+
+  private static BrokerRequest getBrokerRequest(String query) {
+    return COMPILER.compileToBrokerRequest(query);
+  }
+
+  private static Operator mockOperator(int minValue, int maxValue) {
+    ColumnMetadata columnMetadata = mock(ColumnMetadata.class);
+    when(columnMetadata.isSingleValue()).thenReturn(true);
+    when(columnMetadata.getMinValue()).thenReturn(minValue);
+    when(columnMetadata.getMaxValue()).thenReturn(maxValue);
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    when(segmentMetadata.getColumnMetadataFor("column")).thenReturn(columnMetadata);
+    IndexSegment indexSegment = mock(IndexSegment.class);
+    when(indexSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    SelectionOrderByOperator operator = mock(SelectionOrderByOperator.class);
+    when(operator.getIndexSegment()).thenReturn(indexSegment);
+    return operator;
+  }
+
+  /**
+   * Returns a priority queue with the last row in the top rows at the head, same as the selection order-by results.
+   */
+  private static PriorityQueue<Serializable[]> getPriorityQueue(final boolean isAsc) {
+    return new PriorityQueue<>(10, new Comparator<Serializable[]>() {
+      @Override
+      public int compare(Serializable[] o1, Serializable[] o2) {
+        int result = Integer.compare((Integer) o1[0], (Integer) o2[0]);
+        return isAsc ? -result : result;
+      }
+    });
+  }
+
+  private static IntermediateResultsBlock getResultsBlock(Collection<Serializable[]> rows, int... values) {
+    for (int value : values) {
+      rows.add(new Serializable[]{value});
+    }
+    return new IntermediateResultsBlock(DATA_SCHEMA, rows);
+  }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.dociditerators;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.io.readerwriter.PinotDataBufferMemoryManager;
+import com.linkedin.pinot.core.io.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
+import com.linkedin.pinot.core.io.writer.impl.DirectMemoryManager;
+import com.linkedin.pinot.core.operator.blocks.BlockMetadataImpl;
+import com.linkedin.pinot.core.operator.docvalsets.SingleValueSet;
+import com.linkedin.pinot.core.operator.filter.predicate.EqualsPredicateEvaluatorFactory;
+import com.linkedin.pinot.core.operator.filter.predicate.InPredicateEvaluatorFactory;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+
+
+/**
+ * Tests that the block-at-a-time scan of {@link SVScanDocIdIterator} returns the same documents as evaluating the
+ * predicate one document at a time.
+ * <p>The number of documents is not a multiple of the batch size, so that the last batch is partial.
+ */
+public class SVScanDocIdIteratorTest {
+  private static final int NUM_DOCS = 10 * SVScanDocIdIterator.BATCH_SIZE + 17;
+  private static final int CARDINALITY = 20;
+  private static final String COLUMN_NAME = "column";
+  private static final long RANDOM_SEED = System.currentTimeMillis();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+
+  private final int[] _dictIds = new int[NUM_DOCS];
+  private PinotDataBufferMemoryManager _memoryManager;
+  private FixedByteSingleColumnSingleValueReaderWriter _forwardIndex;
+  private Dictionary _dictionary;
+
+  @BeforeClass
+  public void setUp() {
+    _memoryManager = new DirectMemoryManager(SVScanDocIdIteratorTest.class.getName());
+    _forwardIndex = new FixedByteSingleColumnSingleValueReaderWriter(1000, Integer.BYTES, _memoryManager, COLUMN_NAME);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      _dictIds[i] = RANDOM.nextInt(CARDINALITY);
+      _forwardIndex.setInt(i, _dictIds[i]);
+    }
+
+    // Dictionary value is the string of the dictionary id
+    _dictionary = mock(Dictionary.class);
+    when(_dictionary.indexOf(anyString())).thenAnswer(invocation -> {
+      int dictId = Integer.parseInt(invocation.getArgument(0));
+      return dictId < CARDINALITY ? dictId : -1;
+    });
+  }
+
+  @Test
+  public void testEqBatch() {
+    for (int value = 0; value < CARDINALITY; value++) {
+      verifyBatch(newEqEvaluator(value));
+    }
+  }
+
+  @Test
+  public void testInBatch() {
+    verifyBatch(newInEvaluator(0, 1, 2));
+    verifyBatch(newInEvaluator(3, 7, 11, 19));
+    // Values not in the dictionary are ignored
+    verifyBatch(newInEvaluator(5, CARDINALITY + 1));
+  }
+
+  @Test
+  public void testNext() {
+    try {
+      for (PredicateEvaluator evaluator : getEvaluators()) {
+        SVScanDocIdIterator iterator = newIterator(evaluator);
+        int[] expectedDocIds = getExpectedDocIds(evaluator);
+        for (int expectedDocId : expectedDocIds) {
+          Assert.assertEquals(iterator.next(), expectedDocId);
+          Assert.assertEquals(iterator.currentDocId(), expectedDocId);
+        }
+        Assert.assertEquals(iterator.next(), Constants.EOF);
+        Assert.assertEquals(iterator.getNumEntriesScanned(), NUM_DOCS);
+      }
+    } catch (Throwable t) {
+      Assert.fail("Failed with random seed: " + RANDOM_SEED, t);
+    }
+  }
+
+  @Test
+  public void testToBitmap() {
+    try {
+      for (PredicateEvaluator evaluator : getEvaluators()) {
+        int[] expectedDocIds = getExpectedDocIds(evaluator);
+
+        SVScanDocIdIterator iterator = newIterator(evaluator);
+        Assert.assertEquals(iterator.toBitmap(), MutableRoaringBitmap.bitmapOf(expectedDocIds));
+        Assert.assertEquals(iterator.currentDocId(), Constants.EOF);
+        Assert.assertEquals(iterator.getNumEntriesScanned(), NUM_DOCS);
+
+        // Start from the middle of a batch after some calls to next()
+        iterator = newIterator(evaluator);
+        int startDocId = SVScanDocIdIterator.BATCH_SIZE + SVScanDocIdIterator.BATCH_SIZE / 2;
+        int docId = iterator.advance(startDocId);
+        MutableRoaringBitmap expectedBitmap = new MutableRoaringBitmap();
+        for (int expectedDocId : expectedDocIds) {
+          if (expectedDocId > docId) {
+            expectedBitmap.add(expectedDocId);
+          }
+        }
+        Assert.assertEquals(iterator.toBitmap(), expectedBitmap);
+        Assert.assertEquals(iterator.getNumEntriesScanned(), NUM_DOCS - startDocId);
+      }
+    } catch (Throwable t) {
+      Assert.fail("Failed with random seed: " + RANDOM_SEED, t);
+    }
+  }
+
+  @Test
+  public void testAdvance() {
+    int batchSize = SVScanDocIdIterator.BATCH_SIZE;
+    // Targets inside the same batch, on both sides of the batch boundaries, and past the end
+    int[] targetDocIds =
+        {0, 1, 5, batchSize - 1, batchSize, batchSize + 1, 2 * batchSize - 1, 2 * batchSize + 3, 5 * batchSize,
+            5 * batchSize + 2, NUM_DOCS - 2, NUM_DOCS - 1, NUM_DOCS};
+    try {
+      for (PredicateEvaluator evaluator : getEvaluators()) {
+        int[] expectedDocIds = getExpectedDocIds(evaluator);
+
+        SVScanDocIdIterator iterator = newIterator(evaluator);
+        for (int targetDocId : targetDocIds) {
+          int expectedDocId = getFirstDocIdOnOrAfter(expectedDocIds, Math.max(targetDocId, iterator.currentDocId()));
+          Assert.assertEquals(iterator.advance(targetDocId), expectedDocId);
+          if (expectedDocId == Constants.EOF) {
+            break;
+          }
+        }
+
+        // Random targets mixed with calls to next()
+        iterator = newIterator(evaluator);
+        int docId = iterator.next();
+        while (docId != Constants.EOF) {
+          if (RANDOM.nextBoolean()) {
+            int targetDocId = docId + RANDOM.nextInt(2 * batchSize);
+            int expectedDocId = getFirstDocIdOnOrAfter(expectedDocIds, targetDocId);
+            docId = iterator.advance(targetDocId);
+            Assert.assertEquals(docId, expectedDocId);
+          } else {
+            int expectedDocId = getFirstDocIdOnOrAfter(expectedDocIds, docId + 1);
+            docId = iterator.next();
+            Assert.assertEquals(docId, expectedDocId);
+          }
+        }
+      }
+    } catch (Throwable t) {
+      Assert.fail("Failed with random seed: " + RANDOM_SEED, t);
+    }
+  }
+
+  @Test
+  public void testApplyAnd() {
+    try {
+      for (PredicateEvaluator evaluator : getEvaluators()) {
+        MutableRoaringBitmap answer = new MutableRoaringBitmap();
+        MutableRoaringBitmap expectedResult = new MutableRoaringBitmap();
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          if (RANDOM.nextInt(3) == 0) {
+            answer.add(docId);
+            if (evaluator.applySV(_dictIds[docId])) {
+              expectedResult.add(docId);
+            }
+          }
+        }
+
+        SVScanDocIdIterator iterator = newIterator(evaluator);
+        Assert.assertEquals(iterator.applyAnd(answer), expectedResult);
+        Assert.assertEquals(iterator.getNumEntriesScanned(), answer.getCardinality());
+      }
+    } catch (Throwable t) {
+      Assert.fail("Failed with random seed: " + RANDOM_SEED, t);
+    }
+  }
+
+  @Test
+  public void testIsMatch() {
+    PredicateEvaluator evaluator = newInEvaluator(2, 4, 8);
+    SVScanDocIdIterator iterator = newIterator(evaluator);
+    for (int docId = 0; docId < NUM_DOCS; docId += 7) {
+      Assert.assertEquals(iterator.isMatch(docId), evaluator.applySV(_dictIds[docId]));
+    }
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    _forwardIndex.close();
+    _memoryManager.close();
+  }
+
+  private PredicateEvaluator[] getEvaluators() {
+    return new PredicateEvaluator[]{
+        newEqEvaluator(RANDOM.nextInt(CARDINALITY)), newInEvaluator(1, 5, 9, 13, 17),
+        newInEvaluator(RANDOM.nextInt(CARDINALITY), RANDOM.nextInt(CARDINALITY))
+    };
+  }
+
+  private PredicateEvaluator newEqEvaluator(int value) {
+    EqPredicate predicate = new EqPredicate(COLUMN_NAME, Collections.singletonList(Integer.toString(value)));
+    return EqualsPredicateEvaluatorFactory.newDictionaryBasedEvaluator(predicate, _dictionary);
+  }
+
+  private PredicateEvaluator newInEvaluator(int... values) {
+    String[] stringValues = new String[values.length];
+    for (int i = 0; i < values.length; i++) {
+      stringValues[i] = Integer.toString(values[i]);
+    }
+    InPredicate predicate = new InPredicate(COLUMN_NAME, Arrays.asList(stringValues));
+    return InPredicateEvaluatorFactory.newDictionaryBasedEvaluator(predicate, _dictionary);
+  }
+
+  private SVScanDocIdIterator newIterator(PredicateEvaluator evaluator) {
+    return new SVScanDocIdIterator(COLUMN_NAME, new SingleValueSet(_forwardIndex, NUM_DOCS, FieldSpec.DataType.INT),
+        new BlockMetadataImpl(NUM_DOCS, true, 0, FieldSpec.DataType.INT, _dictionary), evaluator);
+  }
+
+  /**
+   * Evaluates the predicate one document at a time.
+   */
+  private int[] getExpectedDocIds(PredicateEvaluator evaluator) {
+    return IntStream.range(0, NUM_DOCS).filter(docId -> evaluator.applySV(_dictIds[docId])).toArray();
+  }
+
+  private static int getFirstDocIdOnOrAfter(int[] docIds, int targetDocId) {
+    for (int docId : docIds) {
+      if (docId >= targetDocId) {
+        return docId;
+      }
+    }
+    return Constants.EOF;
+  }
+
+  private void verifyBatch(PredicateEvaluator evaluator) {
+    int[] matchingIndexes = new int[NUM_DOCS];
+    int numMatches = evaluator.applySVBatch(_dictIds, NUM_DOCS, matchingIndexes);
+    int index = 0;
+    for (int i = 0; i < NUM_DOCS; i++) {
+      if (evaluator.applySV(_dictIds[i])) {
+        Assert.assertEquals(matchingIndexes[index++], i);
+      }
+    }
+    Assert.assertEquals(numMatches, index);
+  }
+}
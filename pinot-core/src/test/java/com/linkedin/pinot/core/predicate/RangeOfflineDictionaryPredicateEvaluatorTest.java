@@ -50,6 +50,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart, rangeEnd);
+      verifyBatch(evaluator);
     }
     {
       // [2,5)
@@ -70,6 +71,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart + 1, rangeEnd);
+      verifyBatch(evaluator);
     }
     {
       // (2,5]
@@ -90,6 +92,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart, rangeEnd - 1);
+      verifyBatch(evaluator);
     }
     {
       // [2,5]
@@ -110,9 +113,26 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart + 1, rangeEnd - 1);
+      verifyBatch(evaluator);
     }
   }
 
+  private void verifyBatch(PredicateEvaluator evaluator) {
+    int[] dictIds = new int[DICT_LEN];
+    for (int i = 0; i < DICT_LEN; i++) {
+      dictIds[i] = DICT_LEN - 1 - i;
+    }
+    int[] matchingIndexes = new int[DICT_LEN];
+    int numMatches = evaluator.applySVBatch(dictIds, DICT_LEN, matchingIndexes);
+    int index = 0;
+    for (int i = 0; i < DICT_LEN; i++) {
+      if (evaluator.applySV(dictIds[i])) {
+        Assert.assertEquals(matchingIndexes[index++], i);
+      }
+    }
+    Assert.assertEquals(numMatches, index);
+  }
+
   private void verifyDictId(int[] dictIds, int start, int end) {
     Assert.assertEquals(dictIds.length, end - start + 1);
     for (int dictId : dictIds) {
@@ -141,6 +161,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart, rangeEnd - 1);
+      verifyBatch(evaluator);
     }
     {
       // (0,5)
@@ -173,6 +194,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart, rangeEnd);
+      verifyBatch(evaluator);
     }
     {
       // [6, DICT_LEN-1)
@@ -209,6 +231,7 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
       Assert.assertFalse(evaluator.applyMV(dictIds, 1));
       dictIds = evaluator.getMatchingDictIds();
       verifyDictId(dictIds, rangeStart + 1, rangeEnd - 1);
+      verifyBatch(evaluator);
     }
   }
 
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.indexsegment.mutable.MutableSegment;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class SegmentResultCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String QUERY = "SELECT COUNT(*), AVG(foo) FROM " + TABLE_NAME + " WHERE bar = 'baz'";
+
+  @Test
+  public void testIsCacheable() {
+    BrokerRequest aggregationRequest = COMPILER.compileToBrokerRequest(QUERY);
+    BrokerRequest selectionRequest = COMPILER.compileToBrokerRequest("SELECT * FROM " + TABLE_NAME);
+    Assert.assertTrue(SegmentResultCache.isCacheable(mockSegment(ImmutableSegment.class, "1"), aggregationRequest));
+    Assert.assertFalse(SegmentResultCache.isCacheable(mockSegment(ImmutableSegment.class, null), aggregationRequest));
+    Assert.assertFalse(SegmentResultCache.isCacheable(mockSegment(MutableSegment.class, "1"), aggregationRequest));
+    Assert.assertFalse(SegmentResultCache.isCacheable(mockSegment(ImmutableSegment.class, "1"), selectionRequest));
+  }
+
+  @Test
+  public void testKey() {
+    IndexSegment indexSegment = mockSegment(ImmutableSegment.class, "1");
+    SegmentResultCache.Key key = getKey(indexSegment, COMPILER.compileToBrokerRequest(QUERY));
+
+    // Options that do not affect the segment result should be ignored
+    Assert.assertEquals(getKey(indexSegment, COMPILER.compileToBrokerRequest(QUERY + " LIMIT 5")),
+        key);
+    Assert.assertEquals(
+        getKey(indexSegment, COMPILER.compileToBrokerRequest(QUERY + " GROUP BY bar TOP 5")),
+        getKey(indexSegment, COMPILER.compileToBrokerRequest(QUERY + " GROUP BY bar TOP 10")));
+
+    // Different filter, aggregation or segment CRC should have different key
+    Assert.assertFalse(
+        getKey(indexSegment, COMPILER.compileToBrokerRequest(QUERY.replace("baz", "qux")))
+            .equals(key));
+    Assert.assertFalse(
+        getKey(indexSegment, COMPILER.compileToBrokerRequest(QUERY.replace("AVG", "SUM")))
+            .equals(key));
+    Assert.assertFalse(
+        getKey(mockSegment(ImmutableSegment.class, "2"), COMPILER.compileToBrokerRequest(QUERY))
+            .equals(key));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    ServerMetrics serverMetrics = new ServerMetrics(new MetricsRegistry());
+    SegmentResultCache segmentResultCache = new SegmentResultCache(1024 * 1024, serverMetrics);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(QUERY);
+    IndexSegment indexSegment = mockSegment(ImmutableSegment.class, "1");
+    SegmentResultCache.Key key = getKey(indexSegment, brokerRequest);
+    Assert.assertNull(segmentResultCache.get(key, indexSegment));
+
+    CachedSegmentResult cachedResult = segmentResultCache.put(key, indexSegment,
+        createResultsBlock(brokerRequest, indexSegment), new ExecutionStatistics(10L, 20L, 30L, 100L));
+    Assert.assertNotNull(cachedResult);
+    Assert.assertEquals(segmentResultCache.size(), 1L);
+    cachedResult = segmentResultCache.get(key, indexSegment);
+    Assert.assertNotNull(cachedResult);
+    ExecutionStatistics executionStatistics = cachedResult.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 10L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 0L);
+    Assert.assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 0L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 100L);
+
+    // Modifying the results block should not affect the cached result
+    IntermediateResultsBlock resultsBlock = cachedResult.toResultsBlock();
+    Assert.assertEquals(resultsBlock.getAggregationResult().get(0), 10L);
+    ((AvgPair) resultsBlock.getAggregationResult().get(1)).apply(100.0, 1L);
+    AvgPair avgPair = (AvgPair) cachedResult.toResultsBlock().getAggregationResult().get(1);
+    Assert.assertEquals(avgPair.getSum(), 50.0);
+    Assert.assertEquals(avgPair.getCount(), 10L);
+
+    // Reloaded segment with the same name and CRC should not be served from the cache
+    IndexSegment reloadedIndexSegment = mockSegment(ImmutableSegment.class, "1");
+    Assert.assertNull(segmentResultCache.get(key, reloadedIndexSegment));
+    Assert.assertEquals(segmentResultCache.size(), 0L);
+
+    Assert.assertEquals(serverMetrics.getMeteredTableValue(TABLE_NAME, ServerMeter.SEGMENT_RESULT_CACHE_HITS).count(),
+        1L);
+    Assert.assertEquals(
+        serverMetrics.getMeteredTableValue(TABLE_NAME, ServerMeter.SEGMENT_RESULT_CACHE_MISSES).count(), 2L);
+  }
+
+  @Test
+  public void testEviction() {
+    SegmentResultCache segmentResultCache =
+        new SegmentResultCache(1024, new ServerMetrics(new MetricsRegistry()));
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(QUERY);
+    List<IndexSegment> indexSegments = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      IndexSegment indexSegment = mockSegment(ImmutableSegment.class, Integer.toString(i));
+      indexSegments.add(indexSegment);
+      segmentResultCache.put(getKey(indexSegment, brokerRequest), indexSegment,
+          createResultsBlock(brokerRequest, indexSegment), new ExecutionStatistics(10L, 20L, 30L, 100L));
+    }
+    Assert.assertTrue(segmentResultCache.size() < 100L);
+
+    // The most recently cached result should not be evicted
+    IndexSegment lastIndexSegment = indexSegments.get(99);
+    Assert.assertNotNull(
+        segmentResultCache.get(getKey(lastIndexSegment, brokerRequest), lastIndexSegment));
+  }
+
+  @Test
+  public void testQueryKey() {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(QUERY);
+    SegmentResultCache.QueryKey queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+    Assert.assertEquals(SegmentResultCache.getQueryKey(COMPILER.compileToBrokerRequest(QUERY)), queryKey);
+
+    // The same query key should be shared by the keys of different segments
+    IndexSegment indexSegment1 = mockSegment(ImmutableSegment.class, "1");
+    IndexSegment indexSegment2 = mockSegment(ImmutableSegment.class, "2");
+    Assert.assertEquals(SegmentResultCache.getKey(indexSegment1, queryKey), getKey(indexSegment1, brokerRequest));
+    Assert.assertFalse(SegmentResultCache.getKey(indexSegment2, queryKey).equals(getKey(indexSegment1, brokerRequest)));
+  }
+
+  @Test
+  public void testGroupByResult() {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(QUERY + " GROUP BY bar, baz");
+    IndexSegment indexSegment = mockSegment(ImmutableSegment.class, "1");
+    AggregationFunctionContext[] functionContexts = AggregationFunctionUtils.getAggregationFunctionContexts(
+        brokerRequest.getAggregationsInfo(), indexSegment.getSegmentMetadata());
+    GroupKeyGenerator.GroupKey groupKey = new GroupKeyGenerator.GroupKey();
+    groupKey._typedGroupKey = TypedGroupKey.fromStringKey("a\tb", 2);
+    AggregationGroupByResult aggregationGroupByResult = mock(AggregationGroupByResult.class);
+    when(aggregationGroupByResult.getTypedGroupKeyIterator()).thenReturn(Arrays.asList(groupKey).iterator());
+    when(aggregationGroupByResult.getResultForKey(any(GroupKeyGenerator.GroupKey.class), anyInt())).thenReturn(5L,
+        new AvgPair(50.0, 5L));
+    CachedSegmentResult cachedResult =
+        CachedSegmentResult.of(indexSegment, new IntermediateResultsBlock(functionContexts, aggregationGroupByResult),
+            new ExecutionStatistics(10L, 20L, 30L, 100L));
+    Assert.assertNotNull(cachedResult);
+
+    // Both string keys and typed keys should be available from the cached result
+    AggregationGroupByResult cachedGroupByResult = cachedResult.toResultsBlock().getAggregationGroupByResult();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = cachedGroupByResult.getGroupKeyIterator();
+    Assert.assertTrue(groupKeyIterator.hasNext());
+    GroupKeyGenerator.GroupKey cachedGroupKey = groupKeyIterator.next();
+    Assert.assertEquals(cachedGroupKey._stringKey, "a\tb");
+    Assert.assertEquals(cachedGroupKey._typedGroupKey, groupKey._typedGroupKey);
+    Assert.assertEquals(cachedGroupByResult.getResultForKey(cachedGroupKey, 0), 5L);
+    Assert.assertEquals(((AvgPair) cachedGroupByResult.getResultForKey(cachedGroupKey, 1)).getCount(), 5L);
+    Assert.assertFalse(groupKeyIterator.hasNext());
+    groupKeyIterator = cachedGroupByResult.getTypedGroupKeyIterator();
+    Assert.assertEquals(groupKeyIterator.next()._typedGroupKey, groupKey._typedGroupKey);
+    Assert.assertFalse(groupKeyIterator.hasNext());
+  }
+
+  private static SegmentResultCache.Key getKey(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    return SegmentResultCache.getKey(indexSegment, SegmentResultCache.getQueryKey(brokerRequest));
+  }
+
+  private static IndexSegment mockSegment(Class<? extends IndexSegment> segmentClass, String crc) {
+    SegmentMetadata segmentMetadata = mock(SegmentMetadata.class);
+    when(segmentMetadata.getCrc()).thenReturn(crc);
+    IndexSegment indexSegment = mock(segmentClass);
+    when(indexSegment.getSegmentName()).thenReturn(SEGMENT_NAME);
+    when(indexSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return indexSegment;
+  }
+
+  private static IntermediateResultsBlock createResultsBlock(BrokerRequest brokerRequest, IndexSegment indexSegment) {
+    AggregationFunctionContext[] functionContexts = AggregationFunctionUtils.getAggregationFunctionContexts(
+        brokerRequest.getAggregationsInfo(), indexSegment.getSegmentMetadata());
+    return new IntermediateResultsBlock(functionContexts, Arrays.<Object>asList(10L, new AvgPair(50.0, 10L)));
+  }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.response.broker.SelectionResults;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableBuilder;
+import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for reducing aggregation group-by data tables on the broker side.
+ */
+public class BrokerReduceServiceTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String GROUP_BY_QUERY = "SELECT COUNT(*), MAX(met) FROM testTable GROUP BY dim1, dim2 TOP 10";
+  private static final String[] COLUMN_NAMES = {"dim1", "dim2", "count_star", "max_met"};
+
+  private final BrokerReduceService _brokerReduceService = new BrokerReduceService();
+
+  @Test
+  public void testGroupBy()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY);
+    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
+    dataTableMap.put(new ServerInstance("localhost:0000"), serDe(buildDataTable(new Object[][]{
+        {"a", 1, 2L, 5.0}, {"b", 2, 1L, 3.0}
+    })));
+    dataTableMap.put(new ServerInstance("localhost:1111"), serDe(buildDataTable(new Object[][]{
+        {"a", 1, 3L, 4.0}, {"c", 3, 4L, 1.0}
+    })));
+
+    BrokerResponseNative brokerResponse = _brokerReduceService.reduceOnDataTable(brokerRequest, dataTableMap, null);
+    verifyResults(brokerResponse);
+  }
+
+  @Test
+  public void testGroupByWithLegacyDataTable()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY);
+    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
+    dataTableMap.put(new ServerInstance("localhost:0000"), serDe(buildDataTable(new Object[][]{
+        {"a", 1, 2L, 5.0}, {"b", 2, 1L, 3.0}
+    })));
+    dataTableMap.put(new ServerInstance("localhost:1111"), serDe(buildLegacyDataTable(new Object[][]{
+        {"a", 1, 3L, 4.0}, {"c", 3, 4L, 1.0}
+    })));
+
+    BrokerResponseNative brokerResponse = _brokerReduceService.reduceOnDataTable(brokerRequest, dataTableMap, null);
+    verifyResults(brokerResponse);
+  }
+
+  @Test
+  public void testGroupByWithDifferentGroupKeyTypes()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY);
+    StreamingBrokerReducer streamingBrokerReducer = _brokerReduceService.createStreamingReducer(brokerRequest, null);
+    // INT and LONG group keys should be merged as LONG
+    streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:0000"),
+        serDe(buildDataTable(DataSchema.ColumnDataType.INT, new Object[][]{{"a", 1, 2L, 5.0}, {"b", 2, 1L, 3.0}})));
+    streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:1111"),
+        serDe(buildDataTable(DataSchema.ColumnDataType.LONG, new Object[][]{{"a", 1L, 3L, 4.0}, {"c", 3L, 4L, 1.0}})));
+    verifyResults(streamingBrokerReducer.getBrokerResponse());
+
+    // FLOAT and DOUBLE group keys should be merged as DOUBLE with the same decimal value
+    streamingBrokerReducer = _brokerReduceService.createStreamingReducer(brokerRequest, null);
+    streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:0000"),
+        serDe(buildDataTable(DataSchema.ColumnDataType.FLOAT, new Object[][]{{"a", 1.1f, 2L, 5.0}})));
+    streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:1111"),
+        serDe(buildDataTable(DataSchema.ColumnDataType.DOUBLE, new Object[][]{{"a", 1.1, 3L, 4.0}})));
+    List<GroupByResult> countResults =
+        streamingBrokerReducer.getBrokerResponse().getAggregationResults().get(0).getGroupByResult();
+    Assert.assertEquals(countResults.size(), 1);
+    Assert.assertEquals(countResults.get(0).getGroup(), Arrays.asList("a", "1.1"));
+    Assert.assertEquals(countResults.get(0).getValue(), "5");
+  }
+
+  @Test
+  public void testGroupByWithoutGroups()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY);
+    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
+    dataTableMap.put(new ServerInstance("localhost:0000"), serDe(DataTableBuilder.buildEmptyDataTable(brokerRequest)));
+
+    BrokerResponseNative brokerResponse = _brokerReduceService.reduceOnDataTable(brokerRequest, dataTableMap, null);
+    List<AggregationResult> aggregationResults = brokerResponse.getAggregationResults();
+    Assert.assertEquals(aggregationResults.size(), 2);
+    Assert.assertEquals(aggregationResults.get(0).getFunction(), "count_star");
+    Assert.assertTrue(aggregationResults.get(0).getGroupByResult().isEmpty());
+    Assert.assertEquals(aggregationResults.get(1).getFunction(), "max_met");
+    Assert.assertTrue(aggregationResults.get(1).getGroupByResult().isEmpty());
+  }
+
+  @Test
+  public void testEmptyGroupByDataTable()
+      throws Exception {
+    // Without the query option, the empty data table should be in the legacy format for brokers on the old version
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY);
+    DataTable dataTable = serDe(DataTableBuilder.buildEmptyDataTable(brokerRequest));
+    Assert.assertEquals(dataTable.getDataSchema(), new DataSchema(new String[]{"functionName", "GroupByResultMap"},
+        new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT}));
+    Assert.assertEquals(dataTable.getNumberOfRows(), 2);
+    Assert.assertEquals(dataTable.getString(0, 0), "count_star");
+    Assert.assertTrue(dataTable.<Map<String, Object>>getObject(0, 1).isEmpty());
+    Assert.assertEquals(dataTable.getString(1, 0), "max_met");
+    Assert.assertTrue(dataTable.<Map<String, Object>>getObject(1, 1).isEmpty());
+
+    // With the query option, the empty data table should be in the typed format
+    brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY + " OPTION(typedGroupByDataTable=true)");
+    dataTable = serDe(DataTableBuilder.buildEmptyDataTable(brokerRequest));
+    DataSchema dataSchema = dataTable.getDataSchema();
+    Assert.assertEquals(dataSchema.size(), COLUMN_NAMES.length);
+    for (int i = 0; i < COLUMN_NAMES.length; i++) {
+      Assert.assertEquals(dataSchema.getColumnName(i), COLUMN_NAMES[i]);
+    }
+    Assert.assertEquals(dataTable.getNumberOfRows(), 0);
+  }
+
+  @Test
+  public void testStreamingReduce()
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(GROUP_BY_QUERY);
+    StreamingBrokerReducer streamingBrokerReducer = _brokerReduceService.createStreamingReducer(brokerRequest, null);
+    Assert.assertTrue(streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:0000"),
+        serDe(buildDataTable(new Object[][]{{"a", 1, 2L, 5.0}, {"b", 2, 1L, 3.0}}))));
+    // Legacy data table after the typed one
+    Assert.assertTrue(streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:1111"),
+        serDe(buildLegacyDataTable(new Object[][]{{"a", 1, 3L, 4.0}, {"c", 3, 4L, 1.0}}))));
+    Assert.assertEquals(streamingBrokerReducer.getNumDataTablesReduced(), 2);
+    verifyResults(streamingBrokerReducer.getBrokerResponse());
+
+    // Data tables after the reduce is finished should be ignored
+    Assert.assertFalse(streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:2222"),
+        serDe(buildDataTable(new Object[][]{{"d", 4, 10L, 10.0}}))));
+    Assert.assertEquals(streamingBrokerReducer.getNumDataTablesReduced(), 2);
+  }
+
+  @Test
+  public void testSelectionOrderBy()
+      throws Exception {
+    BrokerRequest brokerRequest =
+        COMPILER.compileToBrokerRequest("SELECT dim1, met FROM testTable ORDER BY met DESC LIMIT 3");
+    DataSchema dataSchema = new DataSchema(new String[]{"met", "dim1"},
+        new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING});
+    StreamingBrokerReducer streamingBrokerReducer = _brokerReduceService.createStreamingReducer(brokerRequest, null);
+    int[][] metValues = {{5, 1}, {3, 7}, {6, 2}};
+    for (int i = 0; i < metValues.length; i++) {
+      DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+      for (int metValue : metValues[i]) {
+        dataTableBuilder.startRow();
+        dataTableBuilder.setColumn(0, metValue);
+        dataTableBuilder.setColumn(1, "v" + metValue);
+        dataTableBuilder.finishRow();
+      }
+      streamingBrokerReducer.reduceDataTable(new ServerInstance("localhost:" + i), serDe(dataTableBuilder.build()));
+    }
+
+    SelectionResults selectionResults = streamingBrokerReducer.getBrokerResponse().getSelectionResults();
+    Assert.assertEquals(selectionResults.getColumns(), Arrays.asList("dim1", "met"));
+    List<Serializable[]> rows = selectionResults.getRows();
+    Assert.assertEquals(rows.size(), 3);
+    Assert.assertEquals(rows.get(0), new Serializable[]{"v7", "7"});
+    Assert.assertEquals(rows.get(1), new Serializable[]{"v6", "6"});
+    Assert.assertEquals(rows.get(2), new Serializable[]{"v5", "5"});
+  }
+
+  private static void verifyResults(BrokerResponseNative brokerResponse) {
+    List<AggregationResult> aggregationResults = brokerResponse.getAggregationResults();
+    Assert.assertEquals(aggregationResults.size(), 2);
+
+    List<GroupByResult> countResults = aggregationResults.get(0).getGroupByResult();
+    Assert.assertEquals(countResults.size(), 3);
+    Assert.assertEquals(countResults.get(0).getGroup(), Arrays.asList("a", "1"));
+    Assert.assertEquals(countResults.get(0).getValue(), "5");
+    Assert.assertEquals(countResults.get(1).getGroup(), Arrays.asList("c", "3"));
+    Assert.assertEquals(countResults.get(1).getValue(), "4");
+    Assert.assertEquals(countResults.get(2).getGroup(), Arrays.asList("b", "2"));
+    Assert.assertEquals(countResults.get(2).getValue(), "1");
+
+    List<GroupByResult> maxResults = aggregationResults.get(1).getGroupByResult();
+    Assert.assertEquals(maxResults.size(), 3);
+    Assert.assertEquals(maxResults.get(0).getGroup(), Arrays.asList("a", "1"));
+    Assert.assertEquals(maxResults.get(0).getValue(), "5.00000");
+    Assert.assertEquals(maxResults.get(1).getGroup(), Arrays.asList("b", "2"));
+    Assert.assertEquals(maxResults.get(1).getValue(), "3.00000");
+    Assert.assertEquals(maxResults.get(2).getGroup(), Arrays.asList("c", "3"));
+    Assert.assertEquals(maxResults.get(2).getValue(), "1.00000");
+  }
+
+  private static DataTable buildDataTable(Object[][] rows)
+      throws Exception {
+    return buildDataTable(DataSchema.ColumnDataType.INT, rows);
+  }
+
+  private static DataTable buildDataTable(DataSchema.ColumnDataType dim2DataType, Object[][] rows)
+      throws Exception {
+    DataSchema dataSchema = new DataSchema(COLUMN_NAMES,
+        new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, dim2DataType,
+            DataSchema.ColumnDataType.LONG, DataSchema.ColumnDataType.DOUBLE});
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    for (Object[] row : rows) {
+      dataTableBuilder.startRow();
+      dataTableBuilder.setColumn(0, (String) row[0]);
+      switch (dim2DataType) {
+        case INT:
+          dataTableBuilder.setColumn(1, (int) row[1]);
+          break;
+        case LONG:
+          dataTableBuilder.setColumn(1, (long) row[1]);
+          break;
+        case FLOAT:
+          dataTableBuilder.setColumn(1, (float) row[1]);
+          break;
+        case DOUBLE:
+          dataTableBuilder.setColumn(1, (double) row[1]);
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+      dataTableBuilder.setColumn(2, (long) row[2]);
+      dataTableBuilder.setColumn(3, (double) row[3]);
+      dataTableBuilder.finishRow();
+    }
+    return dataTableBuilder.build();
+  }
+
+  private static DataTable buildLegacyDataTable(Object[][] rows)
+      throws Exception {
+    Map<String, Object> countResultMap = new HashMap<>();
+    Map<String, Object> maxResultMap = new HashMap<>();
+    for (Object[] row : rows) {
+      String groupKey = row[0] + AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER + row[1];
+      countResultMap.put(groupKey, row[2]);
+      maxResultMap.put(groupKey, row[3]);
+    }
+    DataSchema dataSchema = new DataSchema(new String[]{"functionName", "GroupByResultMap"},
+        new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT});
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    dataTableBuilder.startRow();
+    dataTableBuilder.setColumn(0, COLUMN_NAMES[2]);
+    dataTableBuilder.setColumn(1, countResultMap);
+    dataTableBuilder.finishRow();
+    dataTableBuilder.startRow();
+    dataTableBuilder.setColumn(0, COLUMN_NAMES[3]);
+    dataTableBuilder.setColumn(1, maxResultMap);
+    dataTableBuilder.finishRow();
+    return dataTableBuilder.build();
+  }
+
+  private static DataTable serDe(DataTable dataTable)
+      throws Exception {
+    return DataTableFactory.getDataTable(dataTable.toBytes());
+  }
+}
@@ -90,5 +90,32 @@ public class BoundedAccountingExecutorTest {
     verify(accountant, times(pendingJobs)).incrementThreads();
     syncer.validationBarrier.await();
   }
+
+  @Test
+  public void testSetBounds() throws Exception {
+    SchedulerGroupAccountant accountant = mock(SchedulerGroupAccountant.class);
+    Executor es = mock(Executor.class);
+    BoundedAccountingExecutor bes = new BoundedAccountingExecutor(es, 3, accountant);
+
+    bes.setBounds(5);
+    verify(accountant).addReservedThreads(2);
+    assertEquals(bes.getMaxNumConcurrentJobs(), 5);
+
+    // Bounds of 0 should run the jobs inline without reserving threads
+    bes.setBounds(0);
+    verify(accountant).releasedReservedThreads(5);
+    assertEquals(bes.getMaxNumConcurrentJobs(), 1);
+    Thread callingThread = Thread.currentThread();
+    assertTrue(bes.submit(() -> Thread.currentThread() == callingThread).get());
+    verify(es, never()).execute(any(Runnable.class));
+    // Jobs run inline should still be accounted
+    verify(accountant).incrementThreads();
+    verify(accountant).decrementThreads();
+
+    // Nothing reserved to release when the query is done
+    reset(accountant);
+    bes.releaseWorkers();
+    verify(accountant).releasedReservedThreads(0);
+  }
 }
 
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.resources;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class ResourceLimitPolicyTest {
+
+  @Test
+  public void testNumThreadsForQuery() {
+    Configuration config = new PropertiesConfiguration();
+    config.setProperty(ResourceLimitPolicy.THREADS_PER_QUERY_PCT, 50);
+    config.setProperty(ResourceLimitPolicy.TABLE_THREADS_HARD_LIMIT, 80);
+    config.setProperty(ResourceLimitPolicy.INLINE_QUERY_MAX_COST, 10_000);
+    config.setProperty(ResourceLimitPolicy.QUERY_COST_PER_THREAD, 100_000);
+    ResourceLimitPolicy policy = new ResourceLimitPolicy(config, 20);
+    int maxThreadsPerQuery = policy.getMaxThreadsPerQuery();
+    assertTrue(maxThreadsPerQuery >= 1);
+
+    // Scan-free queries are always run inline
+    assertEquals(policy.getNumThreadsForQuery(1000, 1_000_000_000L, true), 0);
+
+    // Cheap queries are run inline (cost includes the per-segment cost)
+    assertEquals(policy.getNumThreadsForQuery(3, 5_000L, false), 0);
+    assertEquals(policy.getNumThreadsForQuery(10, 5_000L, false), 1);
+
+    // One thread per cost per thread
+    assertEquals(policy.getNumThreadsForQuery(100, 50_000L, false), Math.min(2, maxThreadsPerQuery));
+
+    // Bounded by number of segments and max threads per query
+    assertEquals(policy.getNumThreadsForQuery(2, 1_000_000_000L, false), Math.min(2, maxThreadsPerQuery));
+    assertEquals(policy.getNumThreadsForQuery(3000, 1_000_000_000L, false), maxThreadsPerQuery);
+  }
+}
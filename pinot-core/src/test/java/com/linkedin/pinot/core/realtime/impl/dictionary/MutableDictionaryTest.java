@@ -157,6 +157,49 @@ public class MutableDictionaryTest {
     }
   }
 
+  @Test
+  public void testBulkIndex() throws Exception {
+    try {
+      for (FieldSpec.DataType dataType : DATA_TYPES) {
+        MutableDictionary onHeapDictionary =
+            MutableDictionaryFactory.getMutableDictionary(dataType, false, null, 0, 0, null);
+        testBulkIndex(onHeapDictionary, dataType);
+        onHeapDictionary.close();
+
+        MutableDictionary offHeapDictionary = makeOffHeapDictionary(EST_CARDINALITY, 2000, dataType);
+        testBulkIndex(offHeapDictionary, dataType);
+        offHeapDictionary.close();
+      }
+    } catch (Throwable t) {
+      Assert.fail("Failed with random seed: " + RANDOM_SEED, t);
+    }
+  }
+
+  private void testBulkIndex(MutableDictionary dictionary, FieldSpec.DataType dataType) {
+    // Pick from a small pool so that each batch contains both new and already indexed values.
+    int poolSize = 1000;
+    Object[] pool = new Object[poolSize];
+    for (int i = 0; i < poolSize; i++) {
+      pool[i] = makeRandomObjectOfType(dataType);
+    }
+
+    int batchSize = 100;
+    Object[] values = new Object[batchSize];
+    int[] dictIds = new int[batchSize];
+    for (int batch = 0; batch < NUM_ENTRIES / batchSize; batch++) {
+      int length = RANDOM.nextInt(batchSize) + 1;
+      for (int i = 0; i < length; i++) {
+        values[i] = pool[RANDOM.nextInt(poolSize)];
+      }
+      dictionary.index(values, length, dictIds);
+      for (int i = 0; i < length; i++) {
+        Assert.assertEquals(dictIds[i], dictionary.indexOf(values[i]));
+        Object value = dictionary.get(dictIds[i]);
+        Assert.assertEquals(value instanceof byte[] ? new ByteArray((byte[]) value) : value, values[i]);
+      }
+    }
+  }
+
   private void testMutableDictionary(MutableDictionary dictionary, FieldSpec.DataType dataType) {
     Map<Object, Integer> valueToDictId = new HashMap<>();
     int numEntries = 0;
@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedindex;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for functionality and concurrent read/write against the realtime inverted index.
+ * <p>Document <code>i</code> has dictionary id <code>i % CARDINALITY</code>, so the posting list for each dictionary
+ * id is deterministic.
+ */
+public class RealtimeInvertedIndexReaderTest {
+  private static final int NUM_DOCS = 200_000;
+  private static final int CARDINALITY = 2_000;
+  private static final int NUM_READERS = 3;
+  private static final long RANDOM_SEED = System.currentTimeMillis();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+
+  private final ExecutorService _executorService = Executors.newFixedThreadPool(NUM_READERS + 1);
+
+  @Test
+  public void testInvertedIndex() {
+    RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      invertedIndex.add(docId % CARDINALITY, docId);
+    }
+    for (int dictId = 0; dictId < CARDINALITY; dictId++) {
+      verifyDocIds(invertedIndex.getDocIds(dictId), dictId, NUM_DOCS);
+    }
+
+    // Dictionary id not added yet
+    Assert.assertTrue(invertedIndex.getDocIds(CARDINALITY).isEmpty());
+  }
+
+  @Test
+  public void testSharedDocIds() {
+    RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+    invertedIndex.add(0, 0);
+    invertedIndex.add(0, 1);
+
+    // Same bitmap until the next document id is added
+    MutableRoaringBitmap docIds = invertedIndex.getDocIds(0);
+    Assert.assertEquals(docIds, MutableRoaringBitmap.bitmapOf(0, 1));
+    Assert.assertSame(invertedIndex.getDocIds(0), docIds);
+
+    invertedIndex.add(0, 2);
+    Assert.assertEquals(docIds, MutableRoaringBitmap.bitmapOf(0, 1));
+    Assert.assertEquals(invertedIndex.getDocIds(0), MutableRoaringBitmap.bitmapOf(0, 1, 2));
+  }
+
+  @Test
+  public void testLargePostingList()
+      throws Exception {
+    // Single posting list with all the documents, so that the snapshot is rebuilt many times while being read
+    RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+    Future readerFuture = _executorService.submit(() -> {
+      int previousCardinality = 0;
+      while (previousCardinality < NUM_DOCS) {
+        MutableRoaringBitmap docIds = invertedIndex.getDocIds(0);
+        int cardinality = docIds.getCardinality();
+        Assert.assertTrue(cardinality >= previousCardinality);
+        // Snapshot must be a prefix of the posting list
+        Assert.assertTrue(cardinality == 0 || docIds.rank(cardinality - 1) == cardinality);
+        previousCardinality = cardinality;
+      }
+    });
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      invertedIndex.add(0, docId);
+    }
+    readerFuture.get();
+    Assert.assertEquals(invertedIndex.getDocIds(0).getCardinality(), NUM_DOCS);
+  }
+
+  @Test
+  public void testMultiValue() {
+    RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+    // Dictionary ids out of order and duplicate values in the same document
+    invertedIndex.add(2, 0);
+    invertedIndex.add(0, 0);
+    invertedIndex.add(2, 0);
+    invertedIndex.add(1, 1);
+    invertedIndex.add(2, 1);
+
+    Assert.assertEquals(invertedIndex.getDocIds(0), MutableRoaringBitmap.bitmapOf(0));
+    Assert.assertEquals(invertedIndex.getDocIds(1), MutableRoaringBitmap.bitmapOf(1));
+    Assert.assertEquals(invertedIndex.getDocIds(2), MutableRoaringBitmap.bitmapOf(0, 1));
+  }
+
+  @Test
+  public void testMultiReadersSingleWriter()
+      throws Exception {
+    try {
+      RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+      Future[] readerFutures = new Future[NUM_READERS];
+      for (int i = 0; i < NUM_READERS; i++) {
+        readerFutures[i] = _executorService.submit(() -> {
+          for (int j = 0; j < NUM_DOCS / 10; j++) {
+            int dictId = RANDOM.nextInt(CARDINALITY);
+            MutableRoaringBitmap docIds = invertedIndex.getDocIds(dictId);
+            // Snapshot must be a prefix of the posting list
+            verifyDocIds(docIds, dictId, dictId + docIds.getCardinality() * CARDINALITY);
+          }
+        });
+      }
+      Future writerFuture = _executorService.submit(() -> {
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          invertedIndex.add(docId % CARDINALITY, docId);
+        }
+      });
+
+      writerFuture.get();
+      for (int i = 0; i < NUM_READERS; i++) {
+        readerFutures[i].get();
+      }
+    } catch (Throwable t) {
+      Assert.fail("Failed with random seed: " + RANDOM_SEED, t);
+    }
+  }
+
+  private static void verifyDocIds(MutableRoaringBitmap docIds, int dictId, int numDocs) {
+    IntIterator iterator = docIds.getIntIterator();
+    for (int expectedDocId = dictId; expectedDocId < numDocs; expectedDocId += CARDINALITY) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(iterator.next(), expectedDocId);
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _executorService.shutdown();
+  }
+}
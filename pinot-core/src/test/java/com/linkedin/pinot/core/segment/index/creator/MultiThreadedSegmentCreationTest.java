@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.creator;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.GenericRowRecordReader;
+import com.linkedin.pinot.core.data.readers.PinotSegmentRecordReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.store.SegmentDirectory;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Test for multi-threaded segment creation, where the stats and indexes of the columns are created in parallel. The
+ * segment created with multiple threads should be the same as the one created with a single thread.
+ */
+public class MultiThreadedSegmentCreationTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "MultiThreadedSegmentCreationTest");
+  private static final long RANDOM_SEED = System.nanoTime();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+  private static final String ERROR_MESSAGE = "Random seed: " + RANDOM_SEED;
+
+  // Use a number of rows which is not a multiple of the batch size to test the last partial batch
+  private static final int NUM_ROWS = 2 * SegmentIndexCreationDriverImpl.NUM_ROWS_PER_BATCH + 1234;
+  private static final int NUM_THREADS = 4;
+  private static final int MAX_NUM_MULTI_VALUES = 5;
+
+  private static final String SORTED_COLUMN = "sortedColumn";
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String MULTI_VALUE_COLUMN = "multiValueColumn";
+  private static final String RAW_COLUMN = "rawColumn";
+  private static final String METRIC_COLUMN = "metricColumn";
+
+  private Schema _schema;
+  private List<GenericRow> _rows;
+  private File _singleThreadedSegmentDir;
+  private File _multiThreadedSegmentDir;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+
+    _schema = new Schema();
+    _schema.addField(new DimensionFieldSpec(SORTED_COLUMN, FieldSpec.DataType.INT, true));
+    _schema.addField(new DimensionFieldSpec(INT_COLUMN, FieldSpec.DataType.INT, true));
+    _schema.addField(new DimensionFieldSpec(STRING_COLUMN, FieldSpec.DataType.STRING, true));
+    _schema.addField(new DimensionFieldSpec(MULTI_VALUE_COLUMN, FieldSpec.DataType.LONG, false));
+    _schema.addField(new DimensionFieldSpec(RAW_COLUMN, FieldSpec.DataType.STRING, true));
+    _schema.addField(new MetricFieldSpec(METRIC_COLUMN, FieldSpec.DataType.DOUBLE));
+
+    _rows = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> map = new HashMap<>();
+      map.put(SORTED_COLUMN, i / 100);
+      map.put(INT_COLUMN, RANDOM.nextInt(1000));
+      map.put(STRING_COLUMN, "s" + RANDOM.nextInt(100));
+      int numValues = RANDOM.nextInt(MAX_NUM_MULTI_VALUES) + 1;
+      Object[] values = new Object[numValues];
+      for (int j = 0; j < numValues; j++) {
+        values[j] = RANDOM.nextLong();
+      }
+      map.put(MULTI_VALUE_COLUMN, values);
+      map.put(RAW_COLUMN, "r" + RANDOM.nextInt());
+      // Leave some values as null to test the default null value
+      if (RANDOM.nextInt(10) != 0) {
+        map.put(METRIC_COLUMN, RANDOM.nextDouble());
+      }
+      GenericRow row = new GenericRow();
+      row.init(map);
+      _rows.add(row);
+    }
+
+    _singleThreadedSegmentDir = buildSegment("singleThreaded", 1);
+    _multiThreadedSegmentDir = buildSegment("multiThreaded", NUM_THREADS);
+  }
+
+  private File buildSegment(String segmentName, int numThreads) throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(_schema);
+    config.setOutDir(TEMP_DIR.getPath());
+    config.setTableName("testTable");
+    config.setSegmentName(segmentName);
+    config.setRawIndexCreationColumns(Collections.singletonList(RAW_COLUMN));
+    config.setInvertedIndexCreationColumns(Arrays.asList(INT_COLUMN, STRING_COLUMN, MULTI_VALUE_COLUMN));
+    config.setNumThreads(numThreads);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new GenericRowRecordReader(_rows, _schema));
+    driver.build();
+    return driver.getOutputDirectory();
+  }
+
+  @Test
+  public void testMetadata() throws Exception {
+    SegmentMetadataImpl expected = SegmentDirectory.loadSegmentMetadata(_singleThreadedSegmentDir);
+    SegmentMetadataImpl actual = SegmentDirectory.loadSegmentMetadata(_multiThreadedSegmentDir);
+    Assert.assertEquals(actual.getTotalDocs(), NUM_ROWS);
+    Assert.assertEquals(actual.getTotalRawDocs(), NUM_ROWS);
+
+    for (String column : _schema.getColumnNames()) {
+      ColumnMetadata expectedColumnMetadata = expected.getColumnMetadataFor(column);
+      ColumnMetadata actualColumnMetadata = actual.getColumnMetadataFor(column);
+      Assert.assertEquals(actualColumnMetadata.getCardinality(), expectedColumnMetadata.getCardinality(),
+          ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.getMinValue(), expectedColumnMetadata.getMinValue(), ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.getMaxValue(), expectedColumnMetadata.getMaxValue(), ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.isSorted(), expectedColumnMetadata.isSorted(), ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.hasDictionary(), expectedColumnMetadata.hasDictionary(),
+          ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.hasInvertedIndex(), expectedColumnMetadata.hasInvertedIndex(),
+          ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.getMaxNumberOfMultiValues(),
+          expectedColumnMetadata.getMaxNumberOfMultiValues(), ERROR_MESSAGE);
+      Assert.assertEquals(actualColumnMetadata.getTotalNumberOfEntries(),
+          expectedColumnMetadata.getTotalNumberOfEntries(), ERROR_MESSAGE);
+    }
+    Assert.assertTrue(actual.getColumnMetadataFor(SORTED_COLUMN).isSorted());
+  }
+
+  @Test
+  public void testValues() throws Exception {
+    try (PinotSegmentRecordReader expectedReader = new PinotSegmentRecordReader(_singleThreadedSegmentDir);
+        PinotSegmentRecordReader actualReader = new PinotSegmentRecordReader(_multiThreadedSegmentDir)) {
+      int numRows = 0;
+      while (expectedReader.hasNext()) {
+        Assert.assertTrue(actualReader.hasNext());
+        GenericRow expectedRow = expectedReader.next();
+        GenericRow actualRow = actualReader.next();
+        for (String column : _schema.getColumnNames()) {
+          Object expectedValue = expectedRow.getValue(column);
+          Object actualValue = actualRow.getValue(column);
+          if (expectedValue instanceof Object[]) {
+            Assert.assertTrue(Arrays.equals((Object[]) actualValue, (Object[]) expectedValue), ERROR_MESSAGE);
+          } else {
+            Assert.assertEquals(actualValue, expectedValue, ERROR_MESSAGE);
+          }
+        }
+        numRows++;
+      }
+      Assert.assertFalse(actualReader.hasNext());
+      Assert.assertEquals(numRows, NUM_ROWS);
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+}
@@ -34,12 +34,19 @@ import com.linkedin.pinot.core.data.readers.GenericRowRecordReader;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.AggregationGroupByOperator;
+import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
 import com.linkedin.pinot.core.plan.FilterPlanNode;
 import com.linkedin.pinot.core.plan.PlanNode;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionType;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.startree.StarTreeNode;
+import com.linkedin.pinot.core.startree.StarTreeUtils;
 import com.linkedin.pinot.core.startree.plan.StarTreeFilterPlanNode;
 import com.linkedin.pinot.core.startree.v2.builder.MultipleTreesBuilder;
 import com.linkedin.pinot.core.startree.v2.builder.MultipleTreesBuilder.BuildMode;
@@ -52,6 +59,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -77,22 +85,29 @@ abstract class BaseStarTreeV2Test<R, A> {
   private static final Random RANDOM = new Random();
 
   private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "BaseStarTreeV2Test");
+  private static final File MULTI_THREADED_BUILD_DIR = new File(TEMP_DIR, "multiThreadedBuild");
   private static final String TABLE_NAME = "testTable";
   private static final String SEGMENT_NAME = "testSegment";
 
   private static final int NUM_SEGMENT_RECORDS = 100_000;
   private static final int MAX_LEAF_RECORDS = RANDOM.nextInt(100) + 1;
+  private static final int NUM_THREADS_MULTI_THREADED_BUILD = 4;
   private static final String DIMENSION_D1 = "d1";
   private static final String DIMENSION_D2 = "d2";
   private static final int DIMENSION_CARDINALITY = 100;
   private static final String METRIC = "m";
   private static final String QUERY_FILTER = " WHERE d1 = 0 AND d2 < 10";
+  // OR on a single column, conjoined with NOT
+  private static final String QUERY_FILTER_SINGLE_COLUMN_OR = " WHERE (d1 < 10 OR d1 > 90) AND d2 <> 5";
+  // OR on multiple columns, conjoined with NOT IN
+  private static final String QUERY_FILTER_MULTI_COLUMN_OR = " WHERE (d1 = 0 OR d2 < 10) AND d1 NOT IN (1, 2)";
   private static final String QUERY_GROUP_BY = " GROUP BY d2";
 
   private ValueAggregator _valueAggregator;
   private DataType _aggregatedValueType;
+  private BuildMode _buildMode;
   private IndexSegment _indexSegment;
-  private StarTreeV2 _starTreeV2;
+  private List<StarTreeV2> _starTreeV2s;
 
   @BeforeClass
   public void setUp() throws Exception {
@@ -127,42 +142,188 @@ abstract class BaseStarTreeV2Test<R, A> {
     segmentGeneratorConfig.setSegmentName(SEGMENT_NAME);
     driver.init(segmentGeneratorConfig, new GenericRowRecordReader(segmentRecords, schema));
     driver.build();
-
-    StarTreeV2BuilderConfig starTreeV2BuilderConfig =
-        new StarTreeV2BuilderConfig.Builder().setDimensionsSplitOrder(Arrays.asList(DIMENSION_D1, DIMENSION_D2))
-            .setFunctionColumnPairs(
-                Collections.singleton(new AggregationFunctionColumnPair(_valueAggregator.getAggregationType(), METRIC)))
-            .setMaxLeafRecords(MAX_LEAF_RECORDS)
-            .build();
     File indexDir = new File(TEMP_DIR, SEGMENT_NAME);
 
+    // Keep a copy of the segment without star-tree for the multi-threaded build test
+    FileUtils.copyDirectory(indexDir, new File(MULTI_THREADED_BUILD_DIR, SEGMENT_NAME));
+
     // Randomly build star-tree using on-heap or off-heap mode
-    BuildMode buildMode = RANDOM.nextBoolean() ? BuildMode.ON_HEAP : BuildMode.OFF_HEAP;
-    new MultipleTreesBuilder(Collections.singletonList(starTreeV2BuilderConfig), indexDir, buildMode).build();
+    _buildMode = RANDOM.nextBoolean() ? BuildMode.ON_HEAP : BuildMode.OFF_HEAP;
+    new MultipleTreesBuilder(getStarTreeV2BuilderConfigs(1), indexDir, _buildMode).build();
 
     _indexSegment = ImmutableSegmentLoader.load(indexDir, ReadMode.mmap);
-    _starTreeV2 = _indexSegment.getStarTrees().get(0);
+    _starTreeV2s = _indexSegment.getStarTrees();
+    assertEquals(_starTreeV2s.size(), 2);
+  }
+
+  /**
+   * Builds star-trees with both dimensions split orders using the given number of threads.
+   */
+  private List<StarTreeV2BuilderConfig> getStarTreeV2BuilderConfigs(int numThreads) {
+    List<StarTreeV2BuilderConfig> starTreeV2BuilderConfigs = new ArrayList<>(2);
+    for (List<String> dimensionsSplitOrder : Arrays.asList(Arrays.asList(DIMENSION_D1, DIMENSION_D2),
+        Arrays.asList(DIMENSION_D2, DIMENSION_D1))) {
+      starTreeV2BuilderConfigs.add(new StarTreeV2BuilderConfig.Builder().setDimensionsSplitOrder(dimensionsSplitOrder)
+          .setFunctionColumnPairs(
+              Collections.singleton(new AggregationFunctionColumnPair(_valueAggregator.getAggregationType(), METRIC)))
+          .setMaxLeafRecords(MAX_LEAF_RECORDS)
+          .setNumThreads(numThreads)
+          .build());
+    }
+    return starTreeV2BuilderConfigs;
   }
 
   @Test
   public void testQueries() {
+    String baseQuery = String.format("SELECT %s FROM %s", getAggregation(), TABLE_NAME);
+    for (StarTreeV2 starTreeV2 : _starTreeV2s) {
+      testQuery(starTreeV2, baseQuery);
+      testQuery(starTreeV2, baseQuery + QUERY_FILTER);
+      testQuery(starTreeV2, baseQuery + QUERY_GROUP_BY);
+      testQuery(starTreeV2, baseQuery + QUERY_FILTER + QUERY_GROUP_BY);
+      testQuery(starTreeV2, baseQuery + QUERY_FILTER_SINGLE_COLUMN_OR);
+      testQuery(starTreeV2, baseQuery + QUERY_FILTER_SINGLE_COLUMN_OR + QUERY_GROUP_BY);
+      testQuery(starTreeV2, baseQuery + QUERY_FILTER_MULTI_COLUMN_OR);
+      testQuery(starTreeV2, baseQuery + QUERY_FILTER_MULTI_COLUMN_OR + QUERY_GROUP_BY);
+    }
+  }
+
+  /**
+   * Tests that the aggregation group-by plan uses star-tree for query with OR filter and transform group-by, and gets
+   * the same result as the plan without star-tree.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testTransformGroupByQuery() {
+    String query =
+        String.format("SELECT %s FROM %s%s GROUP BY timeConvert(%s, 'DAYS', 'HOURS')", getAggregation(), TABLE_NAME,
+            QUERY_FILTER_MULTI_COLUMN_OR, DIMENSION_D2);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    AggregationGroupByOperator starTreeOperator =
+        new AggregationGroupByPlanNode(_indexSegment, brokerRequest, NUM_SEGMENT_RECORDS, NUM_SEGMENT_RECORDS).run();
+    Map<String, Object> starTreeResult = getGroupByResult(starTreeOperator.nextBlock());
+    brokerRequest.setDebugOptions(Collections.singletonMap(StarTreeUtils.USE_STAR_TREE_KEY, "false"));
+    AggregationGroupByOperator nonStarTreeOperator =
+        new AggregationGroupByPlanNode(_indexSegment, brokerRequest, NUM_SEGMENT_RECORDS, NUM_SEGMENT_RECORDS).run();
+    Map<String, Object> nonStarTreeResult = getGroupByResult(nonStarTreeOperator.nextBlock());
+
+    // Star-tree should scan the pre-aggregated documents
+    assertTrue(starTreeOperator.getExecutionStatistics().getNumDocsScanned()
+        < nonStarTreeOperator.getExecutionStatistics().getNumDocsScanned());
+    assertEquals(starTreeResult.size(), nonStarTreeResult.size());
+    for (Map.Entry<String, Object> entry : starTreeResult.entrySet()) {
+      String groupKey = entry.getKey();
+      Assert.assertTrue(nonStarTreeResult.containsKey(groupKey));
+      assertAggregatedValue((A) entry.getValue(), (A) nonStarTreeResult.get(groupKey));
+    }
+  }
+
+  private static Map<String, Object> getGroupByResult(IntermediateResultsBlock resultsBlock) {
+    Map<String, Object> result = new HashMap<>();
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      result.put(groupKey._stringKey, aggregationGroupByResult.getResultForKey(groupKey, 0));
+    }
+    aggregationGroupByResult.close();
+    return result;
+  }
+
+  private String getAggregation() {
     AggregationFunctionType aggregationType = _valueAggregator.getAggregationType();
-    String aggregation;
     if (aggregationType == AggregationFunctionType.COUNT) {
-      aggregation = "COUNT(*)";
+      return "COUNT(*)";
     } else if (aggregationType == AggregationFunctionType.PERCENTILEEST
         || aggregationType == AggregationFunctionType.PERCENTILETDIGEST) {
       // Append a percentile number for percentile functions
-      aggregation = String.format("%s50(%s)", aggregationType.getName(), METRIC);
+      return String.format("%s50(%s)", aggregationType.getName(), METRIC);
     } else {
-      aggregation = String.format("%s(%s)", aggregationType.getName(), METRIC);
+      return String.format("%s(%s)", aggregationType.getName(), METRIC);
     }
+  }
+
+  /**
+   * Tests that star-trees built with multiple threads have the same tree structure and documents as the ones built with
+   * a single thread.
+   */
+  @Test
+  public void testMultiThreadedBuild() throws Exception {
+    File indexDir = new File(MULTI_THREADED_BUILD_DIR, SEGMENT_NAME);
+    new MultipleTreesBuilder(getStarTreeV2BuilderConfigs(NUM_THREADS_MULTI_THREADED_BUILD), indexDir,
+        _buildMode).build();
+
+    IndexSegment indexSegment = ImmutableSegmentLoader.load(indexDir, ReadMode.mmap);
+    try {
+      List<StarTreeV2> starTreeV2s = indexSegment.getStarTrees();
+      assertEquals(starTreeV2s.size(), _starTreeV2s.size());
+      for (int i = 0; i < starTreeV2s.size(); i++) {
+        StarTreeV2 expected = _starTreeV2s.get(i);
+        StarTreeV2 actual = starTreeV2s.get(i);
+        int numDocs = expected.getMetadata().getNumDocs();
+        assertEquals(actual.getMetadata().getNumDocs(), numDocs);
+        assertSameNode(actual.getStarTree().getRoot(), expected.getStarTree().getRoot());
+
+        List<String> columns = new ArrayList<>(expected.getMetadata().getDimensionsSplitOrder());
+        for (AggregationFunctionColumnPair functionColumnPair : expected.getMetadata().getFunctionColumnPairs()) {
+          columns.add(functionColumnPair.toColumnName());
+        }
+        for (String column : columns) {
+          assertSameValues(column, actual.getDataSource(column), expected.getDataSource(column), numDocs);
+        }
+      }
+    } finally {
+      indexSegment.destroy();
+    }
+  }
 
-    String baseQuery = String.format("SELECT %s FROM %s", aggregation, TABLE_NAME);
-    testQuery(baseQuery);
-    testQuery(baseQuery + QUERY_FILTER);
-    testQuery(baseQuery + QUERY_GROUP_BY);
-    testQuery(baseQuery + QUERY_FILTER + QUERY_GROUP_BY);
+  private static void assertSameNode(StarTreeNode actual, StarTreeNode expected) {
+    assertEquals(actual.getDimensionId(), expected.getDimensionId());
+    assertEquals(actual.getDimensionValue(), expected.getDimensionValue());
+    assertEquals(actual.getStartDocId(), expected.getStartDocId());
+    assertEquals(actual.getEndDocId(), expected.getEndDocId());
+    assertEquals(actual.getAggregatedDocId(), expected.getAggregatedDocId());
+    assertEquals(actual.getNumChildren(), expected.getNumChildren());
+    if (!expected.isLeaf()) {
+      Iterator<? extends StarTreeNode> actualChildrenIterator = actual.getChildrenIterator();
+      Iterator<? extends StarTreeNode> expectedChildrenIterator = expected.getChildrenIterator();
+      while (expectedChildrenIterator.hasNext()) {
+        assertSameNode(actualChildrenIterator.next(), expectedChildrenIterator.next());
+      }
+      assertFalse(actualChildrenIterator.hasNext());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void assertSameValues(String column, DataSource actual, DataSource expected, int numDocs) {
+    BlockSingleValIterator actualValueIterator =
+        (BlockSingleValIterator) actual.nextBlock().getBlockValueSet().iterator();
+    BlockSingleValIterator expectedValueIterator =
+        (BlockSingleValIterator) expected.nextBlock().getBlockValueSet().iterator();
+    boolean isDimension = expected.getDictionary() != null;
+    for (int docId = 0; docId < numDocs; docId++) {
+      String message = "Value mismatch for column: " + column + " at docId: " + docId;
+      if (isDimension) {
+        assertEquals(actualValueIterator.nextIntVal(), expectedValueIterator.nextIntVal(), message);
+        continue;
+      }
+      switch (_aggregatedValueType) {
+        case LONG:
+          assertEquals(actualValueIterator.nextLongVal(), expectedValueIterator.nextLongVal(), message);
+          break;
+        case DOUBLE:
+          assertEquals(actualValueIterator.nextDoubleVal(), expectedValueIterator.nextDoubleVal(), message);
+          break;
+        case BYTES:
+          // Serialized bytes might contain build time information (e.g. QuantileDigest), so compare the deserialized
+          // aggregated values instead
+          assertAggregatedValue((A) _valueAggregator.deserializeAggregatedValue(actualValueIterator.nextBytesVal()),
+              (A) _valueAggregator.deserializeAggregatedValue(expectedValueIterator.nextBytesVal()));
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
   }
 
   @AfterClass
@@ -172,7 +333,7 @@ abstract class BaseStarTreeV2Test<R, A> {
   }
 
   @SuppressWarnings("unchecked")
-  void testQuery(String query) {
+  void testQuery(StarTreeV2 starTreeV2, String query) {
     BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
 
     // Aggregations
@@ -200,14 +361,14 @@ abstract class BaseStarTreeV2Test<R, A> {
     // Extract values with star-tree
     PlanNode starTreeFilterPlanNode;
     if (groupByColumns.isEmpty()) {
-      starTreeFilterPlanNode = new StarTreeFilterPlanNode(_starTreeV2, rootFilterNode, null, null);
+      starTreeFilterPlanNode = new StarTreeFilterPlanNode(starTreeV2, rootFilterNode, null, null);
     } else {
-      starTreeFilterPlanNode = new StarTreeFilterPlanNode(_starTreeV2, rootFilterNode, groupByColumnSet, null);
+      starTreeFilterPlanNode = new StarTreeFilterPlanNode(starTreeV2, rootFilterNode, groupByColumnSet, null);
     }
     List<BlockSingleValIterator> starTreeAggregationColumnValueIterators = new ArrayList<>(numAggregations);
     for (AggregationFunctionColumnPair aggregationFunctionColumnPair : functionColumnPairs) {
       starTreeAggregationColumnValueIterators.add(
-          (BlockSingleValIterator) _starTreeV2.getDataSource(aggregationFunctionColumnPair.toColumnName())
+          (BlockSingleValIterator) starTreeV2.getDataSource(aggregationFunctionColumnPair.toColumnName())
               .nextBlock()
               .getBlockValueSet()
               .iterator());
@@ -215,7 +376,7 @@ abstract class BaseStarTreeV2Test<R, A> {
     List<BlockSingleValIterator> starTreeGroupByColumnValueIterators = new ArrayList<>(numGroupByColumns);
     for (String groupByColumn : groupByColumns) {
       starTreeGroupByColumnValueIterators.add(
-          (BlockSingleValIterator) _starTreeV2.getDataSource(groupByColumn).nextBlock().getBlockValueSet().iterator());
+          (BlockSingleValIterator) starTreeV2.getDataSource(groupByColumn).nextBlock().getBlockValueSet().iterator());
     }
     Map<List<Integer>, List<Object>> starTreeResult =
         computeStarTreeResult(starTreeFilterPlanNode, starTreeAggregationColumnValueIterators,
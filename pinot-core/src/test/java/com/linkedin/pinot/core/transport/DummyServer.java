@@ -15,6 +15,9 @@
  */
 package com.linkedin.pinot.core.transport;
 
+import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -29,10 +32,13 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import java.util.concurrent.TimeUnit;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.protocol.TCompactProtocol;
 
 
 /**
  * The {@code DummyServer} class is a Netty server that always responds with the given bytes and the given delay.
+ * <p>If no response bytes are given, responds with an empty data table with the request id of the request.
  */
 public class DummyServer implements Runnable {
   private final int _port;
@@ -41,6 +47,10 @@ public class DummyServer implements Runnable {
 
   private volatile Channel _channel;
 
+  public DummyServer(int port, long responseDelayMs) {
+    this(port, responseDelayMs, null);
+  }
+
   public DummyServer(int port, long responseDelayMs, byte[] responseBytes) {
     _port = port;
     _responseDelayMs = responseDelayMs;
@@ -66,7 +76,8 @@ public class DummyServer implements Runnable {
                         @Override
                         protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
                           Thread.sleep(_responseDelayMs);
-                          ctx.writeAndFlush(ctx.alloc().buffer(_responseBytes.length).writeBytes(_responseBytes),
+                          byte[] responseBytes = _responseBytes != null ? _responseBytes : getResponseBytes(msg);
+                          ctx.writeAndFlush(ctx.alloc().buffer(responseBytes.length).writeBytes(responseBytes),
                               ctx.voidPromise());
                         }
                       });
@@ -85,6 +96,16 @@ public class DummyServer implements Runnable {
     }
   }
 
+  private static byte[] getResponseBytes(ByteBuf msg) throws Exception {
+    byte[] requestBytes = new byte[msg.readableBytes()];
+    msg.readBytes(requestBytes);
+    InstanceRequest instanceRequest = new InstanceRequest();
+    new TDeserializer(new TCompactProtocol.Factory()).deserialize(instanceRequest, requestBytes);
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(instanceRequest.getRequestId()));
+    return dataTable.toBytes();
+  }
+
   public boolean isReady() {
     return _channel != null;
   }
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.transport;
+
+import java.util.Collections;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class HedgedRequestPolicyTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final String OTHER_TABLE_NAME = "otherTable_OFFLINE";
+
+  @Test
+  public void testDelay() {
+    HedgedRequestPolicy hedgedRequestPolicy = new HedgedRequestPolicy(90, 5L, tableName -> Collections.emptyMap());
+
+    // No delay before enough latencies are recorded
+    for (int i = 1; i < 100; i++) {
+      hedgedRequestPolicy.recordLatencyMs(TABLE_NAME, i);
+      Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), -1L);
+    }
+    hedgedRequestPolicy.recordLatencyMs(TABLE_NAME, 100);
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), 90L);
+
+    // Delay is only updated periodically
+    for (int i = 0; i < 99; i++) {
+      hedgedRequestPolicy.recordLatencyMs(TABLE_NAME, 0L);
+    }
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), 90L);
+    hedgedRequestPolicy.recordLatencyMs(TABLE_NAME, 0L);
+    // 200 latencies: 100 zeros and 1 to 100, 90th percentile is the 180th latency
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), 80L);
+
+    // Delay is bounded by the min delay
+    for (int i = 0; i < 1000; i++) {
+      hedgedRequestPolicy.recordLatencyMs(TABLE_NAME, 1L);
+    }
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), 5L);
+  }
+
+  @Test
+  public void testDelayPerTable() {
+    HedgedRequestPolicy hedgedRequestPolicy = new HedgedRequestPolicy(90, 5L, tableName -> Collections.emptyMap());
+    for (int i = 0; i < 100; i++) {
+      hedgedRequestPolicy.recordLatencyMs(TABLE_NAME, 10L);
+    }
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), 10L);
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(OTHER_TABLE_NAME), -1L);
+
+    // Latencies of the other table should not affect the delay of the table
+    for (int i = 0; i < 100; i++) {
+      hedgedRequestPolicy.recordLatencyMs(OTHER_TABLE_NAME, 1000L);
+    }
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(TABLE_NAME), 10L);
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs(OTHER_TABLE_NAME), 1000L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new HedgedRequestPolicy(0, 5L, tableName -> null);
+  }
+}
@@ -17,12 +17,19 @@ package com.linkedin.pinot.core.transport;
 
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.QuerySource;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -39,6 +46,13 @@ public class QueryRouterTest {
   private static final Map<String, List<String>> ROUTING_TABLE =
       Collections.singletonMap(SERVER_INSTANCE_NAME, Collections.emptyList());
 
+  private static final int SLOW_SERVER_PORT = 12346;
+  private static final int FAST_SERVER_PORT = 12347;
+  private static final String SLOW_SERVER_INSTANCE_NAME = "Server_localhost_" + SLOW_SERVER_PORT;
+  private static final String FAST_SERVER_INSTANCE_NAME = "Server_localhost_" + FAST_SERVER_PORT;
+  private static final Server SLOW_OFFLINE_SERVER = new Server(SLOW_SERVER_INSTANCE_NAME, TableType.OFFLINE);
+  private static final Server FAST_OFFLINE_SERVER = new Server(FAST_SERVER_INSTANCE_NAME, TableType.OFFLINE);
+
   private QueryRouter _queryRouter;
 
   @BeforeClass
@@ -101,6 +115,93 @@ public class QueryRouterTest {
     thread.join();
   }
 
+  @Test
+  public void testDataTableConsumer() throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+
+    // Start the server
+    DummyServer dummyServer = new DummyServer(TEST_PORT, 0L, responseBytes);
+    Thread thread = new Thread(dummyServer);
+    thread.start();
+    while (!dummyServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    // Data tables should be consumed before the query is done, and should not be kept in the server responses
+    Map<Server, DataTable> consumedDataTables = new ConcurrentHashMap<>();
+    AsyncQueryResponse asyncQueryResponse =
+        _queryRouter.submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, BROKER_REQUEST, ROUTING_TABLE,
+            1_000L, consumedDataTables::put);
+    Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
+    Assert.assertEquals(consumedDataTables.size(), 2);
+    Assert.assertTrue(consumedDataTables.containsKey(OFFLINE_SERVER));
+    Assert.assertTrue(consumedDataTables.containsKey(REALTIME_SERVER));
+    Assert.assertEquals(response.size(), 2);
+    for (ServerResponse serverResponse : response.values()) {
+      Assert.assertTrue(serverResponse.isDataTableReceived());
+      Assert.assertNull(serverResponse.getDataTable());
+      Assert.assertEquals(serverResponse.getResponseSize(), responseBytes.length);
+    }
+
+    // Shut down the server
+    dummyServer.shutDown();
+    thread.join();
+  }
+
+  @Test
+  public void testDataTableConsumerExecutor() throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+    ExecutorService consumerExecutor = Executors.newFixedThreadPool(2, r -> new Thread(r, "consumerThread"));
+    QueryRouter queryRouter =
+        new QueryRouter("testBroker", Mockito.mock(BrokerMetrics.class), null, null, consumerExecutor);
+
+    // Start the server
+    DummyServer dummyServer = new DummyServer(TEST_PORT, 0L, responseBytes);
+    Thread thread = new Thread(dummyServer);
+    thread.start();
+    while (!dummyServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    // Data tables should be consumed on the executor before the query is done, one at a time even though the executor
+    // has 2 threads
+    Map<Server, String> consumerThreadNames = new ConcurrentHashMap<>();
+    AtomicInteger numRunningConsumers = new AtomicInteger();
+    AtomicInteger maxNumRunningConsumers = new AtomicInteger();
+    AsyncQueryResponse asyncQueryResponse =
+        queryRouter.submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, BROKER_REQUEST, ROUTING_TABLE,
+            1_000L, (server, consumedDataTable) -> {
+              maxNumRunningConsumers.accumulateAndGet(numRunningConsumers.incrementAndGet(), Math::max);
+              try {
+                Thread.sleep(100L);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              consumerThreadNames.put(server, Thread.currentThread().getName());
+              numRunningConsumers.decrementAndGet();
+            });
+    Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
+    Assert.assertEquals(consumerThreadNames.size(), 2);
+    Assert.assertEquals(maxNumRunningConsumers.get(), 1);
+    Assert.assertEquals(consumerThreadNames.get(OFFLINE_SERVER), "consumerThread");
+    Assert.assertEquals(consumerThreadNames.get(REALTIME_SERVER), "consumerThread");
+    for (ServerResponse serverResponse : response.values()) {
+      Assert.assertTrue(serverResponse.isDataTableReceived());
+    }
+
+    // Shut down the server
+    queryRouter.shutDown();
+    consumerExecutor.shutdown();
+    dummyServer.shutDown();
+    thread.join();
+  }
+
   @Test
   public void testInvalidResponse() throws Exception {
     long requestId = 123;
@@ -217,8 +318,103 @@ public class QueryRouterTest {
     Assert.assertTrue(System.currentTimeMillis() - startTimeMs < 1000);
   }
 
+  @Test
+  public void testHedgedRequests() throws Exception {
+    BrokerRequest brokerRequest = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName("testTable_OFFLINE");
+    brokerRequest.setQuerySource(querySource);
+    Map<String, List<String>> routingTable =
+        Collections.singletonMap(SLOW_SERVER_INSTANCE_NAME, Arrays.asList("segment0", "segment1"));
+    Map<String, List<String>> segmentToServersMap = new HashMap<>();
+    segmentToServersMap.put("segment0", Arrays.asList(SLOW_SERVER_INSTANCE_NAME, FAST_SERVER_INSTANCE_NAME));
+    segmentToServersMap.put("segment1", Arrays.asList(FAST_SERVER_INSTANCE_NAME, SLOW_SERVER_INSTANCE_NAME));
+    HedgedRequestPolicy hedgedRequestPolicy = new HedgedRequestPolicy(HedgedRequestPolicy.DEFAULT_LATENCY_PERCENTILE,
+        HedgedRequestPolicy.DEFAULT_MIN_DELAY_MS, tableName -> segmentToServersMap);
+    for (int i = 0; i < 100; i++) {
+      hedgedRequestPolicy.recordLatencyMs("testTable_OFFLINE", 50L);
+    }
+    Assert.assertEquals(hedgedRequestPolicy.getDelayMs("testTable_OFFLINE"), 50L);
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker();
+    ExecutorService consumerExecutor = Executors.newFixedThreadPool(2, r -> new Thread(r, "consumerThread"));
+    QueryRouter queryRouter =
+        new QueryRouter("testBroker", Mockito.mock(BrokerMetrics.class), serverLoadTracker, hedgedRequestPolicy,
+            consumerExecutor);
+
+    // Start the servers
+    DummyServer slowServer = new DummyServer(SLOW_SERVER_PORT, 1_000L);
+    Thread slowServerThread = new Thread(slowServer);
+    slowServerThread.start();
+    DummyServer fastServer = new DummyServer(FAST_SERVER_PORT, 0L);
+    Thread fastServerThread = new Thread(fastServer);
+    fastServerThread.start();
+    while (!slowServer.isReady() || !fastServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    // The segments of the slow server should be re-issued to the fast server, and the data table from the hedged
+    // request should be consumed on the executor
+    long startTimeMs = System.currentTimeMillis();
+    Map<Server, DataTable> consumedDataTables = new ConcurrentHashMap<>();
+    Map<Server, String> consumerThreadNames = new ConcurrentHashMap<>();
+    AsyncQueryResponse asyncQueryResponse =
+        queryRouter.submitQuery(123, "testTable", brokerRequest, routingTable, null, null, 5_000L,
+            (server, dataTable) -> {
+              consumedDataTables.put(server, dataTable);
+              consumerThreadNames.put(server, Thread.currentThread().getName());
+            });
+    Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
+    Assert.assertTrue(System.currentTimeMillis() - startTimeMs < 1_000L);
+    Assert.assertEquals(consumedDataTables.size(), 1);
+    Assert.assertTrue(consumedDataTables.containsKey(FAST_OFFLINE_SERVER));
+    Assert.assertEquals(consumerThreadNames.get(FAST_OFFLINE_SERVER), "consumerThread");
+    Assert.assertEquals(response.size(), 1);
+    ServerResponse serverResponse = response.get(SLOW_OFFLINE_SERVER);
+    Assert.assertTrue(serverResponse.isDataTableReceived());
+    Assert.assertTrue(serverResponse.isRespondedByHedgedRequest());
+
+    // Without other replica, should wait for the slow server
+    segmentToServersMap.put("segment1", Collections.singletonList(SLOW_SERVER_INSTANCE_NAME));
+    consumedDataTables.clear();
+    asyncQueryResponse =
+        queryRouter.submitQuery(124, "testTable", brokerRequest, routingTable, null, null, 5_000L,
+            consumedDataTables::put);
+    response = asyncQueryResponse.getResponse();
+    Assert.assertEquals(consumedDataTables.size(), 1);
+    Assert.assertTrue(consumedDataTables.containsKey(SLOW_OFFLINE_SERVER));
+    serverResponse = response.get(SLOW_OFFLINE_SERVER);
+    Assert.assertTrue(serverResponse.isDataTableReceived());
+    Assert.assertFalse(serverResponse.isRespondedByHedgedRequest());
+
+    // Should not hedge to the other replica if it is more loaded than the slow server
+    segmentToServersMap.put("segment1", Arrays.asList(FAST_SERVER_INSTANCE_NAME, SLOW_SERVER_INSTANCE_NAME));
+    serverLoadTracker.recordRequestSent(FAST_SERVER_INSTANCE_NAME);
+    serverLoadTracker.recordRequestFinished(FAST_SERVER_INSTANCE_NAME, 100_000L);
+    for (int i = 0; i < 10; i++) {
+      serverLoadTracker.recordRequestSent(FAST_SERVER_INSTANCE_NAME);
+    }
+    consumedDataTables.clear();
+    asyncQueryResponse =
+        queryRouter.submitQuery(125, "testTable", brokerRequest, routingTable, null, null, 5_000L,
+            consumedDataTables::put);
+    response = asyncQueryResponse.getResponse();
+    Assert.assertEquals(consumedDataTables.size(), 1);
+    Assert.assertTrue(consumedDataTables.containsKey(SLOW_OFFLINE_SERVER));
+    serverResponse = response.get(SLOW_OFFLINE_SERVER);
+    Assert.assertTrue(serverResponse.isDataTableReceived());
+    Assert.assertFalse(serverResponse.isRespondedByHedgedRequest());
+
+    // Shut down the servers
+    queryRouter.shutDown();
+    consumerExecutor.shutdown();
+    slowServer.shutDown();
+    slowServerThread.join();
+    fastServer.shutDown();
+    fastServerThread.join();
+  }
+
   @AfterClass
   public void tearDown() {
     _queryRouter.shutDown();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.transport;
+
+import com.linkedin.pinot.common.metrics.BrokerGauge;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import java.util.concurrent.Callable;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class ServerLoadTrackerTest {
+  private static final String SERVER_1 = "Server_localhost_1";
+  private static final String SERVER_2 = "Server_localhost_2";
+  private static final String SERVER_3 = "Server_localhost_3";
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void testLoadScore() {
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(0.5);
+
+    // Unknown server
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_1), 1.0, DELTA);
+    assertEquals(serverLoadTracker.getEwmaLatencyMs(SERVER_1), -1.0, DELTA);
+    assertEquals(serverLoadTracker.getNumInFlightRequests(SERVER_1), 0);
+
+    // In-flight requests without latency recorded
+    serverLoadTracker.recordRequestSent(SERVER_1);
+    serverLoadTracker.recordRequestSent(SERVER_1);
+    assertEquals(serverLoadTracker.getNumInFlightRequests(SERVER_1), 2);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_1), 3.0, DELTA);
+
+    // First latency is taken as is, following latencies are averaged
+    serverLoadTracker.recordRequestFinished(SERVER_1, 10L);
+    assertEquals(serverLoadTracker.getEwmaLatencyMs(SERVER_1), 10.0, DELTA);
+    serverLoadTracker.recordRequestFinished(SERVER_1, 20L);
+    assertEquals(serverLoadTracker.getEwmaLatencyMs(SERVER_1), 15.0, DELTA);
+    assertEquals(serverLoadTracker.getNumInFlightRequests(SERVER_1), 0);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_1), 16.0, DELTA);
+
+    // Slow server should have higher load score
+    serverLoadTracker.recordRequestSent(SERVER_2);
+    serverLoadTracker.recordRequestFinished(SERVER_2, 1L);
+    assertTrue(serverLoadTracker.getLoadScore(SERVER_1) > serverLoadTracker.getLoadScore(SERVER_2));
+
+    // Response received before the request is recorded as sent, latency is unknown and should not affect the EWMA
+    serverLoadTracker.recordRequestFinished(SERVER_2);
+    assertEquals(serverLoadTracker.getEwmaLatencyMs(SERVER_2), 1.0, DELTA);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_2), 2.0, DELTA);
+    serverLoadTracker.recordRequestSent(SERVER_2);
+    assertEquals(serverLoadTracker.getNumInFlightRequests(SERVER_2), 0);
+  }
+
+  @Test
+  public void testServerWithoutLatency() {
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(0.5);
+    serverLoadTracker.recordRequestSent(SERVER_1);
+    serverLoadTracker.recordRequestFinished(SERVER_1, 10L);
+    serverLoadTracker.recordRequestSent(SERVER_2);
+    serverLoadTracker.recordRequestFinished(SERVER_2, 30L);
+
+    // New server should take the mean EWMA latency of the other servers instead of being considered as the least loaded
+    assertEquals(serverLoadTracker.getMeanEwmaLatencyMs(), 20.0, DELTA);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_3), 21.0, DELTA);
+    assertTrue(serverLoadTracker.getLoadScore(SERVER_3) > serverLoadTracker.getLoadScore(SERVER_1));
+    serverLoadTracker.recordRequestSent(SERVER_3);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_3), 42.0, DELTA);
+
+    // Once the latency is recorded, the server should use its own EWMA latency
+    serverLoadTracker.recordRequestFinished(SERVER_3, 2L);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_3), 3.0, DELTA);
+    assertEquals(serverLoadTracker.getLoadScore(SERVER_1), 11.0, DELTA);
+    assertEquals(serverLoadTracker.getMeanEwmaLatencyMs(), 14.0, DELTA);
+
+    // Running mean should follow the EWMA latency updates
+    serverLoadTracker.recordRequestSent(SERVER_2);
+    serverLoadTracker.recordRequestFinished(SERVER_2, 10L);
+    assertEquals(serverLoadTracker.getEwmaLatencyMs(SERVER_2), 20.0, DELTA);
+    assertEquals(serverLoadTracker.getMeanEwmaLatencyMs(), 32.0 / 3, DELTA);
+  }
+
+  @Test
+  public void testGauges() throws Exception {
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(0.5);
+    BrokerMetrics brokerMetrics = mock(BrokerMetrics.class);
+    serverLoadTracker.registerGauges(brokerMetrics);
+
+    serverLoadTracker.recordRequestSent(SERVER_1);
+    serverLoadTracker.recordRequestFinished(SERVER_1, 10L);
+    serverLoadTracker.recordRequestSent(SERVER_2);
+    serverLoadTracker.recordRequestFinished(SERVER_2, 30L);
+    serverLoadTracker.recordRequestSent(SERVER_2);
+    serverLoadTracker.recordRequestSent(SERVER_3);
+
+    assertEquals(getGaugeValue(brokerMetrics, BrokerGauge.SERVER_LOAD_MEAN_EWMA_LATENCY_MS), 20L);
+    assertEquals(getGaugeValue(brokerMetrics, BrokerGauge.SERVER_LOAD_MAX_EWMA_LATENCY_MS), 30L);
+    assertEquals(getGaugeValue(brokerMetrics, BrokerGauge.SERVER_LOAD_MAX_LOAD_SCORE), 62L);
+    assertEquals(getGaugeValue(brokerMetrics, BrokerGauge.SERVER_LOAD_IN_FLIGHT_REQUESTS), 2L);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static long getGaugeValue(BrokerMetrics brokerMetrics, BrokerGauge gauge) throws Exception {
+    ArgumentCaptor<Callable> callableCaptor = ArgumentCaptor.forClass(Callable.class);
+    verify(brokerMetrics).addCallbackGauge(eq(gauge.getGaugeName()), callableCaptor.capture());
+    return (Long) callableCaptor.getValue().call();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidEwmaAlpha() {
+    new ServerLoadTracker(0);
+  }
+}
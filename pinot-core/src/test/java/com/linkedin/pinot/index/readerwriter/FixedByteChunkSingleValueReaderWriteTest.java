@@ -60,6 +60,26 @@ public class FixedByteChunkSingleValueReaderWriteTest {
     testBytes(compressionType);
   }
 
+  @Test
+  public void testWithLZ4Compression() throws Exception {
+    ChunkCompressorFactory.CompressionType compressionType = ChunkCompressorFactory.CompressionType.LZ4;
+    testInt(compressionType);
+    testLong(compressionType);
+    testFloat(compressionType);
+    testDouble(compressionType);
+    testBytes(compressionType);
+  }
+
+  @Test
+  public void testWithZstandardCompression() throws Exception {
+    ChunkCompressorFactory.CompressionType compressionType = ChunkCompressorFactory.CompressionType.ZSTANDARD;
+    testInt(compressionType);
+    testLong(compressionType);
+    testFloat(compressionType);
+    testDouble(compressionType);
+    testBytes(compressionType);
+  }
+
   @Test
   public void testWithoutCompression() throws Exception {
     ChunkCompressorFactory.CompressionType compressionType = ChunkCompressorFactory.CompressionType.PASS_THROUGH;
@@ -114,6 +114,37 @@ public class FixedByteSingleColumnSingleValueReaderWriterTest {
     readerWriter.close();
   }
 
+  @Test
+  public void testIntValues() throws IOException {
+    Random random = new Random();
+    int numRowsPerChunk = 7;
+    FixedByteSingleColumnSingleValueReaderWriter readerWriter =
+        new FixedByteSingleColumnSingleValueReaderWriter(numRowsPerChunk, Integer.BYTES, _memoryManager, "IntValues");
+    int numRows = 100;
+    int[] data = new int[numRows];
+    for (int i = 0; i < numRows; i++) {
+      data[i] = random.nextInt();
+    }
+
+    // Write the values in batches of different sizes, which start and end at different positions of the chunks
+    int startRow = 0;
+    int batchSize = 1;
+    while (startRow < numRows) {
+      int length = Math.min(batchSize, numRows - startRow);
+      readerWriter.setIntValues(startRow, Arrays.copyOfRange(data, startRow, startRow + length), length);
+      startRow += length;
+      batchSize++;
+    }
+    for (int i = 0; i < numRows; i++) {
+      Assert.assertEquals(readerWriter.getInt(i), data[i]);
+    }
+
+    // Writing an empty batch should be a no-op
+    readerWriter.setIntValues(numRows, new int[0], 0);
+    Assert.assertEquals(readerWriter.getInt(numRows - 1), data[numRows - 1]);
+    readerWriter.close();
+  }
+
   @Test
   public void testLong() throws IOException {
     int rows = 10;
@@ -131,6 +131,7 @@ public class FastHllQueriesTest extends BaseQueriesTest {
     Assert.assertEquals(firstGroupKey._stringKey, "");
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 0)).cardinality(), 21L);
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 1)).cardinality(), 691L);
+    aggregationGroupByResult.close();
 
     // Test inter segments base query
     BrokerResponseNative brokerResponse = getBrokerResponseForQuery(BASE_QUERY);
@@ -178,6 +179,7 @@ public class FastHllQueriesTest extends BaseQueriesTest {
     Assert.assertEquals(firstGroupKey._stringKey, "");
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 0)).cardinality(), 21L);
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 1)).cardinality(), 691L);
+    aggregationGroupByResult.close();
 
     // Test inter segments base query
     BrokerResponseNative brokerResponse = getBrokerResponseForQuery(BASE_QUERY);
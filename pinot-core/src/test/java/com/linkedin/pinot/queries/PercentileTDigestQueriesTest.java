@@ -198,6 +198,7 @@ public class PercentileTDigestQueriesTest extends BaseQueriesTest {
       assertTDigest((TDigest) groupByResult.getResultForKey(groupKey, 1), doubleList);
       assertTDigest((TDigest) groupByResult.getResultForKey(groupKey, 2), doubleList);
     }
+    groupByResult.close();
   }
 
   @Test
@@ -55,25 +55,29 @@ public class QueriesTestUtils {
   public static void testInnerSegmentAggregationGroupByResult(AggregationGroupByResult aggregationGroupByResult,
       String expectedGroupKey, long expectedCountResult, long expectedSumResult, int expectedMaxResult,
       int expectedMinResult, long expectedAvgResultSum, long expectedAvgResultCount) {
-    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
-    while (groupKeyIterator.hasNext()) {
-      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-      if (groupKey._stringKey.equals(expectedGroupKey)) {
-        Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 0)).longValue(),
-            expectedCountResult);
-        Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 1)).longValue(),
-            expectedSumResult);
-        Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 2)).intValue(),
-            expectedMaxResult);
-        Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 3)).intValue(),
-            expectedMinResult);
-        AvgPair avgResult = (AvgPair) aggregationGroupByResult.getResultForKey(groupKey, 4);
-        Assert.assertEquals((long) avgResult.getSum(), expectedAvgResultSum);
-        Assert.assertEquals(avgResult.getCount(), expectedAvgResultCount);
-        return;
+    try {
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        if (groupKey._stringKey.equals(expectedGroupKey)) {
+          Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 0)).longValue(),
+              expectedCountResult);
+          Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 1)).longValue(),
+              expectedSumResult);
+          Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 2)).intValue(),
+              expectedMaxResult);
+          Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 3)).intValue(),
+              expectedMinResult);
+          AvgPair avgResult = (AvgPair) aggregationGroupByResult.getResultForKey(groupKey, 4);
+          Assert.assertEquals((long) avgResult.getSum(), expectedAvgResultSum);
+          Assert.assertEquals(avgResult.getCount(), expectedAvgResultCount);
+          return;
+        }
       }
+      Assert.fail("Failed to find group key: " + expectedGroupKey);
+    } finally {
+      aggregationGroupByResult.close();
     }
-    Assert.fail("Failed to find group key: " + expectedGroupKey);
   }
 
   public static void testInterSegmentAggregationResult(BrokerResponseNative brokerResponse, long expectedNumDocsScanned,
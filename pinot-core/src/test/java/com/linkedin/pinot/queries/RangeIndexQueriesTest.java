@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.manager.SegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for range queries solved with the bitmap range index, the results should be the same as the ones solved by
+ * scanning the dictionary ids.
+ * <p>The range index for 'column1', 'column3' and 'column6' is created when building the segment, and the range index
+ * for 'column9' is created when loading the segment.
+ */
+public class RangeIndexQueriesTest extends BaseQueriesTest {
+  private static final String AVRO_DATA = "data" + File.separator + "test_data-sv.avro";
+  private static final String SEGMENT_NAME = "testTable_126164076_167572854";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RangeIndexQueriesTest");
+  private static final List<String> RANGE_INDEX_CREATION_COLUMNS = Arrays.asList("column1", "column3", "column6");
+  private static final List<String> RANGE_INDEX_COLUMNS = Arrays.asList("column1", "column3", "column6", "column9");
+  private static final String[] FILTERS = new String[]{
+      " WHERE column1 > 100000000",
+      " WHERE column1 BETWEEN 500000000 AND 1000000000",
+      " WHERE column3 < 1000000000",
+      " WHERE column6 >= 1000000000",
+      " WHERE column9 BETWEEN 100000000 AND 300000000",
+      " WHERE column1 > 100000000 AND column3 BETWEEN 20000000 AND 1000000000",
+      " WHERE column6 < 500000000 OR column9 > 1000000000"
+  };
+  private static final String QUERY = "SELECT COUNT(*), SUM(column1), MAX(column3), MIN(column9) FROM testTable";
+
+  private ImmutableSegment _segmentWithoutRangeIndex;
+  private ImmutableSegment _segmentWithRangeIndex;
+  private IndexSegment _indexSegment;
+  private List<SegmentDataManager> _segmentDataManagers;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    String filePath = resource.getFile();
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addMetric("column3", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column6", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column9", FieldSpec.DataType.INT)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    segmentGeneratorConfig.setInputFilePath(filePath);
+    segmentGeneratorConfig.setTableName("testTable");
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
+    segmentGeneratorConfig.setRangeIndexCreationColumns(RANGE_INDEX_CREATION_COLUMNS);
+
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig);
+    driver.build();
+
+    File indexDir = new File(INDEX_DIR, SEGMENT_NAME);
+    _segmentWithoutRangeIndex = ImmutableSegmentLoader.load(indexDir, ReadMode.heap);
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setReadMode(ReadMode.heap);
+    indexLoadingConfig.setRangeIndexColumns(new HashSet<>(RANGE_INDEX_COLUMNS));
+    _segmentWithRangeIndex = ImmutableSegmentLoader.load(indexDir, indexLoadingConfig);
+  }
+
+  @Test
+  public void testRangeIndex() throws Exception {
+    for (String column : RANGE_INDEX_COLUMNS) {
+      Assert.assertNull(_segmentWithoutRangeIndex.getDataSource(column).getRangeIndex());
+      Assert.assertNotNull(_segmentWithRangeIndex.getDataSource(column).getRangeIndex());
+    }
+
+    for (String filter : FILTERS) {
+      setIndexSegment(_segmentWithoutRangeIndex);
+      BrokerResponseNative expectedBrokerResponse = getBrokerResponseForQuery(QUERY + filter);
+      setIndexSegment(_segmentWithRangeIndex);
+      BrokerResponseNative brokerResponse = getBrokerResponseForQuery(QUERY + filter);
+
+      Assert.assertEquals(brokerResponse.toJson().getJSONArray("aggregationResults").toString(),
+          expectedBrokerResponse.toJson().getJSONArray("aggregationResults").toString(), filter);
+      Assert.assertEquals(brokerResponse.getNumDocsScanned(), expectedBrokerResponse.getNumDocsScanned(), filter);
+      Assert.assertEquals(brokerResponse.getNumEntriesScannedPostFilter(),
+          expectedBrokerResponse.getNumEntriesScannedPostFilter(), filter);
+      long numEntriesScannedInFilter = brokerResponse.getNumEntriesScannedInFilter();
+      long expectedNumEntriesScannedInFilter = expectedBrokerResponse.getNumEntriesScannedInFilter();
+      Assert.assertTrue(numEntriesScannedInFilter < expectedNumEntriesScannedInFilter, filter);
+    }
+  }
+
+  private void setIndexSegment(ImmutableSegment indexSegment) {
+    _indexSegment = indexSegment;
+    _segmentDataManagers =
+        Arrays.asList(new ImmutableSegmentDataManager(indexSegment), new ImmutableSegmentDataManager(indexSegment));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _segmentWithoutRangeIndex.destroy();
+    _segmentWithRangeIndex.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Override
+  protected String getFilter() {
+    return FILTERS[0];
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return _segmentDataManagers;
+  }
+}
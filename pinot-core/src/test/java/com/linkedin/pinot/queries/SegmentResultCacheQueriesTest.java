@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for queries served with the segment result cache, the results should be the same as the ones without cache.
+ */
+public class SegmentResultCacheQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String TABLE_NAME = "testTable";
+  private static final long MAX_SIZE_IN_BYTES = 64 * 1024 * 1024;
+  private static final String[] QUERIES = new String[]{
+      "SELECT COUNT(*), SUM(column1), MAX(column3), MIN(column6), AVG(column7) FROM testTable",
+      "SELECT DISTINCTCOUNT(column6), MINMAXRANGE(column9), PERCENTILE50(column1) FROM testTable",
+      "SELECT COUNT(*), SUM(column1), AVG(column7) FROM testTable GROUP BY column11 TOP 10",
+      "SELECT DISTINCTCOUNTHLL(column6), MINMAXRANGE(column9) FROM testTable GROUP BY column11, column12 TOP 50",
+      "SELECT COUNT(*), MAX(column3) FROM testTable GROUP BY daysSinceEpoch, column7 TOP 20"
+  };
+
+  private ServerMetrics _serverMetrics;
+  private PlanMaker _planMaker;
+
+  @BeforeClass
+  public void setUp() {
+    _serverMetrics = new ServerMetrics(new MetricsRegistry());
+    _planMaker = new InstancePlanMakerImplV2(new SegmentResultCache(MAX_SIZE_IN_BYTES, _serverMetrics));
+  }
+
+  @Test
+  public void testCachedResults() throws Exception {
+    for (String query : QUERIES) {
+      testQuery(query);
+      testQuery(query + getFilter());
+    }
+  }
+
+  private void testQuery(String query) throws Exception {
+    BrokerResponseNative expectedBrokerResponse = getBrokerResponseForQuery(query);
+
+    // First run computes and caches the results
+    BrokerResponseNative brokerResponse = getBrokerResponseForQuery(query, _planMaker);
+    assertSameResults(brokerResponse, expectedBrokerResponse);
+
+    // Second run should be served from the cache for both segments
+    long numHits = getMeterCount(ServerMeter.SEGMENT_RESULT_CACHE_HITS);
+    long numMisses = getMeterCount(ServerMeter.SEGMENT_RESULT_CACHE_MISSES);
+    brokerResponse = getBrokerResponseForQuery(query, _planMaker);
+    assertSameResults(brokerResponse, expectedBrokerResponse);
+    Assert.assertEquals(getMeterCount(ServerMeter.SEGMENT_RESULT_CACHE_HITS), numHits + 2);
+    Assert.assertEquals(getMeterCount(ServerMeter.SEGMENT_RESULT_CACHE_MISSES), numMisses);
+    Assert.assertEquals(brokerResponse.getNumEntriesScannedInFilter(), 0L);
+    Assert.assertEquals(brokerResponse.getNumEntriesScannedPostFilter(), 0L);
+  }
+
+  private long getMeterCount(ServerMeter meter) {
+    return _serverMetrics.getMeteredTableValue(TABLE_NAME, meter).count();
+  }
+
+  private static void assertSameResults(BrokerResponseNative actual, BrokerResponseNative expected) throws Exception {
+    Assert.assertEquals(actual.toJson().getJSONArray("aggregationResults").toString(),
+        expected.toJson().getJSONArray("aggregationResults").toString());
+    Assert.assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned());
+    Assert.assertEquals(actual.getTotalDocs(), expected.getTotalDocs());
+    Assert.assertEquals(actual.isNumGroupsLimitReached(), expected.isNumGroupsLimitReached());
+  }
+}
@@ -31,6 +31,7 @@ import com.linkedin.pinot.core.plan.TransformPlanNode;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.query.aggregation.groupby.DictionaryBasedGroupKeyGenerator;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.pql.parsers.Pql2Compiler;
 import java.io.File;
@@ -154,7 +155,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     dictionaryBasedGroupKeyGenerator.generateKeysForBlock(_transformBlock, SV_GROUP_KEY_BUFFER);
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), UNIQUE_ROWS, _errorMessage);
     compareSingleValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), 2);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, 2);
   }
 
   @Test
@@ -175,7 +176,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     dictionaryBasedGroupKeyGenerator.generateKeysForBlock(_transformBlock, SV_GROUP_KEY_BUFFER);
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 2, _errorMessage);
     compareSingleValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), 2);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, 2);
   }
 
   @Test
@@ -196,7 +197,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     dictionaryBasedGroupKeyGenerator.generateKeysForBlock(_transformBlock, SV_GROUP_KEY_BUFFER);
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 2, _errorMessage);
     compareSingleValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), 2);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, 2);
   }
 
   @Test
@@ -217,7 +218,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     dictionaryBasedGroupKeyGenerator.generateKeysForBlock(_transformBlock, SV_GROUP_KEY_BUFFER);
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 2, _errorMessage);
     compareSingleValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), 2);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, 2);
   }
 
   /**
@@ -252,7 +253,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     int numUniqueKeys = MV_GROUP_KEY_BUFFER[0].length + MV_GROUP_KEY_BUFFER[1].length;
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), groupKeyUpperBound, _errorMessage);
     compareMultiValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), numUniqueKeys);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, numUniqueKeys);
   }
 
   @Test
@@ -274,7 +275,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     int numUniqueKeys = MV_GROUP_KEY_BUFFER[0].length + MV_GROUP_KEY_BUFFER[1].length;
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), numUniqueKeys, _errorMessage);
     compareMultiValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), numUniqueKeys);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, numUniqueKeys);
   }
 
   @Test
@@ -296,7 +297,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     int numUniqueKeys = MV_GROUP_KEY_BUFFER[0].length + MV_GROUP_KEY_BUFFER[1].length;
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), numUniqueKeys, _errorMessage);
     compareMultiValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), numUniqueKeys);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, numUniqueKeys);
   }
 
   @Test
@@ -318,7 +319,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     int numUniqueKeys = MV_GROUP_KEY_BUFFER[0].length + MV_GROUP_KEY_BUFFER[1].length;
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), numUniqueKeys, _errorMessage);
     compareMultiValueBuffer();
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), numUniqueKeys);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, numUniqueKeys);
   }
 
   @Test
@@ -352,7 +353,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
       assertEquals(MV_GROUP_KEY_BUFFER[i], MV_GROUP_KEY_BUFFER[0], _errorMessage);
       assertEquals(MV_GROUP_KEY_BUFFER[i + 1], MV_GROUP_KEY_BUFFER[1], _errorMessage);
     }
-    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator.getUniqueGroupKeys(), numGroupsLimit);
+    testGetUniqueGroupKeys(dictionaryBasedGroupKeyGenerator, numGroupsLimit);
   }
 
   private static TransformExpressionTree[] getExpressions(String[] columns) {
@@ -379,26 +380,38 @@ public class DictionaryBasedGroupKeyGeneratorTest {
   }
 
   /**
-   * Helper method to test the group key iterator returned by getUniqueGroupKeys().
+   * Helper method to test the group key iterators returned by getUniqueGroupKeys() and getUniqueTypedGroupKeys().
    *
-   * @param groupKeyIterator group key iterator.
+   * @param groupKeyGenerator group key generator.
    * @param numUniqueKeys number of unique keys.
    */
-  private void testGetUniqueGroupKeys(Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator, int numUniqueKeys) {
+  private void testGetUniqueGroupKeys(GroupKeyGenerator groupKeyGenerator, int numUniqueKeys) {
     int count = 0;
-    Set<Integer> idSet = new HashSet<>();
+    Map<Integer, String> groupIdToStringKeyMap = new HashMap<>();
     Set<String> groupKeySet = new HashSet<>();
 
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupKeyGenerator.getUniqueGroupKeys();
     while (groupKeyIterator.hasNext()) {
       count++;
       GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-      idSet.add(groupKey._groupId);
+      groupIdToStringKeyMap.put(groupKey._groupId, groupKey._stringKey);
       groupKeySet.add(groupKey._stringKey);
     }
 
     assertEquals(count, numUniqueKeys, _errorMessage);
-    assertEquals(idSet.size(), numUniqueKeys, _errorMessage);
+    assertEquals(groupIdToStringKeyMap.size(), numUniqueKeys, _errorMessage);
     assertEquals(groupKeySet.size(), numUniqueKeys, _errorMessage);
+
+    // Typed group keys should be unique, and should have the same string keys as the ones from getUniqueGroupKeys()
+    Set<TypedGroupKey> typedGroupKeySet = new HashSet<>();
+    Iterator<GroupKeyGenerator.GroupKey> typedGroupKeyIterator = groupKeyGenerator.getUniqueTypedGroupKeys();
+    while (typedGroupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = typedGroupKeyIterator.next();
+      typedGroupKeySet.add(groupKey._typedGroupKey);
+      assertEquals(groupKey._typedGroupKey.getStringKey(), groupIdToStringKeyMap.get(groupKey._groupId),
+          _errorMessage);
+    }
+    assertEquals(typedGroupKeySet.size(), numUniqueKeys, _errorMessage);
   }
 
   @AfterClass
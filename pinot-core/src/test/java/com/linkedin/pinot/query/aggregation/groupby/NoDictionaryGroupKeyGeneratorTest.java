@@ -34,6 +34,7 @@ import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimm
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import com.linkedin.pinot.core.query.aggregation.groupby.NoDictionaryMultiColumnGroupKeyGenerator;
 import com.linkedin.pinot.core.query.aggregation.groupby.NoDictionarySingleColumnGroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.TypedGroupKey;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.pql.parsers.Pql2Compiler;
 import java.io.File;
@@ -152,6 +153,17 @@ public class NoDictionaryGroupKeyGeneratorTest {
       String actual = groupKey._stringKey;
       Assert.assertTrue(expectedGroupKeys.contains(actual), "Unexpected group key: " + actual);
     }
+
+    // Assert all typed group key values are as expected
+    Set<TypedGroupKey> typedGroupKeys = new HashSet<>();
+    Iterator<GroupKeyGenerator.GroupKey> uniqueTypedGroupKeys = groupKeyGenerator.getUniqueTypedGroupKeys();
+    while (uniqueTypedGroupKeys.hasNext()) {
+      TypedGroupKey typedGroupKey = uniqueTypedGroupKeys.next()._typedGroupKey;
+      typedGroupKeys.add(typedGroupKey);
+      String actual = typedGroupKey.getStringKey();
+      Assert.assertTrue(expectedGroupKeys.contains(actual), "Unexpected typed group key: " + actual);
+    }
+    Assert.assertEquals(typedGroupKeys.size(), expectedGroupKeys.size(), "Number of typed group keys mis-match.");
   }
 
   /**
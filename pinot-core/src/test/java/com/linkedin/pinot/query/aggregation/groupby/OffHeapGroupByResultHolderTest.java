@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation.groupby;
+
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.OffHeapGroupByResultHolder;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Test for OffHeapGroupByResultHolder class.
+ */
+public class OffHeapGroupByResultHolderTest {
+  private static final long RANDOM_SEED = System.nanoTime();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+  private static final int INITIAL_CAPACITY = 100;
+  private static final int MAX_CAPACITY = 1000;
+  private static final int DOUBLE_INDEX = 0;
+  private static final int LONG_INDEX = 1;
+  private static final double DEFAULT_DOUBLE_VALUE = Double.NEGATIVE_INFINITY;
+  private static final long DEFAULT_LONG_VALUE = -1L;
+
+  @Test
+  public void testSetValues() {
+    double[] expectedDoubleValues = new double[MAX_CAPACITY];
+    long[] expectedLongValues = new long[MAX_CAPACITY];
+    for (int i = 0; i < MAX_CAPACITY; i++) {
+      expectedDoubleValues[i] = RANDOM.nextDouble();
+      expectedLongValues[i] = RANDOM.nextLong();
+    }
+
+    OffHeapGroupByResultHolder resultHolder = new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY,
+        new long[]{Double.doubleToRawLongBits(DEFAULT_DOUBLE_VALUE), DEFAULT_LONG_VALUE});
+    try {
+      for (int i = 0; i < INITIAL_CAPACITY; i++) {
+        resultHolder.setDoubleValue(i, DOUBLE_INDEX, expectedDoubleValues[i]);
+        resultHolder.setLongValue(i, LONG_INDEX, expectedLongValues[i]);
+      }
+
+      // Expanded slots should have the default values, existing slots should be preserved
+      resultHolder.ensureCapacity(MAX_CAPACITY);
+      for (int i = INITIAL_CAPACITY; i < MAX_CAPACITY; i++) {
+        Assert.assertEquals(resultHolder.getDoubleValue(i, DOUBLE_INDEX), DEFAULT_DOUBLE_VALUE,
+            "Random seed: " + RANDOM_SEED);
+        Assert.assertEquals(resultHolder.getLongValue(i, LONG_INDEX), DEFAULT_LONG_VALUE,
+            "Random seed: " + RANDOM_SEED);
+        resultHolder.setDoubleValue(i, DOUBLE_INDEX, expectedDoubleValues[i]);
+        resultHolder.setLongValue(i, LONG_INDEX, expectedLongValues[i]);
+      }
+      for (int i = 0; i < MAX_CAPACITY; i++) {
+        Assert.assertEquals(resultHolder.getDoubleValue(i, DOUBLE_INDEX), expectedDoubleValues[i],
+            "Random seed: " + RANDOM_SEED);
+        Assert.assertEquals(resultHolder.getLongValue(i, LONG_INDEX), expectedLongValues[i],
+            "Random seed: " + RANDOM_SEED);
+      }
+
+      // Invalid group key should always return the default values
+      resultHolder.setDoubleValue(GroupKeyGenerator.INVALID_ID, DOUBLE_INDEX, 1.0);
+      resultHolder.setLongValue(GroupKeyGenerator.INVALID_ID, LONG_INDEX, 1L);
+      Assert.assertEquals(resultHolder.getDoubleValue(GroupKeyGenerator.INVALID_ID, DOUBLE_INDEX),
+          DEFAULT_DOUBLE_VALUE);
+      Assert.assertEquals(resultHolder.getLongValue(GroupKeyGenerator.INVALID_ID, LONG_INDEX), DEFAULT_LONG_VALUE);
+    } finally {
+      resultHolder.close();
+    }
+  }
+
+  @Test
+  public void testGenericAccessors() {
+    OffHeapGroupByResultHolder resultHolder = new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY,
+        new long[]{Double.doubleToRawLongBits(DEFAULT_DOUBLE_VALUE), DEFAULT_LONG_VALUE});
+    try {
+      // Double result is the first value of the slot
+      resultHolder.setValueForKey(0, 1.5);
+      Assert.assertEquals(resultHolder.getDoubleResult(0), 1.5);
+      Assert.assertEquals(resultHolder.getDoubleValue(0, DOUBLE_INDEX), 1.5);
+      Assert.assertEquals(resultHolder.getDoubleResult(GroupKeyGenerator.INVALID_ID), DEFAULT_DOUBLE_VALUE);
+
+      // Object result is the whole slot as raw values
+      resultHolder.setValueForKey(1, new long[]{Double.doubleToRawLongBits(2.5), 3L});
+      Assert.assertEquals(resultHolder.getDoubleValue(1, DOUBLE_INDEX), 2.5);
+      Assert.assertEquals(resultHolder.getLongValue(1, LONG_INDEX), 3L);
+      long[] values = resultHolder.getResult(1);
+      Assert.assertEquals(values, new long[]{Double.doubleToRawLongBits(2.5), 3L});
+      values = resultHolder.getResult(2);
+      Assert.assertEquals(values, new long[]{Double.doubleToRawLongBits(DEFAULT_DOUBLE_VALUE), DEFAULT_LONG_VALUE});
+    } finally {
+      resultHolder.close();
+    }
+  }
+
+  @Test
+  public void testClose() {
+    long[] defaultValues = new long[]{Double.doubleToRawLongBits(DEFAULT_DOUBLE_VALUE), DEFAULT_LONG_VALUE};
+    OffHeapGroupByResultHolder resultHolder =
+        new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY, defaultValues);
+    for (int i = 0; i < INITIAL_CAPACITY; i++) {
+      resultHolder.setDoubleValue(i, DOUBLE_INDEX, RANDOM.nextDouble());
+      resultHolder.setLongValue(i, LONG_INDEX, RANDOM.nextLong());
+    }
+    resultHolder.close();
+    // Closing twice should be a no-op
+    resultHolder.close();
+
+    // New result holders should be initialized with the default values
+    OffHeapGroupByResultHolder resultHolder1 =
+        new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY, defaultValues);
+    OffHeapGroupByResultHolder resultHolder2 =
+        new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY, defaultValues);
+    try {
+      for (int i = 0; i < INITIAL_CAPACITY; i++) {
+        Assert.assertEquals(resultHolder1.getDoubleValue(i, DOUBLE_INDEX), DEFAULT_DOUBLE_VALUE);
+        Assert.assertEquals(resultHolder1.getLongValue(i, LONG_INDEX), DEFAULT_LONG_VALUE);
+        Assert.assertEquals(resultHolder2.getDoubleValue(i, DOUBLE_INDEX), DEFAULT_DOUBLE_VALUE);
+        Assert.assertEquals(resultHolder2.getLongValue(i, LONG_INDEX), DEFAULT_LONG_VALUE);
+      }
+
+      // The two result holders should not share the same buffer
+      resultHolder1.setLongValue(0, LONG_INDEX, 1L);
+      Assert.assertEquals(resultHolder2.getLongValue(0, LONG_INDEX), DEFAULT_LONG_VALUE);
+    } finally {
+      resultHolder1.close();
+      resultHolder2.close();
+    }
+  }
+
+  @Test
+  public void testGrowBeyondPooledSlab() {
+    long[] defaultValues = new long[]{Double.doubleToRawLongBits(DEFAULT_DOUBLE_VALUE), DEFAULT_LONG_VALUE};
+    // Each slot has 2 8-byte values
+    int largeCapacity = OffHeapGroupByResultHolder.POOLED_SLAB_SIZE / 16 * 2;
+    long[] expectedLongValues = new long[largeCapacity];
+    for (int i = 0; i < largeCapacity; i++) {
+      expectedLongValues[i] = RANDOM.nextLong();
+    }
+
+    OffHeapGroupByResultHolder resultHolder =
+        new OffHeapGroupByResultHolder(INITIAL_CAPACITY, largeCapacity, defaultValues);
+    try {
+      for (int i = 0; i < largeCapacity; i++) {
+        resultHolder.ensureCapacity(i + 1);
+        Assert.assertEquals(resultHolder.getLongValue(i, LONG_INDEX), DEFAULT_LONG_VALUE,
+            "Random seed: " + RANDOM_SEED);
+        resultHolder.setLongValue(i, LONG_INDEX, expectedLongValues[i]);
+      }
+      for (int i = 0; i < largeCapacity; i++) {
+        Assert.assertEquals(resultHolder.getLongValue(i, LONG_INDEX), expectedLongValues[i],
+            "Random seed: " + RANDOM_SEED);
+      }
+    } finally {
+      resultHolder.close();
+    }
+  }
+
+  @Test
+  public void testSlabReuse() {
+    long[] defaultValues = new long[]{Double.doubleToRawLongBits(DEFAULT_DOUBLE_VALUE), DEFAULT_LONG_VALUE};
+    // Warm up the slab pool of the current thread
+    new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY, defaultValues).close();
+
+    // Small result holders should not allocate direct buffers
+    long numDirectBuffers = PinotDataBuffer.getDirectBufferCount();
+    for (int i = 0; i < 100; i++) {
+      OffHeapGroupByResultHolder resultHolder =
+          new OffHeapGroupByResultHolder(INITIAL_CAPACITY, MAX_CAPACITY, defaultValues);
+      resultHolder.ensureCapacity(MAX_CAPACITY);
+      resultHolder.close();
+    }
+    Assert.assertEquals(PinotDataBuffer.getDirectBufferCount(), numDirectBuffers);
+  }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.pruner;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import com.linkedin.pinot.core.query.pruner.BloomFilterSegmentPruner;
+import com.linkedin.pinot.core.query.request.ServerQueryRequest;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Unit tests for {@link BloomFilterSegmentPruner} class.
+ */
+public class BloomFilterSegmentPrunerTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BloomFilterSegmentPrunerTest");
+  private static final String AVRO_DATA = "data" + File.separator + "test_data-sv.avro";
+  private static final String SEGMENT_NAME = "testTable_126164076_167572854";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final BloomFilterSegmentPruner PRUNER = new BloomFilterSegmentPruner();
+  // Use a very small false positive probability so that the values not added are not contained in the bloom filter
+  private static final double FALSE_POSITIVE_PROBABILITY = 1e-6;
+
+  private final Map<String, ColumnMetadata> _columnMetadataMap = new HashMap<>();
+  private ImmutableSegment _mockSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+
+    // 'memberId' contains values 0, 10, ..., 990, 'score' contains values 0.5, 1.5, ..., 99.5, 'foo' does not have
+    // bloom filter
+    _columnMetadataMap.put("memberId", new ColumnMetadata.Builder().setColumnName("memberId")
+        .setFieldType(FieldSpec.FieldType.DIMENSION)
+        .setDataType(FieldSpec.DataType.INT)
+        .build());
+    _columnMetadataMap.put("score", new ColumnMetadata.Builder().setColumnName("score")
+        .setFieldType(FieldSpec.FieldType.METRIC)
+        .setDataType(FieldSpec.DataType.DOUBLE)
+        .build());
+    _columnMetadataMap.put("foo", new ColumnMetadata.Builder().setColumnName("foo")
+        .setFieldType(FieldSpec.FieldType.DIMENSION)
+        .setDataType(FieldSpec.DataType.STRING)
+        .build());
+    try (BloomFilterCreator creator = new BloomFilterCreator(INDEX_DIR, "memberId", 100,
+        FALSE_POSITIVE_PROBABILITY)) {
+      for (int i = 0; i < 100; i++) {
+        creator.add(Integer.toString(i * 10));
+      }
+      creator.seal();
+    }
+    try (BloomFilterCreator creator = new BloomFilterCreator(INDEX_DIR, "score", 100, FALSE_POSITIVE_PROBABILITY)) {
+      for (int i = 0; i < 100; i++) {
+        creator.add(Double.toString(i + 0.5));
+      }
+      creator.seal();
+    }
+
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    when(segmentMetadata.getColumnMetadataMap()).thenReturn(_columnMetadataMap);
+    _mockSegment = mock(ImmutableSegment.class);
+    when(_mockSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    when(_mockSegment.getBloomFilter("memberId")).thenReturn(loadBloomFilter("memberId"));
+    when(_mockSegment.getBloomFilter("score")).thenReturn(loadBloomFilter("score"));
+  }
+
+  private static BloomFilterReader loadBloomFilter(String column) throws IOException {
+    File bloomFilterFile = new File(INDEX_DIR, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(bloomFilterFile)) {
+      return new BloomFilterReader(dataBuffer);
+    }
+  }
+
+  @Test
+  public void testPruneSegment() {
+    // Query without filter
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table"));
+
+    // Column without bloom filter or not in the segment
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE foo = 'bar'"));
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE bar = 'foo'"));
+
+    // Equality predicate
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 0"));
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 990"));
+    Assert.assertTrue(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 5"));
+    Assert.assertTrue(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 1000"));
+
+    // Values should be converted to the column data type before looking up the bloom filter
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE score = 1.5"));
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE score = '1.50'"));
+    Assert.assertTrue(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE score = 1"));
+
+    // IN predicate
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId IN (1, 2, 10)"));
+    Assert.assertTrue(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId IN (1, 2, 3)"));
+
+    // Other predicates are not pruned
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId NOT IN (0, 10)"));
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId > 1000"));
+
+    // AND operator
+    Assert.assertTrue(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 5 AND foo = 'bar'"));
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 10 AND score = 0.5"));
+
+    // OR operator
+    Assert.assertFalse(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 5 OR foo = 'bar'"));
+    Assert.assertTrue(runPruner(_mockSegment, "SELECT COUNT(*) FROM table WHERE memberId = 5 OR score = 1"));
+  }
+
+  @Test
+  public void testSegmentWithBloomFilter() throws Exception {
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column6", FieldSpec.DataType.INT)
+        .addSingleValueDimension("column11", FieldSpec.DataType.STRING)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+    File outDir = new File(INDEX_DIR, "segment");
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    segmentGeneratorConfig.setInputFilePath(resource.getFile());
+    segmentGeneratorConfig.setTableName("testTable");
+    segmentGeneratorConfig.setOutDir(outDir.getAbsolutePath());
+    segmentGeneratorConfig.setRawIndexCreationColumns(Collections.singletonList("column1"));
+    segmentGeneratorConfig.setBloomFilterCreationColumns(Arrays.asList("column1", "column11"));
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig);
+    driver.build();
+
+    // Bloom filter for 'column6' is created when loading the segment
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setReadMode(ReadMode.mmap);
+    indexLoadingConfig.setBloomFilterColumns(new HashSet<>(Arrays.asList("column1", "column6", "column11")));
+    ImmutableSegment segment = ImmutableSegmentLoader.load(new File(outDir, SEGMENT_NAME), indexLoadingConfig);
+    try {
+      Assert.assertNotNull(segment.getBloomFilter("column1"));
+      Assert.assertNull(segment.getBloomFilter("daysSinceEpoch"));
+
+      // Segment should not be pruned for the values in the segment
+      for (String column : new String[]{"column6", "column11"}) {
+        BloomFilterReader bloomFilter = segment.getBloomFilter(column);
+        Assert.assertNotNull(bloomFilter);
+        Dictionary dictionary = segment.getDictionary(column);
+        int cardinality = dictionary.length();
+        for (int dictId = 0; dictId < cardinality; dictId++) {
+          String value = dictionary.getStringValue(dictId);
+          Assert.assertTrue(bloomFilter.mightContain(value));
+          Assert.assertFalse(
+              runPruner(segment, "SELECT COUNT(*) FROM testTable WHERE " + column + " = '" + value + "'"));
+        }
+      }
+      // Bloom filter for raw column 'column1' is created at segment creation
+      for (int docId = 0; docId < 100; docId++) {
+        Object value = segment.getRecord(docId, new GenericRow()).getValue("column1");
+        Assert.assertFalse(runPruner(segment, "SELECT COUNT(*) FROM testTable WHERE column1 = " + value));
+      }
+    } finally {
+      segment.destroy();
+    }
+  }
+
+  private static boolean runPruner(ImmutableSegment segment, String query) {
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(COMPILER.compileToBrokerRequest(query));
+    ServerQueryRequest queryRequest = mock(ServerQueryRequest.class);
+    when(queryRequest.getFilterQueryTree()).thenReturn(filterQueryTree);
+    return PRUNER.prune(segment, queryRequest);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
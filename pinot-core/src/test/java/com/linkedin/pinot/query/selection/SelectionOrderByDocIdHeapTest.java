@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.selection;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.indexsegment.mutable.MutableSegmentImpl;
+import com.linkedin.pinot.core.indexsegment.mutable.MutableSegmentImplTestUtils;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.query.SelectionOrderByOperator;
+import com.linkedin.pinot.core.plan.SelectionPlanNode;
+import com.linkedin.pinot.core.query.selection.SelectionOrderByDocIdHeap;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for {@link SelectionOrderByDocIdHeap} through the selection order-by operator.
+ * <p>The consuming segment has unsorted dictionaries, so the values instead of the dictionary ids are compared.
+ */
+public class SelectionOrderByDocIdHeapTest {
+  private static final long RANDOM_SEED = System.nanoTime();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String LONG_COLUMN = "longColumn";
+  private static final int NUM_ROWS = 25_000;
+
+  private MutableSegmentImpl _mutableSegment;
+  private final List<Serializable[]> _rows = new ArrayList<>();
+
+  @BeforeClass
+  public void setUp() {
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addMetric(LONG_COLUMN, FieldSpec.DataType.LONG)
+        .build();
+    _mutableSegment =
+        MutableSegmentImplTestUtils.createMutableSegmentImpl(schema, Collections.singleton(LONG_COLUMN),
+            Collections.emptySet(), false);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      int intValue = RANDOM.nextInt(1000);
+      String stringValue = "value" + RANDOM.nextInt(1000);
+      // Make the long values unique so that the order is deterministic
+      long longValue = (long) i * (RANDOM.nextBoolean() ? 1 : -1);
+      GenericRow row = new GenericRow();
+      row.putField(INT_COLUMN, intValue);
+      row.putField(STRING_COLUMN, stringValue);
+      row.putField(LONG_COLUMN, longValue);
+      _mutableSegment.index(row);
+      _rows.add(new Serializable[]{intValue, stringValue, longValue});
+    }
+  }
+
+  @Test
+  public void testOrderBy() {
+    // Expected rows are in the order of: intColumn, stringColumn, longColumn
+    testOrderBy("SELECT * FROM testTable ORDER BY " + LONG_COLUMN + " LIMIT 10", 10,
+        Comparator.comparing(row -> (Long) row[2]));
+    testOrderBy("SELECT * FROM testTable ORDER BY " + INT_COLUMN + " DESC, " + LONG_COLUMN + " LIMIT 5, 20", 25,
+        Comparator.<Serializable[], Integer>comparing(row -> (Integer) row[0]).reversed()
+            .thenComparing(row -> (Long) row[2]));
+    testOrderBy("SELECT * FROM testTable ORDER BY " + STRING_COLUMN + ", " + LONG_COLUMN + " DESC LIMIT 100", 100,
+        Comparator.<Serializable[], String>comparing(row -> (String) row[1])
+            .thenComparing(Comparator.<Serializable[], Long>comparing(row -> (Long) row[2]).reversed()));
+  }
+
+  private void testOrderBy(String query, int expectedNumRows, Comparator<Serializable[]> comparator) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    SelectionOrderByOperator operator =
+        (SelectionOrderByOperator) new SelectionPlanNode(_mutableSegment, brokerRequest).run();
+    IntermediateResultsBlock resultsBlock = operator.nextBlock();
+    Assert.assertEquals(operator.getExecutionStatistics().getNumDocsScanned(), NUM_ROWS);
+
+    List<String> columnNames = new ArrayList<>();
+    for (int i = 0; i < resultsBlock.getSelectionDataSchema().size(); i++) {
+      columnNames.add(resultsBlock.getSelectionDataSchema().getColumnName(i));
+    }
+    int[] columnIndices = {columnNames.indexOf(INT_COLUMN), columnNames.indexOf(STRING_COLUMN),
+        columnNames.indexOf(LONG_COLUMN)};
+    Collection<Serializable[]> selectionResult = resultsBlock.getSelectionResult();
+    List<Serializable[]> actualRows = new ArrayList<>(selectionResult.size());
+    for (Serializable[] row : selectionResult) {
+      actualRows.add(new Serializable[]{row[columnIndices[0]], row[columnIndices[1]], row[columnIndices[2]]});
+    }
+    actualRows.sort(comparator);
+
+    List<Serializable[]> expectedRows = new ArrayList<>(_rows);
+    expectedRows.sort(comparator);
+    Assert.assertEquals(actualRows.size(), expectedNumRows);
+    for (int i = 0; i < expectedNumRows; i++) {
+      Assert.assertEquals(actualRows.get(i), expectedRows.get(i), "Random seed: " + RANDOM_SEED);
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _mutableSegment.destroy();
+  }
+}
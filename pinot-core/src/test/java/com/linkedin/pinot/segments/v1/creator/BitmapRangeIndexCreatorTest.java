@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class BitmapRangeIndexCreatorTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BitmapRangeIndexCreatorTest");
+  private static final String COLUMN_NAME = "testColumn";
+  private static final File RANGE_INDEX =
+      new File(INDEX_DIR, COLUMN_NAME + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+  private static final int CARDINALITY = 1000;
+  private static final int NUM_DOCS = 10000;
+  private static final int NUM_RANGES = 10;
+  private static final long RANDOM_SEED = System.nanoTime();
+  private static final Random RANDOM = new Random(RANDOM_SEED);
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    FileUtils.forceMkdir(INDEX_DIR);
+  }
+
+  @Test
+  public void testUniformDistribution() throws IOException {
+    int[] dictIds = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = RANDOM.nextInt(CARDINALITY);
+    }
+    createAndValidate(dictIds, CARDINALITY);
+  }
+
+  @Test
+  public void testSkewedDistribution() throws IOException {
+    // Half of the documents share the same dictId
+    int heavyDictId = RANDOM.nextInt(CARDINALITY);
+    int[] dictIds = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = RANDOM.nextBoolean() ? heavyDictId : RANDOM.nextInt(CARDINALITY);
+    }
+    createAndValidate(dictIds, CARDINALITY);
+  }
+
+  @Test
+  public void testLowCardinality() throws IOException {
+    // Fewer dictIds than ranges, each dictId should be in its own range
+    int cardinality = NUM_RANGES / 2;
+    int[] dictIds = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = RANDOM.nextInt(cardinality);
+    }
+    createAndValidate(dictIds, cardinality);
+  }
+
+  private void createAndValidate(int[] dictIds, int cardinality) throws IOException {
+    try (BitmapRangeIndexCreator creator = new BitmapRangeIndexCreator(INDEX_DIR, COLUMN_NAME, cardinality, NUM_DOCS,
+        NUM_RANGES)) {
+      for (int dictId : dictIds) {
+        creator.add(dictId);
+      }
+      creator.seal();
+    }
+
+    try (BitmapRangeIndexReader reader = new BitmapRangeIndexReader(
+        PinotDataBuffer.mapReadOnlyBigEndianFile(RANGE_INDEX))) {
+      int numRanges = reader.getNumRanges();
+      Assert.assertTrue(numRanges > 0 && numRanges <= Math.min(NUM_RANGES, cardinality), "Random seed: " + RANDOM_SEED);
+
+      // Ranges should be contiguous and cover all the dictIds
+      Assert.assertEquals(reader.getRangeStartDictId(0), 0, "Random seed: " + RANDOM_SEED);
+      Assert.assertEquals(reader.getRangeEndDictId(numRanges - 1), cardinality, "Random seed: " + RANDOM_SEED);
+      for (int rangeId = 0; rangeId < numRanges; rangeId++) {
+        int startDictId = reader.getRangeStartDictId(rangeId);
+        int endDictId = reader.getRangeEndDictId(rangeId);
+        Assert.assertTrue(startDictId < endDictId, "Random seed: " + RANDOM_SEED);
+        if (rangeId > 0) {
+          Assert.assertEquals(startDictId, reader.getRangeEndDictId(rangeId - 1), "Random seed: " + RANDOM_SEED);
+        }
+        for (int dictId = startDictId; dictId < endDictId; dictId++) {
+          Assert.assertEquals(reader.getRangeId(dictId), rangeId, "Random seed: " + RANDOM_SEED);
+        }
+      }
+
+      // Each document should be in the bitmap of the range containing its dictId
+      int numDocs = 0;
+      for (int rangeId = 0; rangeId < numRanges; rangeId++) {
+        ImmutableRoaringBitmap bitmap = reader.getDocIds(rangeId);
+        numDocs += bitmap.getCardinality();
+        IntIterator intIterator = bitmap.getIntIterator();
+        while (intIterator.hasNext()) {
+          Assert.assertEquals(reader.getRangeId(dictIds[intIterator.next()]), rangeId, "Random seed: " + RANDOM_SEED);
+        }
+      }
+      Assert.assertEquals(numDocs, NUM_DOCS, "Random seed: " + RANDOM_SEED);
+    }
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+}
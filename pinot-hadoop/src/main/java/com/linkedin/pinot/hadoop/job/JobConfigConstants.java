@@ -36,5 +36,8 @@ public class JobConfigConstants {
 
   public static final String TABLE_CONFIG = "table.config";
 
+  // Number of threads used to create each segment
+  public static final String SEGMENT_CREATION_NUM_THREADS = "segment.creation.num.threads";
+
   public static final String DEFAULT_PERMISSIONS_MASK = "fs.permissions.umask-mode";
 }
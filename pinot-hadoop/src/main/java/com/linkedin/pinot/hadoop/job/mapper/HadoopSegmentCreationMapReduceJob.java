@@ -72,6 +72,8 @@ public class HadoopSegmentCreationMapReduceJob {
 
     private TableConfig _tableConfig = null;
 
+    private int _numThreads;
+
     @Override
     public void setup(Context context) throws IOException, InterruptedException {
       // Compute current working HDFS directory
@@ -97,6 +99,7 @@ public class HadoopSegmentCreationMapReduceJob {
       _tableName = _properties.get(JobConfigConstants.SEGMENT_TABLE_NAME);
       _postfix = _properties.get(SEGMENT_NAME_POSTFIX, null);
       _readerConfigFile = _properties.get(JobConfigConstants.PATH_TO_READER_CONFIG);
+      _numThreads = _properties.getInt(JobConfigConstants.SEGMENT_CREATION_NUM_THREADS, 1);
       if (_outputPath == null || _tableName == null) {
         throw new RuntimeException(
             "Missing configs: " + "\n\toutputPath: " + _properties.get(JobConfigConstants.PATH_TO_OUTPUT)
@@ -223,6 +226,7 @@ public class HadoopSegmentCreationMapReduceJob {
       FileFormat fileFormat = getFileFormat(dataFilePath);
       segmentGeneratorConfig.setFormat(fileFormat);
       segmentGeneratorConfig.setOnHeap(true);
+      segmentGeneratorConfig.setNumThreads(_numThreads);
 
       if (null != _postfix) {
         segmentGeneratorConfig.setSegmentNamePostfix(String.format("%s-%s", _postfix, seqId));
@@ -32,7 +32,8 @@ public class ConvertToRawIndexTaskExecutor extends BaseSingleSegmentConversionEx
       @Nonnull File workingDir) throws Exception {
     Map<String, String> configs = pinotTaskConfig.getConfigs();
     new RawIndexConverter(originalIndexDir, workingDir,
-        configs.get(MinionConstants.ConvertToRawIndexTask.COLUMNS_TO_CONVERT_KEY)).convert();
+        configs.get(MinionConstants.ConvertToRawIndexTask.COLUMNS_TO_CONVERT_KEY),
+        configs.get(MinionConstants.ConvertToRawIndexTask.COMPRESSION_TYPE_KEY)).convert();
     return new SegmentConversionResult.Builder().setFile(workingDir)
         .setTableNameWithType(configs.get(MinionConstants.TABLE_NAME_KEY))
         .setSegmentName(configs.get(MinionConstants.SEGMENT_NAME_KEY))
@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.data.manager.SegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Benchmark for the data table ser/de on the server side and the data table reduce on the broker side.
+ * <p>The data tables are the server responses of a group-by query and a selection order-by query on a synthetic segment
+ * generated by {@link BenchmarkSegmentGenerator}. For the reduce benchmarks, the same data table is used for all the
+ * servers.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class BenchmarkDataTable {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "BenchmarkDataTable");
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final PlanMaker PLAN_MAKER = new InstancePlanMakerImplV2();
+  private static final BrokerReduceService BROKER_REDUCE_SERVICE = new BrokerReduceService();
+  private static final int NUM_DOCS = 500_000;
+  private static final long RANDOM_SEED = 0L;
+  private static final long TIMEOUT_MS = 60_000L;
+
+  @Param({"100", "10000"})
+  public int cardinality;
+
+  @Param({"1", "10", "50"})
+  public int numServers;
+
+  private ImmutableSegment _indexSegment;
+  private BrokerRequest _groupByRequest;
+  private BrokerRequest _selectionRequest;
+  private DataTable _groupByDataTable;
+  private DataTable _selectionDataTable;
+  private byte[] _groupByBytes;
+  private byte[] _selectionBytes;
+  private Map<ServerInstance, DataTable> _groupByDataTableMap;
+  private Map<ServerInstance, DataTable> _selectionDataTableMap;
+
+  @Setup
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    _indexSegment = BenchmarkSegmentGenerator.generateSegment(TEMP_DIR, "segment", NUM_DOCS, cardinality, RANDOM_SEED);
+    List<SegmentDataManager> segmentDataManagers =
+        Collections.<SegmentDataManager>singletonList(new ImmutableSegmentDataManager(_indexSegment));
+
+    _groupByRequest = COMPILER.compileToBrokerRequest(
+        "SELECT COUNT(*), SUM(" + BenchmarkSegmentGenerator.INT_METRIC + ") FROM "
+            + BenchmarkSegmentGenerator.TABLE_NAME + " GROUP BY " + BenchmarkSegmentGenerator.INT_COLUMN + ", "
+            + BenchmarkSegmentGenerator.STRING_COLUMN + " TOP 1000");
+    _selectionRequest = COMPILER.compileToBrokerRequest(
+        "SELECT * FROM " + BenchmarkSegmentGenerator.TABLE_NAME + " ORDER BY "
+            + BenchmarkSegmentGenerator.DOUBLE_METRIC + " LIMIT 1000");
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      _groupByDataTable =
+          PLAN_MAKER.makeInterSegmentPlan(segmentDataManagers, _groupByRequest, executorService, TIMEOUT_MS).execute();
+      _selectionDataTable =
+          PLAN_MAKER.makeInterSegmentPlan(segmentDataManagers, _selectionRequest, executorService, TIMEOUT_MS)
+              .execute();
+    } finally {
+      executorService.shutdown();
+    }
+    _groupByBytes = _groupByDataTable.toBytes();
+    _selectionBytes = _selectionDataTable.toBytes();
+
+    _groupByDataTableMap = new HashMap<>();
+    _selectionDataTableMap = new HashMap<>();
+    for (int i = 0; i < numServers; i++) {
+      ServerInstance serverInstance = new ServerInstance("localhost", i);
+      _groupByDataTableMap.put(serverInstance, DataTableFactory.getDataTable(_groupByBytes));
+      _selectionDataTableMap.put(serverInstance, DataTableFactory.getDataTable(_selectionBytes));
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] groupByToBytes() throws IOException {
+    return _groupByDataTable.toBytes();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public DataTable groupByFromBytes() throws IOException {
+    return DataTableFactory.getDataTable(_groupByBytes);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] selectionToBytes() throws IOException {
+    return _selectionDataTable.toBytes();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public DataTable selectionFromBytes() throws IOException {
+    return DataTableFactory.getDataTable(_selectionBytes);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public BrokerResponseNative groupByReduce() {
+    return BROKER_REDUCE_SERVICE.reduceOnDataTable(_groupByRequest, _groupByDataTableMap, null);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public BrokerResponseNative selectionReduce() {
+    return BROKER_REDUCE_SERVICE.reduceOnDataTable(_selectionRequest, _selectionDataTableMap, null);
+  }
+
+  @TearDown
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder().include(BenchmarkDataTable.class.getSimpleName())
+        .warmupTime(TimeValue.seconds(5))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(5))
+        .measurementIterations(3)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Benchmark for the AND/OR filter operators on a synthetic segment generated by {@link BenchmarkSegmentGenerator}.
+ * <p>Each benchmark builds the filter operator from the filter plan node and iterates over all the matching documents.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class BenchmarkFilterOperators {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "BenchmarkFilterOperators");
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final int NUM_DOCS = 1_000_000;
+  private static final long RANDOM_SEED = 0L;
+
+  @Param({"100", "10000"})
+  public int cardinality;
+
+  @Param({"0.01", "0.1", "0.5"})
+  public double selectivity;
+
+  private ImmutableSegment _indexSegment;
+  private BrokerRequest _andScanRequest;
+  private BrokerRequest _andInvertedIndexRequest;
+  private BrokerRequest _orScanRequest;
+  private BrokerRequest _orInvertedIndexRequest;
+
+  @Setup
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    _indexSegment =
+        BenchmarkSegmentGenerator.generateSegment(TEMP_DIR, "segment", NUM_DOCS, cardinality, RANDOM_SEED);
+
+    int threshold = Math.max(1, (int) (cardinality * selectivity));
+    String intPredicate = BenchmarkSegmentGenerator.INT_COLUMN + " < " + threshold;
+    String longPredicate = BenchmarkSegmentGenerator.LONG_COLUMN + " < " + threshold;
+    StringBuilder stringPredicate = new StringBuilder(BenchmarkSegmentGenerator.STRING_COLUMN).append(" IN ('0'");
+    for (int i = 1; i < threshold; i++) {
+      stringPredicate.append(", '").append(i).append('\'');
+    }
+    stringPredicate.append(')');
+
+    _andScanRequest = compile(intPredicate + " AND " + longPredicate);
+    _andInvertedIndexRequest = compile(stringPredicate + " AND " + intPredicate);
+    _orScanRequest = compile(intPredicate + " OR " + longPredicate);
+    _orInvertedIndexRequest = compile(stringPredicate + " OR " + intPredicate);
+  }
+
+  private static BrokerRequest compile(String filter) {
+    return COMPILER.compileToBrokerRequest(
+        "SELECT COUNT(*) FROM " + BenchmarkSegmentGenerator.TABLE_NAME + " WHERE " + filter);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int andScan() {
+    return countMatchingDocs(_andScanRequest);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int andInvertedIndex() {
+    return countMatchingDocs(_andInvertedIndexRequest);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int orScan() {
+    return countMatchingDocs(_orScanRequest);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int orInvertedIndex() {
+    return countMatchingDocs(_orInvertedIndexRequest);
+  }
+
+  private int countMatchingDocs(BrokerRequest brokerRequest) {
+    BlockDocIdIterator iterator =
+        new FilterPlanNode(_indexSegment, brokerRequest).run().nextBlock().getBlockDocIdSet().iterator();
+    int count = 0;
+    while (iterator.next() != Constants.EOF) {
+      count++;
+    }
+    return count;
+  }
+
+  @TearDown
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder().include(BenchmarkFilterOperators.class.getSimpleName())
+        .warmupTime(TimeValue.seconds(5))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(5))
+        .measurementIterations(3)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
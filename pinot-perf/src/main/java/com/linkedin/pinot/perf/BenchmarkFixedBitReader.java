@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.io.util.FixedBitIntReaderWriter;
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Benchmark for reading the bit-packed dictionary ids of a single-value column in blocks of
+ * {@link DocIdSetPlanNode#MAX_DOC_PER_CALL} documents, comparing the value by value read against the bulk read.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class BenchmarkFixedBitReader {
+  private static final int NUM_DOCS = 1_000_000;
+  private static final int BLOCK_SIZE = DocIdSetPlanNode.MAX_DOC_PER_CALL;
+  private static final long RANDOM_SEED = 0L;
+
+  @Param({"1", "4", "7", "10", "16", "17", "24"})
+  public int numBitsPerValue;
+
+  private FixedBitIntReaderWriter _readerWriter;
+  private FixedBitSingleValueReader _reader;
+  private int[] _docIds;
+  private int[] _buffer;
+
+  @Setup
+  public void setUp() {
+    int dataBufferSize = (int) (((long) NUM_DOCS * numBitsPerValue + Byte.SIZE - 1) / Byte.SIZE);
+    PinotDataBuffer dataBuffer =
+        PinotDataBuffer.allocateDirect(dataBufferSize, PinotDataBuffer.NATIVE_ORDER, "BenchmarkFixedBitReader");
+    _readerWriter = new FixedBitIntReaderWriter(dataBuffer, NUM_DOCS, numBitsPerValue);
+    Random random = new Random(RANDOM_SEED);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      _readerWriter.writeInt(i, random.nextInt(1 << numBitsPerValue));
+    }
+    _reader = new FixedBitSingleValueReader(dataBuffer, NUM_DOCS, numBitsPerValue);
+    _docIds = new int[BLOCK_SIZE];
+    _buffer = new int[BLOCK_SIZE];
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int valueByValueRead() {
+    int sum = 0;
+    for (int startDocId = 0; startDocId < NUM_DOCS; startDocId += BLOCK_SIZE) {
+      int length = Math.min(BLOCK_SIZE, NUM_DOCS - startDocId);
+      for (int i = 0; i < length; i++) {
+        _buffer[i] = _readerWriter.readInt(startDocId + i);
+      }
+      sum += _buffer[length - 1];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int bulkRead() {
+    int sum = 0;
+    for (int startDocId = 0; startDocId < NUM_DOCS; startDocId += BLOCK_SIZE) {
+      int length = Math.min(BLOCK_SIZE, NUM_DOCS - startDocId);
+      _readerWriter.readInt(startDocId, length, _buffer);
+      sum += _buffer[length - 1];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int readerReadValues() {
+    int sum = 0;
+    for (int startDocId = 0; startDocId < NUM_DOCS; startDocId += BLOCK_SIZE) {
+      int length = Math.min(BLOCK_SIZE, NUM_DOCS - startDocId);
+      for (int i = 0; i < length; i++) {
+        _docIds[i] = startDocId + i;
+      }
+      _reader.readValues(_docIds, 0, length, _buffer, 0);
+      sum += _buffer[length - 1];
+    }
+    return sum;
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    _readerWriter.close();
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder().include(BenchmarkFixedBitReader.class.getSimpleName())
+        .warmupTime(TimeValue.seconds(5))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(5))
+        .measurementIterations(3)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
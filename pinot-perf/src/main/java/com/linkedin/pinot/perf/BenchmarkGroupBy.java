@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.transform.TransformExpressionTree;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.data.manager.SegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.blocks.TransformBlock;
+import com.linkedin.pinot.core.operator.transform.TransformOperator;
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.plan.TransformPlanNode;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.DictionaryBasedGroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Benchmark for group-by on synthetic segments generated by {@link BenchmarkSegmentGenerator}.
+ * <ul>
+ *   <li>groupKeyGenerator: generates group keys with {@link DictionaryBasedGroupKeyGenerator} on one segment</li>
+ *   <li>innerSegmentGroupBy: runs the aggregation group-by operator on one segment</li>
+ *   <li>combineGroupBy: runs the inter-segment plan (combine group-by operator) on all segments</li>
+ * </ul>
+ * <p>The number of group-by columns and the cardinality decide the raw key holder used by the group key generator
+ * (e.g. 1 column with cardinality 100 uses the array based holder, 3 columns with cardinality 10000 use the long map
+ * based holder).
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class BenchmarkGroupBy {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "BenchmarkGroupBy");
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final PlanMaker PLAN_MAKER = new InstancePlanMakerImplV2();
+  private static final String[] GROUP_BY_COLUMNS =
+      {BenchmarkSegmentGenerator.INT_COLUMN, BenchmarkSegmentGenerator.LONG_COLUMN,
+          BenchmarkSegmentGenerator.STRING_COLUMN};
+  private static final int NUM_DOCS_PER_SEGMENT = 500_000;
+  private static final int NUM_SEGMENTS = 8;
+  private static final long TIMEOUT_MS = 60_000L;
+
+  @Param({"100", "10000"})
+  public int cardinality;
+
+  @Param({"1", "2", "3"})
+  public int numGroupByColumns;
+
+  private final ExecutorService _executorService = Executors.newFixedThreadPool(NUM_SEGMENTS);
+  private final List<ImmutableSegment> _indexSegments = new ArrayList<>(NUM_SEGMENTS);
+  private final List<SegmentDataManager> _segmentDataManagers = new ArrayList<>(NUM_SEGMENTS);
+  private BrokerRequest _brokerRequest;
+  private TransformExpressionTree[] _groupByExpressions;
+  private int[] _groupKeys;
+
+  @Setup
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      ImmutableSegment indexSegment =
+          BenchmarkSegmentGenerator.generateSegment(TEMP_DIR, "segment_" + i, NUM_DOCS_PER_SEGMENT, cardinality, i);
+      _indexSegments.add(indexSegment);
+      _segmentDataManagers.add(new ImmutableSegmentDataManager(indexSegment));
+    }
+
+    StringBuilder groupBy = new StringBuilder(GROUP_BY_COLUMNS[0]);
+    _groupByExpressions = new TransformExpressionTree[numGroupByColumns];
+    _groupByExpressions[0] = TransformExpressionTree.compileToExpressionTree(GROUP_BY_COLUMNS[0]);
+    for (int i = 1; i < numGroupByColumns; i++) {
+      groupBy.append(", ").append(GROUP_BY_COLUMNS[i]);
+      _groupByExpressions[i] = TransformExpressionTree.compileToExpressionTree(GROUP_BY_COLUMNS[i]);
+    }
+    _brokerRequest = COMPILER.compileToBrokerRequest(
+        "SELECT COUNT(*), SUM(" + BenchmarkSegmentGenerator.INT_METRIC + "), MAX("
+            + BenchmarkSegmentGenerator.DOUBLE_METRIC + ") FROM " + BenchmarkSegmentGenerator.TABLE_NAME
+            + " GROUP BY " + groupBy + " TOP 100");
+    _groupKeys = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int groupKeyGenerator() {
+    TransformOperator transformOperator = new TransformPlanNode(_indexSegments.get(0), _brokerRequest).run();
+    DictionaryBasedGroupKeyGenerator groupKeyGenerator =
+        new DictionaryBasedGroupKeyGenerator(transformOperator, _groupByExpressions,
+            InstancePlanMakerImplV2.DEFAULT_NUM_GROUPS_LIMIT,
+            InstancePlanMakerImplV2.DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY);
+    TransformBlock transformBlock;
+    while ((transformBlock = transformOperator.nextBlock()) != null) {
+      groupKeyGenerator.generateKeysForBlock(transformBlock, _groupKeys);
+    }
+    return groupKeyGenerator.getCurrentGroupKeyUpperBound();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int innerSegmentGroupBy(Blackhole blackhole) {
+    IntermediateResultsBlock resultsBlock =
+        (IntermediateResultsBlock) PLAN_MAKER.makeInnerSegmentPlan(_indexSegments.get(0), _brokerRequest)
+            .run()
+            .nextBlock();
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    if (aggregationGroupByResult == null) {
+      return 0;
+    }
+    // Extract the results the same way as the combine operator, then release the off-heap result holders
+    int numAggregationFunctions = _brokerRequest.getAggregationsInfoSize();
+    int numGroups = 0;
+    try {
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getTypedGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          blackhole.consume(aggregationGroupByResult.getResultForKey(groupKey, i));
+        }
+        numGroups++;
+      }
+    } finally {
+      aggregationGroupByResult.close();
+    }
+    return numGroups;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public DataTable combineGroupBy() {
+    return PLAN_MAKER.makeInterSegmentPlan(_segmentDataManagers, _brokerRequest, _executorService, TIMEOUT_MS)
+        .execute();
+  }
+
+  @TearDown
+  public void tearDown() {
+    _executorService.shutdown();
+    for (ImmutableSegment indexSegment : _indexSegments) {
+      indexSegment.destroy();
+    }
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder().include(BenchmarkGroupBy.class.getSimpleName())
+        .warmupTime(TimeValue.seconds(5))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(5))
+        .measurementIterations(3)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.common.BaseBlockValSet;
+import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Benchmark for the life cycle of the AVG group-by result holder of one segment (create, aggregate one block, extract
+ * the results, close) with small numbers of groups, where the cost of creating the holder is not amortized.
+ * <ul>
+ *   <li>offHeapAvg: AVG with the off-heap fixed-width result holder</li>
+ *   <li>onHeapAvg: AVG with the on-heap object result holder (one {@link AvgPair} per group)</li>
+ * </ul>
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class BenchmarkGroupByResultHolder {
+  private static final int NUM_DOCS = DocIdSetPlanNode.MAX_DOC_PER_CALL;
+  private static final AvgAggregationFunction AVG = new AvgAggregationFunction();
+
+  @Param({"10", "100", "1000"})
+  public int numGroups;
+
+  private final int[] _groupKeys = new int[NUM_DOCS];
+  private final double[] _values = new double[NUM_DOCS];
+  private final BaseBlockValSet _blockValSet = new BaseBlockValSet() {
+    @Override
+    public FieldSpec.DataType getValueType() {
+      return FieldSpec.DataType.DOUBLE;
+    }
+
+    @Override
+    public double[] getDoubleValuesSV() {
+      return _values;
+    }
+  };
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      _groupKeys[i] = random.nextInt(numGroups);
+      _values[i] = random.nextDouble();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void offHeapAvg(Blackhole blackhole) {
+    GroupByResultHolder resultHolder = AVG.createGroupByResultHolder(numGroups, numGroups);
+    try {
+      AVG.aggregateGroupBySV(NUM_DOCS, _groupKeys, resultHolder, _blockValSet);
+      for (int groupKey = 0; groupKey < numGroups; groupKey++) {
+        blackhole.consume(AVG.extractGroupByResult(resultHolder, groupKey));
+      }
+    } finally {
+      resultHolder.close();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void onHeapAvg(Blackhole blackhole) {
+    GroupByResultHolder resultHolder = new ObjectGroupByResultHolder(numGroups, numGroups);
+    try {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        int groupKey = _groupKeys[i];
+        AvgPair avgPair = resultHolder.getResult(groupKey);
+        if (avgPair == null) {
+          resultHolder.setValueForKey(groupKey, new AvgPair(_values[i], 1L));
+        } else {
+          avgPair.apply(_values[i], 1L);
+        }
+      }
+      for (int groupKey = 0; groupKey < numGroups; groupKey++) {
+        AvgPair avgPair = resultHolder.getResult(groupKey);
+        blackhole.consume(avgPair != null ? avgPair : new AvgPair(0.0, 0L));
+      }
+    } finally {
+      resultHolder.close();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder().include(BenchmarkGroupByResultHolder.class.getSimpleName())
+        .warmupTime(TimeValue.seconds(5))
+        .warmupIterations(2)
+        .measurementTime(TimeValue.seconds(5))
+        .measurementIterations(3)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.GenericRowRecordReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
+import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Generates synthetic segments for the JMH benchmarks on the query engine.
+ * <p>Schema of the generated segments:
+ * <ul>
+ *   <li>intColumn: INT dimension, uniformly distributed in [0, cardinality)</li>
+ *   <li>longColumn: LONG dimension, uniformly distributed in [0, cardinality)</li>
+ *   <li>stringColumn: STRING dimension with inverted index, uniformly distributed in [0, cardinality)</li>
+ *   <li>intMetric: INT metric</li>
+ *   <li>doubleMetric: DOUBLE metric</li>
+ * </ul>
+ * <p>Because values are uniformly distributed in [0, cardinality), predicate <code>column &lt; cardinality *
+ * selectivity</code> selects roughly <code>selectivity</code> of the documents.
+ */
+public class BenchmarkSegmentGenerator {
+  public static final String TABLE_NAME = "benchmarkTable";
+  public static final String INT_COLUMN = "intColumn";
+  public static final String LONG_COLUMN = "longColumn";
+  public static final String STRING_COLUMN = "stringColumn";
+  public static final String INT_METRIC = "intMetric";
+  public static final String DOUBLE_METRIC = "doubleMetric";
+
+  private static final int MAX_METRIC_VALUE = 10_000;
+
+  private BenchmarkSegmentGenerator() {
+  }
+
+  /**
+   * Generates a segment with the given number of documents and dimension cardinality, and loads it on heap.
+   *
+   * @param outDir Output directory of the segment
+   * @param segmentName Name of the segment
+   * @param numDocs Number of documents
+   * @param cardinality Cardinality of the dimension columns
+   * @param randomSeed Random seed for the values
+   * @return Loaded segment
+   */
+  public static ImmutableSegment generateSegment(File outDir, String segmentName, int numDocs, int cardinality,
+      long randomSeed) throws Exception {
+    Schema schema = new Schema();
+    schema.setSchemaName(TABLE_NAME);
+    schema.addField(new DimensionFieldSpec(INT_COLUMN, FieldSpec.DataType.INT, true));
+    schema.addField(new DimensionFieldSpec(LONG_COLUMN, FieldSpec.DataType.LONG, true));
+    schema.addField(new DimensionFieldSpec(STRING_COLUMN, FieldSpec.DataType.STRING, true));
+    schema.addField(new MetricFieldSpec(INT_METRIC, FieldSpec.DataType.INT));
+    schema.addField(new MetricFieldSpec(DOUBLE_METRIC, FieldSpec.DataType.DOUBLE));
+
+    Random random = new Random(randomSeed);
+    List<GenericRow> rows = new ArrayList<>(numDocs);
+    for (int i = 0; i < numDocs; i++) {
+      Map<String, Object> fields = new HashMap<>();
+      fields.put(INT_COLUMN, random.nextInt(cardinality));
+      fields.put(LONG_COLUMN, (long) random.nextInt(cardinality));
+      fields.put(STRING_COLUMN, Integer.toString(random.nextInt(cardinality)));
+      fields.put(INT_METRIC, random.nextInt(MAX_METRIC_VALUE));
+      fields.put(DOUBLE_METRIC, random.nextDouble() * MAX_METRIC_VALUE);
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      rows.add(row);
+    }
+
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
+    config.setOutDir(outDir.getAbsolutePath());
+    config.setTableName(TABLE_NAME);
+    config.setSegmentName(segmentName);
+    config.setInvertedIndexCreationColumns(Collections.singletonList(STRING_COLUMN));
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new GenericRowRecordReader(rows, schema));
+    driver.build();
+
+    return ImmutableSegmentLoader.load(new File(outDir, segmentName), ReadMode.heap);
+  }
+}
@@ -15,12 +15,16 @@
  */
 package com.linkedin.pinot.server.starter.helix;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.config.TableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.core.data.manager.InstanceDataManager;
@@ -30,6 +34,7 @@ import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.data.manager.offline.TableDataManagerProvider;
 import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegment;
 import com.linkedin.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import com.linkedin.pinot.core.io.reader.impl.ChunkCache;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import com.linkedin.pinot.core.segment.index.loader.LoaderUtils;
 import java.io.File;
@@ -38,6 +43,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -61,11 +69,16 @@ public class HelixInstanceDataManager implements InstanceDataManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(HelixInstanceDataManager.class);
 
   private final ConcurrentHashMap<String, TableDataManager> _tableDataManagerMap = new ConcurrentHashMap<>();
+  // Number of segments being loaded or waiting for the segment load semaphore
+  private final AtomicInteger _numSegmentLoadsInProgress = new AtomicInteger();
 
   private HelixInstanceDataManagerConfig _instanceDataManagerConfig;
   private String _instanceId;
   private ZkHelixPropertyStore<ZNRecord> _propertyStore;
   private ServerMetrics _serverMetrics;
+  private ChunkCache _chunkCache;
+  // Limits the number of segments loaded in parallel, null for unlimited
+  private Semaphore _segmentLoadSemaphore;
 
   @Override
   public synchronized void init(@Nonnull Configuration config, @Nonnull ZkHelixPropertyStore<ZNRecord> propertyStore,
@@ -78,6 +91,21 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     _propertyStore = propertyStore;
     _serverMetrics = serverMetrics;
 
+    long chunkCacheMaxSizeInBytes = _instanceDataManagerConfig.getConfig()
+        .getLong(ChunkCache.MAX_SIZE_IN_BYTES_KEY, ChunkCache.DEFAULT_MAX_SIZE_IN_BYTES);
+    if (chunkCacheMaxSizeInBytes > 0) {
+      LOGGER.info("Enabling chunk cache with max size: {} bytes", chunkCacheMaxSizeInBytes);
+      _chunkCache = new ChunkCache(chunkCacheMaxSizeInBytes, serverMetrics);
+    }
+
+    int maxParallelSegmentLoads = _instanceDataManagerConfig.getMaxParallelSegmentLoads();
+    if (maxParallelSegmentLoads > 0) {
+      LOGGER.info("Limiting the number of parallel segment loads to: {}", maxParallelSegmentLoads);
+      _segmentLoadSemaphore = new Semaphore(maxParallelSegmentLoads, true);
+    }
+    serverMetrics.addCallbackGauge(ServerGauge.SEGMENT_LOADS_IN_PROGRESS.getGaugeName(),
+        () -> (long) _numSegmentLoadsInProgress.get());
+
     File instanceDataDir = new File(_instanceDataManagerConfig.getInstanceDataDir());
     if (!instanceDataDir.exists()) {
       Preconditions.checkState(instanceDataDir.mkdirs());
@@ -106,8 +134,32 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     LOGGER.info("Adding segment: {} to table: {}", segmentName, offlineTableName);
     TableConfig tableConfig = ZKMetadataProvider.getTableConfig(_propertyStore, offlineTableName);
     Preconditions.checkNotNull(tableConfig);
-    _tableDataManagerMap.computeIfAbsent(offlineTableName, k -> createTableDataManager(k, tableConfig))
-        .addSegment(indexDir, new IndexLoadingConfig(_instanceDataManagerConfig, tableConfig));
+    TableDataManager tableDataManager =
+        _tableDataManagerMap.computeIfAbsent(offlineTableName, k -> createTableDataManager(k, tableConfig));
+    IndexLoadingConfig indexLoadingConfig = getIndexLoadingConfig(tableConfig);
+
+    _numSegmentLoadsInProgress.incrementAndGet();
+    try {
+      if (_segmentLoadSemaphore != null) {
+        _segmentLoadSemaphore.acquire();
+      }
+      try {
+        long startTimeMs = System.currentTimeMillis();
+        tableDataManager.addSegment(indexDir, indexLoadingConfig);
+        _serverMetrics.addTimedValue(ServerTimer.SEGMENT_LOAD_TIME, System.currentTimeMillis() - startTimeMs,
+            TimeUnit.MILLISECONDS);
+        _serverMetrics.addMeteredGlobalValue(ServerMeter.SEGMENTS_LOADED, 1L);
+      } finally {
+        if (_segmentLoadSemaphore != null) {
+          _segmentLoadSemaphore.release();
+        }
+      }
+    } catch (Exception e) {
+      _serverMetrics.addMeteredGlobalValue(ServerMeter.SEGMENT_LOAD_FAILURES, 1L);
+      throw e;
+    } finally {
+      _numSegmentLoadsInProgress.decrementAndGet();
+    }
     LOGGER.info("Added segment: {} to table: {}", segmentName, offlineTableName);
   }
 
@@ -117,11 +169,18 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     TableConfig tableConfig = ZKMetadataProvider.getTableConfig(_propertyStore, realtimeTableName);
     Preconditions.checkNotNull(tableConfig);
     _tableDataManagerMap.computeIfAbsent(realtimeTableName, k -> createTableDataManager(k, tableConfig))
-        .addSegment(segmentName, tableConfig, new IndexLoadingConfig(_instanceDataManagerConfig, tableConfig));
+        .addSegment(segmentName, tableConfig, getIndexLoadingConfig(tableConfig));
     LOGGER.info("Added segment: {} to table: {}", segmentName, realtimeTableName);
   }
 
-  private TableDataManager createTableDataManager(@Nonnull String tableNameWithType, @Nonnull TableConfig tableConfig) {
+  private IndexLoadingConfig getIndexLoadingConfig(@Nonnull TableConfig tableConfig) {
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig(_instanceDataManagerConfig, tableConfig);
+    indexLoadingConfig.setChunkCache(_chunkCache);
+    return indexLoadingConfig;
+  }
+
+  @VisibleForTesting
+  TableDataManager createTableDataManager(@Nonnull String tableNameWithType, @Nonnull TableConfig tableConfig) {
     LOGGER.info("Creating table data manager for table: {}", tableNameWithType);
     TableDataManagerConfig tableDataManagerConfig =
         TableDataManagerConfig.getDefaultHelixTableDataManagerConfig(_instanceDataManagerConfig, tableNameWithType);
@@ -218,8 +277,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
 
       // Load from index directory
       ImmutableSegment immutableSegment =
-          ImmutableSegmentLoader.load(indexDir, new IndexLoadingConfig(_instanceDataManagerConfig, tableConfig),
-              schema);
+          ImmutableSegmentLoader.load(indexDir, getIndexLoadingConfig(tableConfig), schema);
 
       // Replace the old segment in memory
       _tableDataManagerMap.get(tableNameWithType).addSegment(immutableSegment);
@@ -271,6 +329,11 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     return _instanceDataManagerConfig.getMaxParallelRefreshThreads();
   }
 
+  @Override
+  public int getMaxParallelSegmentLoads() {
+    return _instanceDataManagerConfig.getMaxParallelSegmentLoads();
+  }
+
   @Nullable
   @Override
   public SegmentMetadata getSegmentMetadata(@Nonnull String tableNameWithType, @Nonnull String segmentName) {
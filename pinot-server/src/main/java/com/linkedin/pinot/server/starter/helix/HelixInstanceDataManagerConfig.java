@@ -87,6 +87,15 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
   //
   private static final String MAX_PARALLEL_REFRESH_THREADS = "max.parallel.refresh.threads";
 
+  // Number of segments that can be loaded simultaneously on one server, shared by the segments pre-loaded at server
+  // startup and the segments added through Helix state transitions.
+  // Segment load is bounded by the disk I/O (and CPU when indexes need to be generated), so limiting it (e.g. to the
+  // number of available processors) can reduce the contention when many segments are loaded at the same time.
+  // Downloading segments from the controller is not bounded by this config.
+  // A value of <= 0 indicates unlimited (default), where segment loads are only bounded by the Helix state transition
+  // threads.
+  private static final String MAX_PARALLEL_SEGMENT_LOADS = "max.parallel.segment.loads";
+
   private final static String[] REQUIRED_KEYS = { INSTANCE_ID, INSTANCE_DATA_DIR, READ_MODE };
   private Configuration _instanceDataManagerConfiguration = null;
 
@@ -178,6 +187,10 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
     return _instanceDataManagerConfiguration.getInt(MAX_PARALLEL_REFRESH_THREADS, 1);
   }
 
+  public int getMaxParallelSegmentLoads() {
+    return _instanceDataManagerConfiguration.getInt(MAX_PARALLEL_SEGMENT_LOADS, 0);
+  }
+
   public int getMaxParallelSegmentBuilds() {
     return _instanceDataManagerConfiguration.getInt(MAX_PARALLEL_SEGMENT_BUILDS, 0);
   }
@@ -35,6 +35,7 @@ import com.linkedin.pinot.server.realtime.ControllerLeaderLocator;
 import com.linkedin.pinot.server.realtime.ServerSegmentCompletionProtocolHandler;
 import com.linkedin.pinot.server.starter.ServerInstance;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -183,7 +184,12 @@ public class HelixServerStarter {
 
     ControllerLeaderLocator.create(_helixManager);
 
-    waitForAllSegmentsLoaded();
+    // Segments preloading and the segments loading check share the server starter timeout
+    int serverStarterTimeout = _helixServerConfig.getInt(CommonConstants.Server.CONFIG_OF_STARTER_TIMEOUT_IN_SECONDS,
+        CommonConstants.Server.DEFAULT_STARTER_TIMEOUT_IN_SECONDS);
+    long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(serverStarterTimeout);
+    preloadSegments(fetcherAndLoader, endTime);
+    waitForAllSegmentsLoaded(endTime);
     setShuttingDownStatus(false);
     LOGGER.info("Pinot server ready");
 
@@ -195,11 +201,60 @@ public class HelixServerStarter {
     serverMetrics.addCallbackGauge("memory.allocationFailureCount", PinotDataBuffer::getAllocationFailureCount);
   }
 
-  private void waitForAllSegmentsLoaded() {
+  /**
+   * Loads the segments of the OFFLINE tables assigned to this server (ONLINE in the ideal state) in parallel, instead
+   * of waiting for the Helix state transitions to load them. The number of segments loaded in parallel is bounded by
+   * the instance data manager, and the wait is bounded by the given end time of the server starter timeout. The segments
+   * not loaded by then are left to the Helix state transitions.
+   */
+  private void preloadSegments(SegmentFetcherAndLoader fetcherAndLoader, long endTime) {
+    if (!_helixServerConfig.getBoolean(CommonConstants.Server.CONFIG_OF_STARTER_ENABLE_SEGMENTS_PRELOADING,
+        CommonConstants.Server.DEFAULT_STARTER_ENABLE_SEGMENTS_PRELOADING)) {
+      return;
+    }
+    Map<String, List<String>> tableSegmentsMap = new HashMap<>();
+    for (String resourceName : _helixAdmin.getResourcesInCluster(_helixClusterName)) {
+      if (!TableNameBuilder.OFFLINE.tableHasTypeSuffix(resourceName)) {
+        continue;
+      }
+      IdealState idealState = _helixAdmin.getResourceIdealState(_helixClusterName, resourceName);
+      if (idealState == null || !idealState.isEnabled()) {
+        continue;
+      }
+      List<String> segmentNames = new ArrayList<>();
+      for (String partitionName : idealState.getPartitionSet()) {
+        Map<String, String> instanceStateMap = idealState.getInstanceStateMap(partitionName);
+        if (instanceStateMap != null && CommonConstants.Helix.StateModel.SegmentOnlineOfflineStateModel.ONLINE.equals(
+            instanceStateMap.get(_instanceId))) {
+          segmentNames.add(partitionName);
+        }
+      }
+      if (!segmentNames.isEmpty()) {
+        tableSegmentsMap.put(resourceName, segmentNames);
+      }
+    }
+    if (tableSegmentsMap.isEmpty()) {
+      return;
+    }
+
+    int numThreads = _serverInstance.getInstanceDataManager().getMaxParallelSegmentLoads();
+    if (numThreads <= 0) {
+      numThreads = Runtime.getRuntime().availableProcessors();
+    }
+    long timeoutMs = endTime - System.currentTimeMillis();
+    if (timeoutMs <= 0) {
+      return;
+    }
+    try {
+      fetcherAndLoader.addOrReplaceOfflineSegments(tableSegmentsMap, numThreads, timeoutMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void waitForAllSegmentsLoaded(long endTime) {
     if (_helixServerConfig.getBoolean(CommonConstants.Server.CONFIG_OF_STARTER_ENABLE_SEGMENTS_LOADING_CHECK, CommonConstants.Server.DEFAULT_STARTER_ENABLE_SEGMENTS_LOADING_CHECK)) {
       long startTime = System.currentTimeMillis();
-      int serverStarterTimeout = _helixServerConfig.getInt(CommonConstants.Server.CONFIG_OF_STARTER_TIMEOUT_IN_SECONDS, CommonConstants.Server.DEFAULT_STARTER_TIMEOUT_IN_SECONDS);
-      long endTime = startTime + TimeUnit.SECONDS.toMillis(serverStarterTimeout);
       boolean allSegmentsLoaded = false;
       while (System.currentTimeMillis() < endTime) {
         long timeToSleep = Math.min(TimeUnit.MILLISECONDS.toSeconds(endTime - System.currentTimeMillis()), 10 /* Sleep 10 seconds as default*/);
@@ -221,7 +276,8 @@ public class HelixServerStarter {
         }
       }
       if (!allSegmentsLoaded) {
-        LOGGER.info("Segments are not fully loaded within {} seconds...", serverStarterTimeout);
+        LOGGER.info("Segments are not fully loaded within {} seconds...",
+            TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startTime));
         logSegmentsLoadingInfo();
       }
     }
@@ -23,6 +23,7 @@ import com.linkedin.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.fetcher.SegmentFetcherFactory;
 import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.common.utils.TarGzCompressionUtils;
 import com.linkedin.pinot.core.crypt.PinotCrypter;
 import com.linkedin.pinot.core.crypt.PinotCrypterFactory;
@@ -32,6 +33,13 @@ import com.linkedin.pinot.core.segment.index.loader.LoaderUtils;
 import com.linkedin.pinot.core.segment.index.loader.V3RemoveIndexException;
 import com.linkedin.pinot.filesystem.PinotFSFactory;
 import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -167,6 +175,67 @@ public class SegmentFetcherAndLoader {
     }
   }
 
+  /**
+   * Adds or replaces the given segments of the OFFLINE tables in parallel, returns the number of segments successfully
+   * added or replaced.
+   * <p>This is used at server startup to load all the segments assigned to the server with bounded parallelism. The
+   * Helix state transitions for the segments already loaded become no-op because the segment CRC does not change.
+   * Failures are logged and left to the Helix state transitions to handle.
+   * <p>If the segments cannot be processed within the timeout, the segments not yet started are skipped and left to the
+   * Helix state transitions as well. The segments being processed are not interrupted and finish in the background.
+   *
+   * @param tableSegmentsMap Map from OFFLINE table name to segment names
+   * @param numThreads Number of threads to add or replace the segments
+   * @param timeoutMs Timeout in milliseconds to wait for the segments to be processed
+   */
+  public int addOrReplaceOfflineSegments(@Nonnull Map<String, List<String>> tableSegmentsMap, int numThreads,
+      long timeoutMs) throws InterruptedException {
+    int numSegments = tableSegmentsMap.values().stream().mapToInt(List::size).sum();
+    LOGGER.info("Adding or replacing {} segments for {} tables with {} threads", numSegments, tableSegmentsMap.size(),
+        numThreads);
+    long startTime = System.currentTimeMillis();
+    AtomicInteger numSegmentsAdded = new AtomicInteger();
+    AtomicInteger numSegmentsProcessed = new AtomicInteger();
+    AtomicBoolean stopped = new AtomicBoolean();
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(numThreads, new NamedThreadFactory("SegmentFetcherAndLoader"));
+    try {
+      for (Map.Entry<String, List<String>> entry : tableSegmentsMap.entrySet()) {
+        String tableNameWithType = entry.getKey();
+        for (String segmentName : entry.getValue()) {
+          executorService.submit(() -> {
+            if (stopped.get()) {
+              return;
+            }
+            try {
+              addOrReplaceOfflineSegment(tableNameWithType, segmentName);
+              numSegmentsAdded.getAndIncrement();
+            } catch (Exception e) {
+              LOGGER.warn("Failed to add or replace segment: {} of table: {}, leaving it to the state transition",
+                  segmentName, tableNameWithType, e);
+            }
+            int numProcessed = numSegmentsProcessed.incrementAndGet();
+            if (numProcessed % 100 == 0) {
+              LOGGER.info("Segments loading progress: [ {} / {} ]", numProcessed, numSegments);
+            }
+          });
+        }
+      }
+      executorService.shutdown();
+      if (!executorService.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+        LOGGER.warn("Timed out after {}ms adding or replacing segments, leaving the remaining segments to the state "
+            + "transitions", timeoutMs);
+      }
+    } finally {
+      // Do not interrupt the segments being processed, which can close the file channels used to load the segment
+      stopped.set(true);
+      executorService.shutdown();
+    }
+    LOGGER.info("Added or replaced {} of {} segments in {}ms", numSegmentsAdded.get(), numSegments,
+        System.currentTimeMillis() - startTime);
+    return numSegmentsAdded.get();
+  }
+
   private boolean isNewSegmentMetadata(@Nonnull OfflineSegmentZKMetadata newSegmentZKMetadata,
       @Nullable SegmentMetadata existedSegmentMetadata) {
     String offlineTableName = TableNameBuilder.OFFLINE.tableNameWithType(newSegmentZKMetadata.getTableName());
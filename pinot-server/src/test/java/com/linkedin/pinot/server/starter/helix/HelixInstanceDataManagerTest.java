@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.server.starter.helix;
+
+import com.linkedin.pinot.common.config.TableConfig;
+import com.linkedin.pinot.common.metrics.ServerGauge;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.core.data.manager.TableDataManager;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class HelixInstanceDataManagerTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "HelixInstanceDataManagerTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final String SEGMENT_NAME_PREFIX = "testSegment_";
+  private static final int MAX_PARALLEL_SEGMENT_LOADS = 2;
+  private static final int NUM_THREADS = 8;
+  private static final int NUM_SEGMENTS = 20;
+  // Every 4th segment fails to load
+  private static final int NUM_FAILED_SEGMENTS = NUM_SEGMENTS / 4;
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testMaxParallelSegmentLoads() throws Exception {
+    Configuration config = new PropertiesConfiguration();
+    config.addProperty(HelixInstanceDataManagerConfig.INSTANCE_ID, "testInstance");
+    config.addProperty(HelixInstanceDataManagerConfig.INSTANCE_DATA_DIR, new File(TEMP_DIR, "data").getPath());
+    config.addProperty(HelixInstanceDataManagerConfig.INSTANCE_SEGMENT_TAR_DIR, new File(TEMP_DIR, "tar").getPath());
+    config.addProperty(HelixInstanceDataManagerConfig.READ_MODE, ReadMode.mmap.name());
+    config.addProperty("max.parallel.segment.loads", MAX_PARALLEL_SEGMENT_LOADS);
+
+    TableConfig tableConfig =
+        new TableConfig.Builder(CommonConstants.Helix.TableType.OFFLINE).setTableName(RAW_TABLE_NAME).build();
+    ZkHelixPropertyStore<ZNRecord> propertyStore = mock(ZkHelixPropertyStore.class);
+    when(propertyStore.get(anyString(), any(), anyInt())).thenReturn(TableConfig.toZnRecord(tableConfig));
+    ServerMetrics serverMetrics = mock(ServerMetrics.class);
+
+    // Track the number of segments being loaded by the table data manager
+    AtomicInteger numLoadsInProgress = new AtomicInteger();
+    AtomicInteger maxNumLoadsInProgress = new AtomicInteger();
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    doAnswer(invocation -> {
+      int numLoads = numLoadsInProgress.incrementAndGet();
+      maxNumLoadsInProgress.accumulateAndGet(numLoads, Math::max);
+      try {
+        Thread.sleep(10L);
+        File indexDir = invocation.getArgument(0);
+        if (isFailedSegment(indexDir.getName())) {
+          throw new IllegalStateException("Failed to load segment: " + indexDir.getName());
+        }
+        return null;
+      } finally {
+        numLoadsInProgress.decrementAndGet();
+      }
+    }).when(tableDataManager).addSegment(any(File.class), any(IndexLoadingConfig.class));
+
+    HelixInstanceDataManager instanceDataManager = spy(new HelixInstanceDataManager());
+    doReturn(tableDataManager).when(instanceDataManager).createTableDataManager(anyString(), any(TableConfig.class));
+    instanceDataManager.init(config, propertyStore, serverMetrics);
+    ArgumentCaptor<Callable> gaugeCaptor = ArgumentCaptor.forClass(Callable.class);
+    verify(serverMetrics).addCallbackGauge(eq(ServerGauge.SEGMENT_LOADS_IN_PROGRESS.getGaugeName()),
+        gaugeCaptor.capture());
+
+    ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+    List<Future<Void>> futures = new ArrayList<>(NUM_SEGMENTS);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      String segmentName = SEGMENT_NAME_PREFIX + i;
+      futures.add(executorService.submit(() -> {
+        instanceDataManager.addOfflineSegment(OFFLINE_TABLE_NAME, segmentName, new File(TEMP_DIR, segmentName));
+        return null;
+      }));
+    }
+    int numFailedSegments = 0;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        numFailedSegments++;
+      }
+    }
+    executorService.shutdown();
+
+    assertEquals(numFailedSegments, NUM_FAILED_SEGMENTS);
+    assertTrue(maxNumLoadsInProgress.get() > 0);
+    assertTrue(maxNumLoadsInProgress.get() <= MAX_PARALLEL_SEGMENT_LOADS);
+    assertEquals(gaugeCaptor.getValue().call(), 0L);
+    verify(tableDataManager, times(NUM_SEGMENTS)).addSegment(any(File.class), any(IndexLoadingConfig.class));
+    verify(serverMetrics, times(NUM_SEGMENTS - NUM_FAILED_SEGMENTS)).addMeteredGlobalValue(ServerMeter.SEGMENTS_LOADED,
+        1L);
+    verify(serverMetrics, times(NUM_FAILED_SEGMENTS)).addMeteredGlobalValue(ServerMeter.SEGMENT_LOAD_FAILURES, 1L);
+    verify(serverMetrics, times(NUM_SEGMENTS - NUM_FAILED_SEGMENTS)).addTimedValue(
+        eq(ServerTimer.SEGMENT_LOAD_TIME), anyLong(), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testDefaultMaxParallelSegmentLoads() throws Exception {
+    Configuration config = new PropertiesConfiguration();
+    config.addProperty(HelixInstanceDataManagerConfig.INSTANCE_ID, "testInstance");
+    config.addProperty(HelixInstanceDataManagerConfig.INSTANCE_DATA_DIR, new File(TEMP_DIR, "data").getPath());
+    config.addProperty(HelixInstanceDataManagerConfig.READ_MODE, ReadMode.mmap.name());
+
+    // Parallel segment loads should be unlimited unless explicitly configured
+    assertEquals(new HelixInstanceDataManagerConfig(config).getMaxParallelSegmentLoads(), 0);
+  }
+
+  private static boolean isFailedSegment(String segmentName) {
+    return Integer.parseInt(segmentName.substring(SEGMENT_NAME_PREFIX.length())) % 4 == 0;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+}
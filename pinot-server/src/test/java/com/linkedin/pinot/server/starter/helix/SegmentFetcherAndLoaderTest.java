@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2014-2018 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.server.starter.helix;
+
+import com.linkedin.pinot.core.data.manager.InstanceDataManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class SegmentFetcherAndLoaderTest {
+  private static final String SEGMENT_NAME_PREFIX = "testSegment_";
+  private static final int NUM_TABLES = 2;
+  private static final int NUM_SEGMENTS_PER_TABLE = 10;
+  private static final int NUM_SEGMENTS = NUM_TABLES * NUM_SEGMENTS_PER_TABLE;
+  private static final int NUM_THREADS = 3;
+
+  private Map<String, List<String>> _tableSegmentsMap;
+  private SegmentFetcherAndLoader _fetcherAndLoader;
+
+  @SuppressWarnings("unchecked")
+  @BeforeMethod
+  public void setUp() throws Exception {
+    _tableSegmentsMap = new HashMap<>();
+    for (int i = 0; i < NUM_TABLES; i++) {
+      List<String> segmentNames = new ArrayList<>(NUM_SEGMENTS_PER_TABLE);
+      for (int j = 0; j < NUM_SEGMENTS_PER_TABLE; j++) {
+        segmentNames.add(SEGMENT_NAME_PREFIX + j);
+      }
+      _tableSegmentsMap.put("testTable" + i + "_OFFLINE", segmentNames);
+    }
+    _fetcherAndLoader = spy(new SegmentFetcherAndLoader(new PropertiesConfiguration(), mock(InstanceDataManager.class),
+        mock(ZkHelixPropertyStore.class)));
+  }
+
+  @Test
+  public void testAddOrReplaceOfflineSegments() throws Exception {
+    AtomicInteger numSegmentsInProgress = new AtomicInteger();
+    AtomicInteger maxNumSegmentsInProgress = new AtomicInteger();
+    doAnswer(invocation -> {
+      int numSegments = numSegmentsInProgress.incrementAndGet();
+      maxNumSegmentsInProgress.accumulateAndGet(numSegments, Math::max);
+      try {
+        Thread.sleep(10L);
+        // Every 4th segment fails to load
+        String segmentName = invocation.getArgument(1);
+        if (Integer.parseInt(segmentName.substring(SEGMENT_NAME_PREFIX.length())) % 4 == 0) {
+          throw new IllegalStateException("Failed to load segment: " + segmentName);
+        }
+        return null;
+      } finally {
+        numSegmentsInProgress.decrementAndGet();
+      }
+    }).when(_fetcherAndLoader).addOrReplaceOfflineSegment(anyString(), anyString());
+
+    int numFailedSegmentsPerTable = (NUM_SEGMENTS_PER_TABLE + 3) / 4;
+    assertEquals(_fetcherAndLoader.addOrReplaceOfflineSegments(_tableSegmentsMap, NUM_THREADS, 60_000L),
+        NUM_SEGMENTS - NUM_TABLES * numFailedSegmentsPerTable);
+    assertTrue(maxNumSegmentsInProgress.get() > 0);
+    assertTrue(maxNumSegmentsInProgress.get() <= NUM_THREADS);
+    verify(_fetcherAndLoader, times(NUM_SEGMENTS)).addOrReplaceOfflineSegment(anyString(), anyString());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      latch.await();
+      return null;
+    }).when(_fetcherAndLoader).addOrReplaceOfflineSegment(anyString(), anyString());
+
+    long startTime = System.currentTimeMillis();
+    assertEquals(_fetcherAndLoader.addOrReplaceOfflineSegments(_tableSegmentsMap, NUM_THREADS, 100L), 0);
+    assertTrue(System.currentTimeMillis() - startTime < TimeUnit.SECONDS.toMillis(10L));
+
+    // The segments being processed should finish in the background, and the remaining segments should be skipped
+    latch.countDown();
+    verify(_fetcherAndLoader, after(500L).times(NUM_THREADS)).addOrReplaceOfflineSegment(anyString(), anyString());
+  }
+}